@@ -34,6 +34,7 @@ import com.eviware.soapui.impl.rest.RestRequestInterface;
 import com.eviware.soapui.impl.wsdl.AbstractWsdlModelItem;
 import com.eviware.soapui.impl.wsdl.HttpAttachmentPart;
 import com.eviware.soapui.impl.wsdl.WsdlRequest;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.BaseHttpResponse;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.HttpResponse;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.support.methods.IAfterRequestInjection;
 import com.eviware.soapui.impl.wsdl.support.CompressedStringSupport;
@@ -275,6 +276,9 @@ public abstract class AbstractHttpRequest<T extends AbstractRequestConfig> exten
 	{
 		submitListeners.clear();
 
+		if( response instanceof BaseHttpResponse )
+			( ( BaseHttpResponse )response ).release();
+
 		super.release();
 	}
 
@@ -729,7 +733,13 @@ public abstract class AbstractHttpRequest<T extends AbstractRequestConfig> exten
 		HttpResponse oldResponse = getResponse();
 		this.response = response;
 
+		if( response != oldResponse && response instanceof BaseHttpResponse )
+			( ( BaseHttpResponse )response ).retain();
+
 		notifyPropertyChanged( RESPONSE_PROPERTY, oldResponse, response );
+
+		if( response != oldResponse && oldResponse instanceof BaseHttpResponse )
+			( ( BaseHttpResponse )oldResponse ).release();
 	}
 
 	public void resolve( ResolveContext<?> context )
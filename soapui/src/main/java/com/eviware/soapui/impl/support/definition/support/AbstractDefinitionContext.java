@@ -13,6 +13,7 @@
 package com.eviware.soapui.impl.support.definition.support;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -47,6 +48,7 @@ public abstract class AbstractDefinitionContext<T extends AbstractInterface<?>,
 	private String url;
 	private T3 definition;
 	private boolean loaded;
+	private long loadTime = -1;
 	private SchemaException schemaException;
 
 	private final static Logger log = Logger.getLogger( AbstractDefinitionContext.class );
@@ -54,8 +56,10 @@ public abstract class AbstractDefinitionContext<T extends AbstractInterface<?>,
 	private T2 currentLoader;
 	private T iface;
 
-	private static Map<String, InterfaceDefinition<?>> definitionCache = new HashMap<String, InterfaceDefinition<?>>();
+	private static Map<String, InterfaceDefinition<?>> definitionCache = Collections
+			.synchronizedMap( new HashMap<String, InterfaceDefinition<?>>() );
 	private static Map<String, Integer> urlReferences = new HashMap<String, Integer>();
+	private static Map<String, UrlLock> urlLocks = new HashMap<String, UrlLock>();
 
 	public AbstractDefinitionContext( String url, T iface )
 	{
@@ -118,6 +122,42 @@ public abstract class AbstractDefinitionContext<T extends AbstractInterface<?>,
 	private static XProgressDialog progressDialog = null;
 
 	public synchronized boolean load( T2 wsdlLoader ) throws Exception
+	{
+		return load( wsdlLoader, true );
+	}
+
+	/**
+	 * Loads the definition in the calling thread without showing a progress
+	 * dialog, used for loading several definitions in parallel
+	 */
+
+	public synchronized boolean loadInCurrentThread() throws Exception
+	{
+		return load( null, false );
+	}
+
+	private boolean load( T2 wsdlLoader, boolean showProgress ) throws Exception
+	{
+		if( iface == null || !iface.isDefinitionShareble() )
+			return doLoad( wsdlLoader, showProgress );
+
+		// contexts sharing a definition load it once, the others wait for it
+		// and get it from the definitionCache
+		UrlLock lock = acquireUrlLock( url );
+		try
+		{
+			synchronized( lock )
+			{
+				return doLoad( wsdlLoader, showProgress );
+			}
+		}
+		finally
+		{
+			releaseUrlLock( url, lock );
+		}
+	}
+
+	private boolean doLoad( T2 wsdlLoader, boolean showProgress ) throws Exception
 	{
 		// only use cache if iface has been specified
 		if( !loaded && iface != null )
@@ -129,9 +169,65 @@ public abstract class AbstractDefinitionContext<T extends AbstractInterface<?>,
 		if( loaded )
 			return true;
 
-		Loader loader = new Loader( wsdlLoader );
+		long startTime = System.nanoTime();
+		try
+		{
+			return runLoader( new Loader( wsdlLoader ), showProgress );
+		}
+		finally
+		{
+			loadTime = ( System.nanoTime() - startTime ) / 1000000;
+			log.info( "Loading Definition from [" + url + "] took " + loadTime + "ms" );
+		}
+	}
+
+	/**
+	 * Lock for loading the definition of a url, kept in urlLocks only while
+	 * some context is loading from the url
+	 */
+
+	private static final class UrlLock
+	{
+		private int users;
+	}
+
+	private static UrlLock acquireUrlLock( String url )
+	{
+		synchronized( urlLocks )
+		{
+			UrlLock lock = urlLocks.get( url );
+			if( lock == null )
+			{
+				lock = new UrlLock();
+				urlLocks.put( url, lock );
+			}
+
+			lock.users++ ;
+			return lock;
+		}
+	}
+
+	private static void releaseUrlLock( String url, UrlLock lock )
+	{
+		synchronized( urlLocks )
+		{
+			if( --lock.users == 0 )
+				urlLocks.remove( url );
+		}
+	}
 
-		if( progressDialog != null )
+	private boolean runLoader( Loader loader, boolean showProgress ) throws Exception
+	{
+		if( !showProgress )
+		{
+			loader.construct( new XProgressMonitor()
+			{
+				public void setProgress( int value, String string )
+				{
+				}
+			} );
+		}
+		else if( progressDialog != null )
 		{
 			progressDialog.run( loader );
 		}
@@ -179,6 +275,16 @@ public abstract class AbstractDefinitionContext<T extends AbstractInterface<?>,
 		return loaded;
 	}
 
+	/**
+	 * @return the time in ms it took to load the definition, or -1 if it was
+	 *         not loaded by this context
+	 */
+
+	public long getLoadTime()
+	{
+		return loadTime;
+	}
+
 	public SchemaTypeLoader getSchemaTypeLoader() throws Exception
 	{
 		loadIfNecessary();
@@ -283,14 +389,17 @@ public abstract class AbstractDefinitionContext<T extends AbstractInterface<?>,
 
 		if( !currentLoader.isAborted() && iface != null && iface.isDefinitionShareble() )
 		{
-			definitionCache.put( url, definition );
-			if( urlReferences.containsKey( url ) )
+			synchronized( urlReferences )
 			{
-				urlReferences.put( url, urlReferences.get( url ) + 1 );
-			}
-			else
-			{
-				urlReferences.put( url, 1 );
+				definitionCache.put( url, definition );
+				if( urlReferences.containsKey( url ) )
+				{
+					urlReferences.put( url, urlReferences.get( url ) + 1 );
+				}
+				else
+				{
+					urlReferences.put( url, 1 );
+				}
 			}
 		}
 
@@ -308,17 +417,20 @@ public abstract class AbstractDefinitionContext<T extends AbstractInterface<?>,
 
 	public void release()
 	{
-		if( iface != null && urlReferences.containsKey( url ) )
+		synchronized( urlReferences )
 		{
-			Integer i = urlReferences.get( url );
-			if( i.intValue() <= 1 )
+			if( iface != null && urlReferences.containsKey( url ) )
 			{
-				urlReferences.remove( url );
-				definitionCache.remove( url );
-			}
-			else
-			{
-				urlReferences.put( url, i - 1 );
+				Integer i = urlReferences.get( url );
+				if( i.intValue() <= 1 )
+				{
+					urlReferences.remove( url );
+					definitionCache.remove( url );
+				}
+				else
+				{
+					urlReferences.put( url, i - 1 );
+				}
 			}
 		}
 	}
@@ -390,8 +502,11 @@ public abstract class AbstractDefinitionContext<T extends AbstractInterface<?>,
 
 	public static void uncache( String url )
 	{
-		definitionCache.remove( url );
-		urlReferences.remove( url );
+		synchronized( urlReferences )
+		{
+			definitionCache.remove( url );
+			urlReferences.remove( url );
+		}
 	}
 
 	public void reload() throws Exception
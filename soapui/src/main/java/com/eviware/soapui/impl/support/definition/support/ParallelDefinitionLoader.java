@@ -0,0 +1,111 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.support.definition.support;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+
+import com.eviware.soapui.SoapUIThreadCreator;
+import com.eviware.soapui.impl.support.AbstractInterface;
+import com.eviware.soapui.support.StringUtils;
+
+/**
+ * Loads the definitions of a number of interfaces and compiles their schemas
+ * with a bounded number of threads. Interfaces sharing a definition url load
+ * it only once, see AbstractDefinitionContext.
+ */
+
+public class ParallelDefinitionLoader
+{
+	private final static Logger log = Logger.getLogger( ParallelDefinitionLoader.class );
+
+	/**
+	 * @return the time in ms it took to load the definition of each interface
+	 *         that was loaded successfully, 0 for those that were already loaded
+	 */
+
+	public static Map<AbstractInterface<?>, Long> loadDefinitions( List<? extends AbstractInterface<?>> interfaces,
+			int threadCount )
+	{
+		Map<AbstractInterface<?>, Long> result = new LinkedHashMap<AbstractInterface<?>, Long>();
+		List<AbstractInterface<?>> toLoad = new ArrayList<AbstractInterface<?>>();
+		for( AbstractInterface<?> iface : interfaces )
+		{
+			if( StringUtils.hasContent( iface.getDefinition() ) )
+				toLoad.add( iface );
+		}
+
+		if( toLoad.isEmpty() )
+			return result;
+
+		long startTime = System.nanoTime();
+		ExecutorService executor = Executors.newFixedThreadPool( Math.max( 1, Math.min( threadCount, toLoad.size() ) ),
+				new SoapUIThreadCreator() );
+
+		try
+		{
+			List<Future<Long>> futures = new ArrayList<Future<Long>>();
+			for( final AbstractInterface<?> iface : toLoad )
+			{
+				futures.add( executor.submit( new Callable<Long>()
+				{
+					public Long call() throws Exception
+					{
+						AbstractDefinitionContext<?, ?, ?> context = iface.getDefinitionContext();
+						if( context.isLoaded() )
+							return 0L;
+
+						context.loadInCurrentThread();
+						return Math.max( 0, context.getLoadTime() );
+					}
+				} ) );
+			}
+
+			for( int c = 0; c < futures.size(); c++ )
+			{
+				AbstractInterface<?> iface = toLoad.get( c );
+				try
+				{
+					result.put( iface, futures.get( c ).get() );
+				}
+				catch( ExecutionException e )
+				{
+					log.warn( "Failed to load definition of interface [" + iface.getName() + "]: " + e.getCause() );
+				}
+				catch( InterruptedException e )
+				{
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+
+		log.info( "Loaded " + result.size() + " of " + toLoad.size() + " definitions with " + threadCount
+				+ " threads in " + ( System.nanoTime() - startTime ) / 1000000 + "ms" );
+
+		return result;
+	}
+}
@@ -21,8 +21,10 @@ import com.eviware.soapui.impl.rest.support.RestRequestConverter.RestConversionE
 import com.eviware.soapui.impl.settings.XmlBeansSettingsImpl;
 import com.eviware.soapui.impl.support.AbstractInterface;
 import com.eviware.soapui.impl.support.EndpointSupport;
+import com.eviware.soapui.impl.support.definition.support.ParallelDefinitionLoader;
 import com.eviware.soapui.impl.wsdl.endpoint.DefaultEndpointStrategy;
 import com.eviware.soapui.impl.wsdl.mock.WsdlMockService;
+import com.eviware.soapui.impl.wsdl.support.ExpectedRunTimes;
 import com.eviware.soapui.impl.wsdl.support.ExternalDependency;
 import com.eviware.soapui.impl.wsdl.support.PathUtils;
 import com.eviware.soapui.impl.wsdl.support.wsdl.UrlWsdlLoader;
@@ -89,6 +91,8 @@ public class WsdlProject extends AbstractTestPropertyHolderWsdlModelItem<Project
 	public final static String AFTER_LOAD_SCRIPT_PROPERTY = WsdlProject.class.getName() + "@setupScript";
 	public final static String BEFORE_SAVE_SCRIPT_PROPERTY = WsdlProject.class.getName() + "@tearDownScript";
 	public final static String RESOURCE_ROOT_PROPERTY = WsdlProject.class.getName() + "@resourceRoot";
+	public final static String MAX_PARALLEL_PROPERTY = WsdlProject.class.getName() + "@maxParallel";
+	public final static String SAVE_DURATIONS_PROPERTY = WsdlProject.class.getName() + "@saveDurations";
 	private static final String XML_FILE_TYPE = "XML Files (*.xml)";
 	private static final String XML_EXTENSION = ".xml";
 
@@ -133,6 +137,7 @@ public class WsdlProject extends AbstractTestPropertyHolderWsdlModelItem<Project
 
 	private Environment environment;
 	protected EndpointSupport endpointSupport;
+	private ExpectedRunTimes expectedRunTimes;
 
 	protected final static Logger log = Logger.getLogger( WsdlProject.class );
 
@@ -353,6 +358,11 @@ public class WsdlProject extends AbstractTestPropertyHolderWsdlModelItem<Project
 				getConfig().setRunType( TestSuiteRunTypesConfig.SEQUENTIAL );
 
 			afterLoad();
+
+			// optionally load all definitions up front instead of on first use
+			int definitionLoaders = Integer.getInteger( "soapui.definition.loaders", 0 );
+			if( definitionLoaders > 0 )
+				ParallelDefinitionLoader.loadDefinitions( interfaces, definitionLoaders );
 		}
 		catch( Exception e )
 		{
@@ -1984,6 +1994,76 @@ public class WsdlProject extends AbstractTestPropertyHolderWsdlModelItem<Project
 		}
 	}
 
+	/**
+	 * The maximum number of TestSuites run at the same time in a parallel run,
+	 * defaults to the soapui.parallel.max system property; 0 for no limit
+	 */
+
+	public int getMaxParallel()
+	{
+		return ( int )getSettings().getLong( MAX_PARALLEL_PROPERTY, Integer.getInteger( "soapui.parallel.max", 0 ) );
+	}
+
+	public void setMaxParallel( int maxParallel )
+	{
+		int old = getMaxParallel();
+		if( old == maxParallel )
+			return;
+
+		getSettings().setLong( MAX_PARALLEL_PROPERTY, maxParallel );
+		notifyPropertyChanged( MAX_PARALLEL_PROPERTY, old, maxParallel );
+	}
+
+	/**
+	 * Whether the expected run times are saved in a durations file next to the
+	 * project file, defaults to the soapui.parallel.durations.save system
+	 * property
+	 */
+
+	public boolean isSaveDurations()
+	{
+		if( getSettings().isSet( SAVE_DURATIONS_PROPERTY ) )
+			return getSettings().getBoolean( SAVE_DURATIONS_PROPERTY );
+
+		return Boolean.getBoolean( ExpectedRunTimes.SAVE_DURATIONS_PROPERTY );
+	}
+
+	public void setSaveDurations( boolean saveDurations )
+	{
+		boolean old = isSaveDurations();
+		if( old == saveDurations )
+			return;
+
+		getSettings().setBoolean( SAVE_DURATIONS_PROPERTY, saveDurations );
+
+		synchronized( this )
+		{
+			expectedRunTimes = null;
+		}
+
+		notifyPropertyChanged( SAVE_DURATIONS_PROPERTY, old, saveDurations );
+	}
+
+	/**
+	 * The expected run times of the TestSuites and TestCases of this project,
+	 * only kept in a durations file if one is configured or
+	 * {@link #isSaveDurations()} is set
+	 */
+
+	public synchronized ExpectedRunTimes getExpectedRunTimes()
+	{
+		if( expectedRunTimes == null )
+			expectedRunTimes = new ExpectedRunTimes( ExpectedRunTimes.getDurationsFile( isRemote() ? null : path,
+					isSaveDurations() ) );
+
+		return expectedRunTimes;
+	}
+
+	public synchronized void setExpectedRunTimes( ExpectedRunTimes expectedRunTimes )
+	{
+		this.expectedRunTimes = expectedRunTimes;
+	}
+
 	public WsdlTestSuite moveTestSuite( int ix, int offset )
 	{
 		WsdlTestSuite testSuite = testSuites.get( ix );
@@ -32,12 +32,14 @@ import com.eviware.soapui.config.TestSuiteConfig;
 import com.eviware.soapui.config.TestSuiteRunTypesConfig;
 import com.eviware.soapui.config.TestSuiteRunTypesConfig.Enum;
 import com.eviware.soapui.impl.wsdl.loadtest.WsdlLoadTest;
+import com.eviware.soapui.impl.wsdl.support.LazyModelItemList;
 import com.eviware.soapui.impl.wsdl.testcase.WsdlTestCase;
 import com.eviware.soapui.impl.wsdl.testcase.WsdlTestSuiteRunner;
 import com.eviware.soapui.impl.wsdl.teststeps.WsdlTestStep;
 import com.eviware.soapui.model.ModelItem;
 import com.eviware.soapui.model.support.ModelSupport;
 import com.eviware.soapui.model.testsuite.TestCase;
+import com.eviware.soapui.model.testsuite.TestRunListener;
 import com.eviware.soapui.model.testsuite.TestSuite;
 import com.eviware.soapui.model.testsuite.TestSuiteListener;
 import com.eviware.soapui.model.testsuite.TestSuiteRunContext;
@@ -61,11 +63,14 @@ public class WsdlTestSuite extends AbstractTestPropertyHolderWsdlModelItem<TestS
 {
 	public final static String SETUP_SCRIPT_PROPERTY = WsdlTestSuite.class.getName() + "@setupScript";
 	public final static String TEARDOWN_SCRIPT_PROPERTY = WsdlTestSuite.class.getName() + "@tearDownScript";
+	public final static String MAX_PARALLEL_PROPERTY = WsdlTestSuite.class.getName() + "@maxParallel";
 
 	private final WsdlProject project;
-	private List<WsdlTestCase> testCases = new ArrayList<WsdlTestCase>();
+	private final LazyModelItemList<WsdlTestCase, TestCaseConfig> testCases;
+	private boolean loaded;
 	private Set<TestSuiteListener> testSuiteListeners = new HashSet<TestSuiteListener>();
 	private Set<TestSuiteRunListener> testSuiteRunListeners = new HashSet<TestSuiteRunListener>();
+	private final Set<TestRunListener> testCaseRunListeners = new HashSet<TestRunListener>();
 	private SoapUIScriptEngine setupScriptEngine;
 	private SoapUIScriptEngine tearDownScriptEngine;
 
@@ -79,11 +84,25 @@ public class WsdlTestSuite extends AbstractTestPropertyHolderWsdlModelItem<TestS
 
 		setPropertiesConfig( config.getProperties() );
 
-		List<TestCaseConfig> testCaseConfigs = config.getTestCaseList();
-		for( int i = 0; i < testCaseConfigs.size(); i++ )
-		{
-			testCases.add( buildTestCase( testCaseConfigs.get( i ), false ) );
-		}
+		// test cases are built on first access if lazy loading is enabled
+		testCases = new LazyModelItemList<WsdlTestCase, TestCaseConfig>(
+				new LazyModelItemList.Builder<WsdlTestCase, TestCaseConfig>()
+				{
+					public WsdlTestCase build( TestCaseConfig testCaseConfig )
+					{
+						WsdlTestCase testCase = buildTestCase( testCaseConfig, false );
+						if( loaded )
+							testCase.afterLoad();
+
+						synchronized( testCaseRunListeners )
+						{
+							for( TestRunListener listener : testCaseRunListeners )
+								testCase.addTestRunListener( listener );
+						}
+
+						return testCase;
+					}
+				}, config.getTestCaseList(), Boolean.getBoolean( "soapui.project.lazyload" ) );
 
 		if( !config.isSetRunType() )
 			config.setRunType( TestSuiteRunTypesConfig.SEQUENTIAL );
@@ -131,6 +150,42 @@ public class WsdlTestSuite extends AbstractTestPropertyHolderWsdlModelItem<TestS
 		}
 	}
 
+	/**
+	 * The maximum number of TestCases run at the same time in a parallel run,
+	 * defaults to the soapui.parallel.max system property; 0 for no limit
+	 */
+
+	public int getMaxParallel()
+	{
+		return ( int )getSettings().getLong( MAX_PARALLEL_PROPERTY, Integer.getInteger( "soapui.parallel.max", 0 ) );
+	}
+
+	public void setMaxParallel( int maxParallel )
+	{
+		int old = getMaxParallel();
+		if( old == maxParallel )
+			return;
+
+		getSettings().setLong( MAX_PARALLEL_PROPERTY, maxParallel );
+		notifyPropertyChanged( MAX_PARALLEL_PROPERTY, old, maxParallel );
+	}
+
+	/**
+	 * The time this TestSuite is expected to take, averaged over its parallel runs
+	 * and used for starting long-running TestSuites first; kept in the
+	 * project's durations file, see {@link WsdlProject#getExpectedRunTimes()}
+	 */
+
+	public long getExpectedRunTime()
+	{
+		return getProject().getExpectedRunTimes().get( getId() );
+	}
+
+	public void setExpectedRunTime( long expectedRunTime )
+	{
+		getProject().getExpectedRunTimes().set( getId(), expectedRunTime );
+	}
+
 	public WsdlProject getProject()
 	{
 		return project;
@@ -148,7 +203,7 @@ public class WsdlTestSuite extends AbstractTestPropertyHolderWsdlModelItem<TestS
 
 	public WsdlTestCase getTestCaseByName( String testCaseName )
 	{
-		return ( WsdlTestCase )getWsdlModelItemByName( testCases, testCaseName );
+		return testCases.getByName( testCaseName );
 	}
 
 	public WsdlTestCase cloneTestCase( WsdlTestCase testCase, String name )
@@ -345,6 +400,33 @@ public class WsdlTestSuite extends AbstractTestPropertyHolderWsdlModelItem<TestS
 		testSuiteRunListeners.remove( listener );
 	}
 
+	/**
+	 * Adds a TestRunListener to all TestCases of this TestSuite, including the
+	 * ones that are built later on when loading lazily
+	 */
+
+	public void addTestCaseRunListener( TestRunListener listener )
+	{
+		synchronized( testCaseRunListeners )
+		{
+			testCaseRunListeners.add( listener );
+		}
+
+		for( WsdlTestCase testCase : testCases.getBuiltItems() )
+			testCase.addTestRunListener( listener );
+	}
+
+	public void removeTestCaseRunListener( TestRunListener listener )
+	{
+		synchronized( testCaseRunListeners )
+		{
+			testCaseRunListeners.remove( listener );
+		}
+
+		for( WsdlTestCase testCase : testCases.getBuiltItems() )
+			testCase.removeTestRunListener( listener );
+	}
+
 	public int getTestCaseIndex( TestCase testCase )
 	{
 		return testCases.indexOf( testCase );
@@ -355,7 +437,7 @@ public class WsdlTestSuite extends AbstractTestPropertyHolderWsdlModelItem<TestS
 	{
 		super.release();
 
-		for( WsdlTestCase testCase : testCases )
+		for( WsdlTestCase testCase : testCases.getBuiltItems() )
 			testCase.release();
 
 		testSuiteListeners.clear();
@@ -435,7 +517,10 @@ public class WsdlTestSuite extends AbstractTestPropertyHolderWsdlModelItem<TestS
 		getConfig().setTestCaseArray( configs );
 		for( int c = 0; c < configs.length; c++ )
 		{
-			testCases.get( c ).resetConfigOnMove( getConfig().getTestCaseArray( c ) );
+			if( testCases.isBuilt( c ) )
+				testCases.get( c ).resetConfigOnMove( getConfig().getTestCaseArray( c ) );
+
+			testCases.setConfig( c, getConfig().getTestCaseArray( c ) );
 		}
 
 		fireTestCaseMoved( testCase, ix, offset );
@@ -452,6 +537,24 @@ public class WsdlTestSuite extends AbstractTestPropertyHolderWsdlModelItem<TestS
 		return getTestCaseList();
 	}
 
+	@Override
+	public void afterLoad()
+	{
+		// test cases that have not been built yet get afterLoad when they are
+		for( WsdlTestCase testCase : testCases.getBuiltItems() )
+			testCase.afterLoad();
+
+		loaded = true;
+	}
+
+	@Override
+	public void beforeSave()
+	{
+		// the configs of test cases that have not been built are unchanged
+		for( WsdlTestCase testCase : testCases.getBuiltItems() )
+			testCase.beforeSave();
+	}
+
 	public void setSetupScript( String script )
 	{
 		String oldScript = getSetupScript();
@@ -740,7 +843,10 @@ public class WsdlTestSuite extends AbstractTestPropertyHolderWsdlModelItem<TestS
 		List<TestCaseConfig> configs = getConfig().getTestCaseList();
 		for( int c = 0; c < configs.size(); c++ )
 		{
-			testCases.get( c ).resetConfigOnMove( configs.get( c ) );
+			if( testCases.isBuilt( c ) )
+				testCases.get( c ).resetConfigOnMove( configs.get( c ) );
+
+			testCases.setConfig( c, configs.get( c ) );
 		}
 
 		setPropertiesConfig( testSuiteConfig.getProperties() );
@@ -58,6 +58,9 @@ public class LoadTestOptionsAction extends AbstractSoapUIAction<WsdlLoadTest>
 		dialog.setIntValue( SettingsForm.STRATEGY_INTERVAL, ( int )loadTest.getStrategyInterval() );
 		dialog.setBooleanValue( SettingsForm.CANCEL_EXCESSIVE, loadTest.getCancelExcessiveThreads() );
 		dialog.setBooleanValue( SettingsForm.TESTSTEP_STATISTICS, loadTest.getUpdateStatisticsPerTestStep() );
+		dialog.setBooleanValue( SettingsForm.HTTP_PHASE_STATISTICS, loadTest.getHttpPhaseStatistics() );
+		dialog.setBooleanValue( SettingsForm.METRICS_ONLY, loadTest.getMetricsOnly() );
+		dialog.setIntValue( SettingsForm.RESULT_SAMPLE_RATE, loadTest.getResultSampleRate() );
 
 		Settings settings = loadTest.getSettings();
 
@@ -87,6 +90,10 @@ public class LoadTestOptionsAction extends AbstractSoapUIAction<WsdlLoadTest>
 						WsdlLoadTest.DEFAULT_STRATEGY_INTERVAL ) );
 				loadTest.setCancelExcessiveThreads( dialog.getBooleanValue( SettingsForm.CANCEL_EXCESSIVE ) );
 				loadTest.setUpdateStatisticsPerTestStep( dialog.getBooleanValue( SettingsForm.TESTSTEP_STATISTICS ) );
+				loadTest.setHttpPhaseStatistics( dialog.getBooleanValue( SettingsForm.HTTP_PHASE_STATISTICS ) );
+				loadTest.setMetricsOnly( dialog.getBooleanValue( SettingsForm.METRICS_ONLY ) );
+				loadTest.setResultSampleRate( dialog.getIntValue( SettingsForm.RESULT_SAMPLE_RATE,
+						loadTest.getResultSampleRate() ) );
 
 				settings.setBoolean( HttpSettings.INCLUDE_REQUEST_IN_TIME_TAKEN,
 						dialog.getBooleanValue( SettingsForm.INCLUDE_REQUEST ) );
@@ -144,6 +151,15 @@ public class LoadTestOptionsAction extends AbstractSoapUIAction<WsdlLoadTest>
 		@AField( name = "TestStep Statistics", description = "update statistics every TestStep", type = AFieldType.BOOLEAN )
 		public final static String TESTSTEP_STATISTICS = "TestStep Statistics";
 
+		@AField( name = "HTTP Phase Statistics", description = "show DNS, connect, SSL, time to first byte and read times", type = AFieldType.BOOLEAN )
+		public final static String HTTP_PHASE_STATISTICS = "HTTP Phase Statistics";
+
+		@AField( name = "Metrics Only", description = "only keep results of failed TestSteps", type = AFieldType.BOOLEAN )
+		public final static String METRICS_ONLY = "Metrics Only";
+
+		@AField( name = "Result Sample Rate", description = "percentage of runs to keep all results for in metrics-only mode", type = AFieldType.INT )
+		public final static String RESULT_SAMPLE_RATE = "Result Sample Rate";
+
 		@AField( name = "Include Request Write", description = "in calculated time", type = AFieldType.BOOLEAN )
 		public final static String INCLUDE_REQUEST = "Include Request Write";
 
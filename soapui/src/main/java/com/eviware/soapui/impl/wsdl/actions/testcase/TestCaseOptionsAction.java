@@ -44,6 +44,8 @@ public class TestCaseOptionsAction extends AbstractSoapUIAction<WsdlTestCase>
 	public static final String SOAPUI_ACTION_ID = "TestCaseOptionsAction";
 	private static final String TESTCASE_TIMEOUT = "TestCase timeout";
 	private static final String MAXRESULTS = "Max Results";
+	private static final String DEPENDS_ON = "Depends On";
+	private static final String EXCLUSIVE_TAGS = "Exclusive Tags";
 	private static final String WS_RM_ENABLED = "WS-RM Enabled";
 	private static final String WS_RM_VERSION = "WS-RM Version";
 	private static final String WS_RM_ACK_TO = "WS-RM Ack To";
@@ -86,6 +88,11 @@ public class TestCaseOptionsAction extends AbstractSoapUIAction<WsdlTestCase>
 			form.addTextField( TESTCASE_TIMEOUT, "Timeout in milliseconds for entire TestCase", FieldType.TEXT );
 			form.addTextField( MAXRESULTS, "Maximum number of TestStep results to keep in memory during a run",
 					FieldType.TEXT );
+			form.addTextField( DEPENDS_ON,
+					"Comma-separated TestCases that must finish before this one starts in a parallel run", FieldType.TEXT );
+			form.addTextField( EXCLUSIVE_TAGS,
+					"Comma-separated tags, TestCases sharing a tag are not run at the same time in a parallel run",
+					FieldType.TEXT );
 
 			wsrmForm = builder.createForm( "WS-RM" );
 			wsrmForm.addCheckBox( WS_RM_ENABLED, "Use WS-Reliable Messaging" );
@@ -116,6 +123,8 @@ public class TestCaseOptionsAction extends AbstractSoapUIAction<WsdlTestCase>
 		values.put( SOCKET_TIMEOUT, String.valueOf( testCase.getSettings().getString( HttpSettings.SOCKET_TIMEOUT, "" ) ) );
 		values.put( TESTCASE_TIMEOUT, String.valueOf( testCase.getTimeout() ) );
 		values.put( MAXRESULTS, String.valueOf( testCase.getMaxResults() ) );
+		values.put( DEPENDS_ON, testCase.getDependsOn() );
+		values.put( EXCLUSIVE_TAGS, testCase.getExclusiveTags() );
 
 		values.put( WS_RM_ENABLED, String.valueOf( testCase.getWsrmEnabled() ) );
 		values.put( WS_RM_VERSION, String.valueOf( testCase.getWsrmVersion() ) );
@@ -145,6 +154,8 @@ public class TestCaseOptionsAction extends AbstractSoapUIAction<WsdlTestCase>
 				testCase.setFailTestCaseOnErrors( Boolean.parseBoolean( values.get( FAIL_TESTCASE_ON_ERROR ) ) );
 				testCase.setTimeout( Long.parseLong( values.get( TESTCASE_TIMEOUT ) ) );
 				testCase.setMaxResults( Integer.parseInt( values.get( MAXRESULTS ) ) );
+				testCase.setDependsOn( values.get( DEPENDS_ON ) );
+				testCase.setExclusiveTags( values.get( EXCLUSIVE_TAGS ) );
 				testCase.setWsrmEnabled( Boolean.parseBoolean( values.get( WS_RM_ENABLED ) ) );
 				testCase.setWsrmVersion( values.get( WS_RM_VERSION ) );
 				testCase.setWsrmAckTo( values.get( WS_RM_ACK_TO ) );
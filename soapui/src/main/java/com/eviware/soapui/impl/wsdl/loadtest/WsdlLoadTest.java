@@ -84,6 +84,9 @@ public class WsdlLoadTest extends AbstractWsdlModelItem<LoadTestConfig> implemen
 	public final static String LIMITTYPE_PROPERRY = WsdlLoadTest.class.getName() + "@limittype";
 	public final static String SAMPLEINTERVAL_PROPERRY = WsdlLoadTest.class.getName() + "@sample-interval";
 	public static final String MAXASSERTIONERRORS_PROPERTY = WsdlLoadTest.class.getName() + "@max-assertion-errors";
+	public final static String HTTP_PHASE_STATISTICS_PROPERTY = WsdlLoadTest.class.getName() + "@http-phase-statistics";
+	public final static String METRICS_ONLY_PROPERTY = WsdlLoadTest.class.getName() + "@metrics-only";
+	public final static String RESULT_SAMPLE_RATE_PROPERTY = WsdlLoadTest.class.getName() + "@result-sample-rate";
 	public final static String SETUP_SCRIPT_PROPERTY = WsdlTestCase.class.getName() + "@setupScript";
 	public final static String TEARDOWN_SCRIPT_PROPERTY = WsdlTestCase.class.getName() + "@tearDownScript";
 
@@ -105,6 +108,7 @@ public class WsdlLoadTest extends AbstractWsdlModelItem<LoadTestConfig> implemen
 	private List<LoadTestLogErrorEntry> assertionErrors = new TreeList();
 	private WsdlLoadTestRunner runner;
 	private StatisticsLogger statisticsLogger = new StatisticsLogger();
+	private boolean keepingStatistics;
 	private SoapUIScriptEngine setupScriptEngine;
 	private SoapUIScriptEngine tearDownScriptEngine;
 	@SuppressWarnings( "unused" )
@@ -230,6 +234,37 @@ public class WsdlLoadTest extends AbstractWsdlModelItem<LoadTestConfig> implemen
 		notifyPropertyChanged( THREADCOUNT_PROPERTY, oldCount, threadCount );
 	}
 
+	/**
+	 * Changes the thread count without resetting the statistics, whatever the
+	 * ResetStatisticsOnThreadCountChange setting is; for LoadStrategies and
+	 * the LoadTest coordinator, which change the thread count during a run
+	 * themselves
+	 */
+
+	public void setThreadCountKeepingStatistics( long threadCount )
+	{
+		keepingStatistics = true;
+
+		try
+		{
+			setThreadCount( threadCount );
+		}
+		finally
+		{
+			keepingStatistics = false;
+		}
+	}
+
+	/**
+	 * @return true while the thread count is changed by
+	 *         setThreadCountKeepingStatistics
+	 */
+
+	public boolean isKeepingStatistics()
+	{
+		return keepingStatistics;
+	}
+
 	public boolean getResetStatisticsOnThreadCountChange()
 	{
 		return getConfig().getResetStatisticsOnThreadCountChange();
@@ -821,7 +856,11 @@ public class WsdlLoadTest extends AbstractWsdlModelItem<LoadTestConfig> implemen
 
 		private void addHeaders( PrintWriter writer )
 		{
-			writer.print( "date,threads,elapsed,min,max,avg,last,cnt,tps,bytes,bps,err,reason\n" );
+			writer.print( "date,threads,elapsed" );
+			for( int c = 2; c < statisticsModel.getColumnCount(); c++ )
+				writer.print( "," + statisticsModel.getColumnName( c ) );
+
+			writer.print( ",reason\n" );
 		}
 
 		public void finish()
@@ -963,6 +1002,68 @@ public class WsdlLoadTest extends AbstractWsdlModelItem<LoadTestConfig> implemen
 		getConfig().setUpdateStatisticsPerTestStep( updateStatisticsPerTestStep );
 	}
 
+	/**
+	 * @return if the statistics include the DNS, connect, SSL handshake, time to
+	 *         first byte and read times of HTTP requests
+	 */
+
+	public boolean getHttpPhaseStatistics()
+	{
+		return getSettings().getBoolean( HTTP_PHASE_STATISTICS_PROPERTY );
+	}
+
+	public void setHttpPhaseStatistics( boolean httpPhaseStatistics )
+	{
+		boolean old = getHttpPhaseStatistics();
+		if( old == httpPhaseStatistics )
+			return;
+
+		getSettings().setBoolean( HTTP_PHASE_STATISTICS_PROPERTY, httpPhaseStatistics );
+		notifyPropertyChanged( HTTP_PHASE_STATISTICS_PROPERTY, old, httpPhaseStatistics );
+	}
+
+	/**
+	 * @return if statistics are collected from compact per-step samples instead
+	 *         of retaining the TestStepResults of each run; results of failed
+	 *         steps are always retained
+	 */
+
+	public boolean getMetricsOnly()
+	{
+		return getSettings().getBoolean( METRICS_ONLY_PROPERTY );
+	}
+
+	public void setMetricsOnly( boolean metricsOnly )
+	{
+		boolean old = getMetricsOnly();
+		if( old == metricsOnly )
+			return;
+
+		getSettings().setBoolean( METRICS_ONLY_PROPERTY, metricsOnly );
+		notifyPropertyChanged( METRICS_ONLY_PROPERTY, old, metricsOnly );
+	}
+
+	/**
+	 * @return the percentage of runs for which all TestStepResults are retained
+	 *         in metrics-only mode
+	 */
+
+	public int getResultSampleRate()
+	{
+		return ( int )getSettings().getLong( RESULT_SAMPLE_RATE_PROPERTY, 0 );
+	}
+
+	public void setResultSampleRate( int resultSampleRate )
+	{
+		resultSampleRate = Math.max( 0, Math.min( 100, resultSampleRate ) );
+		int old = getResultSampleRate();
+		if( old == resultSampleRate )
+			return;
+
+		getSettings().setLong( RESULT_SAMPLE_RATE_PROPERTY, resultSampleRate );
+		notifyPropertyChanged( RESULT_SAMPLE_RATE_PROPERTY, old, resultSampleRate );
+	}
+
 	public TestRunner run( StringToObjectMap context, boolean async )
 	{
 		// TODO Auto-generated method stub
@@ -19,6 +19,7 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 import org.apache.xmlbeans.XmlException;
@@ -29,6 +30,7 @@ import com.eviware.soapui.config.LoadTestLimitTypesConfig;
 import com.eviware.soapui.config.SecurityTestConfig;
 import com.eviware.soapui.config.TestCaseConfig;
 import com.eviware.soapui.impl.wsdl.loadtest.log.LoadTestLogMessageEntry;
+import com.eviware.soapui.impl.wsdl.support.TestStepSamples;
 import com.eviware.soapui.impl.wsdl.testcase.WsdlTestCase;
 import com.eviware.soapui.impl.wsdl.testcase.WsdlTestCaseRunner;
 import com.eviware.soapui.model.settings.Settings;
@@ -44,7 +46,9 @@ import com.eviware.soapui.model.testsuite.TestStepResult;
 import com.eviware.soapui.settings.HttpSettings;
 import com.eviware.soapui.settings.WsdlSettings;
 import com.eviware.soapui.support.UISupport;
+import com.eviware.soapui.support.scripting.groovy.GroovyScriptCache;
 import com.eviware.soapui.support.types.StringToObjectMap;
+import com.eviware.soapui.support.xml.XPathCache;
 import com.eviware.x.dialogs.Worker;
 import com.eviware.x.dialogs.XProgressDialog;
 import com.eviware.x.dialogs.XProgressMonitor;
@@ -75,6 +79,12 @@ public class WsdlLoadTestRunner implements LoadTestRunner
 	private TestCaseStarter testCaseStarter;
 	private boolean stopped;
 	private TestCaseConfig blueprintConfig;
+	private long scriptCacheHits;
+	private long scriptCacheMisses;
+	private long namespaceCacheHits;
+	private long namespaceCacheMisses;
+	private long expressionCacheHits;
+	private long expressionCacheMisses;
 
 	public WsdlLoadTestRunner( WsdlLoadTest test )
 	{
@@ -98,6 +108,13 @@ public class WsdlLoadTestRunner implements LoadTestRunner
 		startedCount = 0;
 		context = new WsdlLoadTestContext( this );
 
+		scriptCacheHits = GroovyScriptCache.getInstance().getHitCount();
+		scriptCacheMisses = GroovyScriptCache.getInstance().getMissCount();
+		namespaceCacheHits = XPathCache.getInstance().getNamespaceHitCount();
+		namespaceCacheMisses = XPathCache.getInstance().getNamespaceMissCount();
+		expressionCacheHits = XPathCache.getInstance().getExpressionHitCount();
+		expressionCacheMisses = XPathCache.getInstance().getExpressionMissCount();
+
 		try
 		{
 			loadTest.runSetupScript( context, this );
@@ -342,6 +359,33 @@ public class WsdlLoadTestRunner implements LoadTestRunner
 		loadTest.getLoadTestLog().addEntry(
 				new LoadTestLogMessageEntry( "LoadTest ended at " + new Date( System.currentTimeMillis() ) ) );
 
+		long compiledScripts = GroovyScriptCache.getInstance().getMissCount() - scriptCacheMisses;
+		long reusedScripts = GroovyScriptCache.getInstance().getHitCount() - scriptCacheHits;
+		if( compiledScripts + reusedScripts > 0 )
+		{
+			loadTest.getLoadTestLog().addEntry(
+					new LoadTestLogMessageEntry( "Compiled " + compiledScripts + " scripts, reused " + reusedScripts
+							+ " compiled scripts" ) );
+		}
+
+		long declaredNamespaces = XPathCache.getInstance().getNamespaceMissCount() - namespaceCacheMisses;
+		long reusedNamespaces = XPathCache.getInstance().getNamespaceHitCount() - namespaceCacheHits;
+		if( declaredNamespaces + reusedNamespaces > 0 )
+		{
+			loadTest.getLoadTestLog().addEntry(
+					new LoadTestLogMessageEntry( "Declared XPath namespaces for " + declaredNamespaces
+							+ " documents, reused declarations " + reusedNamespaces + " times" ) );
+		}
+
+		long compiledExpressions = XPathCache.getInstance().getExpressionMissCount() - expressionCacheMisses;
+		long reusedExpressions = XPathCache.getInstance().getExpressionHitCount() - expressionCacheHits;
+		if( compiledExpressions + reusedExpressions > 0 )
+		{
+			loadTest.getLoadTestLog().addEntry(
+					new LoadTestLogMessageEntry( "Compiled " + compiledExpressions + " XPath/XQuery expressions, reused "
+							+ reusedExpressions + " compiled expressions" ) );
+		}
+
 		try
 		{
 			tearDown();
@@ -527,6 +571,15 @@ public class WsdlLoadTestRunner implements LoadTestRunner
 
 				runner = new WsdlTestCaseRunner( testCase, new StringToObjectMap() );
 
+				boolean metricsOnly = loadTest.getMetricsOnly();
+				int resultSampleRate = loadTest.getResultSampleRate();
+				Random random = null;
+				if( metricsOnly )
+				{
+					runner.setStepSamples( new TestStepSamples() );
+					random = new Random();
+				}
+
 				while( !canceled )
 				{
 					try
@@ -541,6 +594,9 @@ public class WsdlLoadTestRunner implements LoadTestRunner
 							runner.getRunContext().setProperty( TestCaseRunContext.TOTAL_RUN_COUNT, startedCount++ );
 						}
 
+						if( metricsOnly )
+							runner.setRetainResults( resultSampleRate > 0 && random.nextInt( 100 ) < resultSampleRate );
+
 						runner.run();
 					}
 					catch( Throwable e )
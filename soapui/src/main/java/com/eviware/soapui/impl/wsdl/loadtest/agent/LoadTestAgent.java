@@ -0,0 +1,477 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.loadtest.agent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.log4j.Logger;
+
+import com.eviware.soapui.SoapUI;
+import com.eviware.soapui.impl.wsdl.WsdlProject;
+import com.eviware.soapui.impl.wsdl.WsdlTestSuite;
+import com.eviware.soapui.impl.wsdl.loadtest.agent.LoadTestAgentProtocol.Channel;
+import com.eviware.soapui.impl.wsdl.loadtest.agent.LoadTestAgentProtocol.Frame;
+import com.eviware.soapui.impl.wsdl.loadtest.WsdlLoadTest;
+import com.eviware.soapui.impl.wsdl.loadtest.WsdlLoadTestRunner;
+import com.eviware.soapui.impl.wsdl.loadtest.data.LoadTestStatistics;
+import com.eviware.soapui.impl.wsdl.loadtest.data.StatisticsSnapshot;
+import com.eviware.soapui.impl.wsdl.loadtest.log.LoadTestLog;
+import com.eviware.soapui.impl.wsdl.loadtest.log.LoadTestLogEntry;
+import com.eviware.soapui.impl.wsdl.testcase.WsdlTestCase;
+import com.eviware.soapui.model.project.ProjectFactoryRegistry;
+
+/**
+ * Runs shares of LoadTests for a {@link LoadTestCoordinator}. The agent listens
+ * for coordinator connections and runs one LoadTest at a time: the project
+ * received from the coordinator is loaded, the LoadTest is run with the thread
+ * count and limit of its share, and the statistics and log entries are sent
+ * back to the coordinator until the LoadTest has finished.
+ * <p>
+ * Since a coordinator can make the agent run any project, including Groovy
+ * scripts, coordinators must authenticate with the shared secret before the
+ * project is read, and the agent only listens on the loopback interface unless
+ * another bind address is specified. Messages are authenticated but not
+ * encrypted, so agents listening on other interfaces must only be reached
+ * through TLS (see {@link LoadTestAgentProtocol}).
+ * </p>
+ */
+
+public class LoadTestAgent
+{
+	private final static Logger log = Logger.getLogger( LoadTestAgent.class );
+
+	private final static int AUTHENTICATION_TIMEOUT = 10000;
+
+	private final String bindAddress;
+	private final int port;
+	private final String secret;
+	private final SecureRandom random = new SecureRandom();
+	private ServerSocket serverSocket;
+	private volatile boolean stopped;
+
+	/**
+	 * @param bindAddress
+	 *           the address to listen on, null for the loopback interface
+	 * @param secret
+	 *           the secret coordinators must authenticate with
+	 */
+
+	public LoadTestAgent( String bindAddress, int port, String secret )
+	{
+		if( secret == null || secret.length() == 0 )
+			throw new IllegalArgumentException( "Missing LoadTest agent secret" );
+
+		this.bindAddress = bindAddress;
+		this.port = port;
+		this.secret = secret;
+	}
+
+	public synchronized void start() throws IOException
+	{
+		// getByName( null ) is the loopback address
+		serverSocket = new ServerSocket( port, 50, InetAddress.getByName( bindAddress ) );
+		stopped = false;
+
+		log.info( "LoadTest agent listening on " + serverSocket.getInetAddress().getHostAddress() + " port "
+				+ serverSocket.getLocalPort() );
+	}
+
+	/**
+	 * @return the port the agent is listening on, which differs from the
+	 *         configured port if that was 0
+	 */
+
+	public int getPort()
+	{
+		return serverSocket == null ? port : serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Accepts coordinator connections until stopped
+	 *
+	 * @param maxRuns
+	 *           the number of LoadTests to run before returning, 0 for no
+	 *           limit
+	 */
+
+	public void serve( int maxRuns ) throws IOException
+	{
+		int runs = 0;
+
+		while( !stopped && ( maxRuns <= 0 || runs < maxRuns ) )
+		{
+			Socket socket;
+			try
+			{
+				socket = serverSocket.accept();
+			}
+			catch( SocketException e )
+			{
+				if( stopped )
+					break;
+
+				throw e;
+			}
+
+			try
+			{
+				// rejected connections do not count as runs
+				if( handle( socket ) )
+					runs++ ;
+			}
+			catch( Exception e )
+			{
+				log.error( "Failed to run LoadTest for coordinator " + socket.getRemoteSocketAddress(), e );
+				runs++ ;
+			}
+			finally
+			{
+				try
+				{
+					socket.close();
+				}
+				catch( IOException e )
+				{
+				}
+			}
+		}
+	}
+
+	public synchronized void stop()
+	{
+		stopped = true;
+
+		if( serverSocket != null )
+		{
+			try
+			{
+				serverSocket.close();
+			}
+			catch( IOException e )
+			{
+				SoapUI.logError( e );
+			}
+		}
+	}
+
+	/**
+	 * @return false if the connection was rejected before a LoadTest was
+	 *         started
+	 */
+
+	private boolean handle( Socket socket ) throws Exception
+	{
+		socket.setTcpNoDelay( true );
+
+		DataInputStream socketIn = new DataInputStream( new BufferedInputStream( socket.getInputStream() ) );
+		DataOutputStream socketOut = new DataOutputStream( new BufferedOutputStream( socket.getOutputStream() ) );
+
+		Channel channel;
+		try
+		{
+			channel = authenticate( socket, socketIn, socketOut );
+			if( channel == null )
+				return false;
+		}
+		catch( IOException e )
+		{
+			log.warn( "Rejected connection from " + socket.getRemoteSocketAddress() + ": " + e );
+			return false;
+		}
+
+		DataInputStream in = channel.receive();
+		if( in.readByte() != LoadTestAgentProtocol.START )
+			throw new IOException( "Expected START from coordinator" );
+
+		String projectName = LoadTestAgentProtocol.readString( in );
+		byte[] projectContent = new byte[in.readInt()];
+		in.readFully( projectContent );
+		String projectPassword = LoadTestAgentProtocol.readString( in );
+		String testSuiteName = LoadTestAgentProtocol.readString( in );
+		String testCaseName = LoadTestAgentProtocol.readString( in );
+		String loadTestName = LoadTestAgentProtocol.readString( in );
+		long threadCount = in.readLong();
+		long testLimit = in.readLong();
+		int snapshotInterval = in.readInt();
+
+		log.info( "Running " + threadCount + " threads of LoadTest [" + loadTestName + "] in project [" + projectName
+				+ "] for coordinator " + socket.getRemoteSocketAddress() );
+
+		File projectFile = File.createTempFile( "soapui-agent-", ".xml" );
+		WsdlProject project = null;
+
+		try
+		{
+			FileOutputStream projectOut = new FileOutputStream( projectFile );
+			try
+			{
+				projectOut.write( projectContent );
+			}
+			finally
+			{
+				projectOut.close();
+			}
+
+			project = ( WsdlProject )ProjectFactoryRegistry.getProjectFactory( "wsdl" ).createNew(
+					projectFile.getAbsolutePath(), projectPassword );
+
+			if( project.isDisabled() )
+			{
+				sendFailed( channel, "Failed to load project [" + projectName + "]" );
+				return true;
+			}
+
+			WsdlLoadTest loadTest = findLoadTest( project, testSuiteName, testCaseName, loadTestName );
+			if( loadTest == null )
+			{
+				sendFailed( channel, "Missing LoadTest [" + loadTestName + "] in TestCase [" + testCaseName
+						+ "] of TestSuite [" + testSuiteName + "]" );
+				return true;
+			}
+
+			loadTest.setThreadCount( threadCount );
+			if( testLimit >= 0 )
+				loadTest.setTestLimit( testLimit );
+
+			runLoadTest( loadTest, channel, snapshotInterval );
+			return true;
+		}
+		finally
+		{
+			if( project != null )
+				project.release();
+
+			if( !projectFile.delete() )
+				projectFile.deleteOnExit();
+		}
+	}
+
+	/**
+	 * Challenges the coordinator to prove that it knows the secret, nothing
+	 * else is read from the connection before it has
+	 *
+	 * @return the channel for the session, or null if the coordinator has been
+	 *         rejected
+	 */
+
+	private Channel authenticate( Socket socket, DataInputStream in, DataOutputStream out ) throws IOException
+	{
+		// do not let a silent client block the agent
+		socket.setSoTimeout( AUTHENTICATION_TIMEOUT );
+
+		if( in.readInt() != LoadTestAgentProtocol.MAGIC )
+		{
+			log.warn( "Rejected connection from " + socket.getRemoteSocketAddress() + ", not a LoadTest coordinator" );
+			return null;
+		}
+
+		int version = in.readInt();
+		if( version != LoadTestAgentProtocol.VERSION )
+		{
+			sendFailed( out, "Unsupported protocol version " + version );
+			return null;
+		}
+
+		byte[] challenge = new byte[LoadTestAgentProtocol.CHALLENGE_LENGTH];
+		random.nextBytes( challenge );
+
+		out.writeByte( LoadTestAgentProtocol.CHALLENGE );
+		out.write( challenge );
+		out.flush();
+
+		if( in.readByte() != LoadTestAgentProtocol.AUTHENTICATE )
+		{
+			log.warn( "Rejected connection from " + socket.getRemoteSocketAddress() + ", not authenticated" );
+			return null;
+		}
+
+		byte[] expected = LoadTestAgentProtocol.authenticate( secret, challenge );
+		int length = in.readInt();
+		if( length != expected.length )
+		{
+			sendFailed( out, "Authentication failed for " + socket.getRemoteSocketAddress() );
+			return null;
+		}
+
+		byte[] answer = new byte[length];
+		in.readFully( answer );
+
+		byte[] nonce = new byte[LoadTestAgentProtocol.CHALLENGE_LENGTH];
+		in.readFully( nonce );
+
+		if( !MessageDigest.isEqual( expected, answer ) )
+		{
+			sendFailed( out, "Authentication failed for " + socket.getRemoteSocketAddress() );
+			return null;
+		}
+
+		out.writeByte( LoadTestAgentProtocol.AUTHENTICATED );
+		out.flush();
+
+		socket.setSoTimeout( 0 );
+		return new Channel( in, out, LoadTestAgentProtocol.createSessionKey( secret, challenge, nonce, false ),
+				LoadTestAgentProtocol.createSessionKey( secret, challenge, nonce, true ) );
+	}
+
+	private WsdlLoadTest findLoadTest( WsdlProject project, String testSuiteName, String testCaseName,
+			String loadTestName )
+	{
+		WsdlTestSuite testSuite = project.getTestSuiteByName( testSuiteName );
+		if( testSuite == null )
+			return null;
+
+		WsdlTestCase testCase = testSuite.getTestCaseByName( testCaseName );
+		if( testCase == null )
+			return null;
+
+		return ( WsdlLoadTest )testCase.getLoadTestByName( loadTestName );
+	}
+
+	private void runLoadTest( WsdlLoadTest loadTest, final Channel channel, int snapshotInterval )
+			throws IOException, InterruptedException
+	{
+		// entries are sent as they are added, so clearing the log in between
+		// does not affect which entries are sent
+		LoadTestLog loadTestLog = loadTest.getLoadTestLog();
+		Queue<LoadTestLogEntry> logEntries = new ConcurrentLinkedQueue<LoadTestLogEntry>();
+		loadTestLog.addEntryQueue( logEntries );
+
+		try
+		{
+			runLoadTest( loadTest, channel, snapshotInterval, logEntries );
+		}
+		finally
+		{
+			loadTestLog.removeEntryQueue( logEntries );
+		}
+	}
+
+	private void runLoadTest( WsdlLoadTest loadTest, final Channel channel, int snapshotInterval,
+			Queue<LoadTestLogEntry> logEntries ) throws IOException, InterruptedException
+	{
+		final WsdlLoadTestRunner runner = loadTest.run();
+
+		Frame started = new Frame( LoadTestAgentProtocol.STARTED );
+		started.getOutput().writeLong( System.currentTimeMillis() );
+		channel.send( started );
+
+		// the coordinator only sends STOP, or closes the connection if it has
+		// gone away
+		Thread stopListener = new Thread( new Runnable()
+		{
+			public void run()
+			{
+				try
+				{
+					if( channel.receive().readByte() == LoadTestAgentProtocol.STOP )
+						log.info( "LoadTest stopped by coordinator" );
+				}
+				catch( EOFException e )
+				{
+					log.warn( "Lost connection to coordinator, stopping LoadTest" );
+				}
+				catch( IOException e )
+				{
+					if( runner.hasStopped() )
+						return;
+
+					log.warn( "Lost connection to coordinator, stopping LoadTest: " + e );
+				}
+
+				if( !runner.hasStopped() )
+					runner.cancel( "Stopped by coordinator" );
+			}
+		}, loadTest.getName() + " LoadTest Agent Stop Listener" );
+
+		stopListener.setDaemon( true );
+		stopListener.start();
+
+		LoadTestStatistics statistics = loadTest.getStatisticsModel();
+		StatisticsSnapshot previous = null;
+
+		while( !runner.hasStopped() )
+		{
+			Thread.sleep( snapshotInterval );
+
+			StatisticsSnapshot snapshot = statistics.createSnapshot();
+			Frame frame = new Frame( LoadTestAgentProtocol.SNAPSHOT );
+			snapshot.delta( previous ).write( frame.getOutput() );
+			writeLogEntries( frame.getOutput(), logEntries );
+			channel.send( frame );
+
+			previous = snapshot;
+		}
+
+		statistics.finish();
+
+		// the finish and error entries may still be queued for the log updater
+		loadTest.getLoadTestLog().flush();
+
+		StatisticsSnapshot snapshot = statistics.createSnapshot();
+		Frame frame = new Frame( LoadTestAgentProtocol.FINISHED );
+		LoadTestAgentProtocol.writeString( frame.getOutput(), runner.getStatus().toString() );
+		LoadTestAgentProtocol.writeString( frame.getOutput(), runner.getReason() );
+		snapshot.delta( previous ).write( frame.getOutput() );
+		writeLogEntries( frame.getOutput(), logEntries );
+		channel.send( frame );
+
+		log.info( "LoadTest [" + loadTest.getName() + "] finished with status " + runner.getStatus() );
+	}
+
+	private void writeLogEntries( DataOutputStream out, Queue<LoadTestLogEntry> logEntries ) throws IOException
+	{
+		// entries added while writing are sent with the next snapshot
+		int count = logEntries.size();
+		out.writeInt( count );
+
+		for( int c = 0; c < count; c++ )
+			LoadTestAgentProtocol.writeLogEntry( out, logEntries.poll() );
+	}
+
+	/**
+	 * Rejects a coordinator that has not been authenticated
+	 */
+
+	private void sendFailed( DataOutputStream out, String reason ) throws IOException
+	{
+		log.error( reason );
+
+		out.writeByte( LoadTestAgentProtocol.FAILED );
+		LoadTestAgentProtocol.writeString( out, reason );
+		out.flush();
+	}
+
+	private void sendFailed( Channel channel, String reason ) throws IOException
+	{
+		log.error( reason );
+
+		Frame frame = new Frame( LoadTestAgentProtocol.FAILED );
+		LoadTestAgentProtocol.writeString( frame.getOutput(), reason );
+		channel.send( frame );
+	}
+}
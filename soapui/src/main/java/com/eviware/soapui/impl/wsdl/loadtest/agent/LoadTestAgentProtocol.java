@@ -0,0 +1,259 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.loadtest.agent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.eviware.soapui.impl.wsdl.loadtest.log.LoadTestLogEntry;
+import com.eviware.soapui.impl.wsdl.loadtest.log.RemoteLoadTestLogEntry;
+
+/**
+ * Constants and encoding helpers for the binary protocol spoken between a
+ * {@link LoadTestCoordinator} and its {@link LoadTestAgent}s.
+ * <p>
+ * The coordinator opens the connection and sends the magic number and the
+ * protocol version. The agent answers with a CHALLENGE of random bytes, which
+ * the coordinator must AUTHENTICATE with the HMAC of the challenge keyed with
+ * the shared secret, followed by random bytes of its own. The agent answers
+ * with AUTHENTICATED, or FAILED if it does not match. The coordinator then
+ * sends a START message with the project and the share of the LoadTest to
+ * run. The agent answers with STARTED or FAILED, then sends a SNAPSHOT with the
+ * statistics and log entries since the previous snapshot at every interval,
+ * and finally FINISHED with the LoadTest status. The coordinator can send STOP
+ * at any time to cancel the LoadTest on the agent.
+ * </p>
+ * <p>
+ * All messages after AUTHENTICATED are sent as frames (see {@link Channel})
+ * that carry a MAC keyed with a session key derived from the secret and the
+ * random bytes of both sides, so frames can not be modified, replayed,
+ * reordered or reflected. Frames are not encrypted: anyone on the network path
+ * can read the project, including the passwords it holds, and the results.
+ * Agents on other hosts must therefore be reached through a TLS connection,
+ * such as an SSH tunnel or a TLS proxy in front of the agent port.
+ * </p>
+ */
+
+public final class LoadTestAgentProtocol
+{
+	public static final int DEFAULT_PORT = 7074;
+
+	public static final String SECRET_PROPERTY = "soapui.loadtest.agent.secret";
+
+	static final int MAGIC = 0x534c5441;
+	static final int VERSION = 3;
+
+	static final int CHALLENGE_LENGTH = 32;
+	private static final String MAC_ALGORITHM = "HmacSHA256";
+	private static final int MAC_LENGTH = 32;
+
+	// projects are sent in a single frame
+	private static final int MAX_FRAME_LENGTH = 256 * 1024 * 1024;
+
+	// coordinator to agent
+	static final byte START = 1;
+	static final byte STOP = 2;
+	static final byte AUTHENTICATE = 3;
+
+	// agent to coordinator
+	static final byte STARTED = 10;
+	static final byte SNAPSHOT = 11;
+	static final byte FINISHED = 12;
+	static final byte FAILED = 13;
+	static final byte CHALLENGE = 14;
+	static final byte AUTHENTICATED = 15;
+
+	// writeUTF is limited to 64k bytes
+	private static final int MAX_STRING_LENGTH = 16384;
+
+	private LoadTestAgentProtocol()
+	{
+	}
+
+	static void writeString( DataOutput out, String value ) throws IOException
+	{
+		out.writeBoolean( value != null );
+		if( value != null )
+			out.writeUTF( value.length() > MAX_STRING_LENGTH ? value.substring( 0, MAX_STRING_LENGTH ) : value );
+	}
+
+	static String readString( DataInput in ) throws IOException
+	{
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	/**
+	 * @return the answer to an agent challenge, so that the secret itself is
+	 *         never sent over the connection
+	 */
+
+	static byte[] authenticate( String secret, byte[] challenge ) throws IOException
+	{
+		return createMac( secret.getBytes( "UTF-8" ) ).doFinal( challenge );
+	}
+
+	/**
+	 * @return the key for the frames sent by the coordinator or by the agent in
+	 *         the session with the specified challenge and coordinator nonce
+	 */
+
+	static byte[] createSessionKey( String secret, byte[] challenge, byte[] nonce, boolean coordinator )
+			throws IOException
+	{
+		Mac mac = createMac( secret.getBytes( "UTF-8" ) );
+		mac.update( ( coordinator ? "coordinator" : "agent" ).getBytes( "UTF-8" ) );
+		mac.update( challenge );
+		return mac.doFinal( nonce );
+	}
+
+	private static Mac createMac( byte[] key ) throws IOException
+	{
+		try
+		{
+			Mac mac = Mac.getInstance( MAC_ALGORITHM );
+			mac.init( new SecretKeySpec( key, MAC_ALGORITHM ) );
+			return mac;
+		}
+		catch( GeneralSecurityException e )
+		{
+			IOException ioe = new IOException( "Failed to authenticate: " + e );
+			ioe.initCause( e );
+			throw ioe;
+		}
+	}
+
+	static void writeLogEntry( DataOutput out, LoadTestLogEntry entry ) throws IOException
+	{
+		writeString( out, entry.getType() );
+		writeString( out, entry.getTargetStepName() );
+		writeString( out, entry.getMessage() );
+		out.writeLong( entry.getTimeStamp() );
+		out.writeBoolean( entry.isError() );
+	}
+
+	static RemoteLoadTestLogEntry readLogEntry( DataInput in, String agent, long timeOffset ) throws IOException
+	{
+		String type = readString( in );
+		String targetStepName = readString( in );
+		String message = readString( in );
+		long timestamp = in.readLong() + timeOffset;
+		boolean error = in.readBoolean();
+
+		return new RemoteLoadTestLogEntry( agent, type, targetStepName, message, timestamp, error );
+	}
+
+	/**
+	 * A message that is written before it is sent as a single frame
+	 */
+
+	static final class Frame
+	{
+		private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		private final DataOutputStream out = new DataOutputStream( buffer );
+
+		public Frame( byte type ) throws IOException
+		{
+			out.writeByte( type );
+		}
+
+		public DataOutputStream getOutput()
+		{
+			return out;
+		}
+
+		byte[] toByteArray()
+		{
+			return buffer.toByteArray();
+		}
+	}
+
+	/**
+	 * Sends and receives frames over an authenticated connection. Each frame is
+	 * followed by the MAC of its sequence number, length and content, keyed
+	 * with the session key of its sender; frames with a wrong MAC end the
+	 * session. Frames can be sent from any thread, but only one thread may
+	 * receive.
+	 */
+
+	static final class Channel
+	{
+		private final DataInputStream in;
+		private final DataOutputStream out;
+		private final Mac sendMac;
+		private final Mac receiveMac;
+		private long sendSequence;
+		private long receiveSequence;
+
+		public Channel( DataInputStream in, DataOutputStream out, byte[] sendKey, byte[] receiveKey )
+				throws IOException
+		{
+			this.in = in;
+			this.out = out;
+			sendMac = createMac( sendKey );
+			receiveMac = createMac( receiveKey );
+		}
+
+		public synchronized void send( Frame frame ) throws IOException
+		{
+			byte[] content = frame.toByteArray();
+
+			out.writeInt( content.length );
+			out.write( content );
+			out.write( computeMac( sendMac, sendSequence++ , content ) );
+			out.flush();
+		}
+
+		/**
+		 * @return the content of the next frame, starting with the message type
+		 */
+
+		public DataInputStream receive() throws IOException
+		{
+			int length = in.readInt();
+			if( length <= 0 || length > MAX_FRAME_LENGTH )
+				throw new IOException( "Invalid frame length " + length );
+
+			byte[] content = new byte[length];
+			in.readFully( content );
+
+			byte[] mac = new byte[MAC_LENGTH];
+			in.readFully( mac );
+
+			if( !MessageDigest.isEqual( computeMac( receiveMac, receiveSequence++ , content ), mac ) )
+				throw new IOException( "Invalid frame MAC" );
+
+			return new DataInputStream( new ByteArrayInputStream( content ) );
+		}
+
+		private static byte[] computeMac( Mac mac, long sequence, byte[] content )
+		{
+			for( int c = 56; c >= 0; c -= 8 )
+				mac.update( ( byte )( sequence >>> c ) );
+
+			for( int c = 24; c >= 0; c -= 8 )
+				mac.update( ( byte )( content.length >>> c ) );
+
+			return mac.doFinal( content );
+		}
+	}
+}
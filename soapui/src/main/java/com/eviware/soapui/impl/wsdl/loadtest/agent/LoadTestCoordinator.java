@@ -0,0 +1,297 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.loadtest.agent;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+import com.eviware.soapui.config.LoadTestLimitTypesConfig;
+import com.eviware.soapui.impl.wsdl.loadtest.WsdlLoadTest;
+import com.eviware.soapui.impl.wsdl.loadtest.WsdlLoadTestRunner;
+import com.eviware.soapui.impl.wsdl.loadtest.data.LoadTestStatistics;
+import com.eviware.soapui.impl.wsdl.loadtest.log.LoadTestLogMessageEntry;
+import com.eviware.soapui.impl.wsdl.loadtest.log.RemoteLoadTestLogEntry;
+import com.eviware.soapui.model.testsuite.TestRunner.Status;
+import com.eviware.soapui.support.Tools;
+
+/**
+ * Distributes a LoadTest over the local process and a number of
+ * {@link LoadTestAgent}s. The thread count of the LoadTest (and its limit for
+ * COUNT limits) is split evenly between the coordinator and the agents; the
+ * statistics and log entries of the agents are merged into the statistics,
+ * statistics history and log of the local LoadTest, which therefore show the
+ * combined results of all participants.
+ * <p>
+ * Agents are sent the project file, so they run the LoadTest as it was last
+ * saved; composite projects, which are saved as a directory, can not be
+ * distributed. Agents are only started if there are threads left for them
+ * once the coordinator has its share. The time to wait for agents after the local LoadTest has finished is
+ * set with the <code>soapui.loadtest.agent.timeout</code> system property in
+ * milliseconds.
+ * </p>
+ * <p>
+ * The coordinator authenticates with the secret shared with the agents, which
+ * the runner reads from the <code>soapui.loadtest.agent.secret</code> system
+ * property. The project is sent unencrypted, so agents on other hosts must be
+ * reached through TLS (see {@link LoadTestAgentProtocol}).
+ * </p>
+ */
+
+public class LoadTestCoordinator
+{
+	private final static Logger log = Logger.getLogger( LoadTestCoordinator.class );
+
+	public static final long DEFAULT_FINISH_TIMEOUT = 60000;
+
+	private final static long finishTimeout = Long.getLong( "soapui.loadtest.agent.timeout", DEFAULT_FINISH_TIMEOUT );
+
+	private final WsdlLoadTest loadTest;
+	private final String secret;
+	private final List<RemoteLoadTestAgent> agents = new ArrayList<RemoteLoadTestAgent>();
+	private final List<RemoteLoadTestAgent> activeAgents = new ArrayList<RemoteLoadTestAgent>();
+	private long threadCount;
+	private long testLimit;
+
+	public LoadTestCoordinator( WsdlLoadTest loadTest, String[] agentAddresses, String secret )
+	{
+		this.loadTest = loadTest;
+		this.secret = secret;
+
+		for( String address : agentAddresses )
+		{
+			if( address.trim().length() > 0 )
+				agents.add( RemoteLoadTestAgent.forAddress( address ) );
+		}
+	}
+
+	public List<RemoteLoadTestAgent> getAgents()
+	{
+		return agents;
+	}
+
+	/**
+	 * Splits a total into the specified number of shares, which differ by at
+	 * most one; the first shares are the larger ones, so shares are only zero if
+	 * the total is less than the number of shares
+	 */
+
+	static long[] split( long total, int shares )
+	{
+		long[] result = new long[shares];
+		for( int c = 0; c < shares; c++ )
+			result[c] = total / shares + ( c < total % shares ? 1 : 0 );
+
+		return result;
+	}
+
+	/**
+	 * Starts the local share of the LoadTest and then the shares of all agents.
+	 * If an agent fails to start, the LoadTest is canceled on all participants.
+	 *
+	 * @param projectFile
+	 *           the file or URL of the project to send to the agents
+	 * @return the runner of the local share
+	 */
+
+	public WsdlLoadTestRunner run( String projectFile, String projectPassword ) throws Exception
+	{
+		if( secret == null || secret.length() == 0 )
+			throw new IOException( "Missing LoadTest agent secret, set the " + LoadTestAgentProtocol.SECRET_PROPERTY
+					+ " system property" );
+
+		byte[] projectContent = readProject( projectFile );
+		String projectName = loadTest.getTestCase().getTestSuite().getProject().getName();
+
+		threadCount = loadTest.getThreadCount();
+		testLimit = loadTest.getTestLimit();
+
+		boolean countLimit = loadTest.getLimitType() == LoadTestLimitTypesConfig.COUNT;
+
+		// agents that would get no threads or no runs are not started at all
+		long maxParticipants = Math.max( 1, threadCount );
+		if( countLimit && testLimit > 0 )
+			maxParticipants = Math.min( maxParticipants, testLimit );
+
+		int participants = ( int )Math.min( agents.size() + 1, maxParticipants );
+		long[] threadCounts = split( threadCount, participants );
+		long[] testLimits = countLimit ? split( testLimit, participants ) : null;
+
+		activeAgents.clear();
+		activeAgents.addAll( agents.subList( 0, participants - 1 ) );
+
+		long remoteThreadCount = 0;
+		for( int c = 1; c < participants; c++ )
+			remoteThreadCount += threadCounts[c];
+
+		log.info( "Distributing " + threadCount + " threads of LoadTest [" + loadTest.getName() + "] over "
+				+ activeAgents.size() + " agents, running " + threadCounts[0] + " threads locally" );
+
+		for( int c = activeAgents.size(); c < agents.size(); c++ )
+			log.info( "Not starting agent [" + agents.get( c ).getName() + "], no threads left to run" );
+
+		LoadTestStatistics statistics = loadTest.getStatisticsModel();
+		statistics.setRemoteThreadCount( remoteThreadCount );
+		setLocalShare( threadCounts[0], testLimits == null ? testLimit : testLimits[0] );
+
+		WsdlLoadTestRunner runner = loadTest.run();
+		int snapshotInterval = ( int )Math.max( 100, loadTest.getSampleInterval() );
+
+		for( int c = 0; c < activeAgents.size(); c++ )
+		{
+			RemoteLoadTestAgent agent = activeAgents.get( c );
+
+			try
+			{
+				agent.start( loadTest, secret, projectName, projectContent, projectPassword, threadCounts[c + 1],
+						testLimits == null ? -1 : testLimits[c + 1], snapshotInterval );
+			}
+			catch( IOException e )
+			{
+				runner.cancel( e.getMessage() );
+
+				for( int i = 0; i < c; i++ )
+					activeAgents.get( i ).stop();
+
+				finish( runner );
+				throw e;
+			}
+		}
+
+		return runner;
+	}
+
+	/**
+	 * Waits for the agents to finish after the local share has finished and
+	 * merges their final statistics. Agents are stopped if the local share did
+	 * not finish normally or if they do not finish within the timeout. Agents
+	 * that were not given a share are ignored.
+	 *
+	 * @return the agents that did not finish normally
+	 */
+
+	public List<RemoteLoadTestAgent> finish( WsdlLoadTestRunner runner ) throws InterruptedException
+	{
+		runner.waitUntilFinished();
+
+		if( runner.getStatus() != Status.FINISHED )
+		{
+			for( RemoteLoadTestAgent agent : activeAgents )
+			{
+				if( !agent.isFinished() )
+					agent.stop();
+			}
+		}
+
+		List<RemoteLoadTestAgent> failedAgents = new ArrayList<RemoteLoadTestAgent>();
+
+		for( RemoteLoadTestAgent agent : activeAgents )
+		{
+			if( !agent.isStarted() )
+			{
+				failedAgents.add( agent );
+				continue;
+			}
+
+			if( !agent.waitUntilFinished( finishTimeout ) )
+			{
+				log.warn( "Agent [" + agent.getName() + "] did not finish within " + finishTimeout + "ms, stopping" );
+				agent.stop();
+
+				if( !agent.waitUntilFinished( finishTimeout ) )
+					agent.close();
+			}
+
+			String status = agent.getStatus();
+			if( status == null || !status.equals( Status.FINISHED.toString() ) )
+			{
+				failedAgents.add( agent );
+				loadTest.getLoadTestLog().addEntry(
+						new RemoteLoadTestLogEntry( agent.getName(), "Agent", null, "LoadTest "
+								+ ( status == null ? "did not finish" : status ) + ": " + agent.getReason(), System
+								.currentTimeMillis(), true ) );
+			}
+			else
+			{
+				loadTest.getLoadTestLog().addEntry(
+						new LoadTestLogMessageEntry( "Agent [" + agent.getName() + "] finished " + agent.getThreadCount()
+								+ " threads" ) );
+			}
+		}
+
+		LoadTestStatistics statistics = loadTest.getStatisticsModel();
+		statistics.finish();
+		statistics.setRemoteThreadCount( 0 );
+
+		restoreConfig();
+
+		return failedAgents;
+	}
+
+	/**
+	 * Sets the thread count and limit of the local share without resetting the
+	 * statistics
+	 */
+
+	private void setLocalShare( long threadCount, long testLimit )
+	{
+		loadTest.setThreadCountKeepingStatistics( threadCount );
+		loadTest.setTestLimit( testLimit );
+	}
+
+	private void restoreConfig()
+	{
+		setLocalShare( threadCount, testLimit );
+	}
+
+	private static byte[] readProject( String projectFile ) throws IOException
+	{
+		File file = new File( projectFile );
+		if( file.isDirectory() )
+			throw new IOException( "Composite project [" + projectFile
+					+ "] can not be sent to LoadTest agents, save it as a single file project" );
+
+		InputStream in;
+		if( file.exists() )
+		{
+			in = new FileInputStream( file );
+		}
+		else
+		{
+			try
+			{
+				in = new URL( projectFile ).openStream();
+			}
+			catch( MalformedURLException e )
+			{
+				throw new IOException( "Missing project file [" + projectFile + "]" );
+			}
+		}
+
+		try
+		{
+			return Tools.readAll( in, 0 ).toByteArray();
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+}
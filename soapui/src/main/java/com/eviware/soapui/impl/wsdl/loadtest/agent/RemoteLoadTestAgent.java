@@ -0,0 +1,330 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.loadtest.agent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.security.SecureRandom;
+
+import org.apache.log4j.Logger;
+
+import com.eviware.soapui.impl.wsdl.loadtest.WsdlLoadTest;
+import com.eviware.soapui.impl.wsdl.loadtest.agent.LoadTestAgentProtocol.Channel;
+import com.eviware.soapui.impl.wsdl.loadtest.agent.LoadTestAgentProtocol.Frame;
+import com.eviware.soapui.impl.wsdl.loadtest.data.StatisticsSnapshot;
+import com.eviware.soapui.impl.wsdl.loadtest.log.LoadTestLog;
+
+/**
+ * The connection of a {@link LoadTestCoordinator} to a {@link LoadTestAgent}.
+ * Statistics and log entries received from the agent are merged into the
+ * statistics and log of the local LoadTest as they arrive.
+ */
+
+public class RemoteLoadTestAgent implements Runnable
+{
+	private final static Logger log = Logger.getLogger( RemoteLoadTestAgent.class );
+
+	private final static int CONNECT_TIMEOUT = 10000;
+	private final static SecureRandom random = new SecureRandom();
+
+	private final String host;
+	private final int port;
+	private Socket socket;
+	private volatile Channel channel;
+	private WsdlLoadTest loadTest;
+	private long threadCount;
+	private long timeOffset;
+	private String status;
+	private String reason;
+	private boolean finished;
+	private volatile boolean started;
+
+	public RemoteLoadTestAgent( String host, int port )
+	{
+		this.host = host;
+		this.port = port;
+	}
+
+	/**
+	 * Creates an agent for an address in the form <code>host[:port]</code>
+	 */
+
+	public static RemoteLoadTestAgent forAddress( String address )
+	{
+		address = address.trim();
+
+		int ix = address.lastIndexOf( ':' );
+		if( ix == -1 )
+			return new RemoteLoadTestAgent( address, LoadTestAgentProtocol.DEFAULT_PORT );
+
+		return new RemoteLoadTestAgent( address.substring( 0, ix ), Integer.parseInt( address.substring( ix + 1 ) ) );
+	}
+
+	public String getName()
+	{
+		return host + ":" + port;
+	}
+
+	public long getThreadCount()
+	{
+		return threadCount;
+	}
+
+	/**
+	 * Connects to the agent, authenticates with the shared secret and starts its
+	 * share of the specified LoadTest
+	 *
+	 * @throws IOException
+	 *            if the agent could not be reached, rejected the secret or
+	 *            failed to start the LoadTest
+	 */
+
+	public void start( WsdlLoadTest loadTest, String secret, String projectName, byte[] projectContent,
+			String projectPassword, long threadCount, long testLimit, int snapshotInterval ) throws IOException
+	{
+		this.loadTest = loadTest;
+		this.threadCount = threadCount;
+		started = false;
+		channel = null;
+
+		synchronized( this )
+		{
+			status = null;
+			reason = null;
+			finished = false;
+		}
+
+		socket = new Socket();
+		socket.setTcpNoDelay( true );
+		socket.connect( new InetSocketAddress( host, port ), CONNECT_TIMEOUT );
+
+		DataInputStream in = new DataInputStream( new BufferedInputStream( socket.getInputStream() ) );
+		DataOutputStream out = new DataOutputStream( new BufferedOutputStream( socket.getOutputStream() ) );
+
+		out.writeInt( LoadTestAgentProtocol.MAGIC );
+		out.writeInt( LoadTestAgentProtocol.VERSION );
+		out.flush();
+
+		byte reply = in.readByte();
+		if( reply != LoadTestAgentProtocol.CHALLENGE )
+			failStart( reply, in );
+
+		byte[] challenge = new byte[LoadTestAgentProtocol.CHALLENGE_LENGTH];
+		in.readFully( challenge );
+		byte[] answer = LoadTestAgentProtocol.authenticate( secret, challenge );
+
+		byte[] nonce = new byte[LoadTestAgentProtocol.CHALLENGE_LENGTH];
+		random.nextBytes( nonce );
+
+		out.writeByte( LoadTestAgentProtocol.AUTHENTICATE );
+		out.writeInt( answer.length );
+		out.write( answer );
+		out.write( nonce );
+		out.flush();
+
+		// the project is only sent once the agent has accepted the answer
+		reply = in.readByte();
+		if( reply != LoadTestAgentProtocol.AUTHENTICATED )
+			failStart( reply, in );
+
+		channel = new Channel( in, out, LoadTestAgentProtocol.createSessionKey( secret, challenge, nonce, true ),
+				LoadTestAgentProtocol.createSessionKey( secret, challenge, nonce, false ) );
+
+		Frame frame = new Frame( LoadTestAgentProtocol.START );
+		DataOutputStream frameOut = frame.getOutput();
+		LoadTestAgentProtocol.writeString( frameOut, projectName );
+		frameOut.writeInt( projectContent.length );
+		frameOut.write( projectContent );
+		LoadTestAgentProtocol.writeString( frameOut, projectPassword );
+		LoadTestAgentProtocol.writeString( frameOut, loadTest.getTestCase().getTestSuite().getName() );
+		LoadTestAgentProtocol.writeString( frameOut, loadTest.getTestCase().getName() );
+		LoadTestAgentProtocol.writeString( frameOut, loadTest.getName() );
+		frameOut.writeLong( threadCount );
+		frameOut.writeLong( testLimit );
+		frameOut.writeInt( snapshotInterval );
+		channel.send( frame );
+
+		DataInputStream message = channel.receive();
+		reply = message.readByte();
+		if( reply != LoadTestAgentProtocol.STARTED )
+			failStart( reply, message );
+
+		// agent clocks are assumed to be in sync up to the network latency
+		timeOffset = System.currentTimeMillis() - message.readLong();
+
+		Thread thread = new Thread( this, loadTest.getName() + " LoadTest Agent " + getName() );
+		thread.setDaemon( true );
+		thread.start();
+
+		started = true;
+	}
+
+	private void failStart( byte reply, DataInputStream in ) throws IOException
+	{
+		if( reply == LoadTestAgentProtocol.FAILED )
+		{
+			String message = LoadTestAgentProtocol.readString( in );
+			close();
+			throw new IOException( "Agent [" + getName() + "] failed to start LoadTest: " + message );
+		}
+
+		close();
+		throw new IOException( "Unexpected reply [" + reply + "] from agent [" + getName() + "]" );
+	}
+
+	public void run()
+	{
+		try
+		{
+			while( true )
+			{
+				DataInputStream in = channel.receive();
+				byte message = in.readByte();
+				if( message == LoadTestAgentProtocol.SNAPSHOT )
+				{
+					readSamples( in );
+				}
+				else if( message == LoadTestAgentProtocol.FINISHED )
+				{
+					String status = LoadTestAgentProtocol.readString( in );
+					String reason = LoadTestAgentProtocol.readString( in );
+					readSamples( in );
+					setFinished( status, reason );
+					break;
+				}
+				else
+				{
+					throw new IOException( "Unexpected message [" + message + "]" );
+				}
+			}
+		}
+		catch( IOException e )
+		{
+			log.error( "Lost connection to agent [" + getName() + "]: " + e );
+			setFinished( "FAILED", "Lost connection to agent: " + e.getMessage() );
+		}
+		finally
+		{
+			close();
+		}
+	}
+
+	private void readSamples( DataInputStream in ) throws IOException
+	{
+		StatisticsSnapshot snapshot = StatisticsSnapshot.read( in );
+		loadTest.getStatisticsModel().addSnapshot( snapshot, timeOffset );
+
+		LoadTestLog loadTestLog = loadTest.getLoadTestLog();
+		int entryCount = in.readInt();
+		for( int c = 0; c < entryCount; c++ )
+			loadTestLog.addEntry( LoadTestAgentProtocol.readLogEntry( in, getName(), timeOffset ) );
+	}
+
+	private synchronized void setFinished( String status, String reason )
+	{
+		this.status = status;
+		this.reason = reason;
+		finished = true;
+		notifyAll();
+	}
+
+	/**
+	 * Asks the agent to cancel its LoadTest, the agent will still send its
+	 * final statistics
+	 */
+
+	public void stop()
+	{
+		Channel channel = this.channel;
+		if( channel == null )
+			return;
+
+		try
+		{
+			channel.send( new Frame( LoadTestAgentProtocol.STOP ) );
+		}
+		catch( IOException e )
+		{
+			log.warn( "Failed to stop agent [" + getName() + "]: " + e );
+		}
+	}
+
+	/**
+	 * Waits for the agent to send its final statistics
+	 *
+	 * @return true if the agent has finished within the timeout
+	 */
+
+	public synchronized boolean waitUntilFinished( long timeout ) throws InterruptedException
+	{
+		long end = System.currentTimeMillis() + timeout;
+		long wait = timeout;
+
+		while( !finished && wait > 0 )
+		{
+			wait( wait );
+			wait = end - System.currentTimeMillis();
+		}
+
+		return finished;
+	}
+
+	/**
+	 * @return true if the agent has started its share of the LoadTest
+	 */
+
+	public boolean isStarted()
+	{
+		return started;
+	}
+
+	public synchronized boolean isFinished()
+	{
+		return finished;
+	}
+
+	/**
+	 * @return the final status of the LoadTest on the agent, null if it has not
+	 *         finished
+	 */
+
+	public synchronized String getStatus()
+	{
+		return status;
+	}
+
+	public synchronized String getReason()
+	{
+		return reason;
+	}
+
+	public void close()
+	{
+		Socket socket = this.socket;
+		if( socket != null )
+		{
+			try
+			{
+				socket.close();
+			}
+			catch( IOException e )
+			{
+			}
+		}
+	}
+}
@@ -0,0 +1,222 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.loadtest.assertions;
+
+import org.apache.xmlbeans.XmlObject;
+
+import com.eviware.soapui.config.LoadTestAssertionConfig;
+import com.eviware.soapui.impl.wsdl.loadtest.WsdlLoadTest;
+import com.eviware.soapui.impl.wsdl.loadtest.data.LoadTestStatistics;
+import com.eviware.soapui.impl.wsdl.loadtest.data.LoadTestStatistics.Statistic;
+import com.eviware.soapui.impl.wsdl.support.Configurable;
+import com.eviware.soapui.impl.wsdl.support.HelpUrls;
+import com.eviware.soapui.model.testsuite.LoadTestRunContext;
+import com.eviware.soapui.model.testsuite.LoadTestRunner;
+import com.eviware.soapui.model.testsuite.TestCaseRunContext;
+import com.eviware.soapui.model.testsuite.TestCaseRunner;
+import com.eviware.soapui.model.testsuite.TestStep;
+import com.eviware.soapui.model.testsuite.TestStepResult;
+import com.eviware.soapui.support.UISupport;
+import com.eviware.soapui.support.types.StringToStringMap;
+import com.eviware.soapui.support.xml.XmlObjectConfigurationBuilder;
+import com.eviware.soapui.support.xml.XmlObjectConfigurationReader;
+import com.eviware.x.form.XForm;
+import com.eviware.x.form.XForm.FieldType;
+import com.eviware.x.form.XFormDialog;
+import com.eviware.x.form.XFormDialogBuilder;
+import com.eviware.x.form.XFormFactory;
+
+/**
+ * LoadTestAssertion that fails when the time spent waiting for a connection
+ * from the HTTP connection pool makes up too large a share of the step time,
+ * so that a saturated client pool is not taken for a slow server. Requires the
+ * HTTP phase statistics of the LoadTest to be enabled.
+ */
+
+public class ConnectionWaitAssertion extends AbstractLoadTestAssertion implements Configurable
+{
+	private static final String NAME_FIELD = "Name";
+	private static final String NAME_ELEMENT = "name";
+	private static final String SAMPLE_INTERVAL_ELEMENT = "sample-interval";
+	private static final String SAMPLE_INTERVAL_FIELD = "Sample Interval";
+	private static final String MAX_WAIT_RATIO_ELEMENT = "max-wait-ratio";
+	private static final String MAX_WAIT_RATIO_FIELD = "Max Wait Ratio";
+	private static final String MAX_ERRORS_ELEMENT = "max-errors";
+	private static final String MAX_ERRORS_FIELD = "Max Errors";
+	private static final String MIN_REQUESTS_ELEMENT = "min-requests";
+	private static final String MINIMUM_REQUESTS_FIELD = "Minimum Requests";
+
+	private int minRequests;
+	private int maxWaitRatio;
+	private int maxErrors;
+	private int sampleInterval;
+	private XFormDialog dialog;
+	public static final String CONNECTION_WAIT_TYPE = "Connection Wait";
+
+	public ConnectionWaitAssertion( LoadTestAssertionConfig assertionConfig, WsdlLoadTest loadTest )
+	{
+		super( assertionConfig, loadTest );
+
+		init( assertionConfig );
+		initIcon( "/average_loadtest_assertion.gif" );
+	}
+
+	private void init( LoadTestAssertionConfig assertionConfig )
+	{
+		XmlObject configuration = assertionConfig.getConfiguration();
+
+		XmlObjectConfigurationReader reader = new XmlObjectConfigurationReader( configuration );
+		setName( reader.readString( NAME_ELEMENT, "Connection Wait" ) );
+		minRequests = reader.readInt( MIN_REQUESTS_ELEMENT, 100 );
+		maxWaitRatio = reader.readInt( MAX_WAIT_RATIO_ELEMENT, 50 );
+		setTargetStep( reader.readString( TEST_STEP_ELEMENT, ANY_TEST_STEP ) );
+		maxErrors = reader.readInt( MAX_ERRORS_ELEMENT, -1 );
+		sampleInterval = reader.readInt( SAMPLE_INTERVAL_ELEMENT, 20 );
+	}
+
+	public String assertResult( LoadTestRunner loadTestRunner, LoadTestRunContext context, TestStepResult result,
+			TestCaseRunner testRunner, TestCaseRunContext runContext )
+	{
+		WsdlLoadTest loadTest = ( WsdlLoadTest )loadTestRunner.getLoadTest();
+		if( !loadTest.getHttpPhaseStatistics() )
+			return null;
+
+		LoadTestStatistics statisticsModel = loadTest.getStatisticsModel();
+
+		TestStep step = result.getTestStep();
+		if( targetStepMatches( step ) )
+		{
+			int index = step.getTestCase().getIndexOfTestStep( step );
+			return assertWaitRatio( statisticsModel, index, loadTestRunner, context );
+		}
+		else if( ALL_TEST_STEPS.equals( getTargetStep() ) )
+		{
+			return assertWaitRatio( statisticsModel, LoadTestStatistics.TOTAL, loadTestRunner, context );
+		}
+
+		return null;
+	}
+
+	private String assertWaitRatio( LoadTestStatistics statisticsModel, int index, LoadTestRunner loadTestRunner,
+			LoadTestRunContext context )
+	{
+		long count = statisticsModel.getStatistic( index, Statistic.COUNT );
+		if( count <= minRequests || ( count % sampleInterval != 0 ) )
+			return null;
+
+		long average = statisticsModel.getStatistic( index, Statistic.AVERAGE );
+		long waitAverage = statisticsModel.getStatistic( index, Statistic.WAIT_AVERAGE );
+		if( average <= 0 )
+			return null;
+
+		long ratio = ( waitAverage * 100 ) / average;
+		if( ratio >= maxWaitRatio )
+		{
+			return returnErrorOrFail( "Connection pool wait [" + waitAverage + "ms] is " + ratio
+					+ "% of the average time [" + average + "ms], exceeds limit [" + maxWaitRatio + "%]", maxErrors,
+					loadTestRunner, context );
+		}
+
+		return null;
+	}
+
+	public String assertResults( LoadTestRunner loadTestRunner, LoadTestRunContext context, TestCaseRunner testRunner,
+			TestCaseRunContext runContext )
+	{
+		return null;
+	}
+
+	public String getDescription()
+	{
+		return "testStep: " + getTargetStep() + ", minRequests: " + minRequests + ", maxWaitRatio: " + maxWaitRatio
+				+ "%, maxErrors: " + maxErrors + ", sampleInterval: " + sampleInterval;
+	}
+
+	public boolean configure()
+	{
+		if( dialog == null )
+		{
+			buildDialog();
+		}
+
+		StringToStringMap values = new StringToStringMap();
+
+		values.put( NAME_FIELD, getName() );
+		values.put( MINIMUM_REQUESTS_FIELD, String.valueOf( minRequests ) );
+		values.put( MAX_WAIT_RATIO_FIELD, String.valueOf( maxWaitRatio ) );
+		values.put( TEST_STEP_FIELD, getTargetStep() );
+		values.put( MAX_ERRORS_FIELD, String.valueOf( maxErrors ) );
+		values.put( SAMPLE_INTERVAL_FIELD, String.valueOf( sampleInterval ) );
+
+		dialog.setOptions( TEST_STEP_FIELD, getTargetStepOptions( true ) );
+		values = dialog.show( values );
+
+		if( dialog.getReturnValue() == XFormDialog.OK_OPTION )
+		{
+			try
+			{
+				minRequests = Integer.parseInt( values.get( MINIMUM_REQUESTS_FIELD ) );
+				maxWaitRatio = Integer.parseInt( values.get( MAX_WAIT_RATIO_FIELD ) );
+				maxErrors = Integer.parseInt( values.get( MAX_ERRORS_FIELD ) );
+				sampleInterval = Integer.parseInt( values.get( SAMPLE_INTERVAL_FIELD ) );
+				setName( values.get( NAME_FIELD ) );
+				setTargetStep( values.get( TEST_STEP_FIELD ) );
+			}
+			catch( Exception e )
+			{
+				UISupport.showErrorMessage( e.getMessage() );
+			}
+
+			updateConfiguration();
+
+			return true;
+		}
+
+		return false;
+	}
+
+	protected void updateConfiguration()
+	{
+		XmlObjectConfigurationBuilder builder = new XmlObjectConfigurationBuilder();
+
+		builder.add( NAME_ELEMENT, getName() );
+		builder.add( MIN_REQUESTS_ELEMENT, minRequests );
+		builder.add( MAX_WAIT_RATIO_ELEMENT, maxWaitRatio );
+		builder.add( TEST_STEP_ELEMENT, getTargetStep() );
+		builder.add( MAX_ERRORS_ELEMENT, maxErrors );
+		builder.add( SAMPLE_INTERVAL_ELEMENT, sampleInterval );
+
+		setConfiguration( builder.finish() );
+	}
+
+	private void buildDialog()
+	{
+		XFormDialogBuilder builder = XFormFactory.createDialogBuilder( "Connection Wait Assertion" );
+		XForm form = builder.createForm( "Basic" );
+
+		form.addTextField( NAME_FIELD, "Name of this assertion", FieldType.TEXT );
+		form.addTextField( MINIMUM_REQUESTS_FIELD, "Minimum number of steps before asserting", FieldType.TEXT );
+		form.addTextField( MAX_WAIT_RATIO_FIELD,
+				"Maximum allowed percentage of the average step time spent waiting for a pooled connection",
+				FieldType.TEXT );
+		form.addTextField( MAX_ERRORS_FIELD, "Maximum number of allowed errors before failing loadtest (-1 = unlimited)",
+				FieldType.TEXT );
+		form.addTextField( SAMPLE_INTERVAL_FIELD, "Step count interval between sampling", FieldType.TEXT );
+		form.addComboBox( TEST_STEP_FIELD, new String[0], "TestStep to assert" );
+
+		dialog = builder.buildDialog(
+				builder.buildOkCancelHelpActions( HelpUrls.CONNECTION_WAIT_LOAD_TEST_ASSERTION_HELP_URL ),
+				"Specify options for this Connection Wait Assertion, requires HTTP Phase Statistics to be enabled in the LoadTest Options",
+				UISupport.OPTIONS_ICON );
+	}
+}
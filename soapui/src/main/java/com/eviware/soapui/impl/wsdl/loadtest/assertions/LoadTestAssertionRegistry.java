@@ -42,7 +42,9 @@ public class LoadTestAssertionRegistry
 		availableAssertions.put( TestStepAverageAssertion.STEP_AVERAGE_TYPE, TestStepAverageAssertion.class );
 		availableAssertions.put( TestStepTpsAssertion.STEP_TPS_TYPE, TestStepTpsAssertion.class );
 		availableAssertions.put( TestStepMaxAssertion.STEP_MAXIMUM_TYPE, TestStepMaxAssertion.class );
+		availableAssertions.put( TestStepPercentileAssertion.STEP_PERCENTILE_TYPE, TestStepPercentileAssertion.class );
 		availableAssertions.put( TestStepStatusAssertion.STEP_STATUS_TYPE, TestStepStatusAssertion.class );
+		availableAssertions.put( ConnectionWaitAssertion.CONNECTION_WAIT_TYPE, ConnectionWaitAssertion.class );
 		availableAssertions.put( MaxErrorsAssertion.MAX_ERRORS_TYPE, MaxErrorsAssertion.class );
 	}
 
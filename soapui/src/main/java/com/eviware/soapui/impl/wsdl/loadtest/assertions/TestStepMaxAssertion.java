@@ -21,8 +21,10 @@ import com.eviware.soapui.config.LoadTestAssertionConfig;
 import com.eviware.soapui.impl.wsdl.loadtest.WsdlLoadTest;
 import com.eviware.soapui.impl.wsdl.loadtest.data.LoadTestStatistics;
 import com.eviware.soapui.impl.wsdl.loadtest.data.LoadTestStatistics.Statistic;
+import com.eviware.soapui.impl.wsdl.support.AbstractTestCaseRunner;
 import com.eviware.soapui.impl.wsdl.support.Configurable;
 import com.eviware.soapui.impl.wsdl.support.HelpUrls;
+import com.eviware.soapui.impl.wsdl.support.TestStepSamples;
 import com.eviware.soapui.model.testsuite.LoadTestRunContext;
 import com.eviware.soapui.model.testsuite.LoadTestRunner;
 import com.eviware.soapui.model.testsuite.TestCaseRunContext;
@@ -114,17 +116,27 @@ public class TestStepMaxAssertion extends AbstractLoadTestAssertion implements C
 			LoadTestStatistics statisticsModel = loadTest.getStatisticsModel();
 
 			long sum = 0;
-			List<TestStepResult> results = testRunner.getResults();
-			for( int c = 0; c < results.size(); c++ )
+			TestStepSamples stepSamples = testRunner instanceof AbstractTestCaseRunner ? ( ( AbstractTestCaseRunner<?, ?> )testRunner )
+					.getStepSamples() : null;
+
+			if( stepSamples != null )
+			{
+				sum = stepSamples.getTotalTimeTaken();
+			}
+			else
 			{
-				TestStepResult result = results.get( c );
-				if( result == null )
+				List<TestStepResult> results = testRunner.getResults();
+				for( int c = 0; c < results.size(); c++ )
 				{
-					log.warn( "Result [" + c + "] is null in TestCase [" + testRunner.getTestCase().getName() + "]" );
-					continue;
+					TestStepResult result = results.get( c );
+					if( result == null )
+					{
+						log.warn( "Result [" + c + "] is null in TestCase [" + testRunner.getTestCase().getName() + "]" );
+						continue;
+					}
+
+					sum += result.getTimeTaken();
 				}
-
-				sum += result.getTimeTaken();
 			}
 
 			if( statisticsModel.getStatistic( LoadTestStatistics.TOTAL, Statistic.COUNT ) >= minRequests
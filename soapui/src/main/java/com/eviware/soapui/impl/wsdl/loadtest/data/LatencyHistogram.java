@@ -0,0 +1,194 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.loadtest.data;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Constant-memory, log-bucketed histogram of measured times in the style of
+ * HdrHistogram. Values below 128 are counted exactly, larger values are counted
+ * in 64 linear sub-buckets per power of two, giving a relative error of less
+ * than 2%. Recording is lock-free and does not allocate; values above the
+ * highest trackable value are counted in the last bucket.
+ */
+
+public final class LatencyHistogram
+{
+	public final static long DEFAULT_HIGHEST_TRACKABLE_VALUE = Integer.MAX_VALUE;
+
+	private final static int SUB_BUCKET_BITS = 7;
+	private final static int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private final static int SUB_BUCKET_HALF_BITS = SUB_BUCKET_BITS - 1;
+
+	private final long highestTrackableValue;
+	private final AtomicLongArray counts;
+	private final AtomicLong maxValue = new AtomicLong();
+
+	public LatencyHistogram()
+	{
+		this( DEFAULT_HIGHEST_TRACKABLE_VALUE );
+	}
+
+	public LatencyHistogram( long highestTrackableValue )
+	{
+		this.highestTrackableValue = Math.max( highestTrackableValue, SUB_BUCKET_COUNT );
+		counts = new AtomicLongArray( indexFor( this.highestTrackableValue ) + 1 );
+	}
+
+	public void recordValue( long value )
+	{
+		recordValue( value, 1 );
+	}
+
+	/**
+	 * Records the specified number of occurrences of a value, as for samples
+	 * that are reported together with their average
+	 */
+
+	public void recordValue( long value, long count )
+	{
+		if( count <= 0 )
+			return;
+
+		if( value < 0 )
+			value = 0;
+		else if( value > highestTrackableValue )
+			value = highestTrackableValue;
+
+		counts.addAndGet( indexFor( value ), count );
+
+		long max = maxValue.get();
+		while( value > max && !maxValue.compareAndSet( max, value ) )
+			max = maxValue.get();
+	}
+
+	public long getTotalCount()
+	{
+		long result = 0;
+		for( int c = 0; c < counts.length(); c++ )
+			result += counts.get( c );
+
+		return result;
+	}
+
+	public long getMaxValue()
+	{
+		return maxValue.get();
+	}
+
+	/**
+	 * Returns the value at the specified percentile, or 0 if no values have
+	 * been recorded
+	 */
+
+	public long getValueAtPercentile( double percentile )
+	{
+		long[] result = new long[1];
+		getValuesAtPercentiles( new double[] { percentile }, result );
+		return result[0];
+	}
+
+	/**
+	 * Calculates the values at several percentiles in a single pass over the
+	 * buckets.
+	 *
+	 * @param percentiles
+	 *           the percentiles to calculate, in ascending order
+	 * @param result
+	 *           receives the value for each percentile
+	 */
+
+	public void getValuesAtPercentiles( double[] percentiles, long[] result )
+	{
+		long total = getTotalCount();
+		if( total == 0 )
+		{
+			for( int c = 0; c < percentiles.length; c++ )
+				result[c] = 0;
+
+			return;
+		}
+
+		long max = maxValue.get();
+		long cumulative = 0;
+		int index = 0;
+
+		for( int c = 0; c < percentiles.length; c++ )
+		{
+			long target = Math.max( 1, ( long )Math.ceil( ( Math.min( percentiles[c], 100 ) / 100 ) * total ) );
+
+			while( cumulative < target && index < counts.length() )
+			{
+				cumulative += counts.get( index++ );
+			}
+
+			result[c] = Math.min( highestValueAt( Math.max( index - 1, 0 ) ), max );
+		}
+	}
+
+	public void reset()
+	{
+		for( int c = 0; c < counts.length(); c++ )
+			counts.set( c, 0 );
+
+		maxValue.set( 0 );
+	}
+
+	int getBucketCount()
+	{
+		return counts.length();
+	}
+
+	long getCountAt( int index )
+	{
+		return counts.get( index );
+	}
+
+	/**
+	 * Adds counts recorded by another histogram with the same highest
+	 * trackable value, used for merging statistics from LoadTest agents
+	 */
+
+	void addCountAt( int index, long count, long max )
+	{
+		if( index < 0 || index >= counts.length() || count <= 0 )
+			return;
+
+		counts.addAndGet( index, count );
+
+		max = Math.min( max, highestTrackableValue );
+		long current = maxValue.get();
+		while( max > current && !maxValue.compareAndSet( current, max ) )
+			current = maxValue.get();
+	}
+
+	static int indexFor( long value )
+	{
+		if( value < SUB_BUCKET_COUNT )
+			return ( int )value;
+
+		int shift = 63 - Long.numberOfLeadingZeros( value ) - SUB_BUCKET_HALF_BITS;
+		return ( shift << SUB_BUCKET_HALF_BITS ) + ( int )( value >>> shift );
+	}
+
+	static long highestValueAt( int index )
+	{
+		if( index < SUB_BUCKET_COUNT )
+			return index;
+
+		int shift = ( index >> SUB_BUCKET_HALF_BITS ) - 1;
+		long subBucket = index - ( shift << SUB_BUCKET_HALF_BITS );
+		return ( ( subBucket + 1 ) << shift ) - 1;
+	}
+}
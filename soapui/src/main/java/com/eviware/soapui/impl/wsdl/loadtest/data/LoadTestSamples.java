@@ -20,6 +20,8 @@ import javax.swing.table.AbstractTableModel;
 
 import org.apache.log4j.Logger;
 
+import com.eviware.soapui.impl.wsdl.support.AbstractTestCaseRunner;
+import com.eviware.soapui.impl.wsdl.support.TestStepSamples;
 import com.eviware.soapui.model.support.LoadTestRunListenerAdapter;
 import com.eviware.soapui.model.support.TestSuiteListenerAdapter;
 import com.eviware.soapui.model.testsuite.LoadTest;
@@ -145,12 +147,27 @@ public class LoadTestSamples extends AbstractTableModel
 			long timestamp = System.currentTimeMillis();
 			List<LoadTestStepSample[]> s = new ArrayList<LoadTestStepSample[]>();
 			List<TestStepResult> testResults = testRunner.getResults();
+			TestStepSamples stepSamples = testRunner instanceof AbstractTestCaseRunner ? ( ( AbstractTestCaseRunner<?, ?> )testRunner )
+					.getStepSamples() : null;
 
 			for( int c = 0; c < loadTest.getTestCase().getTestStepCount(); c++ )
 			{
 				TestStep testStep = loadTest.getTestCase().getTestStepAt( c );
 				List<LoadTestStepSample> results = new ArrayList<LoadTestStepSample>();
 
+				if( stepSamples != null )
+				{
+					for( int i = 0; i < stepSamples.size(); i++ )
+					{
+						if( stepSamples.getStepIndex( i ) == c )
+							results.add( new LoadTestStepSample( stepSamples.getTimeTaken( i ), stepSamples.getSize( i ),
+									stepSamples.getTimeStamp( i ), stepSamples.getStatus( i ) ) );
+					}
+
+					s.add( results.toArray( new LoadTestStepSample[results.size()] ) );
+					continue;
+				}
+
 				for( int i = 0; i < testResults.size(); i++ )
 				{
 					TestStepResult stepResult = testResults.get( i );
@@ -15,12 +15,10 @@ package com.eviware.soapui.impl.wsdl.loadtest.data;
 import java.awt.Color;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.util.EmptyStackException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.swing.table.AbstractTableModel;
 
@@ -29,7 +27,13 @@ import org.apache.log4j.Logger;
 import com.eviware.soapui.SoapUI;
 import com.eviware.soapui.impl.wsdl.loadtest.ColorPalette;
 import com.eviware.soapui.impl.wsdl.loadtest.WsdlLoadTest;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.BaseHttpResponse;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.support.metrics.HttpPhaseTimings;
+import com.eviware.soapui.impl.wsdl.support.AbstractTestCaseRunner;
+import com.eviware.soapui.impl.wsdl.support.TestStepSamples;
 import com.eviware.soapui.impl.wsdl.testcase.WsdlTestCase;
+import com.eviware.soapui.model.iface.MessageExchange;
+import com.eviware.soapui.model.iface.Response;
 import com.eviware.soapui.model.support.LoadTestRunListenerAdapter;
 import com.eviware.soapui.model.support.TestSuiteListenerAdapter;
 import com.eviware.soapui.model.testsuite.LoadTestRunContext;
@@ -37,6 +41,7 @@ import com.eviware.soapui.model.testsuite.LoadTestRunner;
 import com.eviware.soapui.model.testsuite.TestCase;
 import com.eviware.soapui.model.testsuite.TestCaseRunContext;
 import com.eviware.soapui.model.testsuite.TestCaseRunner;
+import com.eviware.soapui.model.testsuite.TestRunContext;
 import com.eviware.soapui.model.testsuite.TestRunner;
 import com.eviware.soapui.model.testsuite.TestStep;
 import com.eviware.soapui.model.testsuite.TestStepResult;
@@ -69,6 +74,21 @@ public final class LoadTestStatistics extends AbstractTableModel implements Runn
 	private final static int SUM_COLUMN = 9;
 	private final static int CURRENT_CNT_COLUMN = 10;
 	private final static int RATIO_COLUMN = 11;
+	private final static int P50_COLUMN = 12;
+	private final static int P90_COLUMN = 13;
+	private final static int P95_COLUMN = 14;
+	private final static int P99_COLUMN = 15;
+	private final static int P999_COLUMN = 16;
+	private final static int LATE_STARTS_COLUMN = 17;
+	private final static int MISSED_STARTS_COLUMN = 18;
+
+	// optional HTTP phase columns, the average, p90 and p99 of each phase
+	private final static int PHASE_COLUMN = 19;
+	private final static int PHASE_COLUMN_COUNT = 3;
+	private final static int COLUMN_COUNT = PHASE_COLUMN + HttpPhaseTimings.PHASE_COUNT * PHASE_COLUMN_COUNT;
+
+	private final static double[] PERCENTILES = { 50, 90, 95, 99, 99.9 };
+	private final static double[] PHASE_PERCENTILES = { 90, 99 };
 
 	public static final int TOTAL = -1;
 
@@ -80,14 +100,26 @@ public final class LoadTestStatistics extends AbstractTableModel implements Runn
 
 	private StatisticsHistory history;
 
-	private boolean changed;
+	private final static int MERGE_INTERVAL = 50;
+
+	private final static int CNT_BASELINE = 0;
+	private final static int SUM_BASELINE = 1;
+	private final static int BYTES_BASELINE = 2;
+
+	private volatile boolean changed;
 	private long updateFrequency = DEFAULT_SAMPLE_INTERVAL;
-	private Queue<SamplesHolder> samplesStack = new ConcurrentLinkedQueue<SamplesHolder>();
-	private long currentThreadCountStartTime;
-	private long totalAverageSum;
-	private boolean resetStatistics;
-	private boolean running;
-	private boolean adding;
+	private volatile StripedSampleAccumulator accumulator;
+	private volatile StripedSampleAccumulator[] phaseAccumulators;
+	private long[][] baseline;
+	private long mergedSampleCount;
+	private volatile long currentThreadCountStartTime;
+	private volatile boolean resetStatistics;
+	private volatile boolean running;
+	private volatile long remoteThreadCount;
+
+	private final ThreadLocal<long[][]> scratchSamples = new ThreadLocal<long[][]>();
+	private final long[] percentileValues = new long[PERCENTILES.length];
+	private final long[] phasePercentileValues = new long[PHASE_PERCENTILES.length];
 
 	public LoadTestStatistics( WsdlLoadTest loadTest )
 	{
@@ -112,9 +144,25 @@ public final class LoadTestStatistics extends AbstractTableModel implements Runn
 		init();
 	}
 
-	private void init()
+	private synchronized void init()
 	{
-		data = new long[getRowCount()][11];
+		data = new long[getRowCount()][COLUMN_COUNT];
+		baseline = new long[getRowCount()][3];
+		accumulator = new StripedSampleAccumulator( getStepCount() );
+		mergedSampleCount = 0;
+
+		if( loadTest.getHttpPhaseStatistics() )
+		{
+			StripedSampleAccumulator[] phases = new StripedSampleAccumulator[HttpPhaseTimings.PHASE_COUNT];
+			for( int c = 0; c < phases.length; c++ )
+				phases[c] = new StripedSampleAccumulator( getStepCount() );
+
+			phaseAccumulators = phases;
+		}
+		else
+		{
+			phaseAccumulators = null;
+		}
 	}
 
 	public StatisticsHistory getHistory()
@@ -134,7 +182,22 @@ public final class LoadTestStatistics extends AbstractTableModel implements Runn
 
 	public int getColumnCount()
 	{
-		return 12;
+		return phaseAccumulators == null ? PHASE_COLUMN : COLUMN_COUNT;
+	}
+
+	/**
+	 * @return the column holding the specified value of the specified phase,
+	 *         the average is followed by the percentiles
+	 */
+
+	private static int phaseColumn( int phase, int value )
+	{
+		return PHASE_COLUMN + phase * PHASE_COLUMN_COUNT + value;
+	}
+
+	private static boolean isPhaseAverageColumn( int columnIndex )
+	{
+		return columnIndex >= PHASE_COLUMN && ( columnIndex - PHASE_COLUMN ) % PHASE_COLUMN_COUNT == 0;
 	}
 
 	public String getColumnName( int columnIndex )
@@ -165,8 +228,23 @@ public final class LoadTestStatistics extends AbstractTableModel implements Runn
 			return Statistic.ERRORS.getName();
 		case 11 :
 			return Statistic.ERRORRATIO.getName();
+		case 12 :
+			return Statistic.P50.getName();
+		case 13 :
+			return Statistic.P90.getName();
+		case 14 :
+			return Statistic.P95.getName();
+		case 15 :
+			return Statistic.P99.getName();
+		case 16 :
+			return Statistic.P999.getName();
+		case 17 :
+			return Statistic.LATE_STARTS.getName();
+		case 18 :
+			return Statistic.MISSED_STARTS.getName();
+		default :
+			return columnIndex < COLUMN_COUNT ? Statistic.forIndex( columnIndex ).getName() : null;
 		}
-		return null;
 	}
 
 	public Class<?> getColumnClass( int columnIndex )
@@ -181,7 +259,7 @@ public final class LoadTestStatistics extends AbstractTableModel implements Runn
 		case 7 :
 			return Float.class;
 		default :
-			return Long.class;
+			return isPhaseAverageColumn( columnIndex ) ? Float.class : Long.class;
 		}
 	}
 
@@ -190,6 +268,25 @@ public final class LoadTestStatistics extends AbstractTableModel implements Runn
 		return false;
 	}
 
+	/**
+	 * Returns the statistic shown in the specified table column, or null for the
+	 * color and name columns
+	 */
+
+	public Statistic getStatisticAt( int columnIndex )
+	{
+		switch( columnIndex )
+		{
+		case 0 :
+		case 1 :
+			return null;
+		case 11 :
+			return Statistic.ERRORRATIO;
+		default :
+			return columnIndex < 11 ? Statistic.forIndex( columnIndex - 2 ) : Statistic.forIndex( columnIndex );
+		}
+	}
+
 	public long getStatistic( int stepIndex, Statistic statistic )
 	{
 		if( stepIndex == TOTAL )
@@ -199,11 +296,17 @@ public final class LoadTestStatistics extends AbstractTableModel implements Runn
 		{
 		case TPS :
 		case AVERAGE :
+		case DNS_AVERAGE :
+		case CONNECT_AVERAGE :
+		case SSL_AVERAGE :
+		case TTFB_AVERAGE :
+		case READ_AVERAGE :
+		case WAIT_AVERAGE :
 			return data[stepIndex][statistic.getIndex()] / 100;
 		case ERRORRATIO :
 			return data[stepIndex][Statistic.COUNT.getIndex()] == 0 ? 0
-					: ( long )( ( ( ( float )data[stepIndex][Statistic.ERRORS.getIndex()] / ( float )data[stepIndex][Statistic.COUNT
-							.getIndex()] ) + 0.5 ) * 100 );
+					: ( long )( ( ( float )data[stepIndex][Statistic.ERRORS.getIndex()] / ( float )data[stepIndex][Statistic.COUNT
+							.getIndex()] ) * 100 );
 		default :
 			return data[stepIndex][statistic.getIndex()];
 		}
@@ -236,8 +339,25 @@ public final class LoadTestStatistics extends AbstractTableModel implements Runn
 			return data[rowIndex][Statistic.COUNT.getIndex()] == 0 ? 0
 					: ( long )( ( ( float )data[rowIndex][Statistic.ERRORS.getIndex()] / ( float )data[rowIndex][Statistic.COUNT
 							.getIndex()] ) * 100 );
+		case 12 :
+		case 13 :
+		case 14 :
+		case 15 :
+		case 16 :
+		case 17 :
+		case 18 :
+			return data == null || rowIndex >= data.length ? new Long( 0 ) : new Long( data[rowIndex][columnIndex] );
 		default :
 		{
+			if( columnIndex >= PHASE_COLUMN )
+			{
+				if( data == null || rowIndex >= data.length )
+					return isPhaseAverageColumn( columnIndex ) ? new Float( 0 ) : new Long( 0 );
+
+				return isPhaseAverageColumn( columnIndex ) ? new Float( ( float )data[rowIndex][columnIndex] / 100 )
+						: new Long( data[rowIndex][columnIndex] );
+			}
+
 			return data == null || rowIndex >= data.length ? new Long( 0 ) : new Long( data[rowIndex][columnIndex - 2] );
 		}
 		}
@@ -245,69 +365,132 @@ public final class LoadTestStatistics extends AbstractTableModel implements Runn
 
 	public void pushSamples( long[] samples, long[] sizes, long[] sampleCounts, long startTime, long timeTaken,
 			boolean complete )
+	{
+		pushSamples( samples, sizes, sampleCounts, startTime, timeTaken, complete, 0 );
+	}
+
+	/**
+	 * Pushes the samples of a TestCase run that started the specified number of
+	 * milliseconds after it was scheduled; this lag is added to the TestCase
+	 * time so that it is measured from the scheduled start
+	 */
+
+	public void pushSamples( long[] samples, long[] sizes, long[] sampleCounts, long startTime, long timeTaken,
+			boolean complete, long startLag )
 	{
 		if( !running || samples.length == 0 || sizes.length == 0 )
 			return;
 
-		samplesStack.add( new SamplesHolder( samples, sizes, sampleCounts, startTime, timeTaken, complete ) );
+		// discard "old" results
+		if( startTime < currentThreadCountStartTime )
+			return;
+
+		StripedSampleAccumulator acc = accumulator;
+		if( samples.length != acc.getStepCount() || sizes.length != acc.getStepCount() )
+		{
+			log.warn( "Unexpected number of samples: " + samples.length + ", expected " + acc.getStepCount() );
+			return;
+		}
+
+		long endTime = startTime + timeTaken;
+		long runTime = 0;
+		long runSize = 0;
+
+		// only update steps when appropriate
+		boolean updateSteps = complete != loadTest.getUpdateStatisticsPerTestStep();
+
+		for( int c = 0; c < samples.length; c++ )
+		{
+			if( sampleCounts[c] > 0 )
+			{
+				if( updateSteps )
+					acc.addStepSamples( c, sampleCounts[c], samples[c], sizes[c], endTime );
+
+				runTime += samples[c];
+				runSize += sizes[c];
+			}
+		}
+
+		if( complete )
+			acc.addTestCaseSample( runTime + startLag, runSize, endTime );
 	}
 
+	/**
+	 * Merges the recorded samples into the table data and notifies listeners at
+	 * the configured update frequency
+	 */
+
 	public void run()
 	{
 		Thread.currentThread().setName( loadTest.getName() + " LoadTestStatistics" );
 
-		while( running || !samplesStack.isEmpty() )
+		long lastUpdate = 0;
+
+		while( running )
 		{
 			try
 			{
-				while( !samplesStack.isEmpty() )
+				updateData();
+
+				long now = System.currentTimeMillis();
+				if( changed && ( updateFrequency < 1 || now - lastUpdate >= updateFrequency ) )
 				{
-					SamplesHolder holder = samplesStack.poll();
-					if( holder != null )
-						addSamples( holder );
+					changed = false;
+					lastUpdate = now;
+					fireTableDataChanged();
 				}
 
-				Thread.sleep( 200 );
-			}
-			catch( EmptyStackException e )
-			{
+				Thread.sleep( MERGE_INTERVAL );
 			}
 			catch( Exception e )
 			{
 				SoapUI.logError( e );
 			}
 		}
+
+		updateData();
+		if( changed )
+		{
+			changed = false;
+			fireTableDataChanged();
+		}
 	}
 
-	private synchronized void addSamples( SamplesHolder holder )
+	private synchronized void updateData()
 	{
-		if( adding )
-			throw new RuntimeException( "Already adding!" );
+		StripedSampleAccumulator acc = accumulator;
+		int totalIndex = data.length - 1;
+		if( acc.getStepCount() != totalIndex )
+			return;
 
-		adding = true;
+		StripedSampleAccumulator[] phases = phaseAccumulators;
 
-		int totalIndex = data.length - 1;
-		if( holder.samples.length != totalIndex || holder.sizes.length != totalIndex )
-		{
-			adding = false;
-			throw new RuntimeException( "Unexpected number of samples: " + holder.samples.length + ", exptected "
-					+ ( totalIndex ) );
-		}
+		long sampleCount = 0;
+		for( int c = 0; c <= totalIndex; c++ )
+			sampleCount += acc.getCount( c );
 
-		// discard "old" results
-		if( holder.startTime < currentThreadCountStartTime )
+		// errors are not always recorded with a sample
+		sampleCount += acc.getErrors( totalIndex );
+
+		// phase samples are recorded per TestStep, also when the other samples
+		// are only recorded per TestCase
+		if( phases != null )
 		{
-			adding = false;
-			return;
+			for( StripedSampleAccumulator phase : phases )
+				sampleCount += phase.getCount( totalIndex );
 		}
 
-		// first check that this is not a
-		long timePassed = ( holder.startTime + holder.timeTaken ) - currentThreadCountStartTime;
-
 		if( resetStatistics )
 		{
-			for( int c = 0; c < data.length; c++ )
+			for( int c = 0; c <= totalIndex; c++ )
 			{
+				baseline[c][CNT_BASELINE] = acc.getCount( c );
+				baseline[c][SUM_BASELINE] = acc.getSum( c );
+				baseline[c][BYTES_BASELINE] = acc.getBytes( c );
+
+				for( int i = P50_COLUMN; i < COLUMN_COUNT; i++ )
+					data[c][i] = 0;
+
 				data[c][CURRENT_CNT_COLUMN] = 0;
 				data[c][AVG_COLUMN] = 0;
 				data[c][SUM_COLUMN] = 0;
@@ -315,147 +498,163 @@ public final class LoadTestStatistics extends AbstractTableModel implements Runn
 				data[c][BYTES_COLUMN] = 0;
 			}
 
-			totalAverageSum = 0;
+			acc.resetHistograms();
+			if( phases != null )
+			{
+				for( StripedSampleAccumulator phase : phases )
+					phase.reset();
+			}
+
 			resetStatistics = false;
 		}
+		else if( sampleCount == mergedSampleCount )
+		{
+			return;
+		}
+
+		mergedSampleCount = sampleCount;
+
+		long timePassed = acc.getLastEndTime() - currentThreadCountStartTime;
+		long threadCount = loadTest.getThreadCount() + remoteThreadCount;
+		boolean tpsOnTimePassed = loadTest.getCalculateTPSOnTimePassed();
 
 		long totalMin = 0;
 		long totalMax = 0;
 		long totalBytes = 0;
-		long totalAvg = 0;
-		long totalSum = 0;
-		long totalLast = 0;
-
-		long threadCount = loadTest.getThreadCount();
 
-		for( int c = 0; c < holder.samples.length; c++ )
+		for( int c = 0; c < totalIndex; c++ )
 		{
-			if( holder.sampleCounts[c] > 0 )
-			{
-				// only update when appropriate
-				if( holder.complete != loadTest.getUpdateStatisticsPerTestStep() )
-				{
-					long sampleAvg = holder.samples[c] / holder.sampleCounts[c];
+			if( acc.getCount( c ) > 0 )
+				mergeRow( acc, c, timePassed, threadCount, tpsOnTimePassed );
 
-					data[c][LAST_COLUMN] = sampleAvg;
-					data[c][CNT_COLUMN] += holder.sampleCounts[c];
-					data[c][CURRENT_CNT_COLUMN] += holder.sampleCounts[c];
-					data[c][SUM_COLUMN] += holder.samples[c];
+			totalMin += data[c][MIN_COLUMN];
+			totalMax += data[c][MAX_COLUMN];
+			totalBytes += data[c][BYTES_COLUMN];
+		}
 
-					if( sampleAvg > 0 && ( sampleAvg < data[c][MIN_COLUMN] || data[c][MIN_COLUMN] == 0 ) )
-						data[c][MIN_COLUMN] = sampleAvg;
+		if( acc.getCount( totalIndex ) > 0 )
+		{
+			mergeRow( acc, totalIndex, timePassed, threadCount, tpsOnTimePassed );
 
-					if( sampleAvg > data[c][MAX_COLUMN] )
-						data[c][MAX_COLUMN] = sampleAvg;
+			data[totalIndex][MIN_COLUMN] = totalMin;
+			data[totalIndex][MAX_COLUMN] = totalMax;
+			data[totalIndex][BYTES_COLUMN] = totalBytes;
+			updateRates( data[totalIndex], timePassed, threadCount, tpsOnTimePassed );
+		}
 
-					float average = ( float )data[c][SUM_COLUMN] / ( float )data[c][CURRENT_CNT_COLUMN];
+		for( int c = 0; c <= totalIndex; c++ )
+			data[c][ERR_COLUMN] = acc.getErrors( c );
 
-					data[c][AVG_COLUMN] = ( long )( average * 100 );
-					data[c][BYTES_COLUMN] += holder.sizes[c];
+		if( phases != null )
+		{
+			for( int c = 0; c <= totalIndex; c++ )
+				mergePhases( phases, c );
+		}
 
-					if( timePassed > 0 )
-					{
-						if( loadTest.getCalculateTPSOnTimePassed() )
-						{
-							data[c][TPS_COLUMN] = ( data[c][CURRENT_CNT_COLUMN] * 100000 ) / timePassed;
-							data[c][BPS_COLUMN] = ( data[c][BYTES_COLUMN] * 1000 ) / timePassed;
-						}
-						else
-						{
-							data[c][TPS_COLUMN] = ( long )( data[c][AVG_COLUMN] > 0 ? ( 100000F / average ) * threadCount : 0 );
-
-							long avgBytes = data[c][CNT_COLUMN] == 0 ? 0 : data[c][BYTES_COLUMN] / data[c][CNT_COLUMN];
-							data[c][BPS_COLUMN] = ( avgBytes * data[c][TPS_COLUMN] ) / 100;
-						}
-					}
-				}
+		changed = true;
+	}
 
-				totalMin += data[c][MIN_COLUMN] * holder.sampleCounts[c];
-				totalMax += data[c][MAX_COLUMN] * holder.sampleCounts[c];
-				totalBytes += data[c][BYTES_COLUMN] * holder.sampleCounts[c];
-				totalAvg += data[c][AVG_COLUMN] * holder.sampleCounts[c];
-				totalSum += data[c][SUM_COLUMN] * holder.sampleCounts[c];
-				totalLast += data[c][LAST_COLUMN] * holder.sampleCounts[c];
-			}
-			else
-			{
-				totalMin += data[c][MIN_COLUMN];
-				totalMax += data[c][MAX_COLUMN];
-				totalBytes += data[c][BYTES_COLUMN];
-			}
-		}
+	private void mergePhases( StripedSampleAccumulator[] phases, int row )
+	{
+		long[] values = data[row];
 
-		if( holder.complete )
+		for( int c = 0; c < phases.length; c++ )
 		{
-			data[totalIndex][CNT_COLUMN]++ ;
-			data[totalIndex][CURRENT_CNT_COLUMN]++ ;
+			long count = phases[c].getCount( row );
+			if( count == 0 )
+				continue;
 
-			totalAverageSum += totalLast * 100;
-			data[totalIndex][AVG_COLUMN] = ( long )( ( float )totalAverageSum / ( float )data[totalIndex][CURRENT_CNT_COLUMN] );
-			data[totalIndex][BYTES_COLUMN] = totalBytes;
+			values[phaseColumn( c, 0 )] = ( long )( ( ( float )phases[c].getSum( row ) / ( float )count ) * 100 );
 
-			if( timePassed > 0 )
-			{
-				if( loadTest.getCalculateTPSOnTimePassed() )
-				{
-					data[totalIndex][TPS_COLUMN] = ( data[totalIndex][CURRENT_CNT_COLUMN] * 100000 ) / timePassed;
-					data[totalIndex][BPS_COLUMN] = ( data[totalIndex][BYTES_COLUMN] * 1000 ) / timePassed;
-				}
-				else
-				{
-					data[totalIndex][TPS_COLUMN] = ( long )( data[totalIndex][AVG_COLUMN] > 0 ? ( 10000000F / data[totalIndex][AVG_COLUMN] )
-							* threadCount
-							: 0 );
+			phases[c].getPercentiles( row, PHASE_PERCENTILES, phasePercentileValues );
+			System.arraycopy( phasePercentileValues, 0, values, phaseColumn( c, 1 ), phasePercentileValues.length );
+		}
+	}
+
+	/**
+	 * Records the phase timings of an HTTP request for its TestStep and for the
+	 * total row, which thus holds the timings of all HTTP requests
+	 */
 
-					long avgBytes = data[totalIndex][CNT_COLUMN] == 0 ? 0 : data[totalIndex][BYTES_COLUMN]
-							/ data[totalIndex][CNT_COLUMN];
+	private static void addPhaseTimings( StripedSampleAccumulator[] phases, int stepIndex,
+			TestStepResult testStepResult, long endTime )
+	{
+		if( !( testStepResult instanceof MessageExchange ) )
+			return;
 
-					data[totalIndex][BPS_COLUMN] = ( avgBytes * data[totalIndex][TPS_COLUMN] ) / 100;
-				}
-			}
+		Response response = ( ( MessageExchange )testStepResult ).getResponse();
+		if( !( response instanceof BaseHttpResponse ) )
+			return;
 
-			data[totalIndex][MIN_COLUMN] = totalMin;
-			data[totalIndex][MAX_COLUMN] = totalMax;
-			data[totalIndex][SUM_COLUMN] = totalSum;
-			data[totalIndex][LAST_COLUMN] = totalLast;
+		HttpPhaseTimings timings = ( ( BaseHttpResponse )response ).getPhaseTimings();
+		if( timings == null )
+			return;
+
+		for( int c = 0; c < phases.length; c++ )
+		{
+			long duration = timings.getDuration( c );
+			phases[c].addStepSamples( stepIndex, 1, duration, 0, endTime );
+			phases[c].addTestCaseSample( duration, 0, endTime );
 		}
+	}
 
-		if( updateFrequency == 0 )
-			fireTableDataChanged();
-		else
-			changed = true;
+	private void mergeRow( StripedSampleAccumulator acc, int row, long timePassed, long threadCount,
+			boolean tpsOnTimePassed )
+	{
+		long[] values = data[row];
 
-		adding = false;
+		values[CNT_COLUMN] = acc.getCount( row );
+		values[CURRENT_CNT_COLUMN] = values[CNT_COLUMN] - baseline[row][CNT_BASELINE];
+		values[SUM_COLUMN] = acc.getSum( row ) - baseline[row][SUM_BASELINE];
+		values[BYTES_COLUMN] = acc.getBytes( row ) - baseline[row][BYTES_BASELINE];
+		values[MIN_COLUMN] = acc.getMin( row );
+		values[MAX_COLUMN] = acc.getMax( row );
+		values[LAST_COLUMN] = acc.getLast( row );
+
+		float average = values[CURRENT_CNT_COLUMN] == 0 ? 0 : ( float )values[SUM_COLUMN]
+				/ ( float )values[CURRENT_CNT_COLUMN];
+		values[AVG_COLUMN] = ( long )( average * 100 );
+
+		acc.getPercentiles( row, PERCENTILES, percentileValues );
+		System.arraycopy( percentileValues, 0, values, P50_COLUMN, percentileValues.length );
+
+		updateRates( values, timePassed, threadCount, tpsOnTimePassed );
 	}
 
-	private final class Updater implements Runnable
+	private static void updateRates( long[] values, long timePassed, long threadCount, boolean tpsOnTimePassed )
 	{
-		public void run()
-		{
-			Thread.currentThread().setName( loadTest.getName() + " LoadTestStatistics Updater" );
+		if( timePassed <= 0 )
+			return;
 
-			// check all these for catching threading issues
-			while( running || changed || !samplesStack.isEmpty() )
-			{
-				if( changed )
-				{
-					fireTableDataChanged();
-					changed = false;
-				}
+		if( tpsOnTimePassed )
+		{
+			values[TPS_COLUMN] = ( values[CURRENT_CNT_COLUMN] * 100000 ) / timePassed;
+			values[BPS_COLUMN] = ( values[BYTES_COLUMN] * 1000 ) / timePassed;
+		}
+		else
+		{
+			values[TPS_COLUMN] = ( long )( values[AVG_COLUMN] > 0 ? ( 10000000F / values[AVG_COLUMN] ) * threadCount : 0 );
 
-				if( !running && samplesStack.isEmpty() )
-					break;
+			long avgBytes = values[CNT_COLUMN] == 0 ? 0 : values[BYTES_COLUMN] / values[CNT_COLUMN];
+			values[BPS_COLUMN] = ( avgBytes * values[TPS_COLUMN] ) / 100;
+		}
+	}
 
-				try
-				{
-					Thread.sleep( updateFrequency < 1 ? 1000 : updateFrequency );
-				}
-				catch( InterruptedException e )
-				{
-					SoapUI.logError( e );
-				}
-			}
+	private long[][] getScratchSamples( int stepCount )
+	{
+		long[][] scratch = scratchSamples.get();
+		if( scratch == null || scratch[0].length != stepCount )
+		{
+			scratch = new long[3][stepCount];
+			scratchSamples.set( scratch );
 		}
+		else
+		{
+			for( long[] values : scratch )
+				Arrays.fill( values, 0 );
+		}
+
+		return scratch;
 	}
 
 	private void stop()
@@ -473,21 +672,20 @@ public final class LoadTestStatistics extends AbstractTableModel implements Runn
 	{
 		public void beforeLoadTest( LoadTestRunner loadTestRunner, LoadTestRunContext context )
 		{
-			samplesStack.clear();
+			currentThreadCountStartTime = System.currentTimeMillis();
 
 			running = true;
-			SoapUI.getThreadPool().submit( updater );
 			SoapUI.getThreadPool().submit( LoadTestStatistics.this );
-
-			currentThreadCountStartTime = System.currentTimeMillis();
-			totalAverageSum = 0;
 		}
 
 		@Override
 		public void afterTestStep( LoadTestRunner loadTestRunner, LoadTestRunContext context, TestCaseRunner testRunner,
 				TestCaseRunContext runContext, TestStepResult testStepResult )
 		{
-			if( loadTest.getUpdateStatisticsPerTestStep() )
+			StripedSampleAccumulator[] phases = phaseAccumulators;
+			boolean updateSteps = loadTest.getUpdateStatisticsPerTestStep();
+
+			if( updateSteps || phases != null )
 			{
 				TestCase testCase = testRunner.getTestCase();
 
@@ -497,17 +695,18 @@ public final class LoadTestStatistics extends AbstractTableModel implements Runn
 					return;
 				}
 
-				long[] samples = new long[testCase.getTestStepCount()];
-				long[] sizes = new long[samples.length];
-				long[] sampleCounts = new long[samples.length];
+				long startTime = testRunner.getStartTime();
+				if( !running || startTime < currentThreadCountStartTime )
+					return;
 
 				int index = testCase.getIndexOfTestStep( testStepResult.getTestStep() );
-				sampleCounts[index]++ ;
+				long endTime = startTime + testRunner.getTimeTaken();
 
-				samples[index] += testStepResult.getTimeTaken();
-				sizes[index] += testStepResult.getSize();
+				if( updateSteps )
+					accumulator.addStepSamples( index, 1, testStepResult.getTimeTaken(), testStepResult.getSize(), endTime );
 
-				pushSamples( samples, sizes, sampleCounts, testRunner.getStartTime(), testRunner.getTimeTaken(), false );
+				if( phases != null && index >= 0 )
+					addPhaseTimings( phases, index, testStepResult, endTime );
 			}
 		}
 
@@ -518,33 +717,57 @@ public final class LoadTestStatistics extends AbstractTableModel implements Runn
 					&& testRunner.getReason().equals( NO_STATS_TESTCASE_CANCEL_REASON ) )
 				return;
 
-			List<TestStepResult> results = testRunner.getResults();
 			TestCase testCase = testRunner.getTestCase();
 
-			long[] samples = new long[testCase.getTestStepCount()];
-			long[] sizes = new long[samples.length];
-			long[] sampleCounts = new long[samples.length];
+			long[][] scratch = getScratchSamples( testCase.getTestStepCount() );
+			long[] samples = scratch[0];
+			long[] sizes = scratch[1];
+			long[] sampleCounts = scratch[2];
+
+			TestStepSamples stepSamples = testRunner instanceof AbstractTestCaseRunner ? ( ( AbstractTestCaseRunner<?, ?> )testRunner )
+					.getStepSamples() : null;
 
-			for( int c = 0; c < results.size(); c++ )
+			if( stepSamples != null )
 			{
-				TestStepResult testStepResult = results.get( c );
-				if( testStepResult == null )
+				for( int c = 0; c < stepSamples.size(); c++ )
 				{
-					log.warn( "Result [" + c + "] is null in TestCase [" + testCase.getName() + "]" );
-					continue;
-				}
+					int index = stepSamples.getStepIndex( c );
+					if( index >= 0 )
+					{
+						sampleCounts[index]++ ;
 
-				int index = testCase.getIndexOfTestStep( testStepResult.getTestStep() );
-				if( index >= 0 )
+						samples[index] += stepSamples.getTimeTaken( c );
+						sizes[index] += stepSamples.getSize( c );
+					}
+				}
+			}
+			else
+			{
+				List<TestStepResult> results = testRunner.getResults();
+				for( int c = 0; c < results.size(); c++ )
 				{
-				sampleCounts[index]++ ;
+					TestStepResult testStepResult = results.get( c );
+					if( testStepResult == null )
+					{
+						log.warn( "Result [" + c + "] is null in TestCase [" + testCase.getName() + "]" );
+						continue;
+					}
 
-				samples[index] += testStepResult.getTimeTaken();
-				sizes[index] += testStepResult.getSize();
-			}
+					int index = testCase.getIndexOfTestStep( testStepResult.getTestStep() );
+					if( index >= 0 )
+					{
+						sampleCounts[index]++ ;
+
+						samples[index] += testStepResult.getTimeTaken();
+						sizes[index] += testStepResult.getSize();
+					}
+				}
 			}
 
-			pushSamples( samples, sizes, sampleCounts, testRunner.getStartTime(), testRunner.getTimeTaken(), true );
+			Object startLag = runContext.getProperty( TestRunContext.START_LAG );
+
+			pushSamples( samples, sizes, sampleCounts, testRunner.getStartTime(), testRunner.getTimeTaken(), true,
+					startLag instanceof Long ? ( ( Long )startLag ).longValue() : 0 );
 		}
 
 		@Override
@@ -611,7 +834,7 @@ public final class LoadTestStatistics extends AbstractTableModel implements Runn
 		{
 			if( evt.getSource() == loadTest && evt.getPropertyName().equals( WsdlLoadTest.THREADCOUNT_PROPERTY ) )
 			{
-				if( loadTest.getResetStatisticsOnThreadCountChange() )
+				if( loadTest.getResetStatisticsOnThreadCountChange() && !loadTest.isKeepingStatistics() )
 				{
 					resetStatistics = true;
 					currentThreadCountStartTime = System.currentTimeMillis();
@@ -628,6 +851,13 @@ public final class LoadTestStatistics extends AbstractTableModel implements Runn
 				if( loadTest.getHistoryLimit() == 0 )
 					history.reset();
 			}
+			else if( evt.getPropertyName().equals( WsdlLoadTest.HTTP_PHASE_STATISTICS_PROPERTY ) )
+			{
+				init();
+				fireTableStructureChanged();
+
+				history.reset();
+			}
 		}
 	}
 
@@ -651,36 +881,95 @@ public final class LoadTestStatistics extends AbstractTableModel implements Runn
 
 	public void addError( int stepIndex )
 	{
+		StripedSampleAccumulator acc = accumulator;
 		if( stepIndex != -1 )
 		{
-			data[stepIndex][ERR_COLUMN]++ ;
+			acc.addError( stepIndex );
 		}
 
-		data[data.length - 1][ERR_COLUMN]++ ;
+		acc.addError( acc.getStepCount() );
+	}
+
+	/**
+	 * Captures the current values of these statistics for shipping them to a
+	 * LoadTest coordinator
+	 */
+
+	public synchronized StatisticsSnapshot createSnapshot()
+	{
+		long[] errors = new long[data.length];
+		for( int c = 0; c < data.length; c++ )
+			errors[c] = accumulator.getErrors( c );
+
+		return StatisticsSnapshot.capture( accumulator, errors );
+	}
+
+	/**
+	 * Adds the samples and errors of a snapshot received from a LoadTest agent.
+	 * Snapshots are also added after the local LoadTest has finished, they are
+	 * merged into the table data on the next update or by {@link #finish()}.
+	 *
+	 * @param timeOffset
+	 *           the difference between the local clock and the clock of the
+	 *           agent
+	 */
+
+	public synchronized void addSnapshot( StatisticsSnapshot snapshot, long timeOffset )
+	{
+		if( snapshot.getStepCount() != getStepCount() )
+		{
+			log.warn( "Unexpected number of steps in snapshot: " + snapshot.getStepCount() + ", expected "
+					+ getStepCount() );
+			return;
+		}
+
+		accumulator.addSnapshot( snapshot, timeOffset );
 		changed = true;
 	}
 
-	public synchronized StringList[] getSnapshot()
+	/**
+	 * Sets the number of TestCase runs that started late and that were due but
+	 * not started, as counted by the LoadStrategy, in the TestCase row
+	 */
+
+	public synchronized void setStartCounts( long lateStarts, long missedStarts )
 	{
-		long[][] clone = data.clone();
+		long[] values = data[data.length - 1];
+		if( values[LATE_STARTS_COLUMN] != lateStarts || values[MISSED_STARTS_COLUMN] != missedStarts )
+		{
+			values[LATE_STARTS_COLUMN] = lateStarts;
+			values[MISSED_STARTS_COLUMN] = missedStarts;
+			changed = true;
+		}
+	}
+
+	/**
+	 * Sets the number of threads run by LoadTest agents, which is added to the
+	 * local thread count when calculating TPS on the average TestStep time
+	 */
 
+	public void setRemoteThreadCount( long remoteThreadCount )
+	{
+		this.remoteThreadCount = remoteThreadCount;
+	}
+
+	public long getRemoteThreadCount()
+	{
+		return remoteThreadCount;
+	}
+
+	public synchronized StringList[] getSnapshot()
+	{
+		updateData();
 		StringList[] result = new StringList[getRowCount()];
 
-		for( int c = 0; c < clone.length; c++ )
+		for( int c = 0; c < result.length; c++ )
 		{
 			StringList values = new StringList();
 
 			for( int columnIndex = 2; columnIndex < getColumnCount(); columnIndex++ )
 			{
-				switch( columnIndex )
-				{
-				case 4 :
-				case 7 :
-					values.add( String.valueOf( ( float )data[c][columnIndex - 2] / 100 ) );
-					break;
-				default :
-					values.add( String.valueOf( data[c][columnIndex - 2] ) );
-				}
+				values.add( String.valueOf( getValueAt( c, columnIndex ) ) );
 			}
 
 			result[c] = values;
@@ -691,8 +980,6 @@ public final class LoadTestStatistics extends AbstractTableModel implements Runn
 
 	private final static Map<Integer, Statistic> statisticIndexMap = new HashMap<Integer, Statistic>();
 
-	private Updater updater = new Updater();
-
 	public enum Statistic
 	{
 		MININMUM( MIN_COLUMN, "min", "the minimum measured teststep time" ), MAXIMUM( MAX_COLUMN, "max",
@@ -704,7 +991,47 @@ public final class LoadTestStatistics extends AbstractTableModel implements Runn
 				"the number of bytes per second returned by this teststep" ), ERRORS( ERR_COLUMN, "err",
 				"the total number of assertion errors for this teststep" ), SUM( SUM_COLUMN, "sum", "internal sum" ), CURRENT_CNT(
 				CURRENT_CNT_COLUMN, "ccnt", "internal cnt" ), ERRORRATIO( RATIO_COLUMN, "rat",
-				"the ratio between exections and failures" );
+				"the ratio between exections and failures" ),
+		P50( P50_COLUMN, "p50", "the median measured teststep time" ),
+		P90( P90_COLUMN, "p90", "the 90th percentile of measured teststep times" ),
+		P95( P95_COLUMN, "p95", "the 95th percentile of measured teststep times" ),
+		P99( P99_COLUMN, "p99", "the 99th percentile of measured teststep times" ),
+		P999( P999_COLUMN, "p99.9", "the 99.9th percentile of measured teststep times" ),
+		LATE_STARTS( LATE_STARTS_COLUMN, "late",
+				"the number of TestCase runs started late by an arrival rate strategy" ),
+		MISSED_STARTS( MISSED_STARTS_COLUMN, "missed",
+				"the number of TestCase runs due but not started by an arrival rate strategy" ),
+		DNS_AVERAGE( phaseColumn( HttpPhaseTimings.DNS, 0 ), "dns avg",
+				"the average DNS lookup time of HTTP requests" ),
+		DNS_P90( phaseColumn( HttpPhaseTimings.DNS, 1 ), "dns p90", "the 90th percentile of DNS lookup times" ),
+		DNS_P99( phaseColumn( HttpPhaseTimings.DNS, 2 ), "dns p99", "the 99th percentile of DNS lookup times" ),
+		CONNECT_AVERAGE( phaseColumn( HttpPhaseTimings.CONNECT, 0 ), "conn avg",
+				"the average time to open or reuse a connection for HTTP requests" ),
+		CONNECT_P90( phaseColumn( HttpPhaseTimings.CONNECT, 1 ), "conn p90",
+				"the 90th percentile of connection times" ),
+		CONNECT_P99( phaseColumn( HttpPhaseTimings.CONNECT, 2 ), "conn p99",
+				"the 99th percentile of connection times" ),
+		SSL_AVERAGE( phaseColumn( HttpPhaseTimings.SSL_HANDSHAKE, 0 ), "tls avg",
+				"the average SSL handshake time of HTTP requests" ),
+		SSL_P90( phaseColumn( HttpPhaseTimings.SSL_HANDSHAKE, 1 ), "tls p90",
+				"the 90th percentile of SSL handshake times" ),
+		SSL_P99( phaseColumn( HttpPhaseTimings.SSL_HANDSHAKE, 2 ), "tls p99",
+				"the 99th percentile of SSL handshake times" ),
+		TTFB_AVERAGE( phaseColumn( HttpPhaseTimings.TIME_TO_FIRST_BYTE, 0 ), "ttfb avg",
+				"the average time to first byte of HTTP responses" ),
+		TTFB_P90( phaseColumn( HttpPhaseTimings.TIME_TO_FIRST_BYTE, 1 ), "ttfb p90",
+				"the 90th percentile of times to first byte" ),
+		TTFB_P99( phaseColumn( HttpPhaseTimings.TIME_TO_FIRST_BYTE, 2 ), "ttfb p99",
+				"the 99th percentile of times to first byte" ),
+		READ_AVERAGE( phaseColumn( HttpPhaseTimings.READ, 0 ), "read avg", "the average time reading HTTP responses" ),
+		READ_P90( phaseColumn( HttpPhaseTimings.READ, 1 ), "read p90", "the 90th percentile of response read times" ),
+		READ_P99( phaseColumn( HttpPhaseTimings.READ, 2 ), "read p99", "the 99th percentile of response read times" ),
+		WAIT_AVERAGE( phaseColumn( HttpPhaseTimings.CONNECTION_WAIT, 0 ), "wait avg",
+				"the average time HTTP requests waited for a connection from the pool" ),
+		WAIT_P90( phaseColumn( HttpPhaseTimings.CONNECTION_WAIT, 1 ), "wait p90",
+				"the 90th percentile of connection pool wait times" ),
+		WAIT_P99( phaseColumn( HttpPhaseTimings.CONNECTION_WAIT, 2 ), "wait p99",
+				"the 99th percentile of connection pool wait times" );
 
 		private final String description;
 		private final String name;
@@ -740,42 +1067,9 @@ public final class LoadTestStatistics extends AbstractTableModel implements Runn
 		}
 	}
 
-	/**
-	 * Holds all sample values for a testcase run
-	 * 
-	 * @author ole.matzura
-	 */
-
-	private static final class SamplesHolder
-	{
-		private final long[] samples;
-		private final long[] sizes;
-		private final long[] sampleCounts;
-
-		private final long startTime;
-		private final long timeTaken;
-		private final boolean complete;
-
-		public SamplesHolder( long[] samples, long[] sizes, long[] sampleCounts, long startTime, long timeTaken,
-				boolean complete )
-		{
-			this.samples = samples;
-			this.sizes = sizes;
-			this.startTime = startTime;
-			this.timeTaken = timeTaken;
-			this.sampleCounts = sampleCounts;
-			this.complete = complete;
-		}
-	}
-
 	public synchronized void finish()
 	{
-		// push leftover samples
-		while( !samplesStack.isEmpty() )
-		{
-			SamplesHolder holder = samplesStack.poll();
-			if( holder != null )
-				addSamples( holder );
-		}
+		// merge leftover samples
+		updateData();
 	}
 }
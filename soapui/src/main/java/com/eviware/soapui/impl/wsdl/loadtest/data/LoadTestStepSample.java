@@ -38,6 +38,15 @@ public class LoadTestStepSample
 		timeStamp = result.getTimeStamp();
 	}
 
+	LoadTestStepSample( long timeTaken, long size, long timeStamp, TestStepStatus status )
+	{
+		this.size = size;
+		this.status = status;
+		this.timeTaken = timeTaken;
+		this.messages = new String[0];
+		this.timeStamp = timeStamp;
+	}
+
 	public String[] getMessages()
 	{
 		return messages.clone();
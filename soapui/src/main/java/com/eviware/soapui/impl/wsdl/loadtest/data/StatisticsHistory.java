@@ -151,23 +151,18 @@ public class StatisticsHistory
 		}
 		else
 		{
-			int columnCount = statistics.getColumnCount();
 			int rowCount = statistics.getRowCount();
+			Statistic[] statisticValues = Statistic.values();
 
-			long[][] values = new long[rowCount][columnCount - 2];
+			// store values by statistic index so they can be looked up for both
+			// table columns and statistics
+			long[][] values = new long[rowCount][statisticValues.length];
 
 			for( int c = 0; c < rowCount; c++ )
 			{
-				for( int i = 2; i < columnCount; i++ )
+				for( Statistic statistic : statisticValues )
 				{
-					try
-					{
-						values[c][i - 2] = Long.parseLong( statistics.getValueAt( c, i ).toString() );
-					}
-					catch( NumberFormatException ex )
-					{
-						values[c][i - 2] = ( long )Float.parseFloat( statistics.getValueAt( c, i ).toString() );
-					}
+					values[c][statistic.getIndex()] = statistics.getStatistic( c, statistic );
 				}
 			}
 
@@ -224,7 +219,7 @@ public class StatisticsHistory
 
 			// tolerance..
 			if( rowIndex < data.size() )
-				return data.get( rowIndex )[testStepIndex][columnIndex - 1];
+				return data.get( rowIndex )[testStepIndex][statistics.getStatisticAt( columnIndex + 1 ).getIndex()];
 			else
 				return new Long( 0 );
 		}
@@ -236,7 +231,7 @@ public class StatisticsHistory
 
 		public String getColumnName( int column )
 		{
-			return column == 0 ? "ThreadCount" : Statistic.forIndex( column - 1 ).getName();
+			return column == 0 ? "ThreadCount" : statistics.getStatisticAt( column + 1 ).getName();
 		}
 
 		public void release()
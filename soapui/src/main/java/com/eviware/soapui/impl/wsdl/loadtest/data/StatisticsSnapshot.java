@@ -0,0 +1,247 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.loadtest.data;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Point-in-time copy of the values recorded by a {@link StripedSampleAccumulator}
+ * and the error counts of a {@link LoadTestStatistics}, used for shipping the
+ * statistics of a LoadTest agent to the coordinator.
+ * <p>
+ * Snapshots are cumulative when captured; {@link #delta(StatisticsSnapshot)}
+ * creates the difference to a previous snapshot, which can be merged into the
+ * statistics of the coordinator with
+ * {@link LoadTestStatistics#addSnapshot(StatisticsSnapshot, long)}. Counts,
+ * sums and histogram buckets are added when merging, min/max/last values are
+ * combined, so merging is independent of the order and number of agents.
+ * </p>
+ */
+
+public final class StatisticsSnapshot
+{
+	final static int COUNT = 0;
+	final static int SUM = 1;
+	final static int MIN = 2;
+	final static int MAX = 3;
+	final static int BYTES = 4;
+	final static int LAST = 5;
+	final static int LAST_TIME = 6;
+	final static int ERRORS = 7;
+	final static int FIELD_COUNT = 8;
+
+	private final long timestamp;
+	private final long lastEndTime;
+	private final long[][] values;
+	private final long[][] histograms;
+	private final long[] histogramMax;
+
+	private StatisticsSnapshot( long timestamp, long lastEndTime, long[][] values, long[][] histograms,
+			long[] histogramMax )
+	{
+		this.timestamp = timestamp;
+		this.lastEndTime = lastEndTime;
+		this.values = values;
+		this.histograms = histograms;
+		this.histogramMax = histogramMax;
+	}
+
+	/**
+	 * Captures the current values of the specified accumulator
+	 *
+	 * @param errors
+	 *           the error count of each slot, may be null
+	 */
+
+	static StatisticsSnapshot capture( StripedSampleAccumulator acc, long[] errors )
+	{
+		int slotCount = acc.getStepCount() + 1;
+		long[][] values = new long[slotCount][FIELD_COUNT];
+		long[][] histograms = new long[slotCount][];
+		long[] histogramMax = new long[slotCount];
+
+		for( int c = 0; c < slotCount; c++ )
+		{
+			values[c][COUNT] = acc.getCount( c );
+			values[c][SUM] = acc.getSum( c );
+			values[c][MIN] = acc.getMin( c );
+			values[c][MAX] = acc.getMax( c );
+			values[c][BYTES] = acc.getBytes( c );
+			values[c][LAST] = acc.getLast( c );
+			values[c][LAST_TIME] = acc.getLastTime( c );
+			values[c][ERRORS] = errors == null || c >= errors.length ? 0 : errors[c];
+
+			LatencyHistogram histogram = acc.getHistogram( c );
+			histograms[c] = new long[histogram.getBucketCount()];
+			for( int i = 0; i < histograms[c].length; i++ )
+				histograms[c][i] = histogram.getCountAt( i );
+
+			histogramMax[c] = histogram.getMaxValue();
+		}
+
+		return new StatisticsSnapshot( System.currentTimeMillis(), acc.getLastEndTime(), values, histograms,
+				histogramMax );
+	}
+
+	/**
+	 * Creates the difference between this snapshot and a previous snapshot of
+	 * the same statistics.
+	 *
+	 * @param previous
+	 *           the previous snapshot, or null to return this snapshot
+	 */
+
+	public StatisticsSnapshot delta( StatisticsSnapshot previous )
+	{
+		if( previous == null || previous.values.length != values.length )
+			return this;
+
+		long[][] deltaValues = new long[values.length][];
+		long[][] deltaHistograms = new long[values.length][];
+
+		for( int c = 0; c < values.length; c++ )
+		{
+			deltaValues[c] = values[c].clone();
+			deltaValues[c][COUNT] -= previous.values[c][COUNT];
+			deltaValues[c][SUM] -= previous.values[c][SUM];
+			deltaValues[c][BYTES] -= previous.values[c][BYTES];
+			deltaValues[c][ERRORS] -= previous.values[c][ERRORS];
+
+			deltaHistograms[c] = histograms[c].clone();
+			if( previous.histograms[c].length == deltaHistograms[c].length )
+			{
+				// histograms are cleared when statistics are reset during a run
+				for( int i = 0; i < deltaHistograms[c].length; i++ )
+					deltaHistograms[c][i] = Math.max( 0, deltaHistograms[c][i] - previous.histograms[c][i] );
+			}
+		}
+
+		return new StatisticsSnapshot( timestamp, lastEndTime, deltaValues, deltaHistograms, histogramMax );
+	}
+
+	/**
+	 * @return the time this snapshot was captured, in the clock of the
+	 *         capturing process
+	 */
+
+	public long getTimestamp()
+	{
+		return timestamp;
+	}
+
+	public long getLastEndTime()
+	{
+		return lastEndTime;
+	}
+
+	public int getStepCount()
+	{
+		return values.length - 1;
+	}
+
+	public long getValue( int slot, int field )
+	{
+		return values[slot][field];
+	}
+
+	public long getCount( int slot )
+	{
+		return values[slot][COUNT];
+	}
+
+	public long getErrors( int slot )
+	{
+		return values[slot][ERRORS];
+	}
+
+	long[] getHistogram( int slot )
+	{
+		return histograms[slot];
+	}
+
+	long getHistogramMax( int slot )
+	{
+		return histogramMax[slot];
+	}
+
+	/**
+	 * Writes this snapshot, only non-empty histogram buckets are written
+	 */
+
+	public void write( DataOutput out ) throws IOException
+	{
+		out.writeLong( timestamp );
+		out.writeLong( lastEndTime );
+		out.writeInt( values.length );
+
+		for( int c = 0; c < values.length; c++ )
+		{
+			for( int i = 0; i < FIELD_COUNT; i++ )
+				out.writeLong( values[c][i] );
+
+			long[] histogram = histograms[c];
+			int bucketCount = 0;
+			for( int i = 0; i < histogram.length; i++ )
+			{
+				if( histogram[i] > 0 )
+					bucketCount++ ;
+			}
+
+			out.writeInt( histogram.length );
+			out.writeInt( bucketCount );
+			for( int i = 0; i < histogram.length; i++ )
+			{
+				if( histogram[i] > 0 )
+				{
+					out.writeInt( i );
+					out.writeLong( histogram[i] );
+				}
+			}
+
+			out.writeLong( histogramMax[c] );
+		}
+	}
+
+	public static StatisticsSnapshot read( DataInput in ) throws IOException
+	{
+		long timestamp = in.readLong();
+		long lastEndTime = in.readLong();
+		int slotCount = in.readInt();
+
+		long[][] values = new long[slotCount][FIELD_COUNT];
+		long[][] histograms = new long[slotCount][];
+		long[] histogramMax = new long[slotCount];
+
+		for( int c = 0; c < slotCount; c++ )
+		{
+			for( int i = 0; i < FIELD_COUNT; i++ )
+				values[c][i] = in.readLong();
+
+			histograms[c] = new long[in.readInt()];
+			int bucketCount = in.readInt();
+			for( int i = 0; i < bucketCount; i++ )
+			{
+				int index = in.readInt();
+				long count = in.readLong();
+				if( index >= 0 && index < histograms[c].length )
+					histograms[c][index] = count;
+			}
+
+			histogramMax[c] = in.readLong();
+		}
+
+		return new StatisticsSnapshot( timestamp, lastEndTime, values, histograms, histogramMax );
+	}
+}
@@ -0,0 +1,377 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.loadtest.data;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free accumulator for load test samples. Samples are recorded into one of
+ * several stripes of primitive counters selected by the recording thread, and
+ * the stripes are merged when the values are read. Recording never allocates
+ * and never takes a monitor. Each slot additionally records its values into a
+ * shared {@link LatencyHistogram} for percentile calculation.
+ *
+ * Slots <code>0..stepCount-1</code> hold the teststeps, slot
+ * <code>stepCount</code> holds the complete testcase runs.
+ *
+ * The last value of a slot is stored together with its end time in a single
+ * counter, so that it is always replaced atomically by the value of a later
+ * sample. The end time is stored relative to the end time of the first
+ * sample, which allows for about 24 days before or after it, and the value is
+ * limited to 32 bits.
+ */
+
+public final class StripedSampleAccumulator
+{
+	private final static int COUNT = 0;
+	private final static int SUM = 1;
+	private final static int MIN = 2;
+	private final static int MAX = 3;
+	private final static int BYTES = 4;
+	private final static int LAST = 5;
+	private final static int ERRORS = 6;
+	private final static int FIELD_COUNT = 7;
+
+	private final static long MAX_LAST_FIELD = 0xffffffffL;
+	private final static long LAST_TIME_BIAS = 1L << 31;
+
+	private final static int MAX_STRIPES = 64;
+
+	private final int slotCount;
+	private final int stripeMask;
+	private final AtomicLong timeBase = new AtomicLong();
+	private final AtomicLongArray[] stripes;
+	private final AtomicLongArray lastEndTimes;
+	private final LatencyHistogram[] histograms;
+
+	public StripedSampleAccumulator( int stepCount )
+	{
+		this( stepCount, Runtime.getRuntime().availableProcessors() * 2 );
+	}
+
+	public StripedSampleAccumulator( int stepCount, int concurrency )
+	{
+		slotCount = stepCount + 1;
+
+		int stripeCount = 1;
+		while( stripeCount < concurrency && stripeCount < MAX_STRIPES )
+			stripeCount <<= 1;
+
+		stripeMask = stripeCount - 1;
+		stripes = new AtomicLongArray[stripeCount];
+		for( int c = 0; c < stripeCount; c++ )
+			stripes[c] = new AtomicLongArray( slotCount * FIELD_COUNT );
+
+		// spread the end times so each stripe writes its own cache line
+		lastEndTimes = new AtomicLongArray( stripeCount * 8 );
+
+		histograms = new LatencyHistogram[slotCount];
+		for( int c = 0; c < slotCount; c++ )
+			histograms[c] = new LatencyHistogram();
+	}
+
+	public int getStepCount()
+	{
+		return slotCount - 1;
+	}
+
+	/**
+	 * Records the samples of one teststep. The min/max/last values are
+	 * calculated on the average of the passed samples, as they were when
+	 * statistics were collected per testcase run.
+	 */
+
+	public void addStepSamples( int stepIndex, long count, long timeTaken, long size, long endTime )
+	{
+		if( stepIndex < 0 || stepIndex >= slotCount - 1 || count <= 0 )
+			return;
+
+		int stripe = stripeIndex();
+		add( stripes[stripe], stepIndex, count, timeTaken, size, timeTaken / count, endTime );
+		updateEndTime( stripe, endTime );
+	}
+
+	/**
+	 * Records one completed testcase run with the sum of its teststep times
+	 */
+
+	public void addTestCaseSample( long timeTaken, long size, long endTime )
+	{
+		int stripe = stripeIndex();
+		add( stripes[stripe], slotCount - 1, 1, timeTaken, size, timeTaken, endTime );
+		updateEndTime( stripe, endTime );
+	}
+
+	/**
+	 * Records an error for a teststep or for the testcase
+	 */
+
+	public void addError( int slot )
+	{
+		stripes[stripeIndex()].incrementAndGet( slot * FIELD_COUNT + ERRORS );
+	}
+
+	/**
+	 * Adds the values of a snapshot taken from another accumulator with the
+	 * same number of steps, used for merging statistics from LoadTest agents.
+	 *
+	 * @param timeOffset
+	 *           the difference between the local clock and the clock of the
+	 *           process that captured the snapshot
+	 */
+
+	public void addSnapshot( StatisticsSnapshot snapshot, long timeOffset )
+	{
+		if( snapshot.getStepCount() != slotCount - 1 )
+			return;
+
+		int stripeIndex = stripeIndex();
+		AtomicLongArray stripe = stripes[stripeIndex];
+
+		for( int slot = 0; slot < slotCount; slot++ )
+		{
+			int offset = slot * FIELD_COUNT;
+			stripe.addAndGet( offset + ERRORS, snapshot.getErrors( slot ) );
+
+			if( snapshot.getCount( slot ) <= 0 )
+				continue;
+
+			stripe.addAndGet( offset + COUNT, snapshot.getCount( slot ) );
+			stripe.addAndGet( offset + SUM, snapshot.getValue( slot, StatisticsSnapshot.SUM ) );
+			stripe.addAndGet( offset + BYTES, snapshot.getValue( slot, StatisticsSnapshot.BYTES ) );
+
+			long value = snapshot.getValue( slot, StatisticsSnapshot.MIN );
+			if( value > 0 )
+			{
+				long min = stripe.get( offset + MIN );
+				while( ( min == 0 || value < min ) && !stripe.compareAndSet( offset + MIN, min, value ) )
+					min = stripe.get( offset + MIN );
+			}
+
+			value = snapshot.getValue( slot, StatisticsSnapshot.MAX );
+			long max = stripe.get( offset + MAX );
+			while( value > max && !stripe.compareAndSet( offset + MAX, max, value ) )
+				max = stripe.get( offset + MAX );
+
+			updateLast( stripe, offset + LAST, snapshot.getValue( slot, StatisticsSnapshot.LAST_TIME ) + timeOffset,
+					snapshot.getValue( slot, StatisticsSnapshot.LAST ) );
+
+			long[] counts = snapshot.getHistogram( slot );
+			long histogramMax = snapshot.getHistogramMax( slot );
+			for( int c = 0; c < counts.length; c++ )
+				histograms[slot].addCountAt( c, counts[c], histogramMax );
+		}
+
+		if( snapshot.getLastEndTime() > 0 )
+			updateEndTime( stripeIndex, snapshot.getLastEndTime() + timeOffset );
+	}
+
+	private void add( AtomicLongArray stripe, int slot, long count, long sum, long size, long value, long endTime )
+	{
+		int offset = slot * FIELD_COUNT;
+
+		stripe.addAndGet( offset + COUNT, count );
+		stripe.addAndGet( offset + SUM, sum );
+		stripe.addAndGet( offset + BYTES, size );
+
+		if( value > 0 )
+		{
+			long min = stripe.get( offset + MIN );
+			while( ( min == 0 || value < min ) && !stripe.compareAndSet( offset + MIN, min, value ) )
+				min = stripe.get( offset + MIN );
+		}
+
+		long max = stripe.get( offset + MAX );
+		while( value > max && !stripe.compareAndSet( offset + MAX, max, value ) )
+			max = stripe.get( offset + MAX );
+
+		updateLast( stripe, offset + LAST, endTime, value );
+
+		histograms[slot].recordValue( value, count );
+	}
+
+	/**
+	 * Replaces the last value unless a later sample has already been recorded;
+	 * the end time is stored in the upper half, so later samples have larger
+	 * values. A stored time of 0 means that no sample has been recorded.
+	 */
+
+	private void updateLast( AtomicLongArray stripe, int index, long endTime, long value )
+	{
+		timeBase.compareAndSet( 0, endTime );
+
+		long time = Math.min( Math.max( 1, endTime - timeBase.get() + LAST_TIME_BIAS ), MAX_LAST_FIELD );
+		long last = time << 32 | Math.min( Math.max( 0, value ), MAX_LAST_FIELD );
+
+		long current = stripe.get( index );
+		while( time >= current >>> 32 && !stripe.compareAndSet( index, current, last ) )
+			current = stripe.get( index );
+	}
+
+	private void updateEndTime( int stripe, long endTime )
+	{
+		int index = stripe * 8;
+		long current = lastEndTimes.get( index );
+		while( endTime > current && !lastEndTimes.compareAndSet( index, current, endTime ) )
+			current = lastEndTimes.get( index );
+	}
+
+	private int stripeIndex()
+	{
+		long id = Thread.currentThread().getId();
+		return ( int )( id ^ ( id >>> 16 ) ) & stripeMask;
+	}
+
+	public long getCount( int slot )
+	{
+		return sum( slot, COUNT );
+	}
+
+	public long getSum( int slot )
+	{
+		return sum( slot, SUM );
+	}
+
+	public long getBytes( int slot )
+	{
+		return sum( slot, BYTES );
+	}
+
+	public long getMin( int slot )
+	{
+		int index = slot * FIELD_COUNT + MIN;
+		long result = 0;
+
+		for( AtomicLongArray stripe : stripes )
+		{
+			long value = stripe.get( index );
+			if( value > 0 && ( result == 0 || value < result ) )
+				result = value;
+		}
+
+		return result;
+	}
+
+	public long getMax( int slot )
+	{
+		int index = slot * FIELD_COUNT + MAX;
+		long result = 0;
+
+		for( AtomicLongArray stripe : stripes )
+			result = Math.max( result, stripe.get( index ) );
+
+		return result;
+	}
+
+	public long getLast( int slot )
+	{
+		return lastOf( slot ) & MAX_LAST_FIELD;
+	}
+
+	long getLastTime( int slot )
+	{
+		long time = lastOf( slot ) >>> 32;
+		return time == 0 ? 0 : timeBase.get() + time - LAST_TIME_BIAS;
+	}
+
+	/**
+	 * @return the latest last value of all stripes
+	 */
+
+	private long lastOf( int slot )
+	{
+		int index = slot * FIELD_COUNT + LAST;
+		long result = 0;
+
+		for( AtomicLongArray stripe : stripes )
+		{
+			long last = stripe.get( index );
+			if( last >>> 32 > result >>> 32 )
+				result = last;
+		}
+
+		return result;
+	}
+
+	public long getErrors( int slot )
+	{
+		return sum( slot, ERRORS );
+	}
+
+	LatencyHistogram getHistogram( int slot )
+	{
+		return histograms[slot];
+	}
+
+	/**
+	 * Calculates the values at the specified percentiles for a slot
+	 * 
+	 * @see LatencyHistogram#getValuesAtPercentiles(double[], long[])
+	 */
+
+	public void getPercentiles( int slot, double[] percentiles, long[] result )
+	{
+		histograms[slot].getValuesAtPercentiles( percentiles, result );
+	}
+
+	/**
+	 * Clears the percentile histograms; histograms can not be offset by a
+	 * baseline as the other values when statistics are reset during a run
+	 */
+
+	public void resetHistograms()
+	{
+		for( LatencyHistogram histogram : histograms )
+			histogram.reset();
+	}
+
+	/**
+	 * @return the latest end time of all recorded samples, 0 if none have been
+	 *         recorded
+	 */
+
+	public long getLastEndTime()
+	{
+		long result = 0;
+		for( int c = 0; c < stripes.length; c++ )
+			result = Math.max( result, lastEndTimes.get( c * 8 ) );
+
+		return result;
+	}
+
+	private long sum( int slot, int field )
+	{
+		int index = slot * FIELD_COUNT + field;
+		long result = 0;
+
+		for( AtomicLongArray stripe : stripes )
+			result += stripe.get( index );
+
+		return result;
+	}
+
+	public void reset()
+	{
+		for( AtomicLongArray stripe : stripes )
+		{
+			for( int c = 0; c < stripe.length(); c++ )
+				stripe.set( c, 0 );
+		}
+
+		for( int c = 0; c < lastEndTimes.length(); c++ )
+			lastEndTimes.set( c, 0 );
+
+		resetHistograms();
+	}
+}
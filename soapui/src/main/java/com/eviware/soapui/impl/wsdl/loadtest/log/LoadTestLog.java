@@ -19,6 +19,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.swing.AbstractListModel;
 
@@ -40,6 +41,7 @@ public class LoadTestLog extends AbstractListModel implements Runnable
 	private int totalErrorCount;
 	private Map<String, Integer> errorCounts = new HashMap<String, Integer>();
 	private Queue<LoadTestLogEntry> entriesStack = new ConcurrentLinkedQueue<LoadTestLogEntry>();
+	private List<Queue<LoadTestLogEntry>> entryQueues = new CopyOnWriteArrayList<Queue<LoadTestLogEntry>>();
 	private Thread modelThread;
 	private InternalTestSuiteListener testSuiteListener = new InternalTestSuiteListener();
 
@@ -84,33 +86,7 @@ public class LoadTestLog extends AbstractListModel implements Runnable
 			{
 				while( !entriesStack.isEmpty() )
 				{
-					int cnt = 0;
-					while( cnt < 10 && !entriesStack.isEmpty() )
-					{
-						LoadTestLogEntry entry = entriesStack.poll();
-						if( entry != null )
-						{
-							entries.add( entry );
-							if( entry.isError() )
-							{
-								totalErrorCount++ ;
-								String stepName = entry.getTargetStepName();
-
-								Integer errorCount = errorCounts.get( stepName );
-								if( errorCount == null )
-									errorCount = 1;
-								else
-									errorCount = errorCount + 1;
-
-								errorCounts.put( stepName, errorCount );
-							}
-
-							cnt++ ;
-						}
-					}
-
-					if( cnt > 0 )
-						fireIntervalAdded( this, entries.size() - cnt, entries.size() - 1 );
+					addQueuedEntries( 10 );
 				}
 
 				// break if load test is not running
@@ -128,6 +104,72 @@ public class LoadTestLog extends AbstractListModel implements Runnable
 		modelThread = null;
 	}
 
+	/**
+	 * Adds all entries that are still queued for the updater thread to the log
+	 * right away, for callers that read the log as soon as the LoadTest has
+	 * finished
+	 */
+
+	public void flush()
+	{
+		while( !entriesStack.isEmpty() )
+		{
+			addQueuedEntries( 10 );
+		}
+	}
+
+	/**
+	 * Adds a queue that receives every entry as it is added to the log, for
+	 * readers that must not miss entries when the log is cleared
+	 */
+
+	public void addEntryQueue( Queue<LoadTestLogEntry> queue )
+	{
+		entryQueues.add( queue );
+	}
+
+	public void removeEntryQueue( Queue<LoadTestLogEntry> queue )
+	{
+		entryQueues.remove( queue );
+	}
+
+	private void addQueuedEntries( int max )
+	{
+		synchronized( entriesStack )
+		{
+			int cnt = 0;
+			while( cnt < max && !entriesStack.isEmpty() )
+			{
+				LoadTestLogEntry entry = entriesStack.poll();
+				if( entry != null )
+				{
+					entries.add( entry );
+					for( Queue<LoadTestLogEntry> queue : entryQueues )
+						queue.offer( entry );
+
+					if( entry.isError() )
+					{
+						totalErrorCount++ ;
+						String stepName = entry.getTargetStepName();
+
+						Integer errorCount = errorCounts.get( stepName );
+						if( errorCount == null )
+							errorCount = 1;
+						else
+							errorCount = errorCount + 1;
+
+						errorCounts.put( stepName, errorCount );
+					}
+
+					cnt++ ;
+				}
+			}
+
+			if( cnt > 0 )
+				fireIntervalAdded( this, entries.size() - cnt, entries.size() - 1 );
+		}
+	}
+
 	public void clear()
 	{
 		entriesStack.clear();
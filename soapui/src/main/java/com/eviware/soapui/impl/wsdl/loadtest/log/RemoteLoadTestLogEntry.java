@@ -0,0 +1,118 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.loadtest.log;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Date;
+
+import javax.swing.ImageIcon;
+
+import com.eviware.soapui.support.UISupport;
+import com.eviware.soapui.support.action.swing.ActionList;
+
+/**
+ * A LoadTest Log entry received from a LoadTest agent; holds the values of the
+ * original entry since its results are not available in the coordinator
+ */
+
+public class RemoteLoadTestLogEntry implements LoadTestLogEntry
+{
+	private final String agent;
+	private final String type;
+	private final String targetStepName;
+	private final String message;
+	private final long timestamp;
+	private final boolean error;
+	private ImageIcon icon;
+	private boolean discarded;
+
+	public RemoteLoadTestLogEntry( String agent, String type, String targetStepName, String message, long timestamp,
+			boolean error )
+	{
+		this.agent = agent;
+		this.type = type;
+		this.targetStepName = targetStepName;
+		this.message = message;
+		this.timestamp = timestamp;
+		this.error = error;
+
+		icon = UISupport.createImageIcon( error ? "/failed_assertion.gif" : "/loadtest_log_message.gif" );
+	}
+
+	public String getAgent()
+	{
+		return agent;
+	}
+
+	public String getMessage()
+	{
+		return "[" + agent + "] " + message;
+	}
+
+	public long getTimeStamp()
+	{
+		return timestamp;
+	}
+
+	public String getTargetStepName()
+	{
+		return targetStepName;
+	}
+
+	public ImageIcon getIcon()
+	{
+		return icon;
+	}
+
+	public String getType()
+	{
+		return type;
+	}
+
+	public boolean isError()
+	{
+		return error;
+	}
+
+	public ActionList getActions()
+	{
+		return null;
+	}
+
+	public void exportToFile( String fileName ) throws IOException
+	{
+		PrintWriter writer = new PrintWriter( fileName );
+		writer.write( new Date( timestamp ).toString() );
+		writer.write( ":" );
+		writer.write( agent );
+		writer.write( ":" );
+		if( targetStepName != null )
+		{
+			writer.write( targetStepName );
+			writer.write( ":" );
+		}
+		writer.write( message );
+		writer.close();
+	}
+
+	public void discard()
+	{
+		discarded = true;
+	}
+
+	public boolean isDiscarded()
+	{
+		return discarded;
+	}
+}
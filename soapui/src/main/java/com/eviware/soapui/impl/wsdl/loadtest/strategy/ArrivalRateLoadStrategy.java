@@ -0,0 +1,430 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.loadtest.strategy;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.JComboBox;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.text.Document;
+
+import org.apache.log4j.Logger;
+import org.apache.xmlbeans.XmlObject;
+
+import com.eviware.soapui.SoapUI;
+import com.eviware.soapui.impl.wsdl.loadtest.WsdlLoadTest;
+import com.eviware.soapui.impl.wsdl.loadtest.data.LoadTestStatistics;
+import com.eviware.soapui.impl.wsdl.loadtest.log.LoadTestLogMessageEntry;
+import com.eviware.soapui.model.testsuite.LoadTestRunContext;
+import com.eviware.soapui.model.testsuite.LoadTestRunner;
+import com.eviware.soapui.model.testsuite.TestCaseRunContext;
+import com.eviware.soapui.model.testsuite.TestCaseRunner;
+import com.eviware.soapui.model.testsuite.TestRunContext;
+import com.eviware.soapui.model.testsuite.TestRunner.Status;
+import com.eviware.soapui.support.DocumentListenerAdapter;
+import com.eviware.soapui.support.UISupport;
+import com.eviware.soapui.support.swing.ComponentBag;
+import com.eviware.soapui.support.xml.XmlObjectConfigurationBuilder;
+import com.eviware.soapui.support.xml.XmlObjectConfigurationReader;
+import com.jgoodies.forms.builder.ButtonBarBuilder;
+
+/**
+ * Open-model LoadStrategy that starts TestCases at a target arrival rate
+ * instead of running them back-to-back in each thread, so the offered load
+ * does not drop when the target slows down.
+ * <p>
+ * Each thread waits for the next start of the {@link ArrivalSchedule} before
+ * running its TestCase. When starts fall behind the schedule because all
+ * threads are busy, the number of threads is increased up to the configured
+ * maximum. How far a run started behind its scheduled start is added to the
+ * TestCase time in the statistics, so TestCase times are measured from the
+ * intended start. Growing the number of threads does not reset the
+ * statistics, so the slow runs that caused it are kept. Late starts and starts
+ * that are due but not started are shown as the late and missed statistics of
+ * the TestCase and reported in the LoadTest log when it ends.
+ * </p>
+ */
+
+public class ArrivalRateLoadStrategy extends AbstractLoadStrategy
+{
+	private final static Logger log = Logger.getLogger( ArrivalRateLoadStrategy.class );
+
+	public static final String STRATEGY_TYPE = "Arrival";
+	private static final String PROFILE_ELEMENT = "profile";
+	private static final String RATE_ELEMENT = "rate";
+	private static final String END_RATE_ELEMENT = "endRate";
+	private static final String RAMP_TIME_ELEMENT = "rampTime";
+	private static final String STEP_TIME_ELEMENT = "stepTime";
+	private static final String MAX_THREADS_ELEMENT = "maxThreads";
+
+	private static final float DEFAULT_RATE = 10;
+	private static final int DEFAULT_RAMP_TIME = 60;
+	private static final int DEFAULT_STEP_TIME = 10;
+	private static final int DEFAULT_MAX_THREADS = 100;
+
+	/**
+	 * Runs starting more than this number of milliseconds after their scheduled
+	 * start are counted as late
+	 */
+
+	public static final long LATE_START_THRESHOLD = 10;
+
+	private String profile = ArrivalSchedule.CONSTANT_PROFILE;
+	private float rate = DEFAULT_RATE;
+	private float endRate = DEFAULT_RATE;
+	private int rampTime = DEFAULT_RAMP_TIME;
+	private int stepTime = DEFAULT_STEP_TIME;
+	private int maxThreads = DEFAULT_MAX_THREADS;
+
+	private JPanel configPanel;
+	private JComboBox profileCombo;
+	private JTextField rateField;
+	private JTextField endRateField;
+	private JTextField rampTimeField;
+	private JTextField stepTimeField;
+	private JTextField maxThreadsField;
+	private JLabel infoLabel;
+	private ComponentBag stateDependantComponents = new ComponentBag();
+
+	private volatile ArrivalSchedule schedule;
+	private long scheduleStartTime;
+	private long baseThreadCount;
+	private final AtomicLong startedCount = new AtomicLong();
+	private final AtomicLong lateStartCount = new AtomicLong();
+	private long lastLateStartCount;
+
+	public ArrivalRateLoadStrategy( XmlObject config, WsdlLoadTest loadTest )
+	{
+		super( STRATEGY_TYPE, loadTest );
+
+		if( config != null )
+		{
+			XmlObjectConfigurationReader reader = new XmlObjectConfigurationReader( config );
+			profile = reader.readString( PROFILE_ELEMENT, ArrivalSchedule.CONSTANT_PROFILE );
+			rate = reader.readFloat( RATE_ELEMENT, DEFAULT_RATE );
+			endRate = reader.readFloat( END_RATE_ELEMENT, rate );
+			rampTime = reader.readInt( RAMP_TIME_ELEMENT, DEFAULT_RAMP_TIME );
+			stepTime = reader.readInt( STEP_TIME_ELEMENT, DEFAULT_STEP_TIME );
+			maxThreads = reader.readInt( MAX_THREADS_ELEMENT, DEFAULT_MAX_THREADS );
+		}
+	}
+
+	public XmlObject getConfig()
+	{
+		XmlObjectConfigurationBuilder builder = new XmlObjectConfigurationBuilder();
+		builder.add( PROFILE_ELEMENT, profile );
+		builder.add( RATE_ELEMENT, rate );
+		builder.add( END_RATE_ELEMENT, endRate );
+		builder.add( RAMP_TIME_ELEMENT, rampTime );
+		builder.add( STEP_TIME_ELEMENT, stepTime );
+		builder.add( MAX_THREADS_ELEMENT, maxThreads );
+		return builder.finish();
+	}
+
+	public JComponent getConfigurationPanel()
+	{
+		if( configPanel == null )
+		{
+			ButtonBarBuilder builder = new ButtonBarBuilder();
+
+			profileCombo = new JComboBox( new String[] { ArrivalSchedule.CONSTANT_PROFILE,
+					ArrivalSchedule.RAMP_PROFILE, ArrivalSchedule.STEP_PROFILE } );
+			profileCombo.setSelectedItem( profile );
+			profileCombo.setToolTipText( "Constant rate, linear ramp or steps from Rate to End Rate" );
+			profileCombo.addActionListener( new ActionListener()
+			{
+				public void actionPerformed( ActionEvent e )
+				{
+					profile = String.valueOf( profileCombo.getSelectedItem() );
+					notifyConfigurationChanged();
+				}
+			} );
+
+			builder.addFixed( profileCombo );
+			builder.addRelatedGap();
+
+			rateField = addField( builder, "Rate", String.valueOf( rate ), 4, "Sets the TestCase starts per second" );
+			endRateField = addField( builder, "End Rate", String.valueOf( endRate ), 4,
+					"Sets the TestCase starts per second after the ramp time" );
+			rampTimeField = addField( builder, "Ramp", String.valueOf( rampTime ), 4,
+					"Sets the time to reach the end rate in seconds" );
+			stepTimeField = addField( builder, "Step", String.valueOf( stepTime ), 3,
+					"Sets the length of each step in seconds" );
+			maxThreadsField = addField( builder, "Max Threads", String.valueOf( maxThreads ), 4,
+					"Sets the maximum number of threads to start when falling behind the rate" );
+
+			infoLabel = new JLabel();
+			builder.addFixed( infoLabel );
+
+			configPanel = builder.getPanel();
+
+			stateDependantComponents.add( profileCombo );
+			stateDependantComponents.add( rateField );
+			stateDependantComponents.add( endRateField );
+			stateDependantComponents.add( rampTimeField );
+			stateDependantComponents.add( stepTimeField );
+			stateDependantComponents.add( maxThreadsField );
+		}
+
+		return configPanel;
+	}
+
+	private JTextField addField( ButtonBarBuilder builder, String label, String value, int columns, String tooltip )
+	{
+		JTextField field = new JTextField( columns );
+		UISupport.setPreferredHeight( field, 18 );
+		field.setHorizontalAlignment( JTextField.RIGHT );
+		field.setText( value );
+		field.setToolTipText( tooltip );
+		field.getDocument().addDocumentListener( new ConfigDocumentListener() );
+
+		builder.addFixed( new JLabel( label ) );
+		builder.addRelatedGap();
+		builder.addFixed( field );
+		builder.addRelatedGap();
+
+		return field;
+	}
+
+	private final class ConfigDocumentListener extends DocumentListenerAdapter
+	{
+		public void update( Document document )
+		{
+			try
+			{
+				if( document == rateField.getDocument() )
+					rate = Float.parseFloat( rateField.getText().replace( ',', '.' ) );
+				if( document == endRateField.getDocument() )
+					endRate = Float.parseFloat( endRateField.getText().replace( ',', '.' ) );
+				if( document == rampTimeField.getDocument() )
+					rampTime = Integer.parseInt( rampTimeField.getText() );
+				if( document == stepTimeField.getDocument() )
+					stepTime = Integer.parseInt( stepTimeField.getText() );
+				if( document == maxThreadsField.getDocument() )
+					maxThreads = Integer.parseInt( maxThreadsField.getText() );
+
+				notifyConfigurationChanged();
+			}
+			catch( NumberFormatException e )
+			{
+			}
+		}
+	}
+
+	public void beforeLoadTest( LoadTestRunner loadTestRunner, LoadTestRunContext context )
+	{
+		super.beforeLoadTest( loadTestRunner, context );
+
+		baseThreadCount = getLoadTest().getThreadCount();
+		startedCount.set( 0 );
+		lateStartCount.set( 0 );
+		lastLateStartCount = 0;
+
+		synchronized( this )
+		{
+			scheduleStartTime = 0;
+		}
+
+		schedule = new ArrivalSchedule( profile, rate, endRate, rampTime * 1000L, stepTime * 1000L );
+		stateDependantComponents.setEnabled( false );
+	}
+
+	/**
+	 * The schedule starts when the first thread asks for a start, after the
+	 * TestCase copies for all threads have been created
+	 */
+
+	private synchronized long getScheduleStartTime()
+	{
+		if( scheduleStartTime == 0 )
+			scheduleStartTime = System.currentTimeMillis();
+
+		return scheduleStartTime;
+	}
+
+	public void beforeTestCase( LoadTestRunner loadTestRunner, LoadTestRunContext context, TestCaseRunner testRunner,
+			TestCaseRunContext runContext )
+	{
+		ArrivalSchedule schedule = this.schedule;
+		if( schedule == null )
+			return;
+
+		long startTime = schedule.nextStartTime();
+		startTime = startTime == Long.MAX_VALUE ? Long.MAX_VALUE : getScheduleStartTime() + startTime;
+
+		try
+		{
+			long wait = startTime - System.currentTimeMillis();
+			while( wait > 0 && loadTestRunner.getStatus() == Status.RUNNING )
+			{
+				Thread.sleep( Math.min( wait, 500 ) );
+				wait = startTime - System.currentTimeMillis();
+			}
+		}
+		catch( InterruptedException e )
+		{
+			SoapUI.logError( e );
+		}
+
+		if( loadTestRunner.getStatus() != Status.RUNNING )
+		{
+			testRunner.cancel( LoadTestStatistics.NO_STATS_TESTCASE_CANCEL_REASON );
+			return;
+		}
+
+		long startLag = Math.max( 0, System.currentTimeMillis() - startTime );
+		if( startLag > LATE_START_THRESHOLD )
+			lateStartCount.incrementAndGet();
+
+		startedCount.incrementAndGet();
+		runContext.setProperty( TestRunContext.START_LAG, startLag );
+	}
+
+	/**
+	 * Increases the number of threads if starts are falling behind the schedule
+	 */
+
+	public void recalculate( LoadTestRunner loadTestRunner, LoadTestRunContext context )
+	{
+		ArrivalSchedule schedule = this.schedule;
+		long scheduleStartTime;
+
+		synchronized( this )
+		{
+			scheduleStartTime = this.scheduleStartTime;
+		}
+
+		if( schedule == null || scheduleStartTime == 0 )
+			return;
+
+		// due starts that have not been picked up by any thread yet
+		long dueCount = schedule.getDueCount( System.currentTimeMillis() - scheduleStartTime );
+		long backlog = dueCount - schedule.getScheduledCount();
+		long lateStarts = lateStartCount.get();
+
+		WsdlLoadTest wsdlLoadTest = ( WsdlLoadTest )loadTestRunner.getLoadTest();
+		wsdlLoadTest.getStatisticsModel().setStartCounts( lateStarts, Math.max( 0, dueCount - startedCount.get() ) );
+
+		long threadCount = wsdlLoadTest.getThreadCount();
+		if( ( backlog > 0 || lateStarts > lastLateStartCount ) && threadCount < maxThreads )
+		{
+			threadCount = Math.min( maxThreads, threadCount + Math.max( 1, backlog ) );
+			log.debug( "Falling behind arrival rate, changing threadcount to " + threadCount );
+			wsdlLoadTest.setThreadCountKeepingStatistics( threadCount );
+		}
+
+		lastLateStartCount = lateStarts;
+
+		if( infoLabel != null )
+			infoLabel.setText( lateStarts + " late starts" );
+	}
+
+	public void afterLoadTest( LoadTestRunner loadTestRunner, LoadTestRunContext context )
+	{
+		ArrivalSchedule schedule = this.schedule;
+		long scheduleStartTime;
+
+		synchronized( this )
+		{
+			scheduleStartTime = this.scheduleStartTime;
+		}
+
+		if( schedule != null && scheduleStartTime > 0 )
+		{
+			long started = startedCount.get();
+			long missed = Math.max( 0, schedule.getDueCount( System.currentTimeMillis() - scheduleStartTime ) - started );
+			getLoadTest().getStatisticsModel().setStartCounts( lateStartCount.get(), missed );
+
+			getLoadTest().getLoadTestLog().addEntry(
+					new LoadTestLogMessageEntry( "Arrival rate: started " + started + " TestCases, " + lateStartCount.get()
+							+ " late (> " + LATE_START_THRESHOLD + "ms), " + missed + " due but not started" ) );
+		}
+
+		this.schedule = null;
+
+		( ( WsdlLoadTest )loadTestRunner.getLoadTest() ).setThreadCountKeepingStatistics( baseThreadCount );
+		stateDependantComponents.setEnabled( true );
+	}
+
+	public boolean allowThreadCountChangeDuringRun()
+	{
+		return false;
+	}
+
+	public String getProfile()
+	{
+		return profile;
+	}
+
+	public float getRate()
+	{
+		return rate;
+	}
+
+	public float getEndRate()
+	{
+		return endRate;
+	}
+
+	public int getRampTime()
+	{
+		return rampTime;
+	}
+
+	public int getStepTime()
+	{
+		return stepTime;
+	}
+
+	public int getMaxThreads()
+	{
+		return maxThreads;
+	}
+
+	public long getStartedCount()
+	{
+		return startedCount.get();
+	}
+
+	public long getLateStartCount()
+	{
+		return lateStartCount.get();
+	}
+
+	/**
+	 * Factory for ArrivalRateLoadStrategy class
+	 */
+
+	public static class Factory implements LoadStrategyFactory
+	{
+		public String getType()
+		{
+			return STRATEGY_TYPE;
+		}
+
+		public LoadStrategy build( XmlObject config, WsdlLoadTest loadTest )
+		{
+			return new ArrivalRateLoadStrategy( config, loadTest );
+		}
+
+		public LoadStrategy create( WsdlLoadTest loadTest )
+		{
+			return new ArrivalRateLoadStrategy( null, loadTest );
+		}
+	}
+}
@@ -0,0 +1,196 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.loadtest.strategy;
+
+/**
+ * Schedule of TestCase starts at a target arrival rate, independent of how
+ * long the started runs take. The rate is either constant, ramped linearly
+ * from a start to an end rate, or increased in equal steps; after the ramp
+ * time the end rate is held.
+ * <p>
+ * Arrival <code>n</code> (counted from 0) is due at the time at which the
+ * number of expected arrivals reaches <code>n</code>, so the first arrival is
+ * always due at the start of the schedule.
+ * </p>
+ */
+
+public class ArrivalSchedule
+{
+	public static final String CONSTANT_PROFILE = "Constant";
+	public static final String RAMP_PROFILE = "Ramp";
+	public static final String STEP_PROFILE = "Step";
+
+	private final String profile;
+	private final double startRate;
+	private final double endRate;
+	private final long rampTime;
+	private final int stepCount;
+	private long scheduledCount;
+
+	/**
+	 * @param startRate
+	 *           starts per second at the start of the schedule
+	 * @param endRate
+	 *           starts per second after the ramp time, ignored for a constant
+	 *           profile
+	 * @param rampTime
+	 *           ramp time in milliseconds
+	 * @param stepTime
+	 *           length of each step of a step profile in milliseconds
+	 */
+
+	public ArrivalSchedule( String profile, double startRate, double endRate, long rampTime, long stepTime )
+	{
+		boolean constant = !RAMP_PROFILE.equals( profile ) && !STEP_PROFILE.equals( profile ) || rampTime <= 0;
+
+		this.profile = constant ? CONSTANT_PROFILE : profile;
+		this.startRate = Math.max( 0, startRate ) / 1000;
+		this.endRate = constant ? this.startRate : Math.max( 0, endRate ) / 1000;
+		this.rampTime = constant ? 0 : rampTime;
+		this.stepCount = STEP_PROFILE.equals( this.profile ) ? ( int )Math.max( 1, rampTime / Math.max( 1, stepTime ) )
+				: 0;
+	}
+
+	/**
+	 * @return the start rate per second at the specified time since the start
+	 *         of the schedule
+	 */
+
+	public double getRate( long time )
+	{
+		if( time >= rampTime )
+			return endRate * 1000;
+
+		if( RAMP_PROFILE.equals( profile ) )
+			return ( startRate + ( endRate - startRate ) * time / rampTime ) * 1000;
+
+		return getStepRate( ( int )( time * stepCount / rampTime ) ) * 1000;
+	}
+
+	private double getStepRate( int step )
+	{
+		return startRate + ( endRate - startRate ) * step / stepCount;
+	}
+
+	/**
+	 * @return the number of arrivals due up to and including the specified time
+	 *         since the start of the schedule
+	 */
+
+	public long getDueCount( long time )
+	{
+		if( time < 0 )
+			return 0;
+
+		return ( long )Math.floor( getExpectedArrivals( time ) + 1e-9 ) + 1;
+	}
+
+	private double getExpectedArrivals( double time )
+	{
+		if( rampTime == 0 )
+			return startRate * time;
+
+		double ramped;
+		if( RAMP_PROFILE.equals( profile ) )
+		{
+			double t = Math.min( time, rampTime );
+			ramped = startRate * t + ( endRate - startRate ) * t * t / ( 2 * rampTime );
+		}
+		else
+		{
+			double stepLength = ( double )rampTime / stepCount;
+			ramped = 0;
+			for( int c = 0; c < stepCount && c * stepLength < time; c++ )
+				ramped += getStepRate( c ) * Math.min( stepLength, time - c * stepLength );
+		}
+
+		return time <= rampTime ? ramped : ramped + endRate * ( time - rampTime );
+	}
+
+	/**
+	 * @return the time since the start of the schedule at which the specified
+	 *         arrival is due, or Long.MAX_VALUE if the rate drops to 0 before
+	 */
+
+	public long getStartTime( long arrival )
+	{
+		if( arrival <= 0 )
+			return 0;
+
+		double remaining = arrival;
+		double time = 0;
+
+		if( RAMP_PROFILE.equals( profile ) )
+		{
+			double slope = ( endRate - startRate ) / rampTime;
+			double rampArrivals = ( startRate + endRate ) * rampTime / 2;
+			if( remaining <= rampArrivals )
+			{
+				if( Math.abs( slope ) < 1e-15 )
+					return ( long )Math.ceil( remaining / startRate );
+
+				// solve startRate * t + slope * t^2 / 2 = remaining
+				double t = ( -startRate + Math.sqrt( startRate * startRate + 2 * slope * remaining ) ) / slope;
+				return ( long )Math.ceil( t - 1e-9 );
+			}
+
+			remaining -= rampArrivals;
+			time = rampTime;
+		}
+		else if( STEP_PROFILE.equals( profile ) )
+		{
+			double stepLength = ( double )rampTime / stepCount;
+			for( int c = 0; c < stepCount; c++ )
+			{
+				double rate = getStepRate( c );
+				if( rate > 0 && remaining <= rate * stepLength )
+					return ( long )Math.ceil( c * stepLength + remaining / rate - 1e-9 );
+
+				remaining -= rate * stepLength;
+			}
+
+			time = rampTime;
+		}
+
+		if( endRate <= 0 )
+			return Long.MAX_VALUE;
+
+		return ( long )Math.ceil( time + remaining / endRate - 1e-9 );
+	}
+
+	/**
+	 * Hands out the next arrival
+	 *
+	 * @return the time since the start of the schedule at which the arrival is
+	 *         due
+	 */
+
+	public synchronized long nextStartTime()
+	{
+		return getStartTime( scheduledCount++ );
+	}
+
+	/**
+	 * @return the number of arrivals handed out by {@link #nextStartTime()}
+	 */
+
+	public synchronized long getScheduledCount()
+	{
+		return scheduledCount;
+	}
+
+	public String getProfile()
+	{
+		return profile;
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.mock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import org.apache.log4j.Logger;
+
+import com.eviware.soapui.impl.wsdl.WsdlOperation;
+import com.eviware.soapui.model.mock.MockOperation;
+import com.eviware.soapui.model.support.MockServiceListenerAdapter;
+
+/**
+ * Routing index for dispatching requests to the operations of a
+ * WsdlMockService, mapping the QName of the request body element to the
+ * operations that accept it and each operation to its WsdlMockOperation.
+ * <p>
+ * The index is built on first use and rebuilt after MockOperations have been
+ * added or removed. It only narrows down the operations that have to be
+ * checked; SOAP version, SOAPAction and message parts are still checked on the
+ * returned operations, and callers should fall back to scanning all mocked
+ * operations when none of them matches, since an operation can change when its
+ * interface is updated.
+ * </p>
+ */
+
+public class WsdlMockOperationIndex
+{
+	private final static Logger log = Logger.getLogger( WsdlMockOperationIndex.class );
+
+	private final WsdlMockService mockService;
+	private final InternalMockServiceListener mockServiceListener = new InternalMockServiceListener();
+	private volatile Index index;
+
+	public WsdlMockOperationIndex( WsdlMockService mockService )
+	{
+		this.mockService = mockService;
+		mockService.addMockServiceListener( mockServiceListener );
+	}
+
+	/**
+	 * Returns the mocked operations accepting the specified request body
+	 * element, in the order they are mocked
+	 *
+	 * @return the operations or null if the index could not be built
+	 */
+
+	public List<WsdlOperation> getOperations( QName bodyElementQName )
+	{
+		Index index = getIndex();
+		if( !index.complete )
+			return null;
+
+		List<WsdlOperation> result = index.operations.get( bodyElementQName );
+		return result == null ? Collections.<WsdlOperation> emptyList() : result;
+	}
+
+	/**
+	 * Returns the WsdlMockOperation mocking the specified operation, see
+	 * {@link WsdlMockService#getMockOperation(com.eviware.soapui.model.iface.Operation)}
+	 */
+
+	public WsdlMockOperation getMockOperation( WsdlOperation operation )
+	{
+		WsdlMockOperation mockOperation = getIndex().mockOperations.get( operation );
+		if( mockOperation != null && mockOperation.getOperation() == operation )
+			return mockOperation;
+
+		mockOperation = mockService.getMockOperation( operation );
+
+		// operation of a MockOperation has been changed
+		if( mockOperation != null )
+			invalidate();
+
+		return mockOperation;
+	}
+
+	private Index getIndex()
+	{
+		Index result = index;
+		if( result == null )
+		{
+			result = new Index( mockService );
+			index = result;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Discards the index so it is rebuilt on next use
+	 */
+
+	public void invalidate()
+	{
+		index = null;
+	}
+
+	public void release()
+	{
+		mockService.removeMockServiceListener( mockServiceListener );
+		index = null;
+	}
+
+	private static final class Index
+	{
+		private final Map<QName, List<WsdlOperation>> operations = new HashMap<QName, List<WsdlOperation>>();
+		private final Map<WsdlOperation, WsdlMockOperation> mockOperations = new HashMap<WsdlOperation, WsdlMockOperation>();
+		private boolean complete = true;
+
+		public Index( WsdlMockService mockService )
+		{
+			for( int c = 0; c < mockService.getMockOperationCount(); c++ )
+			{
+				WsdlMockOperation mockOperation = mockService.getMockOperationAt( c );
+				WsdlOperation operation = mockOperation.getOperation();
+				if( operation == null )
+					continue;
+
+				// the first MockOperation for an operation is dispatched to
+				if( !mockOperations.containsKey( operation ) )
+					mockOperations.put( operation, mockOperation );
+
+				try
+				{
+					QName qname = operation.getRequestBodyElementQName();
+					if( qname == null )
+						continue;
+
+					List<WsdlOperation> list = operations.get( qname );
+					if( list == null )
+					{
+						list = new ArrayList<WsdlOperation>( 1 );
+						operations.put( qname, list );
+					}
+
+					list.add( operation );
+				}
+				catch( Exception e )
+				{
+					log.warn( "Failed to index operation [" + operation.getName() + "] of MockService ["
+							+ mockService.getName() + "]; " + e );
+					complete = false;
+				}
+			}
+		}
+	}
+
+	private class InternalMockServiceListener extends MockServiceListenerAdapter
+	{
+		@Override
+		public void mockOperationAdded( MockOperation operation )
+		{
+			invalidate();
+		}
+
+		@Override
+		public void mockOperationRemoved( MockOperation operation )
+		{
+			invalidate();
+		}
+	}
+}
@@ -34,6 +34,7 @@ import javax.wsdl.xml.WSDLWriter;
 
 import org.apache.commons.collections.list.TreeList;
 import org.apache.log4j.Logger;
+import org.apache.xmlbeans.XmlObject;
 import org.xml.sax.InputSource;
 
 import com.eviware.soapui.SoapUI;
@@ -75,6 +76,7 @@ public class WsdlMockRunner extends AbstractMockRunner
 	private final Map<String, StringToStringMap> wsdlCache = new HashMap<String, StringToStringMap>();
 	private boolean running;
 	private boolean logEnabled = true;
+	private final WsdlMockOperationIndex operationIndex;
 	private final static Logger log = Logger.getLogger( WsdlMockRunner.class );
 
 	public WsdlMockRunner( WsdlMockService mockService, WsdlTestRunContext context ) throws Exception
@@ -95,6 +97,7 @@ public class WsdlMockRunner extends AbstractMockRunner
 
 		initWsdlCache();
 
+		operationIndex = new WsdlMockOperationIndex( mockService );
 		mockContext = new WsdlMockRunContext( mockService, context );
 
 		start();
@@ -180,6 +183,8 @@ public class WsdlMockRunner extends AbstractMockRunner
 			listener.onMockRunnerStop( this );
 		}
 
+		operationIndex.release();
+
 		try
 		{
 			mockService.runStopScript( mockContext, this );
@@ -247,10 +252,7 @@ public class WsdlMockRunner extends AbstractMockRunner
 			{
 				try
 				{
-					operation = SoapUtils.findOperationForRequest( soapVersion, soapAction,
-							mockRequest.getRequestXmlObject(), mockService.getMockedOperations(),
-							mockService.isRequireSoapVersion(), mockService.isRequireSoapAction(),
-							mockRequest.getRequestAttachments() );
+					operation = findOperationForRequest( soapVersion, soapAction, mockRequest );
 				}
 				catch( Exception e )
 				{
@@ -281,7 +283,7 @@ public class WsdlMockRunner extends AbstractMockRunner
 
 			if( operation != null )
 			{
-				WsdlMockOperation mockOperation = mockService.getMockOperation( operation );
+				WsdlMockOperation mockOperation = operationIndex.getMockOperation( operation );
 				if( mockOperation != null )
 				{
 					long startTime = System.nanoTime();
@@ -350,6 +352,52 @@ public class WsdlMockRunner extends AbstractMockRunner
 		mockContext.clear();
 	}
 
+	/**
+	 * Looks up the operation for a request in the routing index, falling back to
+	 * scanning all mocked operations if there is no matching operation in the
+	 * index
+	 */
+
+	private WsdlOperation findOperationForRequest( SoapVersion soapVersion, String soapAction,
+			WsdlMockRequest mockRequest ) throws Exception
+	{
+		XmlObject contentElm = SoapUtils.getContentElement( mockRequest.getRequestXmlObject(), soapVersion );
+		boolean indexed = false;
+
+		if( contentElm != null )
+		{
+			List<WsdlOperation> operations = operationIndex.getOperations( XmlUtils.getQName( contentElm.getDomNode() ) );
+			if( operations != null )
+			{
+				indexed = true;
+
+				if( !operations.isEmpty() )
+				{
+					try
+					{
+						return SoapUtils.findOperationForContentElement( soapVersion, soapAction, contentElm, operations,
+								mockService.isRequireSoapVersion(), mockService.isRequireSoapAction(),
+								mockRequest.getRequestAttachments() );
+					}
+					catch( DispatchException e )
+					{
+						// no match, but the index may be out of date
+					}
+				}
+			}
+		}
+
+		WsdlOperation operation = SoapUtils.findOperationForContentElement( soapVersion, soapAction, contentElm,
+				mockService.getMockedOperations(), mockService.isRequireSoapVersion(), mockService.isRequireSoapAction(),
+				mockRequest.getRequestAttachments() );
+
+		// found by scanning but not in the index, an interface has been updated
+		if( indexed )
+			operationIndex.invalidate();
+
+		return operation;
+	}
+
 	@Override
 	public MockResult dispatchRequest( HttpServletRequest request, HttpServletResponse response )
 			throws DispatchException
@@ -59,6 +59,7 @@ import com.eviware.soapui.support.StringUtils;
 import com.eviware.soapui.support.UISupport;
 import com.eviware.soapui.support.components.JXToolBar;
 import com.eviware.soapui.support.components.SimpleBindingForm;
+import com.eviware.soapui.support.xml.XPathCache;
 import com.eviware.soapui.support.xml.XmlUtils;
 import com.eviware.soapui.ui.support.ModelItemDesktopPanel;
 import com.jgoodies.binding.PresentationModel;
@@ -236,7 +237,7 @@ public class QueryMatchMockOperationDispatcher extends AbstractMockOperationDisp
 					if( cursor == null && !cursorCache.containsKey( path ) )
 					{
 						cursor = xmlObject.newCursor();
-						cursor.selectPath( path );
+						cursor.selectPath( XPathCache.getInstance().getCompiledPath( "", path ) );
 						if( !cursor.toNextSelection() )
 						{
 							cursor.dispose();
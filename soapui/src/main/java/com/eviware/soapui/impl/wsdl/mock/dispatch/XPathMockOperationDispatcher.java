@@ -39,6 +39,7 @@ import com.eviware.soapui.model.settings.Settings;
 import com.eviware.soapui.support.StringUtils;
 import com.eviware.soapui.support.UISupport;
 import com.eviware.soapui.support.components.JXToolBar;
+import com.eviware.soapui.support.xml.XPathCache;
 import com.eviware.soapui.support.xml.XmlUtils;
 import com.eviware.soapui.ui.support.ModelItemDesktopPanel;
 
@@ -68,7 +69,16 @@ public class XPathMockOperationDispatcher extends AbstractMockOperationDispatche
 		if( StringUtils.isNullOrEmpty( path ) )
 			throw new DispatchException( "Missing dispatch XPath expression" );
 
-		String[] values = XmlUtils.selectNodeValues( xmlObject, path );
+		String[] values;
+		try
+		{
+			values = XmlUtils.selectNodeValues( xmlObject, XPathCache.getInstance().getCompiledPath( "", path ) );
+		}
+		catch( XmlException e )
+		{
+			throw new DispatchException( "Error compiling dispatch XPath expression: " + e );
+		}
+
 		for( String value : values )
 		{
 			WsdlMockResponse mockResponse = getMockOperation().getMockResponseByName( value );
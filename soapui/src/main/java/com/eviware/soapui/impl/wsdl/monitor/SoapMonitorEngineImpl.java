@@ -24,6 +24,7 @@ import com.eviware.soapui.impl.wsdl.monitor.jettyproxy.ProxyServlet;
 import com.eviware.soapui.impl.wsdl.monitor.jettyproxy.JettyServer;
 import com.eviware.soapui.impl.wsdl.monitor.jettyproxy.TunnelServlet;
 import com.eviware.soapui.model.settings.Settings;
+import com.eviware.soapui.monitor.SoapUIJettyOverloadHandler;
 import com.eviware.soapui.monitor.SoapUIJettyThreadPool;
 import com.eviware.soapui.support.UISupport;
 
@@ -36,6 +37,7 @@ public class SoapMonitorEngineImpl implements SoapMonitorEngine
 	JettyServer server = new JettyServer();
 	SocketConnector connector = new SocketConnector();
 	private SslSocketConnector sslConnector;
+	private SoapUIJettyThreadPool threadPool;
 	private final String sslEndpoint;
 	private boolean proxyOrTunnel = true;
 
@@ -52,8 +54,10 @@ public class SoapMonitorEngineImpl implements SoapMonitorEngine
 	public void start( WsdlProject project, int localPort, SoapMonitorListenerCallBack listenerCallBack )
 	{
 		Settings settings = project.getSettings();
-		server.setThreadPool( new SoapUIJettyThreadPool() );
+		threadPool = new SoapUIJettyThreadPool( "monitor" );
+		server.setThreadPool( threadPool );
 		Context context = new Context( server, ROOT, 0 );
+		server.setHandler( new SoapUIJettyOverloadHandler( context ) );
 
 		if( !StringUtils.isNullOrEmpty(  sslEndpoint ))
 		{
@@ -130,6 +134,12 @@ public class SoapMonitorEngineImpl implements SoapMonitorEngine
 			{
 				server.destroy();
 			}
+
+			if( threadPool != null )
+			{
+				threadPool.shutdown();
+				threadPool = null;
+			}
 		}
 
 	}
@@ -30,6 +30,9 @@ import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
 import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableColumnModel;
 import java.awt.BorderLayout;
@@ -50,6 +53,7 @@ public class JStatisticsTable extends JPanel
 	private final WsdlLoadTest loadTest;
 	private JXTable statisticsTable;
 	private JPopupMenu popup;
+	private InternalTableModelListener tableModelListener = new InternalTableModelListener();
 
 	public JStatisticsTable( WsdlLoadTest loadTest )
 	{
@@ -61,21 +65,9 @@ public class JStatisticsTable extends JPanel
 		statisticsTable.getTableHeader().setReorderingAllowed( false );
 
 		statisticsTable.addMouseListener( new StatisticsTableMouseListener() );
+		loadTest.getStatisticsModel().addTableModelListener( tableModelListener );
 
-		TableColumnModel columnModel = statisticsTable.getColumnModel();
-		columnModel.getColumn( 0 ).setMaxWidth( 5 );
-		columnModel.getColumn( 0 ).setCellRenderer( new ColorLabelTableCellRenderer() );
-		columnModel.getColumn( 1 ).setPreferredWidth( 150 );
-		columnModel.getColumn( 2 ).setPreferredWidth( 20 );
-		columnModel.getColumn( 3 ).setPreferredWidth( 20 );
-		columnModel.getColumn( 4 ).setPreferredWidth( 20 );
-		columnModel.getColumn( 5 ).setPreferredWidth( 20 );
-		columnModel.getColumn( 6 ).setPreferredWidth( 20 );
-		columnModel.getColumn( 7 ).setPreferredWidth( 20 );
-		columnModel.getColumn( 8 ).setPreferredWidth( 20 );
-		columnModel.getColumn( 9 ).setPreferredWidth( 20 );
-		columnModel.getColumn( 10 ).setPreferredWidth( 20 );
-		columnModel.getColumn( 11 ).setPreferredWidth( 20 );
+		initColumns();
 
 		JScrollPane scrollPane = new JScrollPane( statisticsTable );
 		scrollPane.setBorder( BorderFactory.createEmptyBorder( 3, 3, 3, 3 ) );
@@ -92,9 +84,50 @@ public class JStatisticsTable extends JPanel
 		popup.setInvoker( statisticsTable );
 	}
 
+	private void initColumns()
+	{
+		TableColumnModel columnModel = statisticsTable.getColumnModel();
+		columnModel.getColumn( 0 ).setMaxWidth( 5 );
+		columnModel.getColumn( 0 ).setCellRenderer( new ColorLabelTableCellRenderer() );
+		columnModel.getColumn( 1 ).setPreferredWidth( 150 );
+		columnModel.getColumn( 2 ).setPreferredWidth( 20 );
+		columnModel.getColumn( 3 ).setPreferredWidth( 20 );
+		columnModel.getColumn( 4 ).setPreferredWidth( 20 );
+		columnModel.getColumn( 5 ).setPreferredWidth( 20 );
+		columnModel.getColumn( 6 ).setPreferredWidth( 20 );
+		columnModel.getColumn( 7 ).setPreferredWidth( 20 );
+		columnModel.getColumn( 8 ).setPreferredWidth( 20 );
+		columnModel.getColumn( 9 ).setPreferredWidth( 20 );
+		columnModel.getColumn( 10 ).setPreferredWidth( 20 );
+		columnModel.getColumn( 11 ).setPreferredWidth( 20 );
+	}
+
 	public void release()
 	{
 		loadTest.getStatisticsModel().removeTableModelListener( statisticsTable );
+		loadTest.getStatisticsModel().removeTableModelListener( tableModelListener );
+	}
+
+	/**
+	 * Sets up the columns again when HTTP phase columns are added or removed
+	 */
+
+	private final class InternalTableModelListener implements TableModelListener
+	{
+		public void tableChanged( TableModelEvent e )
+		{
+			if( e.getFirstRow() != TableModelEvent.HEADER_ROW )
+				return;
+
+			// the table creates its new columns after this listener is notified
+			SwingUtilities.invokeLater( new Runnable()
+			{
+				public void run()
+				{
+					initColumns();
+				}
+			} );
+		}
 	}
 
 	private final class StatisticsTableMouseListener extends MouseAdapter
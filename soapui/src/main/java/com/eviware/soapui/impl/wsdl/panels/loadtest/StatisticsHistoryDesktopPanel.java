@@ -130,6 +130,8 @@ public class StatisticsHistoryDesktopPanel extends DefaultDesktopPanel
 		model.addElement( Statistic.TPS );
 		model.addElement( Statistic.ERRORS );
 		model.addElement( Statistic.BPS );
+		model.addElement( Statistic.P90 );
+		model.addElement( Statistic.P99 );
 
 		selectStatisticCombo = new JComboBox( model );
 		selectStatisticCombo.addItemListener( new ItemListener()
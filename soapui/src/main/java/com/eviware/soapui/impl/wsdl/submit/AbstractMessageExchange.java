@@ -12,8 +12,10 @@
 
 package com.eviware.soapui.impl.wsdl.submit;
 
+import com.eviware.soapui.impl.wsdl.submit.transports.http.SinglePartHttpResponse;
 import com.eviware.soapui.model.ModelItem;
 import com.eviware.soapui.model.iface.MessageExchange;
+import com.eviware.soapui.model.iface.Response;
 import com.eviware.soapui.support.types.StringToStringMap;
 import com.eviware.soapui.support.xml.XmlUtils;
 
@@ -42,6 +44,17 @@ public abstract class AbstractMessageExchange<T extends ModelItem> implements Me
 			return "<not-xml/>";
 	}
 
+	/**
+	 * @return if the response content is held by a response body spilled to
+	 *         disk, which is only decoded when the content is asked for
+	 */
+
+	protected boolean isResponseSpilled()
+	{
+		Response response = getResponse();
+		return response instanceof SinglePartHttpResponse && ( ( SinglePartHttpResponse )response ).isContentSpilled();
+	}
+
 	public String getResponseContentAsXml()
 	{
 		if( hasResponse() && XmlUtils.seemsToBeXml( getResponseContent() ) )
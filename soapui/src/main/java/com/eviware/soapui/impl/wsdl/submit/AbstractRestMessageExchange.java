@@ -34,6 +34,9 @@ public abstract class AbstractRestMessageExchange<T extends ModelItem> extends A
 
 	public boolean hasResponse()
 	{
+		if( isResponseSpilled() )
+			return true;
+
 		String responseContent = getResponseContent();
 		return responseContent != null && responseContent.trim().length() > 0;
 	}
@@ -36,6 +36,9 @@ public abstract class AbstractWsdlMessageExchange<T extends ModelItem> extends A
 
 	public boolean hasResponse()
 	{
+		if( isResponseSpilled() )
+			return true;
+
 		String responseContent = getResponseContent();
 		return responseContent != null && responseContent.trim().length() > 0;
 	}
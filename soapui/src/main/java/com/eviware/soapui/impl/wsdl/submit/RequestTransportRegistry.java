@@ -36,6 +36,7 @@ import com.eviware.soapui.impl.wsdl.submit.filters.WsrmRequestFilter;
 import com.eviware.soapui.impl.wsdl.submit.filters.WssAuthenticationRequestFilter;
 import com.eviware.soapui.impl.wsdl.submit.filters.WssRequestFilter;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.HttpClientRequestTransport;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.NioHttpRequestTransport;
 import com.eviware.soapui.impl.wsdl.submit.transports.jms.HermesJmsRequestTransport;
 import com.eviware.soapui.model.iface.SubmitContext;
 
@@ -51,50 +52,29 @@ public class RequestTransportRegistry
 	public static final String HTTP = "http";
 	public static final String HTTPS = "https";
 	public static final String JMS = "jms";
+	public static final String HTTP_NIO = "http-nio";
 
 	private static Map<String, RequestTransport> transports = new HashMap<String, RequestTransport>();
 
 	static
 	{
-		HttpClientRequestTransport httpTransport = new HttpClientRequestTransport();
+		// -Dsoapui.http.transport=nio sends all http(s) requests over the non-blocking transport,
+		// except for requests that use a proxy, authentication or a keystore of their own
+		HttpClientRequestTransport nioTransport = new NioHttpRequestTransport();
+		HttpClientRequestTransport httpTransport = "nio".equals( System.getProperty( "soapui.http.transport" ) ) ? nioTransport
+				: new HttpClientRequestTransport();
 		HermesJmsRequestTransport jmsTransport = new HermesJmsRequestTransport();
 
 		List<RequestFilterFactory> filterFactories = SoapUI.getFactoryRegistry()
 				.getFactories( RequestFilterFactory.class );
 
-		httpTransport.addRequestFilter( new EndpointRequestFilter() );
-		httpTransport.addRequestFilter( new HttpSettingsRequestFilter() );
-		httpTransport.addRequestFilter( new RestRequestFilter() );
-		httpTransport.addRequestFilter( new SoapHeadersRequestFilter() );
-		httpTransport.addRequestFilter( new HttpProxyRequestFilter() );
-		httpTransport.addRequestFilter( new HttpAuthenticationRequestFilter() );
-		httpTransport.addRequestFilter( new WssAuthenticationRequestFilter() );
-		httpTransport.addRequestFilter( new PropertyExpansionRequestFilter() );
-		httpTransport.addRequestFilter( new RemoveEmptyContentRequestFilter() );
-		httpTransport.addRequestFilter( new StripWhitespacesRequestFilter() );
-		httpTransport.addRequestFilter( new EndpointStrategyRequestFilter() );
-		httpTransport.addRequestFilter( new WsaRequestFilter() );
-		httpTransport.addRequestFilter( new WsrmRequestFilter() );
-		httpTransport.addRequestFilter( new WssRequestFilter() );
-
-		for( RequestFilter filter : SoapUI.getListenerRegistry().getListeners( RequestFilter.class ) )
-		{
-			httpTransport.addRequestFilter( filter );
-		}
-
-		for( RequestFilterFactory factory : filterFactories )
-		{
-			if( factory.getProtocol().equals( HTTP ) || factory.getProtocol().equals( HTTPS ) )
-				httpTransport.addRequestFilter( factory.createRequestFilter() );
-		}
-
-		httpTransport.addRequestFilter( new WsdlPackagingRequestFilter() );
-		httpTransport.addRequestFilter( new HttpCompressionRequestFilter() );
-		httpTransport.addRequestFilter( new HttpPackagingResponseFilter() );
-		httpTransport.addRequestFilter( new PostPackagingRequestFilter() );
+		addHttpRequestFilters( httpTransport, filterFactories );
+		if( nioTransport != httpTransport )
+			addHttpRequestFilters( nioTransport, filterFactories );
 
 		transports.put( HTTP, httpTransport );
 		transports.put( HTTPS, httpTransport );
+		transports.put( HTTP_NIO, nioTransport );
 
 		jmsTransport.addRequestFilter( new WssAuthenticationRequestFilter() );
 		jmsTransport.addRequestFilter( new PropertyExpansionRequestFilter() );
@@ -131,6 +111,41 @@ public class RequestTransportRegistry
 		}
 	}
 
+	private static void addHttpRequestFilters( HttpClientRequestTransport httpTransport,
+			List<RequestFilterFactory> filterFactories )
+	{
+		httpTransport.addRequestFilter( new EndpointRequestFilter() );
+		httpTransport.addRequestFilter( new HttpSettingsRequestFilter() );
+		httpTransport.addRequestFilter( new RestRequestFilter() );
+		httpTransport.addRequestFilter( new SoapHeadersRequestFilter() );
+		httpTransport.addRequestFilter( new HttpProxyRequestFilter() );
+		httpTransport.addRequestFilter( new HttpAuthenticationRequestFilter() );
+		httpTransport.addRequestFilter( new WssAuthenticationRequestFilter() );
+		httpTransport.addRequestFilter( new PropertyExpansionRequestFilter() );
+		httpTransport.addRequestFilter( new RemoveEmptyContentRequestFilter() );
+		httpTransport.addRequestFilter( new StripWhitespacesRequestFilter() );
+		httpTransport.addRequestFilter( new EndpointStrategyRequestFilter() );
+		httpTransport.addRequestFilter( new WsaRequestFilter() );
+		httpTransport.addRequestFilter( new WsrmRequestFilter() );
+		httpTransport.addRequestFilter( new WssRequestFilter() );
+
+		for( RequestFilter filter : SoapUI.getListenerRegistry().getListeners( RequestFilter.class ) )
+		{
+			httpTransport.addRequestFilter( filter );
+		}
+
+		for( RequestFilterFactory factory : filterFactories )
+		{
+			if( factory.getProtocol().equals( HTTP ) || factory.getProtocol().equals( HTTPS ) )
+				httpTransport.addRequestFilter( factory.createRequestFilter() );
+		}
+
+		httpTransport.addRequestFilter( new WsdlPackagingRequestFilter() );
+		httpTransport.addRequestFilter( new HttpCompressionRequestFilter() );
+		httpTransport.addRequestFilter( new HttpPackagingResponseFilter() );
+		httpTransport.addRequestFilter( new PostPackagingRequestFilter() );
+	}
+
 	public static synchronized RequestTransport getTransport( String endpoint, SubmitContext submitContext )
 			throws MissingTransportException, CannotResolveJmsTypeException
 	{
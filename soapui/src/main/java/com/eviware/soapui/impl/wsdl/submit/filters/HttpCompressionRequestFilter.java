@@ -12,17 +12,15 @@
 
 package com.eviware.soapui.impl.wsdl.submit.filters;
 
-import java.io.ByteArrayOutputStream;
-
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpEntityEnclosingRequest;
-import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.HttpVersion;
 import org.apache.log4j.Logger;
 
 import com.eviware.soapui.impl.support.AbstractHttpRequest;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.BaseHttpRequestTransport;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.CompressingHttpEntity;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.ExtendedHttpMethod;
-import com.eviware.soapui.impl.wsdl.support.CompressionSupport;
 import com.eviware.soapui.model.iface.SubmitContext;
 import com.eviware.soapui.model.settings.Settings;
 import com.eviware.soapui.settings.HttpSettings;
@@ -47,11 +45,17 @@ public class HttpCompressionRequestFilter extends AbstractRequestFilter
 					HttpEntity requestEntity = ( ( HttpEntityEnclosingRequest )method ).getEntity();
 					if( requestEntity != null )
 					{
-						ByteArrayOutputStream tempOut = new ByteArrayOutputStream();
-						requestEntity.writeTo( tempOut );
+						// the compressed length is only known once the content has been
+						// compressed, so streaming requires chunking, which is not
+						// available for HTTP/1.0 and is only used above the threshold
+						long limit = settings.getLong( HttpSettings.CHUNKING_THRESHOLD, -1 );
+						long length = requestEntity.getContentLength();
+						boolean chunked = method.getProtocolVersion().greaterEquals( HttpVersion.HTTP_1_1 ) && limit >= 0
+								&& ( length < 0 || length > limit );
 
-						byte[] compressedData = CompressionSupport.compress( compressionAlg, tempOut.toByteArray() );
-						( ( HttpEntityEnclosingRequest )method ).setEntity( new ByteArrayEntity( compressedData ) );
+						HttpEntity compressedEntity = CompressingHttpEntity.compress( requestEntity, compressionAlg,
+								chunked );
+						( ( HttpEntityEnclosingRequest )method ).setEntity( compressedEntity );
 					}
 				}
 			}
@@ -17,14 +17,17 @@ import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.net.URL;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 
 import com.eviware.soapui.SoapUI;
 import com.eviware.soapui.impl.rest.support.MediaTypeHandler;
 import com.eviware.soapui.impl.rest.support.MediaTypeHandlerRegistry;
 import com.eviware.soapui.impl.support.AbstractHttpRequestInterface;
 import com.eviware.soapui.impl.support.http.HttpRequest;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.support.metrics.HttpPhaseTimings;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.support.metrics.SoapUIMetrics;
 import com.eviware.soapui.impl.wsdl.testcase.WsdlTestCase;
 import com.eviware.soapui.impl.wsdl.teststeps.TestRequest;
@@ -54,13 +57,18 @@ public abstract class BaseHttpResponse implements HttpResponse
 	private StringToStringMap properties;
 	private byte[] rawRequestData;
 	private byte[] rawResponseData;
-	private byte[] rawResponseBody;
+	private byte[] rawRequestHeader;
+	private byte[] rawResponseHeader;
+	private HttpEntity rawRequestEntity;
+	private ResponseBodyStore rawResponseBody;
 	private int requestContentPos = -1;
 	private String xmlContent;
 	private boolean downloadIncludedResources;
 	private Attachment[] attachments = new Attachment[0];
 	protected HTMLPageSourceDownloader downloader;
 	private int statusCode;
+	private HttpPhaseTimings phaseTimings;
+	private final AtomicInteger holders = new AtomicInteger();
 
 	public BaseHttpResponse( ExtendedHttpMethod httpMethod, AbstractHttpRequestInterface<?> httpRequest,
 			PropertyExpansionContext context )
@@ -87,7 +95,7 @@ public abstract class BaseHttpResponse implements HttpResponse
 
 			try
 			{
-				rawResponseBody = httpMethod.getResponseBody();
+				rawResponseBody = httpMethod.getResponseBodyStore();
 			}
 			catch( IOException e )
 			{
@@ -103,6 +111,7 @@ public abstract class BaseHttpResponse implements HttpResponse
 			// metrics.getTotalTimer().add( httpMethod.getResponseReadTimeNanos() );
 			metrics.getReadTimer().add( httpMethod.getResponseReadTime() );
 			metrics.getTotalTimer().add( httpMethod.getResponseReadTime() );
+			phaseTimings = HttpPhaseTimings.capture( metrics );
 
 			try
 			{
@@ -165,7 +174,7 @@ public abstract class BaseHttpResponse implements HttpResponse
 			attachments = new Attachment[1];
 			try
 			{
-				attachments[0] = downloader.createAttachment( rawResponseData, url, ( HttpRequest )httpRequest.get() );
+				attachments[0] = downloader.createAttachment( getRawResponseData(), url, ( HttpRequest )httpRequest.get() );
 			}
 			catch( IOException e )
 			{
@@ -178,6 +187,12 @@ public abstract class BaseHttpResponse implements HttpResponse
 		}
 	}
 
+	/**
+	 * Initializes the headers and the headers of the raw request and response,
+	 * the raw data is only assembled from these and the existing message bodies
+	 * when it is asked for
+	 */
+
 	protected void initHeaders( ExtendedHttpMethod httpMethod )
 	{
 		try
@@ -228,23 +243,18 @@ public abstract class BaseHttpResponse implements HttpResponse
 				if( httpMethod.getRequestEntity().isRepeatable() )
 				{
 					requestContentPos = rawRequest.size();
-					MaxSizeByteArrayOutputStream tempOut = new MaxSizeByteArrayOutputStream( SoapUI.getSettings().getLong(
-							UISettings.RAW_REQUEST_MESSAGE_SIZE, 0 ) );
-					httpMethod.getRequestEntity().writeTo( tempOut );
-					tempOut.writeTo( rawRequest );
+					rawRequestEntity = httpMethod.getRequestEntity();
 				}
 				else
 					rawRequest.write( "<request data not available>".getBytes() );
 			}
 
-			if( !httpMethod.isFailed() && httpMethod.hasHttpResponse() && httpMethod.getResponseBody() != null )
-			{
+			// the body read in the constructor is the one held by the method
+			if( rawResponseBody != null && !httpMethod.isFailed() && httpMethod.hasHttpResponse() )
 				rawResponse.write( "\r\n".getBytes() );
-				rawResponse.write( httpMethod.getResponseBody() );
-			}
 
-			rawResponseData = rawResponse.toByteArray();
-			rawRequestData = rawRequest.toByteArray();
+			rawResponseHeader = rawResponse.toByteArray();
+			rawRequestHeader = rawRequest.toByteArray();
 		}
 		catch( Throwable e )
 		{
@@ -252,6 +262,35 @@ public abstract class BaseHttpResponse implements HttpResponse
 		}
 	}
 
+	private byte[] buildRawRequestData() throws IOException
+	{
+		if( rawRequestEntity == null )
+			return rawRequestHeader;
+
+		MaxSizeByteArrayOutputStream content = new MaxSizeByteArrayOutputStream( SoapUI.getSettings().getLong(
+				UISettings.RAW_REQUEST_MESSAGE_SIZE, 0 ) );
+		rawRequestEntity.writeTo( content );
+		if( content.size() == 0 )
+			return rawRequestHeader;
+
+		byte[] result = new byte[rawRequestHeader.length + content.size()];
+		System.arraycopy( rawRequestHeader, 0, result, 0, rawRequestHeader.length );
+		System.arraycopy( content.getBuffer(), 0, result, rawRequestHeader.length, content.size() );
+		return result;
+	}
+
+	private byte[] buildRawResponseData()
+	{
+		byte[] body = getRawResponseBody();
+		if( body == null || body.length == 0 )
+			return rawResponseHeader;
+
+		byte[] result = new byte[rawResponseHeader.length + body.length];
+		System.arraycopy( rawResponseHeader, 0, result, 0, rawResponseHeader.length );
+		System.arraycopy( body, 0, result, rawResponseHeader.length, body.length );
+		return result;
+	}
+
 	public static class MaxSizeByteArrayOutputStream extends ByteArrayOutputStream
 	{
 		private final long maxSize;
@@ -292,6 +331,14 @@ public abstract class BaseHttpResponse implements HttpResponse
 			}
 		}
 
+		/**
+		 * @return the internal buffer, valid up to {@link #size()}
+		 */
+
+		byte[] getBuffer()
+		{
+			return buf;
+		}
 	}
 
 	protected void initHeadersForLoadTest( ExtendedHttpMethod httpMethod )
@@ -343,6 +390,16 @@ public abstract class BaseHttpResponse implements HttpResponse
 		return sslInfo;
 	}
 
+	/**
+	 * @return the durations of the phases of the request, or null if these were
+	 *         not measured
+	 */
+
+	public HttpPhaseTimings getPhaseTimings()
+	{
+		return phaseTimings;
+	}
+
 	public long getTimestamp()
 	{
 		return timestamp;
@@ -378,21 +435,101 @@ public abstract class BaseHttpResponse implements HttpResponse
 		return new Attachment[0];
 	}
 
-	public byte[] getRawRequestData()
+	public synchronized byte[] getRawRequestData()
 	{
+		if( rawRequestData == null && rawRequestHeader != null )
+		{
+			try
+			{
+				rawRequestData = buildRawRequestData();
+			}
+			catch( IOException e )
+			{
+				SoapUI.logError( e );
+				rawRequestData = rawRequestHeader;
+			}
+
+			rawRequestHeader = null;
+			rawRequestEntity = null;
+		}
+
 		return rawRequestData;
 	}
 
-	public byte[] getRawResponseData()
+	public synchronized byte[] getRawResponseData()
 	{
+		if( rawResponseData == null && rawResponseHeader != null )
+		{
+			rawResponseData = buildRawResponseData();
+			rawResponseHeader = null;
+		}
+
 		return rawResponseData;
 	}
 
+	/**
+	 * Returns the response body as a byte array, bodies that have been spilled
+	 * to disk are copied into a new array on each call
+	 */
+
 	public byte[] getRawResponseBody()
+	{
+		try
+		{
+			return rawResponseBody == null ? null : rawResponseBody.toByteArray();
+		}
+		catch( IOException e )
+		{
+			SoapUI.logError( e );
+			return null;
+		}
+	}
+
+	/**
+	 * @return the store holding the response body, for streaming access to
+	 *         bodies that are too large to be held in memory
+	 */
+
+	public ResponseBodyStore getResponseBodyStore()
 	{
 		return rawResponseBody;
 	}
 
+	/**
+	 * Registers a holder of this response, such as the request it is the
+	 * current response of or a TestStep result. The response body is released
+	 * when all holders have released the response.
+	 */
+
+	public void retain()
+	{
+		holders.incrementAndGet();
+	}
+
+	/**
+	 * Releases the response body once the last holder has released the
+	 * response, a body spilled to disk can not be read after that. Releases
+	 * without a matching {@link #retain()} are ignored.
+	 */
+
+	public void release()
+	{
+		for( ;; )
+		{
+			int current = holders.get();
+			if( current <= 0 )
+				return;
+
+			if( holders.compareAndSet( current, current - 1 ) )
+			{
+				if( current == 1 && rawResponseBody != null )
+					rawResponseBody.release();
+
+				return;
+			}
+		}
+	}
+
 	public String getMethod()
 	{
 		return method;
@@ -423,6 +560,7 @@ public abstract class BaseHttpResponse implements HttpResponse
 
 	public String getRequestContent()
 	{
+		byte[] rawRequestData = getRawRequestData();
 		return requestContentPos == -1 || rawRequestData == null ? null : new String( rawRequestData, requestContentPos,
 				rawRequestData.length - requestContentPos );
 	}
@@ -0,0 +1,244 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.submit.transports.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+
+import com.eviware.soapui.impl.wsdl.support.CompressionSupport;
+
+/**
+ * Request entity that compresses the wrapped entity while it is written to the
+ * connection, so the uncompressed and compressed content are never held in
+ * memory. The compressed length is not known in advance, so the entity is sent
+ * chunked; requests that may not be sent chunked are compressed into memory
+ * instead, see {@link #compress(HttpEntity, String, boolean)}.
+ * 
+ * Setting the <code>soapui.http.compression.cache</code> system property to a
+ * number of entries enables a cache of compressed content keyed by a hash of
+ * the uncompressed content, for payloads that are sent unchanged over and over.
+ * The total size of the cached content is limited by the
+ * <code>soapui.http.compression.cachebytes</code> system property, 16 MB by
+ * default.
+ */
+
+public class CompressingHttpEntity extends AbstractHttpEntity
+{
+	public final static long DEFAULT_CACHE_BYTES = 16 * 1024 * 1024;
+
+	private final static int cacheSize = Integer.getInteger( "soapui.http.compression.cache", 0 );
+	private final static long maxCacheBytes = Long.getLong( "soapui.http.compression.cachebytes", DEFAULT_CACHE_BYTES );
+	private final static Map<String, byte[]> cache = new LinkedHashMap<String, byte[]>( 16, 0.75f, true );
+	private static long cachedBytes;
+
+	private final HttpEntity wrappedEntity;
+	private final String compressionAlg;
+
+	public CompressingHttpEntity( HttpEntity wrappedEntity, String compressionAlg ) throws Exception
+	{
+		CompressionSupport.checkAlg( compressionAlg );
+
+		this.wrappedEntity = wrappedEntity;
+		this.compressionAlg = compressionAlg;
+		setChunked( true );
+	}
+
+	/**
+	 * Creates the entity to send for the specified one, either a streaming
+	 * CompressingHttpEntity or the compressed content, which is taken from the
+	 * cache if it is enabled
+	 * 
+	 * @param chunked
+	 *           if the entity may be sent chunked; if not the content is
+	 *           compressed into memory, so that it is sent with its length
+	 */
+
+	public static HttpEntity compress( HttpEntity entity, String compressionAlg, boolean chunked ) throws Exception
+	{
+		if( cacheSize <= 0 || !entity.isRepeatable() )
+			return chunked ? new CompressingHttpEntity( entity, compressionAlg ) : new ByteArrayEntity( toByteArray(
+					entity, compressionAlg ) );
+
+		String key = compressionAlg + ":" + digest( entity );
+		byte[] compressed;
+		synchronized( cache )
+		{
+			compressed = cache.get( key );
+		}
+
+		if( compressed == null )
+		{
+			compressed = toByteArray( entity, compressionAlg );
+			cache( key, compressed );
+		}
+
+		return new ByteArrayEntity( compressed );
+	}
+
+	private static void cache( String key, byte[] compressed )
+	{
+		if( compressed.length > maxCacheBytes )
+			return;
+
+		synchronized( cache )
+		{
+			byte[] previous = cache.put( key, compressed );
+			if( previous != null )
+				cachedBytes -= previous.length;
+			cachedBytes += compressed.length;
+
+			// the least recently used entries come first, the entry just added
+			// is never removed since it fits into the cache on its own
+			Iterator<byte[]> iterator = cache.values().iterator();
+			while( cache.size() > cacheSize || cachedBytes > maxCacheBytes )
+			{
+				cachedBytes -= iterator.next().length;
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Compresses the specified entity into a byte array
+	 */
+
+	public static byte[] toByteArray( HttpEntity entity, String compressionAlg ) throws IOException
+	{
+		return compress( entity, compressionAlg, new ByteArrayOutputStream() ).toByteArray();
+	}
+
+	private static <T extends OutputStream> T compress( HttpEntity entity, String compressionAlg, final T target )
+			throws IOException
+	{
+		OutputStream compressingOut;
+		try
+		{
+			// closing the compressing stream releases its native resources,
+			// the stream it writes to is left open
+			compressingOut = CompressionSupport.createCompressionOutputStream( compressionAlg, new FilterOutputStream(
+					target )
+			{
+				@Override
+				public void write( byte[] b, int off, int len ) throws IOException
+				{
+					target.write( b, off, len );
+				}
+
+				@Override
+				public void close() throws IOException
+				{
+					flush();
+				}
+			} );
+		}
+		catch( IOException e )
+		{
+			throw e;
+		}
+		catch( Exception e )
+		{
+			IOException ioe = new IOException( e.getMessage() );
+			ioe.initCause( e );
+			throw ioe;
+		}
+
+		try
+		{
+			entity.writeTo( compressingOut );
+		}
+		finally
+		{
+			compressingOut.close();
+		}
+
+		return target;
+	}
+
+	private static String digest( HttpEntity entity ) throws IOException, NoSuchAlgorithmException
+	{
+		MessageDigest digest = MessageDigest.getInstance( "SHA-1" );
+		entity.writeTo( new DigestOutputStream( new OutputStream()
+		{
+			@Override
+			public void write( int b )
+			{
+			}
+
+			@Override
+			public void write( byte[] b, int off, int len )
+			{
+			}
+		}, digest ) );
+
+		StringBuilder result = new StringBuilder();
+		for( byte b : digest.digest() )
+		{
+			result.append( Integer.toHexString( ( b & 0xff ) | 0x100 ).substring( 1 ) );
+		}
+		return result.toString();
+	}
+
+	public HttpEntity getWrappedEntity()
+	{
+		return wrappedEntity;
+	}
+
+	public String getCompressionAlg()
+	{
+		return compressionAlg;
+	}
+
+	public boolean isRepeatable()
+	{
+		return wrappedEntity.isRepeatable();
+	}
+
+	public boolean isStreaming()
+	{
+		return wrappedEntity.isStreaming();
+	}
+
+	public long getContentLength()
+	{
+		return -1;
+	}
+
+	public InputStream getContent() throws IOException
+	{
+		return new ByteArrayInputStream( toByteArray( wrappedEntity, compressionAlg ) );
+	}
+
+	public void writeTo( OutputStream outstream ) throws IOException
+	{
+		if( outstream == null )
+		{
+			throw new IllegalArgumentException( "Output stream may not be null" );
+		}
+
+		compress( wrappedEntity, compressionAlg, outstream );
+	}
+}
@@ -71,6 +71,8 @@ public interface ExtendedHttpMethod extends HttpRequest, HttpUriRequest
 
 	public byte[] getResponseBody() throws IOException;
 
+	public ResponseBodyStore getResponseBodyStore() throws IOException;
+
 	public String getResponseBodyAsString() throws IOException;
 
 	public HttpEntity getRequestEntity();
@@ -174,9 +174,20 @@ public class HttpClientRequestTransport implements BaseHttpRequestTransport
 		submitContext.setProperty( WSDL_REQUEST, httpRequest );
 		submitContext.setProperty( RESPONSE_PROPERTIES, new StringToStringMap() );
 
-		for( RequestFilter filter : filters )
+		// scoped properties are looked up once while the request is prepared
+		submitContext.setProperty( PropertyExpander.RESOLVED_PROPERTIES, new StringToStringMap() );
+
+		try
 		{
-			filter.filterRequest( submitContext, httpRequest );
+			for( RequestFilter filter : filters )
+			{
+				filter.filterRequest( submitContext, httpRequest );
+			}
+		}
+		catch( Exception e )
+		{
+			submitContext.removeProperty( PropertyExpander.RESOLVED_PROPERTIES );
+			throw e;
 		}
 
 		try
@@ -263,6 +274,8 @@ public class HttpClientRequestTransport implements BaseHttpRequestTransport
 		}
 		finally
 		{
+			submitContext.removeProperty( PropertyExpander.RESOLVED_PROPERTIES );
+
 			if( !httpMethod.isFailed() )
 			{
 				if( httpMethod.getMetrics() != null )
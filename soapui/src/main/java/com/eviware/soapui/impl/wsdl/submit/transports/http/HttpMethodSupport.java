@@ -12,8 +12,6 @@
 
 package com.eviware.soapui.impl.wsdl.submit.transports.http;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -25,14 +23,13 @@ import org.apache.http.Header;
 import org.apache.http.HeaderElement;
 import org.apache.http.HttpEntity;
 import org.apache.http.NameValuePair;
-import org.apache.http.entity.BufferedHttpEntity;
 import org.apache.http.impl.io.HttpTransportMetricsImpl;
-import org.apache.http.util.EntityUtils;
 
 import com.eviware.soapui.SoapUI;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.support.metrics.SoapUIMetrics;
 import com.eviware.soapui.impl.wsdl.support.CompressionSupport;
 import com.eviware.soapui.impl.wsdl.support.http.HttpClientSupport;
+import com.eviware.soapui.impl.wsdl.support.http.SpillingNHttpEntity;
 import com.eviware.soapui.settings.HttpSettings;
 import com.eviware.soapui.support.StringUtils;
 import com.eviware.soapui.support.Tools;
@@ -51,7 +48,7 @@ public class HttpMethodSupport
 	private long maxSize;
 	private long responseReadTime;
 
-	private byte[] responseBody;
+	private ResponseBodyStore responseBodyStore;
 
 	private SSLInfo sslInfo;
 	private String dumpFile;
@@ -170,7 +167,7 @@ public class HttpMethodSupport
 			{
 				try
 				{
-					return CompressionSupport.decompress( compressionAlg, responseBody );
+					return CompressionSupport.decompress( compressionAlg, getResponseBody() );
 				}
 				catch( Exception e )
 				{
@@ -181,7 +178,7 @@ public class HttpMethodSupport
 			}
 		}
 
-		return responseBody;
+		return getResponseBody();
 	}
 
 	/**
@@ -252,7 +249,7 @@ public class HttpMethodSupport
 
 	public boolean hasResponse()
 	{
-		return responseBody != null;
+		return responseBodyStore != null;
 	}
 
 	public org.apache.http.HttpResponse getHttpResponse()
@@ -270,35 +267,57 @@ public class HttpMethodSupport
 		return httpResponse != null;
 	}
 
+	/**
+	 * Returns the response body as a byte array, bodies that have been spilled
+	 * to disk are copied on each call instead of being kept in the heap
+	 */
+
 	public byte[] getResponseBody() throws IOException
 	{
-		if( responseBody != null )
-			return responseBody;
+		ResponseBodyStore store = getResponseBodyStore();
+		return store == null ? null : store.toByteArray();
+	}
+
+	/**
+	 * Reads the response body into a {@link ResponseBodyStore} if this has not
+	 * been done yet
+	 * 
+	 * @return the store or null if there is no response entity
+	 */
+
+	public ResponseBodyStore getResponseBodyStore() throws IOException
+	{
+		if( responseBodyStore != null )
+			return responseBodyStore;
 
 		if( hasHttpResponse() && httpResponse.getEntity() != null )
 		{
 			long now = System.nanoTime();
-			HttpEntity bufferedEntity = new BufferedHttpEntity( httpResponse.getEntity() );
-			long contentLength = bufferedEntity.getContentLength();
-			if( metrics != null )
-			{
-				metrics.setContentLength( contentLength );
-			}
-
-			InputStream instream = bufferedEntity.getContent();
+			HttpEntity entity = httpResponse.getEntity();
+			long contentLength = entity.getContentLength();
+			InputStream instream = entity.getContent();
 
 			try
 			{
 				if( maxSize == 0 || ( contentLength >= 0 && contentLength <= maxSize ) )
 				{
+					// the non-blocking transport has already collected the body
+					if( entity instanceof SpillingNHttpEntity
+							&& ( ( SpillingNHttpEntity )entity ).getResponseBodyStore() != null )
+						responseBodyStore = ( ( SpillingNHttpEntity )entity ).getResponseBodyStore();
+					else
+						responseBodyStore = instream == null ? ResponseBodyStore.wrap( null ) : ResponseBodyStore.read(
+								instream, 0 );
 					responseReadTime = System.nanoTime() - now;
-					responseBody = EntityUtils.toByteArray( bufferedEntity );
+					setContentLength( contentLength >= 0 ? contentLength : responseBodyStore.getLength() );
 
 					try
 					{
 						if( StringUtils.hasContent( dumpFile ) )
 						{
-							Tools.writeAll( new FileOutputStream( dumpFile ), new ByteArrayInputStream( responseBody ) );
+							FileOutputStream fileOutputStream = new FileOutputStream( dumpFile );
+							Tools.writeAll( fileOutputStream, responseBodyStore.getInputStream() );
+							fileOutputStream.close();
 						}
 					}
 					catch( IOException e )
@@ -306,14 +325,19 @@ public class HttpMethodSupport
 						e.printStackTrace();
 					}
 
-					if( decompress && responseBody.length > 0 )
+					if( decompress && responseBodyStore.getLength() > 0 )
 					{
 						String compressionAlg = HttpClientSupport.getResponseCompressionType( httpResponse );
 						if( compressionAlg != null )
 						{
+							// decompress as a stream so that large bodies are spilled
+							// again instead of being inflated into memory
+							ResponseBodyStore compressedBodyStore = responseBodyStore;
 							try
 							{
-								responseBody = CompressionSupport.decompress( compressionAlg, responseBody );
+								InputStream decompressed = CompressionSupport.createCompressionInputStream( compressionAlg,
+										compressedBodyStore.getInputStream() );
+								responseBodyStore = ResponseBodyStore.read( decompressed, 0 );
 							}
 							catch( Exception e )
 							{
@@ -321,6 +345,10 @@ public class HttpMethodSupport
 								ioe.initCause( e );
 								throw ioe;
 							}
+							finally
+							{
+								compressedBodyStore.release();
+							}
 						}
 					}
 				}
@@ -334,6 +362,7 @@ public class HttpMethodSupport
 							Tools.writeAll( fileOutputStream, instream );
 							responseReadTime = System.nanoTime() - now;
 							fileOutputStream.close();
+							instream.close();
 							instream = new FileInputStream( dumpFile );
 						}
 					}
@@ -342,17 +371,17 @@ public class HttpMethodSupport
 						e.printStackTrace();
 					}
 
-					ByteArrayOutputStream outstream = instream == null ? new ByteArrayOutputStream() : Tools.readAll(
+					responseBodyStore = instream == null ? ResponseBodyStore.wrap( null ) : ResponseBodyStore.read(
 							instream, maxSize );
+					setContentLength( contentLength );
 
 					if( responseReadTime == 0 )
 					{
 						responseReadTime = System.nanoTime() - now;
 					}
-
-					responseBody = outstream.toByteArray();
 				}
-			} finally
+			}
+			finally
 			{
 				if( instream != null )
 				{
@@ -361,10 +390,15 @@ public class HttpMethodSupport
 			}
 		}
 
-		// convert to ms
-		//responseReadTime /= 1000000;
+		return responseBodyStore;
+	}
 
-		return responseBody;
+	private void setContentLength( long contentLength )
+	{
+		if( metrics != null )
+		{
+			metrics.setContentLength( contentLength );
+		}
 	}
 
 	public SoapUIMetrics getMetrics()
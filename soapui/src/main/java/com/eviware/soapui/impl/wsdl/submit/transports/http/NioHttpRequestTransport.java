@@ -0,0 +1,185 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.submit.transports.http;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderIterator;
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.params.HttpClientParams;
+import org.apache.http.client.protocol.ClientContext;
+import org.apache.http.conn.params.ConnRoutePNames;
+import org.apache.http.cookie.Cookie;
+import org.apache.http.cookie.CookieOrigin;
+import org.apache.http.cookie.CookieSpec;
+import org.apache.http.cookie.MalformedCookieException;
+import org.apache.http.cookie.SM;
+import org.apache.http.protocol.HttpContext;
+import org.apache.log4j.Logger;
+
+import com.eviware.soapui.impl.wsdl.support.http.HttpClientSupport;
+import com.eviware.soapui.impl.wsdl.support.http.NioHttpClientSupport;
+import com.eviware.soapui.impl.wsdl.support.http.SoapUIHttpRoute;
+
+/**
+ * HTTP transport that sends requests over the non-blocking reactors of
+ * NioHttpClientSupport; request filters and metrics are handled exactly as in
+ * HttpClientRequestTransport, and cookies are sent and stored in the cookie
+ * store of the HTTP context as by the blocking client. Requests that go
+ * through a proxy, that have credentials for HTTP authentication or that use
+ * a client keystore of their own are sent with the blocking transport, since
+ * NioHttpClientSupport supports none of these.
+ */
+
+public class NioHttpRequestTransport extends HttpClientRequestTransport
+{
+	private final static Logger log = Logger.getLogger( NioHttpRequestTransport.class );
+
+	@Override
+	protected org.apache.http.HttpResponse submitRequest( ExtendedHttpMethod httpMethod, HttpContext httpContext )
+			throws IOException
+	{
+		String unsupported = getUnsupportedFeature( httpMethod, httpContext );
+		if( unsupported != null )
+		{
+			if( log.isDebugEnabled() )
+				log.debug( "Sending request to " + httpMethod.getURI() + " with the blocking transport, " + unsupported
+						+ " not supported by the non-blocking transport" );
+
+			return super.submitRequest( httpMethod, httpContext );
+		}
+
+		CookieStore cookieStore = httpContext == null ? null : ( CookieStore )httpContext
+				.getAttribute( ClientContext.COOKIE_STORE );
+		if( cookieStore != null )
+			addCookies( httpMethod, cookieStore );
+
+		org.apache.http.HttpResponse httpResponse = NioHttpClientSupport.execute( httpMethod, httpContext );
+
+		if( cookieStore != null )
+			storeCookies( httpMethod, httpResponse, cookieStore );
+
+		return httpResponse;
+	}
+
+	/**
+	 * @return the feature of the request that the non-blocking transport does
+	 *         not support, or null if it can send the request
+	 */
+
+	static String getUnsupportedFeature( ExtendedHttpMethod httpMethod, HttpContext httpContext )
+	{
+		// set by the HttpProxyRequestFilter and HttpAuthenticationRequestFilter
+		if( httpMethod.getParams().getParameter( ConnRoutePNames.DEFAULT_PROXY ) != null )
+			return "proxies are";
+
+		if( httpContext != null && httpContext.getAttribute( ClientContext.CREDS_PROVIDER ) != null )
+			return "authentication is";
+
+		// set from the SSL keystore of the request
+		if( httpMethod.getParams().getParameter( SoapUIHttpRoute.SOAPUI_SSL_CONFIG ) != null )
+			return "request keystores are";
+
+		return null;
+	}
+
+	/**
+	 * Adds the stored cookies matching the request, as the RequestAddCookies
+	 * interceptor of the blocking client does
+	 */
+
+	static void addCookies( ExtendedHttpMethod httpMethod, CookieStore cookieStore )
+	{
+		CookieSpec cookieSpec = getCookieSpec( httpMethod );
+		CookieOrigin origin = getCookieOrigin( httpMethod );
+
+		List<Cookie> cookies = new ArrayList<Cookie>();
+		Date now = new Date();
+		for( Cookie cookie : cookieStore.getCookies() )
+		{
+			if( !cookie.isExpired( now ) && cookieSpec.match( cookie, origin ) )
+				cookies.add( cookie );
+		}
+
+		if( !cookies.isEmpty() )
+		{
+			for( Header header : cookieSpec.formatCookies( cookies ) )
+				httpMethod.addHeader( header );
+		}
+	}
+
+	/**
+	 * Stores the valid cookies set by the response, as the
+	 * ResponseProcessCookies interceptor of the blocking client does
+	 */
+
+	static void storeCookies( ExtendedHttpMethod httpMethod, org.apache.http.HttpResponse httpResponse,
+			CookieStore cookieStore )
+	{
+		CookieSpec cookieSpec = getCookieSpec( httpMethod );
+		CookieOrigin origin = getCookieOrigin( httpMethod );
+
+		storeCookies( httpResponse.headerIterator( SM.SET_COOKIE ), cookieSpec, origin, cookieStore );
+		if( cookieSpec.getVersion() > 0 )
+			storeCookies( httpResponse.headerIterator( SM.SET_COOKIE2 ), cookieSpec, origin, cookieStore );
+	}
+
+	private static void storeCookies( HeaderIterator headers, CookieSpec cookieSpec, CookieOrigin origin,
+			CookieStore cookieStore )
+	{
+		while( headers.hasNext() )
+		{
+			Header header = headers.nextHeader();
+			try
+			{
+				for( Cookie cookie : cookieSpec.parse( header, origin ) )
+				{
+					try
+					{
+						cookieSpec.validate( cookie, origin );
+						cookieStore.addCookie( cookie );
+					}
+					catch( MalformedCookieException e )
+					{
+						log.warn( "Cookie rejected: \"" + cookie + "\". " + e.getMessage() );
+					}
+				}
+			}
+			catch( MalformedCookieException e )
+			{
+				log.warn( "Invalid cookie header: \"" + header + "\". " + e.getMessage() );
+			}
+		}
+	}
+
+	private static CookieSpec getCookieSpec( ExtendedHttpMethod httpMethod )
+	{
+		return HttpClientSupport.getHttpClient().getCookieSpecs().getCookieSpec(
+				HttpClientParams.getCookiePolicy( httpMethod.getParams() ), httpMethod.getParams() );
+	}
+
+	private static CookieOrigin getCookieOrigin( ExtendedHttpMethod httpMethod )
+	{
+		URI uri = httpMethod.getURI();
+		boolean secure = "https".equalsIgnoreCase( uri.getScheme() );
+		int port = uri.getPort() < 0 ? ( secure ? 443 : 80 ) : uri.getPort();
+		String path = uri.getRawPath() == null || uri.getRawPath().length() == 0 ? "/" : uri.getRawPath();
+
+		return new CookieOrigin( uri.getHost(), port, path, secure );
+	}
+}
@@ -0,0 +1,498 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.submit.transports.http;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Holds the body of a received response. Bodies up to the spill size are kept
+ * in memory, larger bodies are written to a temporary file and read back
+ * through memory-mapped buffers, so that they can be streamed without being
+ * held in the heap. The spill size is set with the
+ * <code>soapui.http.response.spillsize</code> system property (in bytes), 0
+ * keeps all bodies in memory.
+ * <p>
+ * The temporary file is deleted as soon as it has been mapped on platforms
+ * that allow this. Elsewhere it can only be deleted once the store has been
+ * released and the mapping garbage collected, so the files that could not be
+ * deleted yet are retried whenever another body is spilled, and on exit.
+ * </p>
+ */
+
+public final class ResponseBodyStore
+{
+	public static final long DEFAULT_SPILL_SIZE = 16 * 1024 * 1024;
+
+	private final static long spillSize = Long.getLong( "soapui.http.response.spillsize", DEFAULT_SPILL_SIZE );
+
+	private final static int BUFFER_SIZE = 8192;
+	private final static long MAX_MAPPED_SIZE = Integer.MAX_VALUE;
+
+	private final static Set<File> undeletedFiles = Collections.synchronizedSet( new HashSet<File>() );
+
+	static
+	{
+		Runtime.getRuntime().addShutdownHook( new Thread( "ResponseBodyStore cleanup" )
+		{
+			@Override
+			public void run()
+			{
+				deleteUndeletedFiles();
+			}
+		} );
+	}
+
+	private final long length;
+	private byte[] bytes;
+	private ByteBuffer[] buffers;
+	private File file;
+
+	private ResponseBodyStore( byte[] bytes )
+	{
+		this.bytes = bytes;
+		length = bytes.length;
+	}
+
+	private ResponseBodyStore( File file, long length ) throws IOException
+	{
+		this.file = file;
+		this.length = length;
+		buffers = map( file, length );
+
+		// the mapping stays valid after the file is deleted on platforms that
+		// allow this
+		delete( file );
+	}
+
+	/**
+	 * Creates a store for a body that has already been read into memory
+	 */
+
+	public static ResponseBodyStore wrap( byte[] bytes )
+	{
+		return new ResponseBodyStore( bytes == null ? new byte[0] : bytes );
+	}
+
+	/**
+	 * Reads the specified stream into a new store, the stream is not closed
+	 * 
+	 * @param maxSize
+	 *           the maximum number of bytes to read, 0 for no limit
+	 */
+
+	public static ResponseBodyStore read( InputStream in, long maxSize ) throws IOException
+	{
+		return read( in, maxSize, spillSize );
+	}
+
+	static ResponseBodyStore read( InputStream in, long maxSize, long spillSize ) throws IOException
+	{
+		Builder builder = new Builder( spillSize );
+		byte[] chunk = new byte[BUFFER_SIZE];
+
+		try
+		{
+			int read;
+			while( ( read = in.read( chunk, 0, nextReadSize( builder.length, maxSize ) ) ) > 0 )
+			{
+				builder.write( chunk, 0, read );
+			}
+		}
+		catch( IOException e )
+		{
+			builder.discard();
+			throw e;
+		}
+
+		return builder.build();
+	}
+
+	/**
+	 * Collects a body that is received in parts, for callers that are handed
+	 * the body instead of reading it from a stream. The body is spilled to a
+	 * temporary file as soon as it exceeds the spill size.
+	 */
+
+	public static final class Builder
+	{
+		private final long spillSize;
+		private byte[] heap = new byte[BUFFER_SIZE];
+		private long length;
+		private File file;
+		private OutputStream out;
+
+		public Builder()
+		{
+			this( ResponseBodyStore.spillSize );
+		}
+
+		Builder( long spillSize )
+		{
+			this.spillSize = spillSize;
+		}
+
+		public void write( byte[] b, int off, int len ) throws IOException
+		{
+			if( heap == null && out == null )
+				throw new IllegalStateException( "Response body has already been built" );
+
+			try
+			{
+				if( out == null && spillSize > 0 && length + len > spillSize )
+				{
+					deleteUndeletedFiles();
+
+					file = File.createTempFile( "soapui-response-", ".tmp" );
+					undeletedFiles.add( file );
+					out = new BufferedOutputStream( new FileOutputStream( file ), BUFFER_SIZE * 8 );
+					out.write( heap, 0, ( int )length );
+					heap = null;
+				}
+
+				if( out != null )
+				{
+					out.write( b, off, len );
+				}
+				else
+				{
+					if( length + len > heap.length )
+						heap = Arrays.copyOf( heap, ( int )Math.min( Math.max( heap.length * 2L, length + len ),
+								Integer.MAX_VALUE ) );
+
+					System.arraycopy( b, off, heap, ( int )length, len );
+				}
+
+				length += len;
+			}
+			catch( IOException e )
+			{
+				discard();
+				throw e;
+			}
+		}
+
+		public long getLength()
+		{
+			return length;
+		}
+
+		/**
+		 * Creates the store from the parts written so far, the builder can not
+		 * be written to afterwards
+		 */
+
+		public ResponseBodyStore build() throws IOException
+		{
+			if( out != null )
+			{
+				try
+				{
+					out.close();
+				}
+				catch( IOException e )
+				{
+					discard();
+					throw e;
+				}
+
+				out = null;
+				return new ResponseBodyStore( file, length );
+			}
+
+			if( heap == null )
+				throw new IllegalStateException( "Response body has already been built" );
+
+			byte[] bytes = heap.length == length ? heap : Arrays.copyOf( heap, ( int )length );
+			heap = null;
+			return new ResponseBodyStore( bytes );
+		}
+
+		/**
+		 * Drops the parts written so far and deletes the temporary file, if any
+		 */
+
+		public void discard()
+		{
+			heap = null;
+
+			if( out != null )
+			{
+				try
+				{
+					out.close();
+				}
+				catch( IOException e )
+				{
+				}
+
+				out = null;
+			}
+
+			if( file != null )
+			{
+				delete( file );
+				file = null;
+			}
+		}
+	}
+
+	private static void delete( File file )
+	{
+		if( file.delete() || !file.exists() )
+			undeletedFiles.remove( file );
+	}
+
+	static void deleteUndeletedFiles()
+	{
+		List<File> files;
+		synchronized( undeletedFiles )
+		{
+			if( undeletedFiles.isEmpty() )
+				return;
+
+			files = new ArrayList<File>( undeletedFiles );
+		}
+
+		for( File file : files )
+			delete( file );
+	}
+
+	/**
+	 * @return the number of temporary files that could not be deleted yet
+	 */
+
+	static int getUndeletedFileCount()
+	{
+		return undeletedFiles.size();
+	}
+
+	private static int nextReadSize( long length, long maxSize )
+	{
+		return maxSize <= 0 ? BUFFER_SIZE : ( int )Math.min( BUFFER_SIZE, maxSize - length );
+	}
+
+	private static ByteBuffer[] map( File file, long length ) throws IOException
+	{
+		RandomAccessFile randomAccessFile = new RandomAccessFile( file, "r" );
+		try
+		{
+			FileChannel channel = randomAccessFile.getChannel();
+			ByteBuffer[] result = new ByteBuffer[( int )( ( length + MAX_MAPPED_SIZE - 1 ) / MAX_MAPPED_SIZE )];
+
+			for( int c = 0; c < result.length; c++ )
+			{
+				long position = c * MAX_MAPPED_SIZE;
+				result[c] = channel.map( FileChannel.MapMode.READ_ONLY, position, Math.min( MAX_MAPPED_SIZE, length
+						- position ) );
+			}
+
+			return result;
+		}
+		finally
+		{
+			randomAccessFile.close();
+		}
+	}
+
+	public static long getSpillSize()
+	{
+		return spillSize;
+	}
+
+	public long getLength()
+	{
+		return length;
+	}
+
+	/**
+	 * @return if the body has been written to a temporary file instead of being
+	 *         held in memory
+	 */
+
+	public boolean isSpilled()
+	{
+		return bytes == null;
+	}
+
+	/**
+	 * @return false if the body was spilled and has been released
+	 */
+
+	public boolean isAvailable()
+	{
+		return bytes != null || buffers != null;
+	}
+
+	/**
+	 * Returns the byte at the specified position without materializing the body
+	 */
+
+	public byte getByte( long index )
+	{
+		if( index < 0 || index >= length )
+			throw new IndexOutOfBoundsException( String.valueOf( index ) );
+
+		if( bytes != null )
+			return bytes[( int )index];
+
+		return getBuffers()[( int )( index / MAX_MAPPED_SIZE )].get( ( int )( index % MAX_MAPPED_SIZE ) );
+	}
+
+	/**
+	 * @return read-only buffers over the body, in order
+	 */
+
+	public ByteBuffer[] getBuffers()
+	{
+		if( bytes != null )
+			return new ByteBuffer[] { ByteBuffer.wrap( bytes ).asReadOnlyBuffer() };
+
+		if( buffers == null )
+			throw new IllegalStateException( "Response body has been released" );
+
+		ByteBuffer[] result = new ByteBuffer[buffers.length];
+		for( int c = 0; c < buffers.length; c++ )
+			result[c] = buffers[c].asReadOnlyBuffer();
+
+		return result;
+	}
+
+	/**
+	 * @return a stream over the body that reads spilled bodies from the mapped
+	 *         file
+	 */
+
+	public InputStream getInputStream()
+	{
+		if( bytes != null )
+			return new ByteArrayInputStream( bytes );
+
+		return new ByteBuffersInputStream( getBuffers() );
+	}
+
+	/**
+	 * Returns the body as a byte array, spilled bodies are copied into a new
+	 * array on each call
+	 */
+
+	public byte[] toByteArray() throws IOException
+	{
+		if( bytes != null )
+			return bytes;
+
+		if( length > Integer.MAX_VALUE )
+			throw new IOException( "Response body of " + length + " bytes is too large to be held in memory" );
+
+		byte[] result = new byte[( int )length];
+		int offset = 0;
+		for( ByteBuffer buffer : getBuffers() )
+		{
+			int size = buffer.remaining();
+			buffer.get( result, offset, size );
+			offset += size;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Releases the mapped buffers and temporary file of a spilled body; the
+	 * mapped memory itself is only unmapped once the buffers are garbage
+	 * collected
+	 */
+
+	public void release()
+	{
+		buffers = null;
+		if( file != null )
+			delete( file );
+	}
+
+	private static final class ByteBuffersInputStream extends InputStream
+	{
+		private final ByteBuffer[] buffers;
+		private int current;
+
+		public ByteBuffersInputStream( ByteBuffer[] buffers )
+		{
+			this.buffers = buffers;
+		}
+
+		private ByteBuffer currentBuffer()
+		{
+			while( current < buffers.length && !buffers[current].hasRemaining() )
+				current++;
+
+			return current < buffers.length ? buffers[current] : null;
+		}
+
+		@Override
+		public int read()
+		{
+			ByteBuffer buffer = currentBuffer();
+			return buffer == null ? -1 : buffer.get() & 0xff;
+		}
+
+		@Override
+		public int read( byte[] b, int off, int len )
+		{
+			if( len == 0 )
+				return 0;
+
+			ByteBuffer buffer = currentBuffer();
+			if( buffer == null )
+				return -1;
+
+			len = Math.min( len, buffer.remaining() );
+			buffer.get( b, off, len );
+			return len;
+		}
+
+		@Override
+		public long skip( long n )
+		{
+			long skipped = 0;
+			ByteBuffer buffer;
+			while( skipped < n && ( buffer = currentBuffer() ) != null )
+			{
+				int count = ( int )Math.min( n - skipped, buffer.remaining() );
+				buffer.position( buffer.position() + count );
+				skipped += count;
+			}
+
+			return skipped;
+		}
+
+		@Override
+		public int available()
+		{
+			ByteBuffer buffer = currentBuffer();
+			return buffer == null ? 0 : buffer.remaining();
+		}
+	}
+}
@@ -12,8 +12,15 @@
 
 package com.eviware.soapui.impl.wsdl.submit.transports.http;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+
 import com.eviware.soapui.SoapUI;
 import com.eviware.soapui.impl.support.AbstractHttpRequest;
 import com.eviware.soapui.impl.support.AbstractHttpRequestInterface;
@@ -21,10 +28,13 @@ import com.eviware.soapui.impl.wsdl.WsdlRequest;
 import com.eviware.soapui.model.propertyexpansion.PropertyExpansionContext;
 import com.eviware.soapui.settings.WsdlSettings;
 import com.eviware.soapui.support.StringUtils;
+import com.eviware.soapui.support.xml.XmlObjectCache;
 import com.eviware.soapui.support.xml.XmlUtils;
 
 /**
- * Simple response to a request
+ * Simple response to a request. The content of a response body that has been
+ * spilled to disk by its {@link ResponseBodyStore} is only decoded when it is
+ * asked for, and is not pretty-printed.
  * 
  * @author ole.matzura
  */
@@ -35,31 +45,35 @@ public class SinglePartHttpResponse extends BaseHttpResponse
 	private String requestContent;
 	private boolean prettyPrint;
 	private long responseSize;
+	private boolean responseContentModified;
+	private volatile ResponseBodyStore spilledBody;
+	private String responseCharset;
+	private int contentOffset;
 
 	public SinglePartHttpResponse( AbstractHttpRequestInterface<?> httpRequest, ExtendedHttpMethod httpMethod,
 			String requestContent, PropertyExpansionContext context )
 	{
 		super( httpMethod, httpRequest, context );
 
-		if( getRequestContent() == null || !getRequestContent().equals( requestContent ) )
-			this.requestContent = requestContent;
+		// kept as is instead of being compared with the content in the raw
+		// request data, which is only built when it is asked for
+		this.requestContent = requestContent;
 
 		try
 		{
-			byte[] responseBody = httpMethod.getResponseBody();
-			int contentOffset = 0;
+			ResponseBodyStore responseBody = httpMethod.getResponseBodyStore();
 			if( responseBody == null )
-				responseBody = new byte[0];
+				responseBody = ResponseBodyStore.wrap( null );
 
-			responseSize = responseBody.length;
+			responseSize = responseBody.getLength();
 
 			String contentType = httpMethod.getResponseContentType();
 			String charset = httpMethod.getResponseCharSet();
 
 			if( contentType != null && contentType.toLowerCase().endsWith( "xml" ) )
 			{
-				if( responseSize > 3 && responseBody[0] == ( byte )239 && responseBody[1] == ( byte )187
-						&& responseBody[2] == ( byte )191 )
+				if( responseSize > 3 && responseBody.getByte( 0 ) == ( byte )239
+						&& responseBody.getByte( 1 ) == ( byte )187 && responseBody.getByte( 2 ) == ( byte )191 )
 				{
 					charset = "UTF-8";
 					contentOffset = 3;
@@ -69,21 +83,17 @@ public class SinglePartHttpResponse extends BaseHttpResponse
 			if( charset == null )
 				charset = httpRequest.getEncoding();
 
-			charset = StringUtils.unquote( charset );
+			responseCharset = StringUtils.unquote( charset );
 
-			try
+			if( responseBody.isSpilled() )
 			{
-				responseContent = responseBody.length == 0 ? null : charset == null ? new String( responseBody,
-						contentOffset, ( int )( responseSize - contentOffset ) ) : new String( responseBody, contentOffset,
-						( int )( responseSize - contentOffset ), charset );
+				spilledBody = responseBody;
 			}
-			catch( UnsupportedEncodingException e )
+			else
 			{
-				SoapUI.getErrorLog().warn( e.toString() );
-				responseContent = new String( responseBody, contentOffset, ( int )( responseSize - contentOffset ) );
+				responseContent = decode( responseBody.toByteArray() );
+				prettyPrint = httpRequest.getSettings().getBoolean( WsdlSettings.PRETTY_PRINT_RESPONSE_MESSAGES );
 			}
-
-			prettyPrint = httpRequest.getSettings().getBoolean( WsdlSettings.PRETTY_PRINT_RESPONSE_MESSAGES );
 		}
 		catch( Exception e )
 		{
@@ -91,8 +101,122 @@ public class SinglePartHttpResponse extends BaseHttpResponse
 		}
 	}
 
+	private String decode( byte[] responseBody )
+	{
+		if( responseBody.length == 0 )
+			return null;
+
+		try
+		{
+			return responseCharset == null ? new String( responseBody, contentOffset,
+					( int )( responseSize - contentOffset ) ) : new String( responseBody, contentOffset,
+					( int )( responseSize - contentOffset ), responseCharset );
+		}
+		catch( UnsupportedEncodingException e )
+		{
+			SoapUI.getErrorLog().warn( e.toString() );
+			return new String( responseBody, contentOffset, ( int )( responseSize - contentOffset ) );
+		}
+	}
+
+	/**
+	 * Decodes the content of a spilled response body the first time it is
+	 * asked for
+	 */
+
+	private synchronized void decodeSpilledBody()
+	{
+		if( spilledBody == null )
+			return;
+
+		try
+		{
+			responseContent = decode( spilledBody.toByteArray() );
+		}
+		catch( IOException e )
+		{
+			SoapUI.logError( e );
+		}
+
+		spilledBody = null;
+	}
+
+	/**
+	 * Returns a reader that decodes the content of a response body spilled to
+	 * disk while it is read, so that it does not have to be held in memory
+	 * 
+	 * @return the reader, or null if the content is held in memory and should be
+	 *         read with {@link #getContentAsString()}
+	 */
+
+	public Reader getContentReader() throws IOException
+	{
+		ResponseBodyStore body = spilledBody;
+		return body == null ? null : createReader( body );
+	}
+
+	private Reader createReader( ResponseBodyStore body ) throws IOException
+	{
+		InputStream in = body.getInputStream();
+		in.skip( contentOffset );
+
+		if( responseCharset != null )
+		{
+			try
+			{
+				return new InputStreamReader( in, responseCharset );
+			}
+			catch( UnsupportedEncodingException e )
+			{
+				SoapUI.getErrorLog().warn( e.toString() );
+			}
+		}
+
+		return new InputStreamReader( in );
+	}
+
+	/**
+	 * @return if the content is held by a response body spilled to disk that
+	 *         has not been decoded yet
+	 */
+
+	public boolean isContentSpilled()
+	{
+		return spilledBody != null;
+	}
+
+	/**
+	 * Parses the content of a response body spilled to disk while it is
+	 * decoded, instead of decoding it into a String first. Only xml content is
+	 * parsed this way, since it is its own xml representation. The document is
+	 * shared through the {@link XmlObjectCache} like documents parsed from
+	 * content Strings.
+	 * 
+	 * @return the document, or null if the content is held in memory or is not
+	 *         xml and should be parsed from {@link #getContentAsString()} or
+	 *         {@link #getContentAsXml()}
+	 */
+
+	public XmlObject getSpilledContentAsXmlObject( boolean stripComments ) throws XmlException, IOException
+	{
+		ResponseBodyStore body = spilledBody;
+		String contentType = getContentType();
+		if( body == null || contentType == null )
+			return null;
+
+		int ix = contentType.indexOf( ';' );
+		String mediaType = ix == -1 ? contentType : contentType.substring( 0, ix );
+		if( !mediaType.trim().toLowerCase().endsWith( "xml" ) )
+			return null;
+
+		return XmlObjectCache.getXmlObject( body, createReader( body ), stripComments );
+	}
+
 	public String getContentAsString()
 	{
+		if( spilledBody != null )
+			decodeSpilledBody();
+
 		if( prettyPrint )
 		{
 			responseContent = XmlUtils.prettyPrintXml( responseContent );
@@ -104,6 +228,9 @@ public class SinglePartHttpResponse extends BaseHttpResponse
 
 	protected String getResponseContent()
 	{
+		if( spilledBody != null )
+			decodeSpilledBody();
+
 		return responseContent;
 	}
 
@@ -112,6 +239,28 @@ public class SinglePartHttpResponse extends BaseHttpResponse
 		return responseSize;
 	}
 
+	/**
+	 * Also removes the documents parsed from the content from the
+	 * {@link XmlObjectCache}, without decoding a spilled body for this
+	 */
+
+	@Override
+	public void release()
+	{
+		super.release();
+
+		XmlObjectCache.evict( responseContent );
+
+		// the content of a released spilled body can no longer be decoded
+		ResponseBodyStore body = spilledBody;
+		if( body != null )
+		{
+			XmlObjectCache.evict( body );
+			if( !body.isAvailable() )
+				spilledBody = null;
+		}
+	}
+
 	public String getRequestContent()
 	{
 		return requestContent == null ? super.getRequestContent() : requestContent;
@@ -121,11 +270,23 @@ public class SinglePartHttpResponse extends BaseHttpResponse
 	{
 		String oldContent = this.responseContent;
 		this.responseContent = responseContent;
+		spilledBody = null;
+		responseContentModified = true;
 
 		( ( AbstractHttpRequest<?> )getRequest() ).notifyPropertyChanged( WsdlRequest.RESPONSE_CONTENT_PROPERTY,
 				oldContent, responseContent );
 	}
 
+	/**
+	 * @return if the content has been replaced with setResponseContent, after
+	 *         which it no longer corresponds to the raw response body
+	 */
+
+	public boolean isResponseContentModified()
+	{
+		return responseContentModified;
+	}
+
 	// public byte[] getRawRequestData()
 	// {
 	// return requestData;
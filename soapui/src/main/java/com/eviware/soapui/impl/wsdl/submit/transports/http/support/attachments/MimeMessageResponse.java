@@ -46,8 +46,9 @@ public class MimeMessageResponse extends BaseHttpResponse
 	{
 		super( httpMethod, httpRequest, context );
 
-		if( getRequestContent() == null || !getRequestContent().equals( requestContent ) )
-			this.requestContent = requestContent;
+		// kept as is instead of being compared with the content in the raw
+		// request data, which is only built when it is asked for
+		this.requestContent = requestContent;
 
 		try
 		{
@@ -24,6 +24,7 @@ import org.apache.http.client.methods.HttpDelete;
 import com.eviware.soapui.impl.rest.RestRequestInterface;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.ExtendedHttpMethod;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.HttpMethodSupport;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.ResponseBodyStore;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.SSLInfo;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.support.metrics.SoapUIMetrics;
 
@@ -174,6 +175,11 @@ public final class ExtendedDeleteMethod extends HttpDelete implements ExtendedHt
 		return httpMethodSupport.getResponseBody();
 	}
 
+	public ResponseBodyStore getResponseBodyStore() throws IOException
+	{
+		return httpMethodSupport.getResponseBodyStore();
+	}
+
 	public String getResponseBodyAsString() throws IOException
 	{
 		byte[] rawdata = getResponseBody();
@@ -24,6 +24,7 @@ import org.apache.http.client.methods.HttpOptions;
 import com.eviware.soapui.impl.rest.RestRequestInterface;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.ExtendedHttpMethod;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.HttpMethodSupport;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.ResponseBodyStore;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.SSLInfo;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.support.metrics.SoapUIMetrics;
 
@@ -182,6 +183,11 @@ public final class ExtendedOptionsMethod extends HttpOptions implements Extended
 		return httpMethodSupport.getResponseBody();
 	}
 
+	public ResponseBodyStore getResponseBodyStore() throws IOException
+	{
+		return httpMethodSupport.getResponseBodyStore();
+	}
+
 	public String getResponseBodyAsString() throws IOException
 	{
 		byte[] rawdata = getResponseBody();
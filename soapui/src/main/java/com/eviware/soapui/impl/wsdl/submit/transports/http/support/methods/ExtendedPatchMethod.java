@@ -24,6 +24,7 @@ import com.eviware.soapui.impl.rest.RestRequestInterface;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.ExtendedEntityEnclosingHttpMethod;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.HttpMethodSupport;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.HttpPatch;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.ResponseBodyStore;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.SSLInfo;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.support.metrics.SoapUIMetrics;
 
@@ -118,6 +119,11 @@ public class ExtendedPatchMethod extends HttpPatch implements ExtendedEntityEncl
 		return httpMethodSupport.getResponseBody();
 	}
 
+	public ResponseBodyStore getResponseBodyStore() throws IOException
+	{
+		return httpMethodSupport.getResponseBodyStore();
+	}
+
 	public SSLInfo getSSLInfo()
 	{
 		return httpMethodSupport.getSSLInfo();
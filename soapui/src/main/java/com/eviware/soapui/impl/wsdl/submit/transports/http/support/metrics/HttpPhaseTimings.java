@@ -0,0 +1,84 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.submit.transports.http.support.metrics;
+
+/**
+ * The durations of the phases of a single HTTP request, captured from its
+ * {@link SoapUIMetrics} once the response has been read so that they can be
+ * aggregated after the request has completed.
+ * <p>
+ * The connect phase is the time from starting the request until it is about
+ * to be sent, excluding the time spent waiting for a connection from the pool
+ * and the DNS lookup and SSL handshake of a newly opened connection. DNS and
+ * SSL handshake are 0 for requests sent on reused connections. The time to
+ * first byte includes sending the request.
+ * </p>
+ */
+
+public final class HttpPhaseTimings
+{
+	public final static int DNS = 0;
+	public final static int CONNECT = 1;
+	public final static int SSL_HANDSHAKE = 2;
+	public final static int TIME_TO_FIRST_BYTE = 3;
+	public final static int READ = 4;
+	public final static int CONNECTION_WAIT = 5;
+	public final static int PHASE_COUNT = 6;
+
+	private final long[] durations;
+
+	public HttpPhaseTimings( long dns, long connect, long sslHandshake, long timeToFirstByte, long read,
+			long connectionWait )
+	{
+		durations = new long[] { Math.max( dns, 0 ), Math.max( connect, 0 ), Math.max( sslHandshake, 0 ),
+				Math.max( timeToFirstByte, 0 ), Math.max( read, 0 ), Math.max( connectionWait, 0 ) };
+	}
+
+	public static HttpPhaseTimings capture( SoapUIMetrics metrics )
+	{
+		long dns = duration( metrics.getDNSTimer() );
+		long sslHandshake = duration( metrics.getSSLHandshakeTimer() );
+		long connectionWait = duration( metrics.getConnectionWaitTimer() );
+
+		// the connect timer spans the pool wait and the lookup and handshake of
+		// new connections
+		long connect = duration( metrics.getConnectTimer() ) - dns - sslHandshake - connectionWait;
+
+		return new HttpPhaseTimings( dns, connect, sslHandshake, duration( metrics.getTimeToFirstByteTimer() ),
+				duration( metrics.getReadTimer() ), connectionWait );
+	}
+
+	private static long duration( Stopwatch stopwatch )
+	{
+		return stopwatch.isStarted() && stopwatch.isStopped() ? stopwatch.getDuration() : 0;
+	}
+
+	/**
+	 * @param phase
+	 *           one of the phase constants
+	 * @return the duration of the phase in milliseconds
+	 */
+
+	public long getDuration( int phase )
+	{
+		return durations[phase];
+	}
+
+	@Override
+	public String toString()
+	{
+		return "dns:" + durations[DNS] + ";connect:" + durations[CONNECT] + ";ssl:" + durations[SSL_HANDSHAKE]
+				+ ";ttfb:" + durations[TIME_TO_FIRST_BYTE] + ";read:" + durations[READ] + ";wait:"
+				+ durations[CONNECTION_WAIT];
+	}
+}
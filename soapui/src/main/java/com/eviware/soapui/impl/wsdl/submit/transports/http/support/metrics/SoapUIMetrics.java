@@ -34,6 +34,8 @@ public class SoapUIMetrics extends HttpConnectionMetricsImpl
 	private final Stopwatch DNSTimer;
 	private final Stopwatch connectTimer;
 	private final Stopwatch timeToFirstByteTimer;
+	private final Stopwatch sslHandshakeTimer;
+	private final Stopwatch connectionWaitTimer;
 
 	private boolean done = false;
 
@@ -45,6 +47,8 @@ public class SoapUIMetrics extends HttpConnectionMetricsImpl
 		DNSTimer = new NanoStopwatch();
 		connectTimer = new NanoStopwatch();
 		timeToFirstByteTimer = new NanoStopwatch();
+		sslHandshakeTimer = new NanoStopwatch();
+		connectionWaitTimer = new NanoStopwatch();
 	}
 
 	public void reset()
@@ -54,6 +58,8 @@ public class SoapUIMetrics extends HttpConnectionMetricsImpl
 		DNSTimer.reset();
 		connectTimer.reset();
 		timeToFirstByteTimer.reset();
+		sslHandshakeTimer.reset();
+		connectionWaitTimer.reset();
 
 		httpStatus = -1;
 		contentLength = -1;
@@ -81,6 +87,26 @@ public class SoapUIMetrics extends HttpConnectionMetricsImpl
 		return timeToFirstByteTimer;
 	}
 
+	/**
+	 * The SSL/TLS handshake of a newly opened connection, which is part of the
+	 * time measured by the connect timer
+	 */
+
+	public Stopwatch getSSLHandshakeTimer()
+	{
+		return sslHandshakeTimer;
+	}
+
+	/**
+	 * The time spent waiting for a connection from the connection pool, which
+	 * is part of the time measured by the connect timer
+	 */
+
+	public Stopwatch getConnectionWaitTimer()
+	{
+		return connectionWaitTimer;
+	}
+
 	public Stopwatch getConnectTimer()
 	{
 		return connectTimer;
@@ -174,8 +200,10 @@ public class SoapUIMetrics extends HttpConnectionMetricsImpl
 		StringBuffer sb = new StringBuffer();
 		sb.append( "timestamp:" ).append( getFormattedTimeStamp() ).append( ";status:" ).append( getHttpStatus() )
 				.append( ";length:" ).append( getContentLength() ).append( ";DNS time:" )
-				.append( getDNSTimer().getDuration() ).append( " ms;connect time:" )
-				.append( getConnectTimer().getDuration() ).append( " ms;time to first byte:" )
+				.append( getDNSTimer().getDuration() ).append( " ms;connection wait time:" )
+				.append( getConnectionWaitTimer().getDuration() ).append( " ms;connect time:" )
+				.append( getConnectTimer().getDuration() ).append( " ms;SSL handshake time:" )
+				.append( getSSLHandshakeTimer().getDuration() ).append( " ms;time to first byte:" )
 				.append( getTimeToFirstByteTimer().getDuration() ).append( " ms;read time:" )
 				.append( getReadTimer().getDuration() ).append( " ms;total time:" ).append( getTotalTimer().getDuration() );
 		return sb.toString();
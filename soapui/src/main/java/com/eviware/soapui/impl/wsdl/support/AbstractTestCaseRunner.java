@@ -50,6 +50,8 @@ public abstract class AbstractTestCaseRunner<T extends TestRunnable, T2 extends
 	private int resultCount;
 	private int initCount;
 	private int startStep = 0;
+	private TestStepSamples stepSamples;
+	private boolean retainResults = true;
 
 	public AbstractTestCaseRunner( T modelItem, StringToObjectMap properties )
 	{
@@ -91,6 +93,8 @@ public abstract class AbstractTestCaseRunner<T extends TestRunnable, T2 extends
 
 		gotoStepIndex = -1;
 		testStepResults.clear();
+		if( stepSamples != null )
+			stepSamples.clear();
 
 		// create state for testcase if specified
 		if( testCase.getKeepSession() )
@@ -234,7 +238,15 @@ public abstract class AbstractTestCaseRunner<T extends TestRunnable, T2 extends
 
 		TestStepResult stepResult = testStep.run( this, getRunContext() );
 
-		testStepResults.add( stepResult );
+		if( stepSamples != null && stepResult != null )
+		{
+			stepSamples.add( getTestCase().getIndexOfTestStep( testStep ), stepResult.getTimeTaken(),
+					stepResult.getSize(), stepResult.getTimeStamp(), stepResult.getStatus() );
+		}
+
+		if( retainResults || stepResult == null || stepResult.getStatus() == TestStepStatus.FAILED )
+			testStepResults.add( stepResult );
+
 		resultCount++ ;
 		// TODO check all replacements of getTestRunnable with getTestCase in the
 		// method
@@ -345,6 +357,9 @@ public abstract class AbstractTestCaseRunner<T extends TestRunnable, T2 extends
 
 	public long getTimeTaken()
 	{
+		if( stepSamples != null )
+			return stepSamples.getTotalTimeTaken();
+
 		long sum = 0;
 		for( int c = 0; c < testStepResults.size(); c++ )
 		{
@@ -361,6 +376,36 @@ public abstract class AbstractTestCaseRunner<T extends TestRunnable, T2 extends
 		return testStepResults;
 	}
 
+	/**
+	 * Sets a record that the time taken, size and status of each executed
+	 * TestStep are added to, regardless of whether its result is retained
+	 */
+
+	public void setStepSamples( TestStepSamples stepSamples )
+	{
+		this.stepSamples = stepSamples;
+	}
+
+	public TestStepSamples getStepSamples()
+	{
+		return stepSamples;
+	}
+
+	/**
+	 * Controls if TestStepResults of successful steps are added to the results
+	 * of this run; results of failed steps are always retained
+	 */
+
+	public void setRetainResults( boolean retainResults )
+	{
+		this.retainResults = retainResults;
+	}
+
+	public boolean isRetainResults()
+	{
+		return retainResults;
+	}
+
 	public void setResultCount( int resultCount )
 	{
 		this.resultCount = resultCount;
@@ -16,6 +16,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
@@ -51,7 +52,7 @@ public class CompressionSupport
 		return null;
 	}
 
-	private static void checkAlg( String alg ) throws Exception
+	public static void checkAlg( String alg ) throws Exception
 	{
 		if( !ALG_GZIP.equals( alg ) && !ALG_DEFLATE.equals( alg ) )
 			throw new Exception( "Compression algorithm not supported: " + alg );
@@ -79,18 +80,44 @@ public class CompressionSupport
 			return null;
 	}
 
-	// createCompressionInputStream can be used in the future if
-	// PipedInputStreams are used
-	// for sending compressed data instead of creating compressed byte array
-	// first and then sending
+	/**
+	 * Creates a stream that compresses everything written to it into the
+	 * specified stream; closing it finishes the compressed data and closes the
+	 * underlying stream
+	 */
+
+	public static OutputStream createCompressionOutputStream( String alg, OutputStream out ) throws Exception
+	{
+		checkAlg( alg );
+		if( ALG_GZIP.equals( alg ) )
+			return new GZIPOutputStream( out );
+		else if( ALG_DEFLATE.equals( alg ) )
+			return new DeflaterOutputStream( out );
+		else
+			return null;
+	}
+
+	/**
+	 * Creates a stream that decompresses the specified data
+	 */
+
 	public static InputStream createCompressionInputStream( String alg, byte[] content ) throws Exception
+	{
+		return createCompressionInputStream( alg, new ByteArrayInputStream( content ) );
+	}
+
+	/**
+	 * Creates a stream that decompresses the data read from the specified
+	 * stream
+	 */
+
+	public static InputStream createCompressionInputStream( String alg, InputStream in ) throws Exception
 	{
 		checkAlg( alg );
-		ByteArrayInputStream bais = new ByteArrayInputStream( content );
 		if( ALG_GZIP.equals( alg ) )
-			return new GZIPInputStream( bais );
+			return new GZIPInputStream( in );
 		else if( ALG_DEFLATE.equals( alg ) )
-			return new InflaterInputStream( bais );
+			return new InflaterInputStream( in );
 		else
 			return null;
 	}
@@ -0,0 +1,168 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.support;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import com.eviware.soapui.SoapUI;
+
+/**
+ * The expected run times of the TestCases and TestSuites of a project, kept
+ * by id in a durations file instead of in the project itself, so parallel
+ * runs don't modify the project. Without a file the times are only kept in
+ * memory, which is the default; see {@link #getDurationsFile(String, boolean)}.
+ */
+
+public class ExpectedRunTimes
+{
+	public final static String DURATIONS_FILE_PROPERTY = "soapui.parallel.durations";
+	public final static String SAVE_DURATIONS_PROPERTY = "soapui.parallel.durations.save";
+	public final static String DURATIONS_FILE_SUFFIX = ".durations.properties";
+
+	private final File file;
+	private Properties times;
+	private boolean modified;
+
+	/**
+	 * @param file
+	 *           the durations file, null for keeping the times in memory only
+	 */
+
+	public ExpectedRunTimes( File file )
+	{
+		this.file = file;
+	}
+
+	/**
+	 * Returns the durations file set with the soapui.parallel.durations system
+	 * property, or the one next to the specified project file if durations are
+	 * to be saved
+	 *
+	 * @param save
+	 *           true for using the file next to the project file when no file is
+	 *           configured
+	 * @return the file, or null if the times are only kept in memory
+	 */
+
+	public static File getDurationsFile( String projectPath, boolean save )
+	{
+		String path = System.getProperty( DURATIONS_FILE_PROPERTY );
+		if( path != null && path.length() > 0 )
+			return new File( path );
+
+		return projectPath == null || !save ? null : new File( projectPath + DURATIONS_FILE_SUFFIX );
+	}
+
+	public File getFile()
+	{
+		return file;
+	}
+
+	/**
+	 * @return the expected time in milliseconds, 0 if unknown
+	 */
+
+	public synchronized long get( String id )
+	{
+		try
+		{
+			return Long.parseLong( getTimes().getProperty( id, "0" ) );
+		}
+		catch( NumberFormatException e )
+		{
+			return 0;
+		}
+	}
+
+	public synchronized void set( String id, long expectedRunTime )
+	{
+		getTimes().setProperty( id, String.valueOf( expectedRunTime ) );
+		modified = true;
+	}
+
+	/**
+	 * Averages the time taken by a run into the expected time
+	 */
+
+	public synchronized void record( String id, long timeTaken )
+	{
+		long expectedRunTime = get( id );
+		set( id, expectedRunTime == 0 ? timeTaken : ( expectedRunTime + timeTaken ) / 2 );
+	}
+
+	/**
+	 * Writes the times to the durations file if they have changed since it was
+	 * read
+	 */
+
+	public synchronized void save()
+	{
+		if( file == null || !modified )
+			return;
+
+		try
+		{
+			file.getAbsoluteFile().getParentFile().mkdirs();
+			OutputStream out = new FileOutputStream( file );
+			try
+			{
+				times.store( out, null );
+			}
+			finally
+			{
+				out.close();
+			}
+
+			modified = false;
+		}
+		catch( IOException e )
+		{
+			SoapUI.logError( e );
+		}
+	}
+
+	private Properties getTimes()
+	{
+		if( times == null )
+		{
+			times = new Properties();
+			if( file != null && file.exists() )
+			{
+				try
+				{
+					InputStream in = new FileInputStream( file );
+					try
+					{
+						times.load( in );
+					}
+					finally
+					{
+						in.close();
+					}
+				}
+				catch( IOException e )
+				{
+					SoapUI.logError( e );
+				}
+			}
+		}
+
+		return times;
+	}
+}
@@ -105,6 +105,10 @@ public interface HelpUrls
 			+ "loadtest/assertions.html#Step_TPS_Assertion";
 	public static final String STEP_AVERAGE_LOAD_TEST_ASSERTION_HELP_URL = HELP_URL_ROOT
 			+ "loadtest/assertions.html#Step_Average_Assertion";
+	public static final String STEP_PERCENTILE_LOAD_TEST_ASSERTION_HELP_URL = HELP_URL_ROOT
+			+ "loadtest/assertions.html#Step_Percentile_Assertion";
+	public static final String CONNECTION_WAIT_LOAD_TEST_ASSERTION_HELP_URL = HELP_URL_ROOT
+			+ "loadtest/assertions.html#Connection_Wait_Assertion";
 
 	public static final String SIMPLE_CONTAINS_HELP_URL = HELP_URL_ROOT
 			+ "functional/response-assertions.html#Simple_Contains";
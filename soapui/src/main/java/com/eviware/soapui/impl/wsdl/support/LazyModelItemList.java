@@ -0,0 +1,172 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.support;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.eviware.soapui.config.ModelItemConfig;
+import com.eviware.soapui.impl.wsdl.AbstractWsdlModelItem;
+
+/**
+ * List of child ModelItems that can be built on first access from their
+ * configs, so that loading a large project does not construct items that are
+ * never used. Name lookups and indexOf work on the configs and already built
+ * items and do not build any items. Iterating the list, or calling get() for
+ * every index, builds all items; this is what the getXXList() and
+ * getChildren() methods of the owning items do, so code that should only
+ * build the items it uses must use getByName() or getBuiltItems() instead.
+ * <p>
+ * Access is synchronized, so that an item that is first accessed from several
+ * threads at once, as when TestCases are run in parallel, is only built once.
+ * </p>
+ * 
+ * @param <T>
+ *           the type of the items
+ * @param <C>
+ *           the type of their config
+ */
+
+public class LazyModelItemList<T extends AbstractWsdlModelItem<C>, C extends ModelItemConfig> extends AbstractList<T>
+{
+	private final Builder<T, C> builder;
+	private final List<C> configs = new ArrayList<C>();
+	private final List<T> items = new ArrayList<T>();
+
+	public interface Builder<T, C>
+	{
+		public T build( C config );
+	}
+
+	/**
+	 * @param lazy
+	 *           if false, all items are built by the constructor
+	 */
+
+	public LazyModelItemList( Builder<T, C> builder, List<C> configs, boolean lazy )
+	{
+		this.builder = builder;
+
+		for( C config : configs )
+		{
+			this.configs.add( config );
+			items.add( lazy ? null : builder.build( config ) );
+		}
+	}
+
+	@Override
+	public synchronized T get( int index )
+	{
+		T item = items.get( index );
+		if( item == null )
+		{
+			item = builder.build( configs.get( index ) );
+			items.set( index, item );
+		}
+
+		return item;
+	}
+
+	@Override
+	public synchronized int size()
+	{
+		return items.size();
+	}
+
+	@Override
+	public synchronized void add( int index, T item )
+	{
+		configs.add( index, item.getConfig() );
+		items.add( index, item );
+		modCount++ ;
+	}
+
+	@Override
+	public synchronized T set( int index, T item )
+	{
+		configs.set( index, item.getConfig() );
+		return items.set( index, item );
+	}
+
+	@Override
+	public synchronized T remove( int index )
+	{
+		configs.remove( index );
+		modCount++ ;
+		return items.remove( index );
+	}
+
+	@Override
+	public synchronized int indexOf( Object item )
+	{
+		return item == null ? -1 : items.indexOf( item );
+	}
+
+	@Override
+	public synchronized boolean contains( Object item )
+	{
+		return indexOf( item ) >= 0;
+	}
+
+	public synchronized boolean isBuilt( int index )
+	{
+		return items.get( index ) != null;
+	}
+
+	/**
+	 * @return the items that have been built so far
+	 */
+
+	public synchronized List<T> getBuiltItems()
+	{
+		List<T> result = new ArrayList<T>();
+		for( T item : items )
+		{
+			if( item != null )
+				result.add( item );
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return the item with the specified name, building only that item, or
+	 *         null if there is none
+	 */
+
+	public synchronized T getByName( String name )
+	{
+		if( name == null )
+			return null;
+
+		for( int c = 0; c < items.size(); c++ )
+		{
+			T item = items.get( c );
+			if( item == null ? name.equals( configs.get( c ).getName() ) : name.equals( item.getName() ) )
+				return get( c );
+		}
+
+		return null;
+	}
+
+	/**
+	 * Replaces the config of an item after the configs have been recreated, as
+	 * when moving items; built items must be reset by the caller
+	 */
+
+	public synchronized void setConfig( int index, C config )
+	{
+		configs.set( index, config );
+	}
+}
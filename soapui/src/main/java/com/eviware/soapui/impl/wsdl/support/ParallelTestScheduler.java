@@ -0,0 +1,226 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.support;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Decides in which order and how many TestCases or TestSuites of a parallel
+ * run are started at the same time. Items are started longest expected time
+ * first, only after the items they depend on have finished, never together
+ * with a running item that has one of the same exclusive tags, and never more
+ * than the max parallelism at a time.
+ * 
+ * @param <T>
+ *           the type of the scheduled items
+ */
+
+public class ParallelTestScheduler<T>
+{
+	private final static Logger log = Logger.getLogger( ParallelTestScheduler.class );
+
+	private final int maxParallel;
+	private final Map<T, Entry> entries = new HashMap<T, Entry>();
+	private final List<Entry> pending = new ArrayList<Entry>();
+	private final List<Entry> running = new ArrayList<Entry>();
+	private final Set<T> finished = new HashSet<T>();
+
+	/**
+	 * @param maxParallel
+	 *           the maximum number of items running at the same time, 0 for no
+	 *           limit
+	 */
+
+	public ParallelTestScheduler( int maxParallel )
+	{
+		this.maxParallel = maxParallel < 1 ? Integer.MAX_VALUE : maxParallel;
+	}
+
+	/**
+	 * Adds an item to be started
+	 * 
+	 * @param expectedTime
+	 *           the time the item is expected to take, 0 if unknown
+	 * @param exclusiveTags
+	 *           comma-separated tags, items sharing a tag are not run at the
+	 *           same time
+	 */
+
+	public synchronized void add( T item, long expectedTime, String exclusiveTags )
+	{
+		Entry entry = new Entry( item, expectedTime );
+		if( exclusiveTags != null )
+		{
+			for( String tag : exclusiveTags.split( "," ) )
+			{
+				if( tag.trim().length() > 0 )
+					entry.tags.add( tag.trim() );
+			}
+		}
+
+		entries.put( item, entry );
+
+		// keep pending sorted by expected time, in the order added for equal
+		// times
+		int ix = pending.size();
+		while( ix > 0 && pending.get( ix - 1 ).expectedTime < expectedTime )
+			ix-- ;
+
+		pending.add( ix, entry );
+	}
+
+	/**
+	 * Declares that an item may only be started after another one has
+	 * finished; ignored if the dependency is not part of this run
+	 */
+
+	public synchronized void addDependency( T item, T dependency )
+	{
+		Entry entry = entries.get( item );
+		if( entry != null && dependency != item && entries.containsKey( dependency ) )
+			entry.dependencies.add( dependency );
+	}
+
+	/**
+	 * @return the next item that can be started now, which is then considered
+	 *         running, or null if there is none at the moment
+	 */
+
+	public synchronized T next()
+	{
+		if( pending.isEmpty() || running.size() >= maxParallel )
+			return null;
+
+		for( int c = 0; c < pending.size(); c++ )
+		{
+			Entry entry = pending.get( c );
+			if( finished.containsAll( entry.dependencies ) && !isExcluded( entry ) )
+				return start( c );
+		}
+
+		// nothing running will ever release the pending items
+		if( running.isEmpty() )
+		{
+			log.warn( "Ignoring unsatisfiable dependencies of [" + pending.get( 0 ).item + "]" );
+			return start( 0 );
+		}
+
+		return null;
+	}
+
+	/**
+	 * Waits until an item can be started
+	 * 
+	 * @return the item, which is then considered running, or null when there
+	 *         are no more items to start
+	 */
+
+	public synchronized T awaitNext() throws InterruptedException
+	{
+		while( !pending.isEmpty() )
+		{
+			T item = next();
+			if( item != null )
+				return item;
+
+			wait();
+		}
+
+		return null;
+	}
+
+	public synchronized void finished( T item )
+	{
+		Entry entry = entries.get( item );
+		if( entry != null && running.remove( entry ) )
+		{
+			finished.add( item );
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Drops all items that have not been started yet
+	 */
+
+	public synchronized void cancel()
+	{
+		pending.clear();
+		notifyAll();
+	}
+
+	/**
+	 * Waits until all started items have finished
+	 */
+
+	public synchronized void awaitFinished() throws InterruptedException
+	{
+		while( !running.isEmpty() )
+			wait();
+	}
+
+	public synchronized int getRunningCount()
+	{
+		return running.size();
+	}
+
+	public synchronized int getPendingCount()
+	{
+		return pending.size();
+	}
+
+	private boolean isExcluded( Entry entry )
+	{
+		if( entry.tags.isEmpty() )
+			return false;
+
+		for( Entry runningEntry : running )
+		{
+			for( String tag : entry.tags )
+			{
+				if( runningEntry.tags.contains( tag ) )
+					return true;
+			}
+		}
+
+		return false;
+	}
+
+	private T start( int index )
+	{
+		Entry entry = pending.remove( index );
+		running.add( entry );
+		return entry.item;
+	}
+
+	private class Entry
+	{
+		private final T item;
+		private final long expectedTime;
+		private final Set<String> tags = new HashSet<String>();
+		private final Set<T> dependencies = new HashSet<T>();
+
+		public Entry( T item, long expectedTime )
+		{
+			this.item = item;
+			this.expectedTime = expectedTime;
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.support;
+
+import java.util.Arrays;
+
+import com.eviware.soapui.model.testsuite.TestStepResult.TestStepStatus;
+
+/**
+ * Compact record of the TestSteps executed in a single TestCase run; the time
+ * taken, size, timestamp and status of each step are kept in primitive arrays
+ * that are reused between runs, so recording a step does not allocate.
+ */
+
+public final class TestStepSamples
+{
+	private final static TestStepStatus[] STATUSES = TestStepStatus.values();
+
+	private int count;
+	private int[] stepIndexes = new int[16];
+	private long[] timesTaken = new long[16];
+	private long[] sizes = new long[16];
+	private long[] timeStamps = new long[16];
+	private byte[] statuses = new byte[16];
+
+	public void add( int stepIndex, long timeTaken, long size, long timeStamp, TestStepStatus status )
+	{
+		if( count == stepIndexes.length )
+		{
+			int length = count * 2;
+			stepIndexes = Arrays.copyOf( stepIndexes, length );
+			timesTaken = Arrays.copyOf( timesTaken, length );
+			sizes = Arrays.copyOf( sizes, length );
+			timeStamps = Arrays.copyOf( timeStamps, length );
+			statuses = Arrays.copyOf( statuses, length );
+		}
+
+		stepIndexes[count] = stepIndex;
+		timesTaken[count] = timeTaken;
+		sizes[count] = size;
+		timeStamps[count] = timeStamp;
+		statuses[count] = ( byte )( status == null ? TestStepStatus.UNKNOWN : status ).ordinal();
+		count++ ;
+	}
+
+	public int size()
+	{
+		return count;
+	}
+
+	/**
+	 * @return the index of the TestStep in its TestCase, or -1 if it is not part
+	 *         of it
+	 */
+
+	public int getStepIndex( int index )
+	{
+		return stepIndexes[index];
+	}
+
+	public long getTimeTaken( int index )
+	{
+		return timesTaken[index];
+	}
+
+	public long getSize( int index )
+	{
+		return sizes[index];
+	}
+
+	public long getTimeStamp( int index )
+	{
+		return timeStamps[index];
+	}
+
+	public TestStepStatus getStatus( int index )
+	{
+		return STATUSES[statuses[index]];
+	}
+
+	public long getTotalTimeTaken()
+	{
+		long sum = 0;
+		for( int c = 0; c < count; c++ )
+			sum += timesTaken[c];
+
+		return sum;
+	}
+
+	public void clear()
+	{
+		count = 0;
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.support.http;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.log4j.Logger;
+
+/**
+ * Collects the {@link RoutePoolStatistics} of the routes of a connection pool.
+ * The statistics of each route are registered as an MBean named
+ * <code>com.eviware.soapui:type=HttpConnectionPool,route=...</code> when the
+ * route is first used, unless the <code>soapui.http.pool.jmx</code> system
+ * property is set to false, and unregistered when the connection manager is
+ * shut down.
+ */
+
+public final class ConnectionPoolStatistics
+{
+	public final static String OBJECT_NAME_PREFIX = "com.eviware.soapui:type=HttpConnectionPool,route=";
+
+	private final static Logger log = Logger.getLogger( ConnectionPoolStatistics.class );
+	private final static boolean registerMBeans = !"false".equals( System.getProperty( "soapui.http.pool.jmx" ) );
+
+	// the pool whose statistics are registered under each name
+	private final static Map<ObjectName, ConnectionPoolStatistics> owners = new HashMap<ObjectName, ConnectionPoolStatistics>();
+
+	private final ThreadSafeClientConnManager connectionManager;
+	private final ConcurrentMap<HttpRoute, RoutePoolStatistics> routes = new ConcurrentHashMap<HttpRoute, RoutePoolStatistics>();
+
+	public ConnectionPoolStatistics( ThreadSafeClientConnManager connectionManager )
+	{
+		this.connectionManager = connectionManager;
+	}
+
+	/**
+	 * Returns the statistics of the specified route, creating them if the route
+	 * has not been used yet
+	 */
+
+	public RoutePoolStatistics getRouteStatistics( HttpRoute route )
+	{
+		RoutePoolStatistics statistics = routes.get( route );
+		if( statistics != null )
+			return statistics;
+
+		statistics = new RoutePoolStatistics( route, connectionManager );
+		RoutePoolStatistics existing = routes.putIfAbsent( route, statistics );
+		if( existing != null )
+			return existing;
+
+		if( registerMBeans )
+			register( statistics );
+
+		return statistics;
+	}
+
+	private void register( RoutePoolStatistics statistics )
+	{
+		try
+		{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName( OBJECT_NAME_PREFIX + ObjectName.quote( statistics.getRoute() ) );
+
+			// the route may still be registered by a connection manager that
+			// was replaced without being shut down
+			synchronized( owners )
+			{
+				if( server.isRegistered( name ) )
+					server.unregisterMBean( name );
+
+				server.registerMBean( statistics, name );
+				owners.put( name, this );
+			}
+		}
+		catch( Exception e )
+		{
+			log.warn( "Failed to register connection pool statistics for " + statistics.getRoute() + ": " + e );
+		}
+	}
+
+	/**
+	 * Unregisters the MBeans of the routes of this pool that have not been
+	 * replaced by another pool since, called when the connection manager is
+	 * shut down
+	 */
+
+	public void unregister()
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+		synchronized( owners )
+		{
+			Iterator<Map.Entry<ObjectName, ConnectionPoolStatistics>> iterator = owners.entrySet().iterator();
+			while( iterator.hasNext() )
+			{
+				Map.Entry<ObjectName, ConnectionPoolStatistics> entry = iterator.next();
+				if( entry.getValue() != this )
+					continue;
+
+				iterator.remove();
+
+				try
+				{
+					if( server.isRegistered( entry.getKey() ) )
+						server.unregisterMBean( entry.getKey() );
+				}
+				catch( Exception e )
+				{
+					log.warn( "Failed to unregister connection pool statistics " + entry.getKey() + ": " + e );
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the statistics of all routes used so far
+	 */
+
+	public List<RoutePoolStatistics> getRouteStatistics()
+	{
+		return new ArrayList<RoutePoolStatistics>( routes.values() );
+	}
+
+	public void reset()
+	{
+		for( RoutePoolStatistics statistics : routes.values() )
+			statistics.reset();
+	}
+}
@@ -17,11 +17,11 @@ import com.eviware.soapui.SoapUISystemProperties;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.ExtendedHttpMethod;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.support.metrics.SoapUIMetrics;
 import com.eviware.soapui.impl.wsdl.support.CompressionSupport;
+import com.eviware.soapui.impl.wsdl.support.http.SoapUIMultiThreadedHttpConnectionManager.SoapUIBasicPooledConnAdapter;
 import com.eviware.soapui.model.settings.Settings;
 import com.eviware.soapui.model.settings.SettingsListener;
 import com.eviware.soapui.settings.HttpSettings;
 import com.eviware.soapui.settings.SSLSettings;
-import org.apache.commons.ssl.KeyMaterial;
 import org.apache.http.*;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.CookieStore;
@@ -38,15 +38,16 @@ import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.impl.client.RequestWrapper;
 import org.apache.http.params.CoreConnectionPNames;
 import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.ExecutionContext;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.protocol.HttpProcessor;
 import org.apache.http.protocol.HttpRequestExecutor;
 import org.apache.log4j.Logger;
 
-import java.io.File;
+import javax.net.ssl.SSLContext;
+
 import java.io.IOException;
 import java.security.*;
-import java.security.cert.CertificateException;
 
 /**
  * HttpClient related tools
@@ -97,6 +98,13 @@ public class HttpClientSupport
 				SoapUIMetrics metrics = ( ( ExtendedHttpMethod )original ).getMetrics();
 				metrics.getConnectTimer().stop();
 				metrics.getTimeToFirstByteTimer().start();
+
+				Object connection = context.getAttribute( ExecutionContext.HTTP_CONNECTION );
+				if( connection instanceof SoapUIBasicPooledConnAdapter )
+				{
+					SoapUIBasicPooledConnAdapter adapter = ( SoapUIBasicPooledConnAdapter )connection;
+					metrics.getConnectionWaitTimer().set( adapter.getWaitStart(), adapter.getWaitEnd() );
+				}
 			}
 			super.preProcess( request, processor, context );
 		}
@@ -167,6 +175,8 @@ public class HttpClientSupport
 					{
 						metrics.getDNSTimer().set( connectionMetrics.getDNSTimer().getStart(),
 								connectionMetrics.getDNSTimer().getStop() );
+						metrics.getSSLHandshakeTimer().set( connectionMetrics.getSSLHandshakeTimer().getStart(),
+								connectionMetrics.getSSLHandshakeTimer().getStop() );
 						// reset connection-level metrics
 						connectionMetrics.reset();
 					}
@@ -177,7 +187,7 @@ public class HttpClientSupport
 			if( original instanceof ExtendedHttpMethod )
 			{
 				ExtendedHttpMethod extendedHttpMethod = ( ExtendedHttpMethod )original;
-				extendedHttpMethod.afterReadResponse( ( ( SoapUIMultiThreadedHttpConnectionManager.SoapUIBasicPooledConnAdapter )conn ).getSSLSession() );
+				extendedHttpMethod.afterReadResponse( ( ( SoapUIBasicPooledConnAdapter )conn ).getSSLSession() );
 			}
 
 			return response;
@@ -298,42 +308,19 @@ public class HttpClientSupport
 			}
 		}
 
-		public SoapUISSLSocketFactory initSocketFactory() throws KeyStoreException, NoSuchAlgorithmException,
-				CertificateException, IOException, UnrecoverableKeyException, KeyManagementException
+		public SoapUISSLSocketFactory initSocketFactory() throws GeneralSecurityException
 		{
-			KeyStore keyStore = null;
 			Settings settings = SoapUI.getSettings();
 
 			String keyStoreUrl = System.getProperty( SoapUISystemProperties.SOAPUI_SSL_KEYSTORE_LOCATION,
 					settings.getString( SSLSettings.KEYSTORE, null ) );
 
-			keyStoreUrl = keyStoreUrl != null ? keyStoreUrl.trim() : "";
-
 			String pass = System.getProperty( SoapUISystemProperties.SOAPUI_SSL_KEYSTORE_PASSWORD,
 					settings.getString( SSLSettings.KEYSTORE_PASSWORD, "" ) );
 
-			char[] pwd = pass.toCharArray();
-
-			if( keyStoreUrl.trim().length() > 0 )
-			{
-				File f = new File( keyStoreUrl );
-				if( f.exists() )
-				{
-					log.info( "Initializing KeyStore" );
-
-					try
-					{
-						KeyMaterial km = new KeyMaterial( f, pwd );
-						keyStore = km.getKeyStore();
-					}
-					catch( Exception e )
-					{
-						SoapUI.logError( e );
-					}
-				}
-			}
-
-			return new SoapUISSLSocketFactory( keyStore, pass );
+			// the context is shared as long as the keystore is unchanged, so TLS
+			// sessions survive settings reloads
+			return new SoapUISSLSocketFactory( SSLContextCache.getContext( keyStoreUrl, pass ) );
 		}
 	}
 
@@ -342,6 +329,24 @@ public class HttpClientSupport
 		return helper.getHttpClient();
 	}
 
+	/**
+	 * @return the live statistics of the shared connection pool
+	 */
+
+	public static ConnectionPoolStatistics getConnectionPoolStatistics()
+	{
+		return helper.connectionManager.getPoolStatistics();
+	}
+
+	/**
+	 * @return the shared SSLContext for the global keystore settings
+	 */
+
+	public static SSLContext getSSLContext() throws GeneralSecurityException
+	{
+		return helper.initSocketFactory().getSSLContext();
+	}
+
 	public static HttpResponse execute( ExtendedHttpMethod method, HttpContext httpContext )
 			throws ClientProtocolException, IOException
 	{
@@ -0,0 +1,923 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.support.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.ConnectionReuseStrategy;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.ProtocolException;
+import org.apache.http.client.methods.AbortableHttpRequest;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionReleaseTrigger;
+import org.apache.http.conn.params.ConnRoutePNames;
+import org.apache.http.impl.DefaultConnectionReuseStrategy;
+import org.apache.http.impl.client.EntityEnclosingRequestWrapper;
+import org.apache.http.impl.client.RequestWrapper;
+import org.apache.http.impl.nio.DefaultClientIOEventDispatch;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.ssl.SSLClientIOEventDispatch;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.NHttpClientConnection;
+import org.apache.http.nio.NHttpConnection;
+import org.apache.http.nio.entity.ConsumingNHttpEntity;
+import org.apache.http.nio.protocol.AsyncNHttpClientHandler;
+import org.apache.http.nio.protocol.EventListener;
+import org.apache.http.nio.protocol.NHttpRequestExecutionHandler;
+import org.apache.http.nio.reactor.ConnectingIOReactor;
+import org.apache.http.nio.reactor.IOEventDispatch;
+import org.apache.http.nio.reactor.SessionRequest;
+import org.apache.http.nio.reactor.SessionRequestCallback;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.CoreConnectionPNames;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.BasicHttpProcessor;
+import org.apache.http.protocol.ExecutionContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.RequestConnControl;
+import org.apache.http.protocol.RequestContent;
+import org.apache.http.protocol.RequestTargetHost;
+import org.apache.log4j.Logger;
+
+import com.eviware.soapui.SoapUI;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.ExtendedHttpMethod;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.support.metrics.SoapUIMetrics;
+import com.eviware.soapui.model.settings.Settings;
+import com.eviware.soapui.settings.HttpSettings;
+
+/**
+ * Non-blocking counterpart of HttpClientSupport; connections are multiplexed
+ * over httpcore-nio reactors so that socket I/O does not need a thread per
+ * connection. execute() still waits for the response on the calling thread, so
+ * TestCases and LoadTests keep one thread per request in progress; only callers
+ * of submit() can have more requests in flight than threads. The reactor
+ * threads are started on first use, their count is controlled by the
+ * <code>soapui.http.nio.workers</code> system property (defaults to the number
+ * of processors).
+ * 
+ * Keep-alive connections are pooled per target host, and at most the number of
+ * connections per host configured in the HTTP settings are opened; further
+ * requests wait for a pooled connection. A request that fails because a pooled
+ * connection was closed before its response arrived is retried once on a new
+ * connection. Proxies and client-side cookie/authentication handling are not
+ * supported, NioHttpRequestTransport sends such requests with the blocking
+ * transport.
+ */
+
+public class NioHttpClientSupport
+{
+	private final static Logger log = Logger.getLogger( NioHttpClientSupport.class );
+
+	private final static String EXCHANGE = "soapui.nio.exchange";
+	private final static int workerCount = Integer.getInteger( "soapui.http.nio.workers", Runtime.getRuntime()
+			.availableProcessors() );
+
+	private final static Helper helper = new Helper();
+
+	/**
+	 * Sends the specified method and waits for its response, which is set on
+	 * the method just like HttpClientSupport.execute does.
+	 */
+
+	public static HttpResponse execute( ExtendedHttpMethod method, HttpContext httpContext ) throws IOException
+	{
+		method.afterWriteRequest();
+		if( method.getMetrics() != null )
+		{
+			method.getMetrics().getConnectTimer().start();
+		}
+
+		// the reactor times out idle connections, this only guards against an
+		// exchange that is never completed
+		int connectTimeout = HttpConnectionParams.getConnectionTimeout( method.getParams() );
+		int socketTimeout = HttpConnectionParams.getSoTimeout( method.getParams() );
+		if( socketTimeout <= 0 )
+			socketTimeout = HttpConnectionParams.getSoTimeout( helper.params );
+		long idleTimeout = Math.max( connectTimeout, socketTimeout );
+
+		Exchange exchange = helper.submit( method );
+		HttpResponse httpResponse;
+		try
+		{
+			httpResponse = idleTimeout > 0 ? exchange.await( idleTimeout ) : exchange.get();
+		}
+		catch( InterruptedException e )
+		{
+			exchange.cancel( true );
+			throw new InterruptedIOException( "Request interrupted" );
+		}
+		catch( TimeoutException e )
+		{
+			exchange.cancel( true );
+			throw new SocketTimeoutException( "No response from " + exchange.target + " within " + idleTimeout + "ms" );
+		}
+		catch( CancellationException e )
+		{
+			throw new InterruptedIOException( "Request aborted" );
+		}
+		catch( ExecutionException e )
+		{
+			if( e.getCause() instanceof IOException )
+				throw ( IOException )e.getCause();
+
+			IOException ioe = new IOException( e.getCause().toString() );
+			ioe.initCause( e.getCause() );
+			throw ioe;
+		}
+
+		if( httpContext != null && exchange.requestHeaders != null )
+		{
+			httpContext.setAttribute( HeaderRequestInterceptor.SOAPUI_REQUEST_HEADERS, exchange.requestHeaders );
+		}
+
+		method.setHttpResponse( httpResponse );
+		method.afterReadResponse( null );
+
+		return httpResponse;
+	}
+
+	/**
+	 * Dispatches the specified method without waiting for it to complete; the
+	 * calling thread is only used for resolving the target host. Cancelling the
+	 * returned future aborts the request.
+	 */
+
+	public static Future<HttpResponse> submit( ExtendedHttpMethod method ) throws IOException
+	{
+		method.afterWriteRequest();
+		if( method.getMetrics() != null )
+		{
+			method.getMetrics().getConnectTimer().start();
+		}
+
+		return helper.submit( method );
+	}
+
+	/**
+	 * @return the number of keep-alive connections to the specified host
+	 *         currently waiting for a request
+	 */
+
+	public static int getIdleConnectionCount( HttpHost target )
+	{
+		return helper.getIdleConnectionCount( target );
+	}
+
+	private static class Helper implements NHttpRequestExecutionHandler, EventListener, SessionRequestCallback
+	{
+		private final static String TARGET = "soapui.nio.target";
+
+		private final Map<String, ConnectingIOReactor> reactors = new HashMap<String, ConnectingIOReactor>();
+		private final Map<HttpHost, HostConnections> hosts = new HashMap<HttpHost, HostConnections>();
+		private final ConnectionReuseStrategy reuseStrategy = new DefaultConnectionReuseStrategy();
+		private final HttpParams params;
+		private final AsyncNHttpClientHandler handler;
+		private final int maxConnectionsPerHost;
+
+		public Helper()
+		{
+			Settings settings = SoapUI.getSettings();
+
+			params = new BasicHttpParams();
+			params.setIntParameter( CoreConnectionPNames.SO_TIMEOUT,
+					( int )settings.getLong( HttpSettings.SOCKET_TIMEOUT, HttpSettings.DEFAULT_SOCKET_TIMEOUT ) );
+			params.setIntParameter( CoreConnectionPNames.SOCKET_BUFFER_SIZE, 8 * 1024 );
+			params.setBooleanParameter( CoreConnectionPNames.TCP_NODELAY, true );
+
+			maxConnectionsPerHost = ( int )settings.getLong( HttpSettings.MAX_CONNECTIONS_PER_HOST, 500 );
+
+			BasicHttpProcessor httpProcessor = new BasicHttpProcessor();
+			httpProcessor.addInterceptor( new RequestContent() );
+			httpProcessor.addInterceptor( new RequestTargetHost() );
+			httpProcessor.addInterceptor( new RequestConnControl() );
+
+			// this interceptor needs to be last one added and executed.
+			httpProcessor.addInterceptor( new HeaderRequestInterceptor() );
+
+			handler = new AsyncNHttpClientHandler( httpProcessor, this, reuseStrategy, params );
+			handler.setEventListener( this );
+		}
+
+		public Exchange submit( ExtendedHttpMethod method ) throws IOException
+		{
+			URI uri = method.getURI();
+			String scheme = uri.getScheme() == null ? "http" : uri.getScheme().toLowerCase();
+			int port = uri.getPort() != -1 ? uri.getPort() : "https".equals( scheme ) ? 443 : 80;
+			HttpHost target = new HttpHost( uri.getHost(), port, scheme );
+
+			Exchange exchange = new Exchange( method, createRequest( method, uri ), target );
+			if( method instanceof AbortableHttpRequest )
+			{
+				( ( AbortableHttpRequest )method ).setReleaseTrigger( exchange );
+			}
+
+			NHttpClientConnection connection;
+			synchronized( hosts )
+			{
+				HostConnections host = getHost( target );
+				connection = host.leaseIdle();
+
+				if( connection == null )
+				{
+					if( maxConnectionsPerHost > 0 && host.open >= maxConnectionsPerHost )
+					{
+						host.waiting.addLast( exchange );
+						return exchange;
+					}
+
+					host.open++ ;
+				}
+			}
+
+			if( connection != null )
+			{
+				assign( exchange, connection );
+				return exchange;
+			}
+
+			try
+			{
+				connect( exchange );
+			}
+			catch( IOException e )
+			{
+				connectionLost( target );
+				throw e;
+			}
+
+			return exchange;
+		}
+
+		/**
+		 * Opens a new connection for the specified exchange, which has already
+		 * been counted against the limit of its host
+		 */
+
+		private void connect( Exchange exchange ) throws IOException
+		{
+			ExtendedHttpMethod method = exchange.method;
+			HttpHost target = exchange.target;
+
+			SoapUIMetrics metrics = method.getMetrics();
+			if( metrics != null )
+			{
+				metrics.getDNSTimer().start();
+			}
+			InetAddress address = InetAddress.getByName( target.getHostName() );
+			if( metrics != null )
+			{
+				metrics.getDNSTimer().stop();
+			}
+
+			InetSocketAddress localAddress = null;
+			Object local = method.getParams().getParameter( ConnRoutePNames.LOCAL_ADDRESS );
+			if( local instanceof InetAddress )
+			{
+				localAddress = new InetSocketAddress( ( InetAddress )local, 0 );
+			}
+
+			SessionRequest sessionRequest = getReactor( target.getSchemeName() ).connect(
+					new InetSocketAddress( address, target.getPort() ), localAddress, exchange, this );
+			int connectTimeout = HttpConnectionParams.getConnectionTimeout( method.getParams() );
+			if( connectTimeout > 0 )
+			{
+				sessionRequest.setConnectTimeout( connectTimeout );
+			}
+			exchange.sessionRequest = sessionRequest;
+		}
+
+		private void assign( Exchange exchange, NHttpClientConnection connection )
+		{
+			exchange.connection = connection;
+			exchange.reused = true;
+			connection.getContext().setAttribute( EXCHANGE, exchange );
+			connection.requestOutput();
+		}
+
+		private HttpRequest createRequest( ExtendedHttpMethod method, URI uri ) throws IOException
+		{
+			try
+			{
+				RequestWrapper request = method instanceof HttpEntityEnclosingRequest ? new EntityEnclosingRequestWrapper(
+						( HttpEntityEnclosingRequest )method ) : new RequestWrapper( method );
+
+				String path = uri.getRawPath();
+				if( path == null || path.length() == 0 )
+					path = "/";
+				if( uri.getRawQuery() != null )
+					path += "?" + uri.getRawQuery();
+
+				request.setURI( URI.create( path ) );
+				return request;
+			}
+			catch( ProtocolException e )
+			{
+				IOException ioe = new IOException( e.getMessage() );
+				ioe.initCause( e );
+				throw ioe;
+			}
+		}
+
+		private synchronized ConnectingIOReactor getReactor( String scheme ) throws IOException
+		{
+			ConnectingIOReactor reactor = reactors.get( scheme );
+			if( reactor == null )
+			{
+				final IOEventDispatch dispatch;
+				if( "https".equals( scheme ) )
+				{
+					SSLContext sslContext;
+					try
+					{
+						sslContext = HttpClientSupport.getSSLContext();
+					}
+					catch( GeneralSecurityException e )
+					{
+						IOException ioe = new IOException( e.getMessage() );
+						ioe.initCause( e );
+						throw ioe;
+					}
+					dispatch = new SSLClientIOEventDispatch( handler, sslContext, params );
+				}
+				else
+				{
+					dispatch = new DefaultClientIOEventDispatch( handler, params );
+				}
+
+				final ConnectingIOReactor ioReactor = new DefaultConnectingIOReactor( workerCount, params );
+				Thread thread = new Thread( new Runnable()
+				{
+					public void run()
+					{
+						try
+						{
+							ioReactor.execute( dispatch );
+						}
+						catch( InterruptedIOException e )
+						{
+							log.debug( "NIO HTTP reactor interrupted" );
+						}
+						catch( IOException e )
+						{
+							SoapUI.logError( e, "NIO HTTP reactor terminated" );
+						}
+					}
+				}, "SoapUI NIO HTTP reactor (" + scheme + ")" );
+				thread.setDaemon( true );
+				thread.start();
+
+				reactor = ioReactor;
+				reactors.put( scheme, reactor );
+			}
+
+			return reactor;
+		}
+
+		private HostConnections getHost( HttpHost target )
+		{
+			HostConnections host = hosts.get( target );
+			if( host == null )
+			{
+				host = new HostConnections();
+				hosts.put( target, host );
+			}
+
+			return host;
+		}
+
+		/**
+		 * Hands a connection that is ready for another request to the next
+		 * waiting exchange for its host, or pools it
+		 */
+
+		private void connectionAvailable( HttpHost target, NHttpClientConnection connection )
+		{
+			Exchange next;
+			synchronized( hosts )
+			{
+				HostConnections host = getHost( target );
+				next = host.nextWaiting();
+				if( next == null )
+				{
+					host.idle.addLast( connection );
+					return;
+				}
+			}
+
+			assign( next, connection );
+		}
+
+		/**
+		 * Called when a connection has been closed or could not be opened, opens
+		 * a new connection for the next waiting exchange if there is one
+		 */
+
+		private void connectionLost( HttpHost target )
+		{
+			while( true )
+			{
+				Exchange next;
+				synchronized( hosts )
+				{
+					HostConnections host = getHost( target );
+					host.open-- ;
+
+					next = host.nextWaiting();
+					if( next == null )
+						return;
+
+					host.open++ ;
+				}
+
+				try
+				{
+					connect( next );
+					return;
+				}
+				catch( IOException e )
+				{
+					next.failed( e );
+				}
+			}
+		}
+
+		private void removeIdleConnection( HttpHost target, NHttpConnection connection )
+		{
+			synchronized( hosts )
+			{
+				HostConnections host = hosts.get( target );
+				if( host != null )
+					host.idle.remove( connection );
+			}
+		}
+
+		private void removeWaiting( Exchange exchange )
+		{
+			synchronized( hosts )
+			{
+				HostConnections host = hosts.get( exchange.target );
+				if( host != null )
+					host.waiting.remove( exchange );
+			}
+		}
+
+		public int getIdleConnectionCount( HttpHost target )
+		{
+			synchronized( hosts )
+			{
+				HostConnections host = hosts.get( target );
+				return host == null ? 0 : host.idle.size();
+			}
+		}
+
+		/**
+		 * Fails the exchange of a connection that has been closed or has failed,
+		 * unless the exchange can be retried on a new connection. This is the case
+		 * when a pooled connection was closed by the server before the response
+		 * arrived, and the request can be sent again.
+		 */
+
+		private void fail( HttpContext context, Exception e )
+		{
+			Exchange exchange = ( Exchange )context.removeAttribute( EXCHANGE );
+			if( exchange == null || exchange.isDone() )
+				return;
+
+			if( exchange.reused && !exchange.retried && !exchange.responseStarted && isRepeatable( exchange.request ) )
+			{
+				log.debug( "Retrying request to " + exchange.target + " on a new connection: " + e );
+
+				exchange.retried = true;
+				exchange.reused = false;
+				exchange.connection = null;
+
+				// a connection is opened for it when the failed one has been closed
+				synchronized( hosts )
+				{
+					getHost( exchange.target ).waiting.addFirst( exchange );
+				}
+			}
+			else
+			{
+				exchange.failed( e );
+			}
+		}
+
+		private static boolean isRepeatable( HttpRequest request )
+		{
+			if( !( request instanceof HttpEntityEnclosingRequest ) )
+				return true;
+
+			HttpEntity entity = ( ( HttpEntityEnclosingRequest )request ).getEntity();
+			return entity == null || entity.isRepeatable();
+		}
+
+		// NHttpRequestExecutionHandler, called on the reactor threads
+
+		public void initalizeContext( HttpContext context, Object attachment )
+		{
+			context.setAttribute( EXCHANGE, attachment );
+			context.setAttribute( TARGET, ( ( Exchange )attachment ).target );
+		}
+
+		public HttpRequest submitRequest( HttpContext context )
+		{
+			NHttpClientConnection connection = ( NHttpClientConnection )context
+					.getAttribute( ExecutionContext.HTTP_CONNECTION );
+
+			Exchange exchange = ( Exchange )context.getAttribute( EXCHANGE );
+			if( exchange == null || exchange.isDone() )
+			{
+				// the exchange was cancelled while the connection was opened
+				context.removeAttribute( EXCHANGE );
+				HttpHost target = ( HttpHost )context.getAttribute( TARGET );
+				if( target != null && connection != null && connection.isOpen() )
+					connectionAvailable( target, connection );
+
+				return null;
+			}
+
+			exchange.connection = connection;
+			exchange.touch();
+
+			int socketTimeout = HttpConnectionParams.getSoTimeout( exchange.method.getParams() );
+			if( socketTimeout > 0 && connection != null )
+			{
+				connection.setSocketTimeout( socketTimeout );
+			}
+
+			context.setAttribute( ExecutionContext.HTTP_TARGET_HOST, exchange.target );
+
+			SoapUIMetrics metrics = exchange.method.getMetrics();
+			if( metrics != null )
+			{
+				metrics.getConnectTimer().stop();
+				metrics.getTimeToFirstByteTimer().start();
+			}
+
+			return exchange.request;
+		}
+
+		public ConsumingNHttpEntity responseEntity( HttpResponse response, HttpContext context ) throws IOException
+		{
+			final Exchange exchange = ( Exchange )context.getAttribute( EXCHANGE );
+			if( exchange == null )
+			{
+				return new SpillingNHttpEntity( response.getEntity() );
+			}
+
+			exchange.responseStarted = true;
+			exchange.touch();
+
+			if( exchange.method.getMetrics() != null )
+			{
+				exchange.method.getMetrics().getTimeToFirstByteTimer().stop();
+				exchange.method.getMetrics().getReadTimer().start();
+			}
+
+			// bodies are collected as they arrive and spilled to disk when large
+			return new SpillingNHttpEntity( response.getEntity() )
+			{
+				@Override
+				public void consumeContent( ContentDecoder decoder, IOControl ioctrl ) throws IOException
+				{
+					super.consumeContent( decoder, ioctrl );
+					exchange.touch();
+				}
+			};
+		}
+
+		@SuppressWarnings( "unchecked" )
+		public void handleResponse( HttpResponse response, HttpContext context ) throws IOException
+		{
+			Exchange exchange = ( Exchange )context.removeAttribute( EXCHANGE );
+			if( exchange == null )
+			{
+				return;
+			}
+
+			SoapUIMetrics metrics = exchange.method.getMetrics();
+			if( metrics != null && metrics.getTimeToFirstByteTimer().getStop() == 0 )
+			{
+				// response without a body
+				metrics.getTimeToFirstByteTimer().stop();
+				metrics.getReadTimer().start();
+			}
+
+			exchange.requestHeaders = ( List<Header> )context.getAttribute( HeaderRequestInterceptor.SOAPUI_REQUEST_HEADERS );
+
+			NHttpClientConnection connection = exchange.connection;
+			if( connection != null && reuseStrategy.keepAlive( response, context ) )
+			{
+				connectionAvailable( exchange.target, connection );
+			}
+
+			exchange.completed( response );
+		}
+
+		public void finalizeContext( HttpContext context )
+		{
+			fail( context, new ConnectionClosedException( "Connection closed" ) );
+		}
+
+		// EventListener
+
+		public void connectionOpen( NHttpConnection connection )
+		{
+		}
+
+		public void connectionClosed( NHttpConnection connection )
+		{
+			HttpContext context = connection.getContext();
+			fail( context, new ConnectionClosedException( "Connection closed" ) );
+
+			// the target is removed so that each connection is only counted once
+			HttpHost target = ( HttpHost )context.removeAttribute( TARGET );
+			if( target != null )
+			{
+				removeIdleConnection( target, connection );
+				connectionLost( target );
+			}
+		}
+
+		public void connectionTimeout( NHttpConnection connection )
+		{
+			// not retried, the server may have processed the request
+			Exchange exchange = ( Exchange )connection.getContext().removeAttribute( EXCHANGE );
+			if( exchange != null )
+			{
+				exchange.failed( new SocketTimeoutException( "Read timed out" ) );
+			}
+		}
+
+		public void fatalIOException( IOException e, NHttpConnection connection )
+		{
+			fail( connection.getContext(), e );
+		}
+
+		public void fatalProtocolException( HttpException e, NHttpConnection connection )
+		{
+			Exchange exchange = ( Exchange )connection.getContext().removeAttribute( EXCHANGE );
+			if( exchange != null )
+			{
+				exchange.failed( e );
+			}
+		}
+
+		// SessionRequestCallback
+
+		public void completed( SessionRequest request )
+		{
+			( ( Exchange )request.getAttachment() ).touch();
+		}
+
+		public void failed( SessionRequest request )
+		{
+			IOException e = request.getException();
+			Exchange exchange = ( Exchange )request.getAttachment();
+			exchange.failed( e != null ? e : new IOException( "Connect failed" ) );
+			connectionLost( exchange.target );
+		}
+
+		public void timeout( SessionRequest request )
+		{
+			Exchange exchange = ( Exchange )request.getAttachment();
+			exchange.failed( new ConnectTimeoutException( "Connect to " + request.getRemoteAddress() + " timed out" ) );
+			connectionLost( exchange.target );
+		}
+
+		public void cancelled( SessionRequest request )
+		{
+			Exchange exchange = ( Exchange )request.getAttachment();
+			exchange.failed( new InterruptedIOException( "Connect cancelled" ) );
+			connectionLost( exchange.target );
+		}
+	}
+
+	/**
+	 * The connections of a target host, guarded by the lock on the hosts map
+	 */
+
+	private static class HostConnections
+	{
+		// connections that are open or being opened
+		private int open;
+		private final LinkedList<NHttpClientConnection> idle = new LinkedList<NHttpClientConnection>();
+		private final LinkedList<Exchange> waiting = new LinkedList<Exchange>();
+
+		private NHttpClientConnection leaseIdle()
+		{
+			while( !idle.isEmpty() )
+			{
+				NHttpClientConnection connection = idle.removeFirst();
+				if( connection.isOpen() )
+					return connection;
+			}
+
+			return null;
+		}
+
+		private Exchange nextWaiting()
+		{
+			while( !waiting.isEmpty() )
+			{
+				Exchange exchange = waiting.removeFirst();
+				if( !exchange.isDone() )
+					return exchange;
+			}
+
+			return null;
+		}
+	}
+
+	/**
+	 * A single request/response exchange; completed on a reactor thread.
+	 */
+
+	private static class Exchange implements Future<HttpResponse>, ConnectionReleaseTrigger
+	{
+		private final ExtendedHttpMethod method;
+		private final HttpRequest request;
+		private final HttpHost target;
+		private final CountDownLatch latch = new CountDownLatch( 1 );
+
+		private volatile HttpResponse response;
+		private volatile Exception exception;
+		private volatile boolean cancelled;
+		private volatile NHttpClientConnection connection;
+		private volatile SessionRequest sessionRequest;
+		private volatile List<Header> requestHeaders;
+		private volatile long lastActivity = System.currentTimeMillis();
+
+		// set on the reactor threads, used to decide if the exchange is retried
+		private volatile boolean reused;
+		private volatile boolean retried;
+		private volatile boolean responseStarted;
+
+		public Exchange( ExtendedHttpMethod method, HttpRequest request, HttpHost target )
+		{
+			this.method = method;
+			this.request = request;
+			this.target = target;
+		}
+
+		public synchronized void completed( HttpResponse response )
+		{
+			if( latch.getCount() > 0 )
+			{
+				this.response = response;
+				latch.countDown();
+			}
+		}
+
+		public synchronized void failed( Exception e )
+		{
+			if( latch.getCount() > 0 )
+			{
+				exception = e;
+				latch.countDown();
+			}
+		}
+
+		public boolean cancel( boolean mayInterruptIfRunning )
+		{
+			synchronized( this )
+			{
+				if( isDone() )
+					return false;
+
+				cancelled = true;
+				latch.countDown();
+			}
+
+			helper.removeWaiting( this );
+
+			if( sessionRequest != null )
+			{
+				sessionRequest.cancel();
+			}
+
+			if( connection != null )
+			{
+				try
+				{
+					connection.shutdown();
+				}
+				catch( IOException e )
+				{
+					log.debug( "Failed to shut down aborted connection: " + e );
+				}
+			}
+
+			return true;
+		}
+
+		public boolean isCancelled()
+		{
+			return cancelled;
+		}
+
+		public boolean isDone()
+		{
+			return latch.getCount() == 0;
+		}
+
+		public HttpResponse get() throws InterruptedException, ExecutionException
+		{
+			latch.await();
+			return getResult();
+		}
+
+		/**
+		 * Records progress of the exchange, for {@link #await(long)}
+		 */
+
+		public void touch()
+		{
+			lastActivity = System.currentTimeMillis();
+		}
+
+		/**
+		 * Waits until the exchange is done or has not made any progress for the
+		 * specified number of milliseconds
+		 */
+
+		public HttpResponse await( long idleTimeout ) throws InterruptedException, ExecutionException,
+				TimeoutException
+		{
+			while( !latch.await( idleTimeout - ( System.currentTimeMillis() - lastActivity ), TimeUnit.MILLISECONDS ) )
+			{
+				if( System.currentTimeMillis() - lastActivity >= idleTimeout )
+					throw new TimeoutException();
+			}
+
+			return getResult();
+		}
+
+		public HttpResponse get( long timeout, TimeUnit unit ) throws InterruptedException, ExecutionException,
+				TimeoutException
+		{
+			if( !latch.await( timeout, unit ) )
+				throw new TimeoutException();
+
+			return getResult();
+		}
+
+		private HttpResponse getResult() throws ExecutionException
+		{
+			if( cancelled )
+				throw new CancellationException();
+
+			if( exception != null )
+				throw new ExecutionException( exception );
+
+			return response;
+		}
+
+		public void releaseConnection()
+		{
+		}
+
+		public void abortConnection()
+		{
+			cancel( true );
+		}
+	}
+}
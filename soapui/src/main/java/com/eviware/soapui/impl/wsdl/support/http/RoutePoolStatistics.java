@@ -0,0 +1,221 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.support.http;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+
+import com.eviware.soapui.impl.wsdl.loadtest.data.LatencyHistogram;
+
+/**
+ * Live statistics of the connections to a single {@link HttpRoute} in a
+ * connection pool: the connections currently leased and available, the
+ * requests waiting for a connection, the time spent waiting and the number of
+ * connections, full TLS handshakes and resumed TLS sessions made. Wait times
+ * are in milliseconds.
+ */
+
+public final class RoutePoolStatistics implements RoutePoolStatisticsMBean
+{
+	private final static double[] WAIT_PERCENTILES = { 90, 99 };
+
+	private final HttpRoute route;
+	private final ThreadSafeClientConnManager connectionManager;
+	private final AtomicInteger leased = new AtomicInteger();
+	private final AtomicInteger pending = new AtomicInteger();
+	private final AtomicLong created = new AtomicLong();
+	private final AtomicLong closed = new AtomicLong();
+	private final AtomicLong tlsHandshakes = new AtomicLong();
+	private final AtomicLong tlsResumptions = new AtomicLong();
+	private final AtomicLong waitCount = new AtomicLong();
+	private final AtomicLong waitTime = new AtomicLong();
+	private final LatencyHistogram waitTimes = new LatencyHistogram();
+
+	public RoutePoolStatistics( HttpRoute route, ThreadSafeClientConnManager connectionManager )
+	{
+		this.route = route;
+		this.connectionManager = connectionManager;
+	}
+
+	public HttpRoute getHttpRoute()
+	{
+		return route;
+	}
+
+	public String getRoute()
+	{
+		return route.toString();
+	}
+
+	void waiting()
+	{
+		pending.incrementAndGet();
+	}
+
+	/**
+	 * Records the end of a request for a connection
+	 * 
+	 * @param time
+	 *           the time waited in milliseconds
+	 * @param success
+	 *           if a connection was leased
+	 */
+
+	void waited( long time, boolean success )
+	{
+		pending.decrementAndGet();
+
+		if( success )
+		{
+			leased.incrementAndGet();
+			waitCount.incrementAndGet();
+			waitTime.addAndGet( time );
+			waitTimes.recordValue( time );
+		}
+	}
+
+	void released()
+	{
+		leased.decrementAndGet();
+	}
+
+	void connectionCreated()
+	{
+		created.incrementAndGet();
+	}
+
+	void connectionClosed()
+	{
+		closed.incrementAndGet();
+	}
+
+	/**
+	 * @param resumed
+	 *           if an earlier TLS session was resumed instead of doing a full
+	 *           handshake
+	 */
+
+	void tlsHandshake( boolean resumed )
+	{
+		if( resumed )
+			tlsResumptions.incrementAndGet();
+		else
+			tlsHandshakes.incrementAndGet();
+	}
+
+	public int getLeased()
+	{
+		return Math.max( leased.get(), 0 );
+	}
+
+	public int getAvailable()
+	{
+		return connectionManager == null ? 0 : Math.max( connectionManager.getConnectionsInPool( route ) - getLeased(),
+				0 );
+	}
+
+	public int getPending()
+	{
+		return Math.max( pending.get(), 0 );
+	}
+
+	public int getMaxForRoute()
+	{
+		return connectionManager == null ? 0 : connectionManager.getMaxForRoute( route );
+	}
+
+	public long getConnectionsCreated()
+	{
+		return created.get();
+	}
+
+	public long getConnectionsClosed()
+	{
+		return closed.get();
+	}
+
+	public long getTlsHandshakes()
+	{
+		return tlsHandshakes.get();
+	}
+
+	public long getTlsResumptions()
+	{
+		return tlsResumptions.get();
+	}
+
+	public long getWaitCount()
+	{
+		return waitCount.get();
+	}
+
+	public long getAverageWaitTime()
+	{
+		long count = waitCount.get();
+		return count == 0 ? 0 : waitTime.get() / count;
+	}
+
+	public long getWaitTimeP90()
+	{
+		return getWaitTimePercentiles()[0];
+	}
+
+	public long getWaitTimeP99()
+	{
+		return getWaitTimePercentiles()[1];
+	}
+
+	public long getMaxWaitTime()
+	{
+		return waitTimes.getMaxValue();
+	}
+
+	/**
+	 * @return the 90th and 99th percentiles of the wait times
+	 */
+
+	public long[] getWaitTimePercentiles()
+	{
+		long[] result = new long[WAIT_PERCENTILES.length];
+		waitTimes.getValuesAtPercentiles( WAIT_PERCENTILES, result );
+		return result;
+	}
+
+	/**
+	 * Resets the counters and wait times, the number of leased and pending
+	 * connections reflect the current state of the pool and are kept
+	 */
+
+	public void reset()
+	{
+		created.set( 0 );
+		closed.set( 0 );
+		tlsHandshakes.set( 0 );
+		tlsResumptions.set( 0 );
+		waitCount.set( 0 );
+		waitTime.set( 0 );
+		waitTimes.reset();
+	}
+
+	@Override
+	public String toString()
+	{
+		return getRoute() + ": leased=" + getLeased() + ", available=" + getAvailable() + ", pending=" + getPending()
+				+ ", created=" + getConnectionsCreated() + ", closed=" + getConnectionsClosed() + ", tlsHandshakes="
+				+ getTlsHandshakes() + ", tlsResumptions=" + getTlsResumptions() + ", averageWait="
+				+ getAverageWaitTime() + ", maxWait=" + getMaxWaitTime();
+	}
+}
@@ -0,0 +1,50 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.support.http;
+
+/**
+ * JMX interface of {@link RoutePoolStatistics}
+ */
+
+public interface RoutePoolStatisticsMBean
+{
+	public String getRoute();
+
+	public int getLeased();
+
+	public int getAvailable();
+
+	public int getPending();
+
+	public int getMaxForRoute();
+
+	public long getConnectionsCreated();
+
+	public long getConnectionsClosed();
+
+	public long getTlsHandshakes();
+
+	public long getTlsResumptions();
+
+	public long getWaitCount();
+
+	public long getAverageWaitTime();
+
+	public long getWaitTimeP90();
+
+	public long getWaitTimeP99();
+
+	public long getMaxWaitTime();
+
+	public void reset();
+}
@@ -0,0 +1,212 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.support.http;
+
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.cert.X509Certificate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.apache.commons.ssl.KeyMaterial;
+import org.apache.log4j.Logger;
+
+import com.eviware.soapui.SoapUI;
+
+/**
+ * Cache of client SSLContexts per keystore. Reusing a context also reuses its
+ * TLS session cache, so that new connections to the same server can resume a
+ * session instead of doing a full handshake. The context of a keystore is
+ * replaced when the file has been modified or a different password is used;
+ * only a digest of the password is kept.
+ * 
+ * The session cache of each context can be tuned with the
+ * <code>soapui.https.session.cachesize</code> and
+ * <code>soapui.https.session.timeout</code> (in seconds) system properties.
+ */
+
+public final class SSLContextCache
+{
+	private final static Logger log = Logger.getLogger( SSLContextCache.class );
+
+	private final static Map<String, CachedContext> contexts = new ConcurrentHashMap<String, CachedContext>();
+
+	private SSLContextCache()
+	{
+	}
+
+	/**
+	 * @param keyStore
+	 *           the path of the keystore with the client certificates, no client
+	 *           certificates are used if it is empty or does not exist
+	 * @param password
+	 *           the password of the keystore
+	 */
+
+	public static SSLContext getContext( String keyStore, String password ) throws GeneralSecurityException
+	{
+		File file = keyStore == null || keyStore.trim().length() == 0 ? null : new File( keyStore.trim() );
+		if( file != null && !file.exists() )
+			file = null;
+
+		String key = file == null ? "" : file.getAbsolutePath();
+		long lastModified = file == null ? 0 : file.lastModified();
+		byte[] passwordDigest = file == null ? new byte[0] : digest( password );
+
+		CachedContext cached = contexts.get( key );
+		if( cached == null || !cached.matches( lastModified, passwordDigest ) )
+		{
+			synchronized( contexts )
+			{
+				cached = contexts.get( key );
+				if( cached == null || !cached.matches( lastModified, passwordDigest ) )
+				{
+					SSLContext context = createContext( file == null ? null : loadKeyStore( file, password ), password );
+					cached = new CachedContext( lastModified, passwordDigest, context );
+					contexts.put( key, cached );
+				}
+			}
+		}
+
+		return cached.context;
+	}
+
+	private static byte[] digest( String password ) throws GeneralSecurityException
+	{
+		try
+		{
+			return MessageDigest.getInstance( "SHA-256" ).digest(
+					( password == null ? "" : password ).getBytes( "UTF-8" ) );
+		}
+		catch( UnsupportedEncodingException e )
+		{
+			throw new IllegalStateException( e );
+		}
+	}
+
+	/**
+	 * @return the number of cached contexts
+	 */
+
+	static int size()
+	{
+		return contexts.size();
+	}
+
+	private static KeyStore loadKeyStore( File file, String password )
+	{
+		log.info( "Initializing KeyStore from [" + file + "]" );
+
+		try
+		{
+			KeyMaterial km = new KeyMaterial( file, password == null ? new char[0] : password.toCharArray() );
+			return km.getKeyStore();
+		}
+		catch( Exception e )
+		{
+			SoapUI.logError( e );
+			return null;
+		}
+	}
+
+	/**
+	 * Creates a new context that trusts all servers and presents the
+	 * certificates in the specified keystore, if any
+	 */
+
+	public static SSLContext createContext( KeyStore keyStore, String password ) throws GeneralSecurityException
+	{
+		// trust everyone!
+		X509TrustManager tm = new X509TrustManager()
+		{
+			@Override
+			public X509Certificate[] getAcceptedIssuers()
+			{
+				return null;
+			}
+
+			@Override
+			public void checkClientTrusted( X509Certificate[] certs, String authType )
+			{
+			}
+
+			@Override
+			public void checkServerTrusted( X509Certificate[] certs, String authType )
+			{
+			}
+		};
+
+		KeyManager[] keymanagers = null;
+		if( keyStore != null )
+		{
+			KeyManagerFactory kmfactory = KeyManagerFactory.getInstance( KeyManagerFactory.getDefaultAlgorithm() );
+			kmfactory.init( keyStore, password != null ? password.toCharArray() : null );
+			keymanagers = kmfactory.getKeyManagers();
+		}
+
+		SSLContext context = SSLContext.getInstance( "TLS" );
+		context.init( keymanagers, new TrustManager[] { tm }, null );
+
+		SSLSessionContext sessions = context.getClientSessionContext();
+		if( sessions != null )
+		{
+			Integer cacheSize = Integer.getInteger( "soapui.https.session.cachesize" );
+			if( cacheSize != null )
+				sessions.setSessionCacheSize( cacheSize );
+
+			Integer timeout = Integer.getInteger( "soapui.https.session.timeout" );
+			if( timeout != null )
+				sessions.setSessionTimeout( timeout );
+		}
+
+		return context;
+	}
+
+	/**
+	 * Drops all cached contexts, and with them their TLS sessions
+	 */
+
+	public static void clear()
+	{
+		contexts.clear();
+	}
+
+	private static final class CachedContext
+	{
+		private final long lastModified;
+		private final byte[] passwordDigest;
+		private final SSLContext context;
+
+		public CachedContext( long lastModified, byte[] passwordDigest, SSLContext context )
+		{
+			this.lastModified = lastModified;
+			this.passwordDigest = passwordDigest;
+			this.context = context;
+		}
+
+		public boolean matches( long lastModified, byte[] passwordDigest )
+		{
+			return this.lastModified == lastModified && MessageDigest.isEqual( this.passwordDigest, passwordDigest );
+		}
+	}
+}
@@ -19,6 +19,9 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.util.concurrent.TimeUnit;
 
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+
 import org.apache.http.HttpHost;
 import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.conn.ClientConnectionOperator;
@@ -65,6 +68,8 @@ public class SoapUIMultiThreadedHttpConnectionManager extends ThreadSafeClientCo
 	 */
 	IdleConnectionMonitorThread idleConnectionHandler = new IdleConnectionMonitorThread( this );
 
+	private final ConnectionPoolStatistics poolStatistics = new ConnectionPoolStatistics( this );
+
 	public SoapUIMultiThreadedHttpConnectionManager( SchemeRegistry registry )
 	{
 		super( registry );
@@ -90,6 +95,22 @@ public class SoapUIMultiThreadedHttpConnectionManager extends ThreadSafeClientCo
 		return new SoapUIClientConnectionOperator( schreg );// @ThreadSafe
 	}
 
+	/**
+	 * @return the live statistics of the routes in this pool
+	 */
+
+	public ConnectionPoolStatistics getPoolStatistics()
+	{
+		return poolStatistics;
+	}
+
+	@Override
+	public void shutdown()
+	{
+		poolStatistics.unregister();
+		super.shutdown();
+	}
+
 	public static class IdleConnectionMonitorThread extends Thread
 	{
 		private final ClientConnectionManager connMgr;
@@ -161,9 +182,25 @@ public class SoapUIMultiThreadedHttpConnectionManager extends ThreadSafeClientCo
 					log.debug( "Get connection: " + route + ", timeout = " + timeout );
 				}
 
-				BasicPoolEntry entry = poolRequest.getPoolEntry( timeout, tunit );
+				RoutePoolStatistics statistics = poolStatistics.getRouteStatistics( route );
+				BasicPoolEntry entry = null;
+				long waitStart = System.currentTimeMillis();
+				long waitEnd;
+				statistics.waiting();
+
+				try
+				{
+					entry = poolRequest.getPoolEntry( timeout, tunit );
+				}
+				finally
+				{
+					waitEnd = System.currentTimeMillis();
+					statistics.waited( waitEnd - waitStart, entry != null );
+				}
+
 				SoapUIBasicPooledConnAdapter connAdapter = new SoapUIBasicPooledConnAdapter(
 						SoapUIMultiThreadedHttpConnectionManager.this, entry );
+				connAdapter.initStatistics( statistics, waitStart, waitEnd );
 				return connAdapter;
 			}
 		};
@@ -226,6 +263,7 @@ public class SoapUIMultiThreadedHttpConnectionManager extends ThreadSafeClientCo
 					}
 				}
 				hca.detach();
+				poolStatistics.getRouteStatistics( entry.getPlannedRoute() ).released();
 				pool.freeEntry( entry, reusable, validDuration, timeUnit );
 			}
 		}
@@ -303,6 +341,16 @@ public class SoapUIMultiThreadedHttpConnectionManager extends ThreadSafeClientCo
 						conn.opening( sock, target );
 					}
 					prepareSocket( sock, context, params );
+
+					// complete the handshake here instead of on the first write so
+					// it can be measured separately; the socket factory does not
+					// start it, and unlike getSession(), startHandshake() reports
+					// a failed handshake instead of returning an invalid session
+					long handshakeStart = System.currentTimeMillis();
+					if( sock instanceof SSLSocket )
+						( ( SSLSocket )sock ).startHandshake();
+					long handshakeEnd = System.currentTimeMillis();
+
 					conn.openCompleted( sf.isSecure( sock ), params );
 
 					SoapUIMetrics metrics = ( SoapUIMetrics )conn.getMetrics();
@@ -310,6 +358,9 @@ public class SoapUIMultiThreadedHttpConnectionManager extends ThreadSafeClientCo
 					if( metrics != null )
 					{
 						metrics.getDNSTimer().set( start, dnsEnd );
+
+						if( sock instanceof SSLSocket )
+							metrics.getSSLHandshakeTimer().set( handshakeStart, handshakeEnd );
 					}
 
 					return;
@@ -339,12 +390,84 @@ public class SoapUIMultiThreadedHttpConnectionManager extends ThreadSafeClientCo
 
 	private class SoapUIDefaultClientConnection extends DefaultClientConnection
 	{
+		private volatile RoutePoolStatistics routeStatistics;
+		private volatile long openingTime;
 
 		public SoapUIDefaultClientConnection()
 		{
 			super();
 		}
 
+		@Override
+		public void opening( Socket sock, HttpHost target ) throws IOException
+		{
+			openingTime = System.currentTimeMillis();
+			super.opening( sock, target );
+		}
+
+		@Override
+		public void openCompleted( boolean secure, HttpParams params ) throws IOException
+		{
+			super.openCompleted( secure, params );
+
+			RoutePoolStatistics statistics = routeStatistics;
+			if( statistics != null )
+			{
+				statistics.connectionCreated();
+				if( secure )
+					statistics.tlsHandshake( isSessionResumed() );
+			}
+		}
+
+		/**
+		 * A resumed TLS session was created before this connection was opened,
+		 * a full handshake creates a new one
+		 */
+
+		private boolean isSessionResumed()
+		{
+			Socket socket = getSocket();
+			if( !( socket instanceof SSLSocket ) )
+				return false;
+
+			SSLSession session = ( ( SSLSocket )socket ).getSession();
+			return session != null && session.getCreationTime() < openingTime;
+		}
+
+		@Override
+		public void update( Socket sock, HttpHost target, boolean secure, HttpParams params ) throws IOException
+		{
+			super.update( sock, target, secure, params );
+
+			// layered connections, such as tunnels through a proxy
+			RoutePoolStatistics statistics = routeStatistics;
+			if( statistics != null && secure )
+				statistics.tlsHandshake( isSessionResumed() );
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			boolean wasOpen = isOpen();
+			super.close();
+			closed( wasOpen );
+		}
+
+		@Override
+		public void shutdown() throws IOException
+		{
+			boolean wasOpen = isOpen();
+			super.shutdown();
+			closed( wasOpen );
+		}
+
+		private void closed( boolean wasOpen )
+		{
+			RoutePoolStatistics statistics = routeStatistics;
+			if( wasOpen && statistics != null )
+				statistics.connectionClosed();
+		}
+
 		@Override
 		/**
 		 * @since 4.1
@@ -358,12 +481,40 @@ public class SoapUIMultiThreadedHttpConnectionManager extends ThreadSafeClientCo
 
 	static class SoapUIBasicPooledConnAdapter extends BasicPooledConnAdapter
 	{
+		private long waitStart;
+		private long waitEnd;
 
 		protected SoapUIBasicPooledConnAdapter( ThreadSafeClientConnManager tsccm, AbstractPoolEntry entry )
 		{
 			super( tsccm, entry );
 		}
 
+		/**
+		 * Sets the time spent waiting for this connection and the statistics
+		 * of its route, which are kept by the underlying connection for
+		 * counting when it is opened and closed
+		 */
+
+		void initStatistics( RoutePoolStatistics statistics, long waitStart, long waitEnd )
+		{
+			this.waitStart = waitStart;
+			this.waitEnd = waitEnd;
+
+			OperatedClientConnection connection = getWrappedConnection();
+			if( connection instanceof SoapUIDefaultClientConnection )
+				( ( SoapUIDefaultClientConnection )connection ).routeStatistics = statistics;
+		}
+
+		long getWaitStart()
+		{
+			return waitStart;
+		}
+
+		long getWaitEnd()
+		{
+			return waitEnd;
+		}
+
 		@Override
 		protected ClientConnectionManager getManager()
 		{
@@ -11,85 +11,41 @@
  */
 package com.eviware.soapui.impl.wsdl.support.http;
 
-import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
-import java.security.KeyManagementException;
-import java.security.KeyStore;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.security.UnrecoverableKeyException;
-import java.security.cert.X509Certificate;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
-import javax.net.ssl.KeyManager;
-import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocket;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509TrustManager;
 
-import org.apache.commons.ssl.KeyMaterial;
 import org.apache.http.conn.ConnectTimeoutException;
 import org.apache.http.conn.ssl.SSLSocketFactory;
 import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
-import org.apache.log4j.Logger;
 
 import com.eviware.soapui.SoapUI;
 import com.eviware.soapui.support.StringUtils;
 
 public class SoapUISSLSocketFactory extends SSLSocketFactory
 {
-	// a cache of factories for custom certificates/Keystores at the project level - never cleared
-	private static final Map<String, SSLSocketFactory> factoryMap = new ConcurrentHashMap<String, SSLSocketFactory>();
-	private final SSLContext sslContext = SSLContext.getInstance( "TLS" );
-	private final static Logger log = Logger.getLogger( SoapUISSLSocketFactory.class );
+	private final SSLContext sslContext;
 
-	@SuppressWarnings( "deprecation" )
-	public SoapUISSLSocketFactory( KeyStore keyStore, String keystorePassword ) throws KeyManagementException,
-			UnrecoverableKeyException, NoSuchAlgorithmException, KeyStoreException
+	public SoapUISSLSocketFactory( SSLContext sslContext )
 	{
-		super( keyStore );
-
-		// trust everyone!
-		X509TrustManager tm = new X509TrustManager()
-		{
-			@Override
-			public X509Certificate[] getAcceptedIssuers()
-			{
-				return null;
-			}
-
-			@Override
-			public void checkClientTrusted( X509Certificate[] certs, String authType )
-			{
-			}
-
-			@Override
-			public void checkServerTrusted( X509Certificate[] certs, String authType )
-			{
-			}
-		};
-
-		if( keyStore != null )
-		{
-			KeyManagerFactory kmfactory = KeyManagerFactory.getInstance( KeyManagerFactory.getDefaultAlgorithm() );
-			kmfactory.init( keyStore, keystorePassword != null ? keystorePassword.toCharArray() : null );
-			KeyManager[] keymanagers = kmfactory.getKeyManagers();
-			sslContext.init( keymanagers, new TrustManager[] { tm }, null );
-		}
-		else
-		{
-			sslContext.init( null, new TrustManager[] { tm }, null );
-		}
+		super( sslContext, SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER );
+		this.sslContext = sslContext;
+	}
 
-		setHostnameVerifier( SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER );
+	/**
+	 * @return the context used by this factory, for transports that do not work
+	 *         on plain sockets
+	 */
 
+	public SSLContext getSSLContext()
+	{
+		return sslContext;
 	}
 
 	private static SSLSocket enableSocket( SSLSocket socket )
@@ -134,55 +90,20 @@ public class SoapUISSLSocketFactory extends SSLSocketFactory
 			return enableSocket( ( SSLSocket )sslContext.getSocketFactory().createSocket() );
 		}
 
-		SSLSocketFactory factory = factoryMap.get( sslConfig );
-
-		if( factory != null )
-		{
-			if( factory == this )
-				return enableSocket( ( SSLSocket )sslContext.getSocketFactory().createSocket() );
-			else
-				return enableSocket( ( SSLSocket )factory.createSocket( params ) );
-		}
-
 		try
 		{
-			// try to create new factory for specified config
+			// contexts for custom keystores are cached per keystore and password
 			int ix = sslConfig.lastIndexOf( ' ' );
 			String keyStore = sslConfig.substring( 0, ix );
 			String pwd = sslConfig.substring( ix + 1 );
 
-			KeyStore ks = KeyStore.getInstance( KeyStore.getDefaultType() );
-
-			if( keyStore.trim().length() > 0 )
-			{
-				File f = new File( keyStore );
-
-				if( f.exists() )
-				{
-					log.info( "Initializing Keystore from [" + keyStore + "]" );
-
-					try
-					{
-						KeyMaterial km = new KeyMaterial( f, pwd.toCharArray() );
-						ks = km.getKeyStore();
-					}
-					catch( Exception e )
-					{
-						SoapUI.logError( e );
-						pwd = null;
-					}
-				}
-			}
-
-			factory = new SoapUISSLSocketFactory( ks, pwd );
-			factoryMap.put( sslConfig, factory );
-
-			return enableSocket( ( SSLSocket )factory.createSocket( params ) );
+			return enableSocket( ( SSLSocket )SSLContextCache.getContext( keyStore, pwd ).getSocketFactory()
+					.createSocket() );
 		}
 		catch( Exception gse )
 		{
 			SoapUI.logError( gse );
-			return enableSocket( ( SSLSocket )super.createSocket( params ) );
+			return enableSocket( ( SSLSocket )sslContext.getSocketFactory().createSocket() );
 		}
 	}
 
@@ -230,7 +151,7 @@ public class SoapUISSLSocketFactory extends SSLSocketFactory
 		}
 		else
 		{
-			sslsock = ( SSLSocket )getSocketFactory().createSocket( sock, remoteAddress.getHostName(),
+			sslsock = ( SSLSocket )sslContext.getSocketFactory().createSocket( sock, remoteAddress.getHostName(),
 					remoteAddress.getPort(), true );
 			sslsock = enableSocket( sslsock );
 		}
@@ -265,7 +186,7 @@ public class SoapUISSLSocketFactory extends SSLSocketFactory
 	public Socket createLayeredSocket( final Socket socket, final String host, final int port, final boolean autoClose )
 			throws IOException, UnknownHostException
 	{
-		SSLSocket sslSocket = ( SSLSocket )getSocketFactory().createSocket( socket, host, port, autoClose );
+		SSLSocket sslSocket = ( SSLSocket )sslContext.getSocketFactory().createSocket( socket, host, port, autoClose );
 		sslSocket = enableSocket( sslSocket );
 //		if( getHostnameVerifier() != null )
 //		{
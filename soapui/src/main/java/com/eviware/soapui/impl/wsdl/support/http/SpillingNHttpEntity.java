@@ -0,0 +1,132 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.support.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.ConsumingNHttpEntity;
+
+import com.eviware.soapui.impl.wsdl.submit.transports.http.ResponseBodyStore;
+import com.eviware.soapui.support.Tools;
+
+/**
+ * Response entity for the non-blocking transport that collects the body in a
+ * ResponseBodyStore as it is received, so that large bodies are spilled to
+ * disk just as with the blocking transport instead of being buffered in the
+ * heap.
+ */
+
+public class SpillingNHttpEntity extends HttpEntityWrapper implements ConsumingNHttpEntity
+{
+	private final static int BUFFER_SIZE = 8192;
+
+	private ResponseBodyStore.Builder builder = new ResponseBodyStore.Builder();
+	private ByteBuffer buffer = ByteBuffer.allocate( BUFFER_SIZE );
+	private ResponseBodyStore store;
+
+	public SpillingNHttpEntity( HttpEntity httpEntity )
+	{
+		super( httpEntity );
+	}
+
+	public void consumeContent( ContentDecoder decoder, IOControl ioctrl ) throws IOException
+	{
+		if( builder == null )
+			throw new IllegalStateException( "Entity content has already been received" );
+
+		while( decoder.read( buffer ) > 0 )
+		{
+			buffer.flip();
+			builder.write( buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining() );
+			buffer.clear();
+		}
+
+		if( decoder.isCompleted() )
+		{
+			store = builder.build();
+			builder = null;
+			buffer = null;
+		}
+	}
+
+	/**
+	 * Drops a body that has not been received completely
+	 */
+
+	public void finish()
+	{
+		if( builder != null )
+		{
+			builder.discard();
+			builder = null;
+			buffer = null;
+		}
+	}
+
+	/**
+	 * @return the received body, or null if it has not been received completely
+	 */
+
+	public ResponseBodyStore getResponseBodyStore()
+	{
+		return store;
+	}
+
+	@Override
+	public InputStream getContent() throws IOException
+	{
+		if( store == null )
+			throw new IllegalStateException( "Entity content has not been fully received" );
+
+		return store.getInputStream();
+	}
+
+	@Override
+	public long getContentLength()
+	{
+		return store == null ? super.getContentLength() : store.getLength();
+	}
+
+	@Override
+	public boolean isRepeatable()
+	{
+		return store != null;
+	}
+
+	@Override
+	public boolean isStreaming()
+	{
+		return false;
+	}
+
+	@Override
+	public void writeTo( OutputStream outstream ) throws IOException
+	{
+		if( outstream == null )
+			throw new IllegalArgumentException( "Output stream may not be null" );
+
+		Tools.writeAll( outstream, getContent() );
+	}
+
+	@Override
+	public void consumeContent() throws IOException
+	{
+	}
+}
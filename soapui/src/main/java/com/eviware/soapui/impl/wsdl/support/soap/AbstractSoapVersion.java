@@ -12,6 +12,7 @@
 
 package com.eviware.soapui.impl.wsdl.support.soap;
 
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -36,8 +37,23 @@ public abstract class AbstractSoapVersion implements SoapVersion
 {
 	private final static Logger log = Logger.getLogger( AbstractSoapVersion.class );
 
-	@SuppressWarnings( "unchecked" )
 	public void validateSoapEnvelope( String soapMessage, List<XmlError> errors )
+	{
+		validateSoapEnvelope( soapMessage, null, errors );
+	}
+
+	/**
+	 * Validates a message that is read from the specified reader, such as a
+	 * response body spilled to disk, without reading it into a String first
+	 */
+
+	public void validateSoapEnvelope( Reader soapMessage, List<XmlError> errors )
+	{
+		validateSoapEnvelope( null, soapMessage, errors );
+	}
+
+	@SuppressWarnings( "unchecked" )
+	private void validateSoapEnvelope( String soapMessage, Reader soapMessageReader, List<XmlError> errors )
 	{
 		List<XmlError> errorList = new ArrayList<XmlError>();
 
@@ -47,7 +63,9 @@ public abstract class AbstractSoapVersion implements SoapVersion
 			xmlOptions.setLoadLineNumbers();
 			xmlOptions.setValidateTreatLaxAsSkip();
 			xmlOptions.setLoadLineNumbers( XmlOptions.LOAD_LINE_NUMBERS_END_ELEMENT );
-			XmlObject xmlObject = getSoapEnvelopeSchemaLoader().parse( soapMessage, getEnvelopeType(), xmlOptions );
+			XmlObject xmlObject = soapMessageReader == null ? getSoapEnvelopeSchemaLoader().parse( soapMessage,
+					getEnvelopeType(), xmlOptions ) : getSoapEnvelopeSchemaLoader().parse( soapMessageReader,
+					getEnvelopeType(), xmlOptions );
 			xmlOptions.setErrorListener( errorList );
 			xmlObject.validate( xmlOptions );
 		}
@@ -199,12 +199,24 @@ public class SoapUtils
 		return null;
 	}
 
-	@SuppressWarnings( "unchecked" )
 	public static WsdlOperation findOperationForRequest( SoapVersion soapVersion, String soapAction,
 			XmlObject requestContent, List<WsdlOperation> operations, boolean requireSoapVersionMatch,
 			boolean requireSoapActionMatch, Attachment[] attachments ) throws Exception
 	{
-		XmlObject contentElm = getContentElement( requestContent, soapVersion );
+		return findOperationForContentElement( soapVersion, soapAction, getContentElement( requestContent, soapVersion ),
+				operations, requireSoapVersionMatch, requireSoapActionMatch, attachments );
+	}
+
+	/**
+	 * Finds the operation for a request whose content element has already been
+	 * extracted with {@link #getContentElement(XmlObject, SoapVersion)}
+	 */
+
+	@SuppressWarnings( "unchecked" )
+	public static WsdlOperation findOperationForContentElement( SoapVersion soapVersion, String soapAction,
+			XmlObject contentElm, List<WsdlOperation> operations, boolean requireSoapVersionMatch,
+			boolean requireSoapActionMatch, Attachment[] attachments ) throws Exception
+	{
 		if( contentElm == null )
 		{
 			for( WsdlOperation operation : operations )
@@ -12,6 +12,7 @@
 
 package com.eviware.soapui.impl.wsdl.support.wsdl;
 
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -43,10 +44,15 @@ import org.w3c.dom.NodeList;
 import com.eviware.soapui.SoapUI;
 import com.eviware.soapui.impl.wsdl.WsdlOperation;
 import com.eviware.soapui.impl.wsdl.submit.WsdlMessageExchange;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.SinglePartHttpResponse;
+import com.eviware.soapui.impl.wsdl.support.soap.AbstractSoapVersion;
+import com.eviware.soapui.impl.wsdl.support.soap.SoapVersion;
 import com.eviware.soapui.model.iface.Attachment;
+import com.eviware.soapui.model.iface.Response;
 import com.eviware.soapui.model.testsuite.AssertionError;
 import com.eviware.soapui.settings.WsdlSettings;
 import com.eviware.soapui.support.StringUtils;
+import com.eviware.soapui.support.xml.XmlObjectCache;
 import com.eviware.soapui.support.xml.XmlUtils;
 
 /**
@@ -475,9 +481,22 @@ public class WsdlValidator
 		return new AssertionError[0];
 	}
 
-	@SuppressWarnings( "unchecked" )
 	public void validateMessage( WsdlMessageExchange messageExchange, String message, BindingOperation bindingOperation,
 			Part[] parts, List<XmlError> errors, boolean isResponse )
+	{
+		validateMessage( messageExchange, message, null, bindingOperation, parts, errors, isResponse );
+	}
+
+	/**
+	 * @param spilledResponse
+	 *           the response holding the message in a body spilled to disk, which
+	 *           is then parsed from the body, or null for parsing the message
+	 */
+
+	@SuppressWarnings( "unchecked" )
+	private void validateMessage( WsdlMessageExchange messageExchange, String message,
+			SinglePartHttpResponse spilledResponse, BindingOperation bindingOperation, Part[] parts,
+			List<XmlError> errors, boolean isResponse )
 	{
 		try
 		{
@@ -489,12 +508,12 @@ public class WsdlValidator
 			{
 				if( !WsdlUtils.isOutputSoapEncoded( bindingOperation ) )
 				{
-					XmlOptions xmlOptions = new XmlOptions();
-					xmlOptions.setLoadLineNumbers();
-					xmlOptions.setLoadLineNumbers( XmlOptions.LOAD_LINE_NUMBERS_END_ELEMENT );
-					// XmlObject xml = XmlObject.Factory.parse( message, xmlOptions
-					// );
-					XmlObject xml = XmlUtils.createXmlObject( message, xmlOptions );
+					// shared with the assertions on the same message, loaded with
+					// line numbers
+					XmlObject xml = spilledResponse == null ? null : spilledResponse.getSpilledContentAsXmlObject( false );
+					if( xml == null )
+						xml = XmlObjectCache.getXmlObject( spilledResponse == null ? message : spilledResponse
+								.getContentAsString() );
 
 					XmlObject[] paths = xml.selectPath( "declare namespace env='"
 							+ wsdlContext.getSoapVersion().getEnvelopeNamespace() + "';"
@@ -578,9 +597,14 @@ public class WsdlValidator
 		List<XmlError> errors = new ArrayList<XmlError>();
 		try
 		{
-			String response = messageExchange.getResponseContent();
-
-			if( StringUtils.isNullOrEmpty( response ) )
+			// responses spilled to disk are validated without decoding them into
+			// a String first, where the SoapVersion supports it
+			SoapVersion soapVersion = wsdlContext.getSoapVersion();
+			SinglePartHttpResponse spilledResponse = soapVersion instanceof AbstractSoapVersion ? getSpilledResponse(
+					messageExchange ) : null;
+			String response = spilledResponse == null ? messageExchange.getResponseContent() : null;
+
+			if( spilledResponse == null && StringUtils.isNullOrEmpty( response ) )
 			{
 				if( !messageExchange.getOperation().isOneWay() )
 				{
@@ -589,7 +613,22 @@ public class WsdlValidator
 			}
 			else
 			{
-				wsdlContext.getSoapVersion().validateSoapEnvelope( response, errors );
+				if( spilledResponse == null )
+				{
+					soapVersion.validateSoapEnvelope( response, errors );
+				}
+				else
+				{
+					Reader reader = spilledResponse.getContentReader();
+					try
+					{
+						( ( AbstractSoapVersion )soapVersion ).validateSoapEnvelope( reader, errors );
+					}
+					finally
+					{
+						reader.close();
+					}
+				}
 
 				if( errors.isEmpty() && !envelopeOnly )
 				{
@@ -603,7 +642,8 @@ public class WsdlValidator
 					else
 					{
 						Part[] outputParts = WsdlUtils.getOutputParts( bindingOperation );
-						validateMessage( messageExchange, response, bindingOperation, outputParts, errors, true );
+						validateMessage( messageExchange, response, spilledResponse, bindingOperation, outputParts,
+								errors, true );
 					}
 				}
 			}
@@ -617,6 +657,15 @@ public class WsdlValidator
 		return convertErrors( errors );
 	}
 
+	private static SinglePartHttpResponse getSpilledResponse( WsdlMessageExchange messageExchange )
+	{
+		Response response = messageExchange.getResponse();
+		if( response instanceof SinglePartHttpResponse && ( ( SinglePartHttpResponse )response ).isContentSpilled() )
+			return ( SinglePartHttpResponse )response;
+
+		return null;
+	}
+
 	private void validateDocLiteral( BindingOperation bindingOperation, Part[] parts, XmlObject msgXml,
 			List<XmlError> errors, boolean isResponse ) throws Exception
 	{
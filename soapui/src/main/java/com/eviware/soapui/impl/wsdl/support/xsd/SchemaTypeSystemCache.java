@@ -0,0 +1,272 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.support.xsd;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+import javax.xml.namespace.QName;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.log4j.Logger;
+import org.apache.xmlbeans.SchemaType;
+import org.apache.xmlbeans.SchemaTypeLoader;
+import org.apache.xmlbeans.SchemaTypeSystem;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlObject;
+
+/**
+ * Persists compiled SchemaTypeSystems in a local directory so that the schemas
+ * of an interface do not have to be compiled again in later sessions.
+ * Entries are keyed by a digest of the schema contents and the compile
+ * options, a changed definition therefore results in a new entry. The cache
+ * is stored in <code>soapui.schema.cache.dir</code> (defaults to
+ * ~/.soapui/schema-cache) and can be turned off by setting
+ * <code>soapui.schema.cache</code> to false.
+ */
+
+public class SchemaTypeSystemCache
+{
+	private final static Logger log = Logger.getLogger( SchemaTypeSystemCache.class );
+
+	private final static String INFO_FILE = "typesystem.properties";
+	private final static long MAX_AGE = Long.getLong( "soapui.schema.cache.maxage", 30 ) * 24 * 60 * 60 * 1000;
+
+	private static SchemaTypeSystemCache instance;
+
+	private final File directory;
+
+	public SchemaTypeSystemCache( File directory )
+	{
+		this.directory = directory;
+	}
+
+	/**
+	 * @return the cache in the configured directory, or null if caching of
+	 *         schema types is turned off
+	 */
+
+	public static synchronized SchemaTypeSystemCache getInstance()
+	{
+		if( instance == null && Boolean.parseBoolean( System.getProperty( "soapui.schema.cache", "true" ) ) )
+		{
+			String dir = System.getProperty( "soapui.schema.cache.dir" );
+			instance = new SchemaTypeSystemCache( dir == null ? new File( new File( System.getProperty( "user.home",
+					"." ), ".soapui" ), "schema-cache" ) : new File( dir ) );
+		}
+
+		return instance;
+	}
+
+	public File getDirectory()
+	{
+		return directory;
+	}
+
+	/**
+	 * Creates the key for a set of schemas, taking their source names and
+	 * contents, the default schemas they are compiled with, the strict schema
+	 * types setting and the XmlBeans version into account
+	 */
+
+	public static String createKey( List<XmlObject> schemas, Collection<XmlObject> defaultSchemas,
+			boolean strictSchemaTypes ) throws IOException
+	{
+		MessageDigest digest;
+		try
+		{
+			digest = MessageDigest.getInstance( "SHA-1" );
+		}
+		catch( NoSuchAlgorithmException e )
+		{
+			throw new IOException( e.toString() );
+		}
+
+		OutputStream out = new DigestOutputStream( new OutputStream()
+		{
+			@Override
+			public void write( int b )
+			{
+			}
+
+			@Override
+			public void write( byte[] b, int off, int len )
+			{
+			}
+		}, digest );
+
+		out.write( ( XmlBeans.getVersion() + ":" + strictSchemaTypes ).getBytes( "UTF-8" ) );
+		for( XmlObject schema : schemas )
+			digest( schema, out );
+
+		out.write( 0 );
+		for( XmlObject schema : defaultSchemas )
+			digest( schema, out );
+
+		StringBuilder result = new StringBuilder();
+		for( byte b : digest.digest() )
+		{
+			result.append( Integer.toHexString( ( b & 0xff ) | 0x100 ).substring( 1 ) );
+		}
+
+		return result.toString();
+	}
+
+	private static void digest( XmlObject schema, OutputStream out ) throws IOException
+	{
+		String sourceName = schema.documentProperties().getSourceName();
+		out.write( String.valueOf( sourceName ).getBytes( "UTF-8" ) );
+		out.write( 0 );
+		schema.save( out );
+		out.write( 0 );
+	}
+
+	/**
+	 * Loads the SchemaTypeSystem stored for the specified key
+	 * 
+	 * @return the SchemaTypeSystem or null if none is stored or it could not be
+	 *         loaded
+	 */
+
+	public SchemaTypeSystem load( String key )
+	{
+		File dir = new File( directory, key );
+		File infoFile = new File( dir, INFO_FILE );
+		if( !infoFile.exists() )
+			return null;
+
+		try
+		{
+			Properties info = new Properties();
+			InputStream in = new FileInputStream( infoFile );
+			try
+			{
+				info.load( in );
+			}
+			finally
+			{
+				in.close();
+			}
+
+			SchemaTypeLoader loader = XmlBeans.typeLoaderForResource( XmlBeans.resourceLoaderForPath( new File[] { dir } ) );
+			QName name = new QName( info.getProperty( "namespace" ), info.getProperty( "local" ) );
+			SchemaType type = "element".equals( info.getProperty( "kind" ) ) ? loader.findDocumentType( name ) : loader
+					.findType( name );
+
+			if( type == null || !type.getTypeSystem().getName().equals( info.getProperty( "name" ) ) )
+			{
+				log.warn( "Discarding invalid schema type cache entry [" + dir + "]" );
+				FileUtils.deleteQuietly( dir );
+				return null;
+			}
+
+			dir.setLastModified( System.currentTimeMillis() );
+			return type.getTypeSystem();
+		}
+		catch( Exception e )
+		{
+			log.warn( "Failed to load cached schema types from [" + dir + "]: " + e );
+			return null;
+		}
+	}
+
+	/**
+	 * Stores a compiled SchemaTypeSystem for the specified key; entries that
+	 * have not been used for soapui.schema.cache.maxage days (30 by default)
+	 * are removed at the same time
+	 */
+
+	public void store( String key, SchemaTypeSystem schemaTypes )
+	{
+		Properties info = new Properties();
+		info.setProperty( "name", schemaTypes.getName() );
+
+		if( schemaTypes.documentTypes().length > 0 )
+		{
+			info.setProperty( "kind", "element" );
+			setName( info, schemaTypes.documentTypes()[0].getDocumentElementName() );
+		}
+		else if( schemaTypes.globalTypes().length > 0 )
+		{
+			info.setProperty( "kind", "type" );
+			setName( info, schemaTypes.globalTypes()[0].getName() );
+		}
+		else
+			return;
+
+		File dir = new File( directory, key );
+		File tempDir = new File( directory, key + "." + System.nanoTime() + ".tmp" );
+
+		try
+		{
+			if( !tempDir.mkdirs() )
+				throw new IOException( "Failed to create directory [" + tempDir + "]" );
+
+			schemaTypes.saveToDirectory( tempDir );
+
+			OutputStream out = new FileOutputStream( new File( tempDir, INFO_FILE ) );
+			try
+			{
+				info.store( out, null );
+			}
+			finally
+			{
+				out.close();
+			}
+
+			// another process may have stored the same entry in the meantime
+			if( !dir.exists() && !tempDir.renameTo( dir ) && !dir.exists() )
+				throw new IOException( "Failed to rename [" + tempDir + "] to [" + dir + "]" );
+		}
+		catch( Exception e )
+		{
+			log.warn( "Failed to cache schema types in [" + dir + "]: " + e );
+		}
+		finally
+		{
+			FileUtils.deleteQuietly( tempDir );
+		}
+
+		removeExpired();
+	}
+
+	private static void setName( Properties info, QName name )
+	{
+		info.setProperty( "namespace", name.getNamespaceURI() );
+		info.setProperty( "local", name.getLocalPart() );
+	}
+
+	private void removeExpired()
+	{
+		File[] entries = directory.listFiles();
+		if( entries == null )
+			return;
+
+		long now = System.currentTimeMillis();
+		for( File entry : entries )
+		{
+			if( entry.isDirectory() && now - entry.lastModified() > MAX_AGE )
+				FileUtils.deleteQuietly( entry );
+		}
+	}
+}
@@ -229,6 +229,27 @@ public class SchemaUtils
 		}
 
 		boolean strictSchemaTypes = SoapUI.getSettings().getBoolean( WsdlSettings.STRICT_SCHEMA_TYPES );
+
+		SchemaTypeSystemCache cache = SchemaTypeSystemCache.getInstance();
+		String cacheKey = null;
+		if( cache != null )
+		{
+			try
+			{
+				cacheKey = SchemaTypeSystemCache.createKey( schemas, defaultSchemas.values(), strictSchemaTypes );
+				SchemaTypeSystem sts = cache.load( cacheKey );
+				if( sts != null )
+				{
+					log.info( "Loaded schema types from cache [" + cacheKey + "]" );
+					return sts;
+				}
+			}
+			catch( IOException e )
+			{
+				log.warn( "Failed to create schema cache key: " + e );
+			}
+		}
+
 		if( !strictSchemaTypes )
 		{
 			Set<String> mdefNamespaces = new HashSet<String>();
@@ -287,6 +308,9 @@ public class SchemaUtils
 			SchemaTypeSystem sts = XmlBeans.compileXsd( schemas.toArray( new XmlObject[schemas.size()] ),
 					XmlBeans.getBuiltinTypeSystem(), options );
 
+			if( cacheKey != null )
+				cache.store( cacheKey, sts );
+
 			return sts;
 			// return XmlBeans.typeLoaderUnion(new SchemaTypeLoader[] { sts,
 			// XmlBeans.getBuiltinTypeSystem() });
@@ -13,6 +13,7 @@
 package com.eviware.soapui.impl.wsdl.testcase;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -21,6 +22,7 @@ import com.eviware.soapui.SoapUI;
 import com.eviware.soapui.impl.wsdl.WsdlProject;
 import com.eviware.soapui.impl.wsdl.WsdlTestSuite;
 import com.eviware.soapui.impl.wsdl.support.AbstractTestRunner;
+import com.eviware.soapui.impl.wsdl.support.ParallelTestScheduler;
 import com.eviware.soapui.model.project.Project;
 import com.eviware.soapui.model.propertyexpansion.DefaultPropertyExpansionContext;
 import com.eviware.soapui.model.support.TestSuiteRunListenerAdapter;
@@ -36,11 +38,12 @@ import com.eviware.soapui.support.types.StringToObjectMap;
 public class WsdlProjectRunner extends AbstractTestRunner<WsdlProject, WsdlProjectRunContext> implements ProjectRunner
 {
 	private ProjectRunListener[] listeners;
-	private Set<TestSuiteRunner> finishedRunners = new HashSet<TestSuiteRunner>();
-	private Set<TestSuiteRunner> activeRunners = new HashSet<TestSuiteRunner>();
+	private Set<TestSuiteRunner> finishedRunners = Collections.synchronizedSet( new HashSet<TestSuiteRunner>() );
+	private Set<TestSuiteRunner> activeRunners = Collections.synchronizedSet( new HashSet<TestSuiteRunner>() );
 	private int currentTestSuiteIndex;
 	private WsdlTestSuite currentTestSuite;
 	private TestSuiteRunListener internalTestRunListener = new InternalTestSuiteRunListener();
+	private ParallelTestScheduler<WsdlTestSuite> scheduler;
 
 	public WsdlProjectRunner( WsdlProject project, StringToObjectMap properties )
 	{
@@ -103,27 +106,52 @@ public class WsdlProjectRunner extends AbstractTestRunner<WsdlProject, WsdlProje
 		currentTestSuiteIndex = -1;
 		currentTestSuite = null;
 
-		for( TestSuite testSuite : project.getTestSuiteList() )
+		scheduler = new ParallelTestScheduler<WsdlTestSuite>( project.getMaxParallel() );
+		for( int c = 0; c < project.getTestSuiteCount(); c++ )
 		{
+			WsdlTestSuite testSuite = project.getTestSuiteAt( c );
 			if( !testSuite.isDisabled() )
-			{
-				testSuite.addTestSuiteRunListener( internalTestRunListener );
-				notifyBeforeRunTestSuite( testSuite );
-				runTestSuite( ( WsdlTestSuite )testSuite, true );
-			}
+				scheduler.add( testSuite, testSuite.getExpectedRunTime(), null );
 		}
 
 		try
 		{
-			synchronized( activeRunners )
+			WsdlTestSuite testSuite;
+			while( ( testSuite = scheduler.awaitNext() ) != null )
 			{
-				activeRunners.wait();
+				if( !isRunning() )
+				{
+					scheduler.finished( testSuite );
+					break;
+				}
+
+				testSuite.addTestSuiteRunListener( internalTestRunListener );
+				notifyBeforeRunTestSuite( testSuite );
+				try
+				{
+					runTestSuite( testSuite, true );
+				}
+				catch( RuntimeException e )
+				{
+					testSuite.removeTestSuiteRunListener( internalTestRunListener );
+					scheduler.finished( testSuite );
+					throw e;
+				}
 			}
+
+			scheduler.cancel();
+			scheduler.awaitFinished();
 		}
 		catch( InterruptedException e )
 		{
-			e.printStackTrace();
+			SoapUI.logError( e );
 		}
+		finally
+		{
+			project.getExpectedRunTimes().save();
+		}
+
+		updateStatus();
 	}
 
 	private void runSequential( WsdlProject project, WsdlProjectRunContext runContext )
@@ -243,21 +271,22 @@ public class WsdlProjectRunner extends AbstractTestRunner<WsdlProject, WsdlProje
 
 	protected void finishRunner( TestSuiteRunner testRunner )
 	{
-		notifyAfterRunTestSuite( testRunner );
+		WsdlTestSuite testSuite = ( WsdlTestSuite )testRunner.getTestSuite();
+		try
+		{
+			notifyAfterRunTestSuite( testRunner );
 
-		activeRunners.remove( testRunner );
-		finishedRunners.add( testRunner );
+			activeRunners.remove( testRunner );
+			finishedRunners.add( testRunner );
 
-		testRunner.getTestSuite().removeTestSuiteRunListener( internalTestRunListener );
+			testSuite.removeTestSuiteRunListener( internalTestRunListener );
 
-		if( activeRunners.isEmpty() )
+			long timeTaken = System.currentTimeMillis() - testRunner.getStartTime();
+			testSuite.getProject().getExpectedRunTimes().record( testSuite.getId(), timeTaken );
+		}
+		finally
 		{
-			updateStatus();
-
-			synchronized( activeRunners )
-			{
-				activeRunners.notify();
-			}
+			scheduler.finished( testSuite );
 		}
 	}
 
@@ -81,6 +81,8 @@ public class WsdlTestCase extends AbstractTestPropertyHolderWsdlModelItem<TestCa
 	public final static String TEARDOWN_SCRIPT_PROPERTY = WsdlTestCase.class.getName() + "@tearDownScript";
 	public static final String TIMEOUT_PROPERTY = WsdlTestCase.class.getName() + "@timeout";
 	public static final String SEARCH_PROPERTIES_PROPERTY = WsdlTestCase.class.getName() + "@searchProperties";
+	public static final String DEPENDS_ON_PROPERTY = WsdlTestCase.class.getName() + "@dependsOn";
+	public static final String EXCLUSIVE_TAGS_PROPERTY = WsdlTestCase.class.getName() + "@exclusiveTags";
 
 	private final WsdlTestSuite testSuite;
 	private final List<WsdlTestStep> testSteps = new ArrayList<WsdlTestStep>();
@@ -280,6 +282,63 @@ public class WsdlTestCase extends AbstractTestPropertyHolderWsdlModelItem<TestCa
 		}
 	}
 
+	/**
+	 * Comma-separated names of the TestCases in this TestSuite that must have
+	 * finished before this one is started in a parallel run
+	 */
+
+	public String getDependsOn()
+	{
+		return getSettings().getString( DEPENDS_ON_PROPERTY, "" );
+	}
+
+	public void setDependsOn( String dependsOn )
+	{
+		String old = getDependsOn();
+		if( old.equals( dependsOn ) )
+			return;
+
+		getSettings().setString( DEPENDS_ON_PROPERTY, dependsOn );
+		notifyPropertyChanged( DEPENDS_ON_PROPERTY, old, dependsOn );
+	}
+
+	/**
+	 * Comma-separated tags; TestCases sharing a tag are never run at the same
+	 * time in a parallel run
+	 */
+
+	public String getExclusiveTags()
+	{
+		return getSettings().getString( EXCLUSIVE_TAGS_PROPERTY, "" );
+	}
+
+	public void setExclusiveTags( String exclusiveTags )
+	{
+		String old = getExclusiveTags();
+		if( old.equals( exclusiveTags ) )
+			return;
+
+		getSettings().setString( EXCLUSIVE_TAGS_PROPERTY, exclusiveTags );
+		notifyPropertyChanged( EXCLUSIVE_TAGS_PROPERTY, old, exclusiveTags );
+	}
+
+	/**
+	 * The time this TestCase is expected to take, averaged over its parallel runs
+	 * and used for starting long-running TestCases first; kept in the project's
+	 * durations file, see
+	 * {@link com.eviware.soapui.impl.wsdl.WsdlProject#getExpectedRunTimes()}
+	 */
+
+	public long getExpectedRunTime()
+	{
+		return getTestSuite().getProject().getExpectedRunTimes().get( getId() );
+	}
+
+	public void setExpectedRunTime( long expectedRunTime )
+	{
+		getTestSuite().getProject().getExpectedRunTimes().set( getId(), expectedRunTime );
+	}
+
 	public boolean getDiscardOkResults()
 	{
 		return getConfig().getDiscardOkResults();
@@ -13,13 +13,17 @@
 package com.eviware.soapui.impl.wsdl.testcase;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.apache.log4j.Logger;
+
 import com.eviware.soapui.SoapUI;
 import com.eviware.soapui.impl.wsdl.WsdlTestSuite;
 import com.eviware.soapui.impl.wsdl.support.AbstractTestRunner;
+import com.eviware.soapui.impl.wsdl.support.ParallelTestScheduler;
 import com.eviware.soapui.model.propertyexpansion.DefaultPropertyExpansionContext;
 import com.eviware.soapui.model.support.TestRunListenerAdapter;
 import com.eviware.soapui.model.testsuite.TestCase;
@@ -42,12 +46,15 @@ import com.eviware.soapui.support.types.StringToObjectMap;
 public class WsdlTestSuiteRunner extends AbstractTestRunner<WsdlTestSuite, WsdlTestSuiteRunContext> implements
 		TestSuiteRunner
 {
+	private final static Logger log = Logger.getLogger( WsdlTestSuiteRunner.class );
+
 	private TestSuiteRunListener[] listeners;
-	private Set<TestCaseRunner> finishedRunners = new HashSet<TestCaseRunner>();
-	private Set<TestCaseRunner> activeRunners = new HashSet<TestCaseRunner>();
+	private Set<TestCaseRunner> finishedRunners = Collections.synchronizedSet( new HashSet<TestCaseRunner>() );
+	private Set<TestCaseRunner> activeRunners = Collections.synchronizedSet( new HashSet<TestCaseRunner>() );
 	private int currentTestCaseIndex;
 	private WsdlTestCase currentTestCase;
 	private TestRunListener parallellTestRunListener = new ParallellTestRunListener();
+	private ParallelTestScheduler<WsdlTestCase> scheduler;
 
 	public WsdlTestSuiteRunner( WsdlTestSuite testSuite, StringToObjectMap properties )
 	{
@@ -108,27 +115,80 @@ public class WsdlTestSuiteRunner extends AbstractTestRunner<WsdlTestSuite, WsdlT
 		currentTestCaseIndex = -1;
 		currentTestCase = null;
 
-		for( TestCase testCase : testSuite.getTestCaseList() )
+		scheduler = createScheduler( testSuite );
+
+		try
 		{
-			if( !testCase.isDisabled() )
+			WsdlTestCase testCase;
+			while( ( testCase = scheduler.awaitNext() ) != null )
 			{
+				if( !isRunning() )
+				{
+					scheduler.finished( testCase );
+					break;
+				}
+
 				testCase.addTestRunListener( parallellTestRunListener );
 				notifyBeforeRunTestCase( testCase );
-				runTestCase( ( WsdlTestCase )testCase, true );
+				try
+				{
+					runTestCase( testCase, true );
+				}
+				catch( RuntimeException e )
+				{
+					testCase.removeTestRunListener( parallellTestRunListener );
+					scheduler.finished( testCase );
+					throw e;
+				}
 			}
+
+			scheduler.cancel();
+			scheduler.awaitFinished();
+		}
+		catch( InterruptedException e )
+		{
+			SoapUI.logError( e );
+		}
+		finally
+		{
+			testSuite.getProject().getExpectedRunTimes().save();
 		}
 
-		try
+		updateStatus();
+	}
+
+	private ParallelTestScheduler<WsdlTestCase> createScheduler( WsdlTestSuite testSuite )
+	{
+		ParallelTestScheduler<WsdlTestCase> scheduler = new ParallelTestScheduler<WsdlTestCase>( testSuite
+				.getMaxParallel() );
+
+		for( int c = 0; c < testSuite.getTestCaseCount(); c++ )
 		{
-			synchronized( activeRunners )
-			{
-				activeRunners.wait();
-			}
+			WsdlTestCase testCase = testSuite.getTestCaseAt( c );
+			if( !testCase.isDisabled() )
+				scheduler.add( testCase, testCase.getExpectedRunTime(), testCase.getExclusiveTags() );
 		}
-		catch( InterruptedException e )
+
+		for( int c = 0; c < testSuite.getTestCaseCount(); c++ )
 		{
-			e.printStackTrace();
+			WsdlTestCase testCase = testSuite.getTestCaseAt( c );
+			if( testCase.isDisabled() )
+				continue;
+
+			for( String name : testCase.getDependsOn().split( "," ) )
+			{
+				if( name.trim().length() == 0 )
+					continue;
+
+				WsdlTestCase dependency = testSuite.getTestCaseByName( name.trim() );
+				if( dependency == null )
+					log.warn( "TestCase [" + testCase.getName() + "] depends on missing TestCase [" + name.trim() + "]" );
+				else
+					scheduler.addDependency( testCase, dependency );
+			}
 		}
+
+		return scheduler;
 	}
 
 	private void runSequential( WsdlTestSuite testSuite, WsdlTestSuiteRunContext runContext )
@@ -263,21 +323,22 @@ public class WsdlTestSuiteRunner extends AbstractTestRunner<WsdlTestSuite, WsdlT
 		@Override
 		public void afterRun( TestCaseRunner testRunner, TestCaseRunContext runContext )
 		{
-			notifyAfterRunTestCase( testRunner );
+			WsdlTestCase testCase = ( WsdlTestCase )testRunner.getTestCase();
+			try
+			{
+				notifyAfterRunTestCase( testRunner );
 
-			activeRunners.remove( testRunner );
-			finishedRunners.add( testRunner );
+				activeRunners.remove( testRunner );
+				finishedRunners.add( testRunner );
 
-			testRunner.getTestCase().removeTestRunListener( parallellTestRunListener );
+				testCase.removeTestRunListener( parallellTestRunListener );
 
-			if( activeRunners.isEmpty() )
+				long timeTaken = System.currentTimeMillis() - testRunner.getStartTime();
+				testCase.getTestSuite().getProject().getExpectedRunTimes().record( testCase.getId(), timeTaken );
+			}
+			finally
 			{
-				updateStatus();
-
-				synchronized( activeRunners )
-				{
-					activeRunners.notify();
-				}
+				scheduler.finished( testCase );
 			}
 		}
 	}
@@ -48,6 +48,8 @@ import com.eviware.soapui.support.resolver.CreateMissingPropertyResolver;
 import com.eviware.soapui.support.resolver.DisablePropertyTransferResolver;
 import com.eviware.soapui.support.resolver.ResolveContext;
 import com.eviware.soapui.support.resolver.ResolveContext.PathToResolve;
+import com.eviware.soapui.support.xml.XPathCache;
+import com.eviware.soapui.support.xml.XmlObjectCache;
 import com.eviware.soapui.support.xml.XmlUtils;
 
 /**
@@ -331,8 +333,8 @@ public class PropertyTransfer implements PropertyChangeNotifier
 			String sourcePropertyValue = sourceProperty.getValue();
 			// XmlObject sourceXmlObject = sourcePropertyValue == null ? null :
 			// XmlObject.Factory.parse( sourcePropertyValue );
-			XmlObject sourceXmlObject = sourcePropertyValue == null ? null : XmlUtils
-					.createXmlObject( sourcePropertyValue );
+			XmlObject sourceXmlObject = sourcePropertyValue == null ? null : XmlObjectCache
+					.getXmlObject( sourcePropertyValue );
 			sourceXml = sourceXmlObject == null ? null : sourceXmlObject.newCursor();
 		}
 		catch( XmlException e )
@@ -361,7 +363,7 @@ public class PropertyTransfer implements PropertyChangeNotifier
 			List<String> result = new ArrayList<String>();
 
 			String tp = PropertyExpander.expandProperties( context, getTargetPath() );
-			targetXml.selectPath( tp );
+			targetXml.selectPath( XPathCache.getInstance().getCompiledPath( "", tp ) );
 
 			if( !targetXml.hasNextSelection() )
 				throw new Exception( "Missing match for Target XPath [" + tp + "]" );
@@ -381,7 +383,7 @@ public class PropertyTransfer implements PropertyChangeNotifier
 			else if( getUseXQuery() )
 			{
 				String sp = PropertyExpander.expandProperties( context, getSourcePath() );
-				XmlCursor resultCursor = sourceXml.execQuery( sp );
+				XmlCursor resultCursor = sourceXml.execQuery( XPathCache.getInstance().getCompiledQuery( "", sp ) );
 				sourceXml.dispose();
 				sourceXml = resultCursor;
 
@@ -411,7 +413,7 @@ public class PropertyTransfer implements PropertyChangeNotifier
 			else
 			{
 				String sp = PropertyExpander.expandProperties( context, getSourcePath() );
-				sourceXml.selectPath( sp );
+				sourceXml.selectPath( XPathCache.getInstance().getCompiledPath( "", sp ) );
 
 				if( !sourceXml.hasNextSelection() )
 				{
@@ -496,7 +498,7 @@ public class PropertyTransfer implements PropertyChangeNotifier
 			List<String> result = new ArrayList<String>();
 
 			String tp = PropertyExpander.expandProperties( context, getTargetPath() );
-			targetCursor.selectPath( tp );
+			targetCursor.selectPath( XPathCache.getInstance().getCompiledPath( "", tp ) );
 
 			if( !targetCursor.toNextSelection() )
 				throw new Exception( "Missing match for Target XPath [" + tp + "]" );
@@ -577,7 +579,7 @@ public class PropertyTransfer implements PropertyChangeNotifier
 
 		// XmlObject sourceXml = sourceValue == null ? null :
 		// XmlObject.Factory.parse( sourceValue );
-		XmlObject sourceXml = sourceValue == null ? null : XmlUtils.createXmlObject( sourceValue );
+		XmlObject sourceXml = sourceValue == null ? null : XmlObjectCache.getXmlObject( sourceValue );
 		XmlCursor sourceCursor = sourceValue == null ? null : sourceXml.newCursor();
 
 		try
@@ -587,13 +589,13 @@ public class PropertyTransfer implements PropertyChangeNotifier
 			String xquery = PropertyExpander.expandProperties( context, getSourcePath() );
 			if( getUseXQuery() )
 			{
-				XmlCursor resultCursor = sourceCursor.execQuery( xquery );
+				XmlCursor resultCursor = sourceCursor.execQuery( XPathCache.getInstance().getCompiledQuery( "", xquery ) );
 				sourceCursor.dispose();
 				sourceCursor = resultCursor;
 			}
 			else
 			{
-				sourceCursor.selectPath( xquery );
+				sourceCursor.selectPath( XPathCache.getInstance().getCompiledPath( "", xquery ) );
 			}
 
 			if( !getUseXQuery() && !sourceCursor.toNextSelection() )
@@ -18,7 +18,9 @@ import java.util.List;
 
 import javax.annotation.CheckForNull;
 
+import com.eviware.soapui.impl.wsdl.submit.transports.http.BaseHttpResponse;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.HttpResponse;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.SinglePartHttpResponse;
 import com.eviware.soapui.impl.wsdl.support.assertions.AssertedXPathsContainer;
 import com.eviware.soapui.impl.wsdl.teststeps.actions.ShowMessageExchangeAction;
 import com.eviware.soapui.model.ModelItem;
@@ -31,6 +33,7 @@ import com.eviware.soapui.model.testsuite.ResponseAssertedMessageExchange;
 import com.eviware.soapui.support.action.swing.ActionList;
 import com.eviware.soapui.support.types.StringToStringMap;
 import com.eviware.soapui.support.types.StringToStringsMap;
+import com.eviware.soapui.support.xml.XmlObjectCache;
 import com.eviware.soapui.support.xml.XmlUtils;
 
 /**
@@ -112,6 +115,9 @@ public class RestRequestStepResult extends WsdlTestStepResult implements Respons
 
 	public void setResponse( HttpResponse response )
 	{
+		if( response instanceof BaseHttpResponse )
+			( ( BaseHttpResponse )response ).retain();
+
 		this.response = response;
 	}
 
@@ -184,6 +190,14 @@ public class RestRequestStepResult extends WsdlTestStepResult implements Respons
 	{
 		super.discard();
 
+		// single part responses evict their documents when released, without
+		// decoding a spilled body
+		if( response != null && !( response instanceof SinglePartHttpResponse ) )
+			XmlObjectCache.evict( response.getContentAsString() );
+
+		if( response instanceof BaseHttpResponse )
+			( ( BaseHttpResponse )response ).release();
+
 		requestContent = null;
 		response = null;
 		properties = null;
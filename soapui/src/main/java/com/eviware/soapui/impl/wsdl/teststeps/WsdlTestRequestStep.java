@@ -340,11 +340,12 @@ public class WsdlTestRequestStep extends WsdlTestStepWithProperties implements O
 			{
 				WsdlSinglePartHttpResponse response = ( WsdlSinglePartHttpResponse )event.getNewValue();
 				WsdlRequest request = response.getRequest();
-				byte[] rawRequest = response.getRawRequestData();
 
 				firePropertyValueChanged( "Response", String.valueOf( response ), null );
 				firePropertyValueChanged( "Request", String.valueOf( request ), null );
-				firePropertyValueChanged( "RawRequest", String.valueOf( rawRequest ), null );
+				// the raw request changes with the response, don't build it just to
+				// notify about that
+				firePropertyValueChanged( "RawRequest", String.valueOf( response ), null );
 			}
 
 			if( event.getPropertyName().equals( "domain" ) )
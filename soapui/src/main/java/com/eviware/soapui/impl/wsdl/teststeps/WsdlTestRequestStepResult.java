@@ -20,6 +20,8 @@ import java.util.Vector;
 
 import com.eviware.soapui.impl.wsdl.WsdlOperation;
 import com.eviware.soapui.impl.wsdl.submit.WsdlMessageExchange;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.BaseHttpResponse;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.SinglePartHttpResponse;
 import com.eviware.soapui.impl.wsdl.submit.transports.http.WsdlResponse;
 import com.eviware.soapui.impl.wsdl.support.assertions.AssertedXPathsContainer;
 import com.eviware.soapui.impl.wsdl.support.soap.SoapVersion;
@@ -33,6 +35,7 @@ import com.eviware.soapui.model.testsuite.ResponseAssertedMessageExchange;
 import com.eviware.soapui.support.action.swing.ActionList;
 import com.eviware.soapui.support.types.StringToStringMap;
 import com.eviware.soapui.support.types.StringToStringsMap;
+import com.eviware.soapui.support.xml.XmlObjectCache;
 import com.eviware.soapui.support.xml.XmlUtils;
 
 /**
@@ -115,6 +118,9 @@ public class WsdlTestRequestStepResult extends WsdlTestStepResult implements Res
 
 	public void setResponse( WsdlResponse response, boolean useSoftReference )
 	{
+		if( response instanceof BaseHttpResponse )
+			( ( BaseHttpResponse )response ).retain();
+
 		if( useSoftReference )
 			this.softResponse = new SoftReference<WsdlResponse>( response );
 		else
@@ -188,6 +194,15 @@ public class WsdlTestRequestStepResult extends WsdlTestStepResult implements Res
 	{
 		super.discard();
 
+		// single part responses evict their documents when released, without
+		// decoding a spilled body
+		WsdlResponse resp = getResponse();
+		if( resp != null && !( resp instanceof SinglePartHttpResponse ) )
+			XmlObjectCache.evict( resp.getContentAsString() );
+
+		if( resp instanceof BaseHttpResponse )
+			( ( BaseHttpResponse )resp ).release();
+
 		softRequestContent = null;
 		softResponse = null;
 		properties = null;
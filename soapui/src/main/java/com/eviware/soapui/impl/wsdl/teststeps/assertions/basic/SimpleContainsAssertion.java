@@ -12,6 +12,8 @@
 
 package com.eviware.soapui.impl.wsdl.teststeps.assertions.basic;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,11 +22,13 @@ import org.apache.xmlbeans.XmlObject;
 import com.eviware.soapui.config.TestAssertionConfig;
 import com.eviware.soapui.impl.wsdl.panels.assertions.AssertionCategoryMapping;
 import com.eviware.soapui.impl.wsdl.panels.assertions.AssertionListEntry;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.SinglePartHttpResponse;
 import com.eviware.soapui.impl.wsdl.support.HelpUrls;
 import com.eviware.soapui.impl.wsdl.teststeps.WsdlMessageAssertion;
 import com.eviware.soapui.impl.wsdl.teststeps.assertions.AbstractTestAssertionFactory;
 import com.eviware.soapui.model.TestPropertyHolder;
 import com.eviware.soapui.model.iface.MessageExchange;
+import com.eviware.soapui.model.iface.Response;
 import com.eviware.soapui.model.iface.SubmitContext;
 import com.eviware.soapui.model.propertyexpansion.PropertyExpander;
 import com.eviware.soapui.model.propertyexpansion.PropertyExpansion;
@@ -77,6 +81,33 @@ public class SimpleContainsAssertion extends WsdlMessageAssertion implements Req
 	public String internalAssertResponse( MessageExchange messageExchange, SubmitContext context )
 			throws AssertionException
 	{
+		Response response = messageExchange.getResponse();
+
+		// response bodies spilled to disk are searched without decoding them
+		// into a String, regular expressions still need the complete content
+		if( !useRegEx && response instanceof SinglePartHttpResponse )
+		{
+			try
+			{
+				Reader reader = ( ( SinglePartHttpResponse )response ).getContentReader();
+				if( reader != null )
+				{
+					try
+					{
+						return assertContent( context, reader, "Response" );
+					}
+					finally
+					{
+						reader.close();
+					}
+				}
+			}
+			catch( IOException e )
+			{
+				throw new AssertionException( new AssertionError( "Failed to read response: " + e ) );
+			}
+		}
+
 		return assertContent( context, messageExchange.getResponseContent(), "Response" );
 	}
 
@@ -123,6 +154,85 @@ public class SimpleContainsAssertion extends WsdlMessageAssertion implements Req
 		return type + " contains token [" + replToken + "]";
 	}
 
+	private String assertContent( SubmitContext context, Reader content, String type ) throws AssertionException,
+			IOException
+	{
+		String replToken = PropertyExpander.expandProperties( context, token == null ? "" : token );
+		if( replToken == null )
+			replToken = "";
+
+		replToken = normalize( replToken );
+
+		if( replToken.length() > 0 && !containsToken( content, replToken, ignoreCase ) )
+			throw new AssertionException( new AssertionError( "Missing token [" + replToken + "] in " + type ) );
+
+		return type + " contains token [" + replToken + "]";
+	}
+
+	/**
+	 * Searches the content read from the specified reader for the token in the
+	 * same way as the String content is searched, with line breaks normalized
+	 * and characters compared in upper case when ignoring case
+	 */
+
+	static boolean containsToken( Reader content, String token, boolean ignoreCase ) throws IOException
+	{
+		char[] pattern = ignoreCase ? token.toUpperCase().toCharArray() : token.toCharArray();
+		if( pattern.length == 0 )
+			return true;
+
+		// Knuth-Morris-Pratt, so that the content is read only once
+		int[] fallback = new int[pattern.length];
+		for( int c = 1, k = 0; c < pattern.length; c++ )
+		{
+			while( k > 0 && pattern[c] != pattern[k] )
+				k = fallback[k - 1];
+
+			if( pattern[c] == pattern[k] )
+				k++;
+
+			fallback[c] = k;
+		}
+
+		char[] buffer = new char[8192];
+		int matched = 0;
+		boolean pendingCr = false;
+		int read;
+
+		while( ( read = content.read( buffer ) ) != -1 )
+		{
+			for( int c = 0; c < read; c++ )
+			{
+				char ch = buffer[c];
+
+				if( pendingCr )
+				{
+					pendingCr = false;
+					if( ch != '\n' && ( matched = match( pattern, fallback, matched, '\r', false ) ) == pattern.length )
+						return true;
+				}
+
+				if( ch == '\r' )
+					pendingCr = true;
+				else if( ( matched = match( pattern, fallback, matched, ch, ignoreCase ) ) == pattern.length )
+					return true;
+			}
+		}
+
+		return pendingCr && match( pattern, fallback, matched, '\r', false ) == pattern.length;
+	}
+
+	private static int match( char[] pattern, int[] fallback, int matched, char ch, boolean ignoreCase )
+	{
+		if( ignoreCase )
+			ch = Character.toUpperCase( ch );
+
+		while( matched > 0 && pattern[matched] != ch )
+			matched = fallback[matched - 1];
+
+		return pattern[matched] == ch ? matched + 1 : matched;
+	}
+
 	private String normalize( String string )
 	{
 
@@ -17,6 +17,7 @@ import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -31,6 +32,7 @@ import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.JTextArea;
 import javax.swing.SwingUtilities;
+import javax.xml.stream.XMLStreamException;
 
 import junit.framework.ComparisonFailure;
 
@@ -56,6 +58,9 @@ import com.eviware.soapui.impl.support.actions.ShowOnlineHelpAction;
 import com.eviware.soapui.impl.wsdl.WsdlInterface;
 import com.eviware.soapui.impl.wsdl.panels.assertions.AssertionCategoryMapping;
 import com.eviware.soapui.impl.wsdl.panels.assertions.AssertionListEntry;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.HttpResponse;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.ResponseBodyStore;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.SinglePartHttpResponse;
 import com.eviware.soapui.impl.wsdl.support.HelpUrls;
 import com.eviware.soapui.impl.wsdl.support.assertions.AssertedXPathImpl;
 import com.eviware.soapui.impl.wsdl.support.assertions.AssertedXPathsContainer;
@@ -66,6 +71,7 @@ import com.eviware.soapui.impl.wsdl.teststeps.assertions.AbstractTestAssertionFa
 import com.eviware.soapui.model.TestModelItem;
 import com.eviware.soapui.model.TestPropertyHolder;
 import com.eviware.soapui.model.iface.MessageExchange;
+import com.eviware.soapui.model.iface.Response;
 import com.eviware.soapui.model.iface.SubmitContext;
 import com.eviware.soapui.model.propertyexpansion.PropertyExpander;
 import com.eviware.soapui.model.propertyexpansion.PropertyExpansion;
@@ -85,6 +91,9 @@ import com.eviware.soapui.support.UISupport;
 import com.eviware.soapui.support.components.JUndoableTextArea;
 import com.eviware.soapui.support.components.JXToolBar;
 import com.eviware.soapui.support.types.StringList;
+import com.eviware.soapui.support.xml.StreamingXPath;
+import com.eviware.soapui.support.xml.XPathCache;
+import com.eviware.soapui.support.xml.XmlObjectCache;
 import com.eviware.soapui.support.xml.XmlObjectConfigurationBuilder;
 import com.eviware.soapui.support.xml.XmlObjectConfigurationReader;
 import com.eviware.soapui.support.xml.XmlUtils;
@@ -110,6 +119,7 @@ public class XPathContainsAssertion extends WsdlMessageAssertion implements Requ
 	private boolean allowWildcards;
 	private boolean ignoreNamespaceDifferences;
 	private boolean ignoreComments;
+	private boolean streaming;
 
 	public static final String ID = "XPath Match";
 	public static final String LABEL = "XPath Match";
@@ -117,6 +127,7 @@ public class XPathContainsAssertion extends WsdlMessageAssertion implements Requ
 	private JCheckBox allowWildcardsCheckBox;
 	private JCheckBox ignoreNamespaceDifferencesCheckBox;
 	private JCheckBox ignoreCommentsCheckBox;
+	private JCheckBox streamingCheckBox;
 
 	public XPathContainsAssertion( TestAssertionConfig assertionConfig, Assertable assertable )
 	{
@@ -128,6 +139,7 @@ public class XPathContainsAssertion extends WsdlMessageAssertion implements Requ
 		allowWildcards = reader.readBoolean( "allowWildcards", false );
 		ignoreNamespaceDifferences = reader.readBoolean( "ignoreNamspaceDifferences", false );
 		ignoreComments = reader.readBoolean( "ignoreComments", false );
+		streaming = reader.readBoolean( "streaming", false );
 	}
 
 	public String getExpectedContent()
@@ -194,14 +206,65 @@ public class XPathContainsAssertion extends WsdlMessageAssertion implements Requ
 		setConfiguration( createConfiguration() );
 	}
 
+	public boolean isStreaming()
+	{
+		return streaming;
+	}
+
+	/**
+	 * Sets if responses should be evaluated with a {@link StreamingXPath}
+	 * instead of being parsed, for paths that support this. Matched values are
+	 * not added to the asserted XPaths of the response when streaming.
+	 */
+
+	public void setStreaming( boolean streaming )
+	{
+		this.streaming = streaming;
+		setConfiguration( createConfiguration() );
+	}
+
 	@Override
 	protected String internalAssertResponse( MessageExchange messageExchange, SubmitContext context )
 			throws AssertionException
 	{
+		// responses spilled to disk are streamed whenever the path allows it
+		SinglePartHttpResponse spilledResponse = getSpilledResponse( messageExchange );
+		if( streaming || spilledResponse != null )
+		{
+			String result = assertStreaming( messageExchange, context );
+			if( result != null )
+				return result;
+		}
+
 		if( !messageExchange.hasResponse() )
 			return "Missing Response";
-		else
-			return assertContent( messageExchange.getResponseContentAsXml(), context, "Response" );
+
+		if( spilledResponse != null )
+		{
+			XmlObject xml;
+			try
+			{
+				xml = spilledResponse.getSpilledContentAsXmlObject( ignoreComments );
+			}
+			catch( Exception e )
+			{
+				throw createAssertionException( e );
+			}
+
+			if( xml != null )
+				return assertContent( null, xml, context, "Response" );
+		}
+
+		return assertContent( messageExchange.getResponseContentAsXml(), context, "Response" );
+	}
+
+	private static SinglePartHttpResponse getSpilledResponse( MessageExchange messageExchange )
+	{
+		Response response = messageExchange.getResponse();
+		if( response instanceof SinglePartHttpResponse && ( ( SinglePartHttpResponse )response ).isContentSpilled() )
+			return ( SinglePartHttpResponse )response;
+
+		return null;
 	}
 
 	protected String internalAssertProperty( TestPropertyHolder source, String propertyName,
@@ -216,6 +279,17 @@ public class XPathContainsAssertion extends WsdlMessageAssertion implements Requ
 	}
 
 	public String assertContent( String response, SubmitContext context, String type ) throws AssertionException
+	{
+		return assertContent( response, null, context, type );
+	}
+
+	/**
+	 * @param xml
+	 *           the already parsed content, or null for parsing the response
+	 */
+
+	private String assertContent( String response, XmlObject xml, SubmitContext context, String type )
+			throws AssertionException
 	{
 		try
 		{
@@ -224,18 +298,16 @@ public class XPathContainsAssertion extends WsdlMessageAssertion implements Requ
 			if( expectedContent == null )
 				return "Missing content for XPath assertion";
 
-			XmlOptions options = new XmlOptions();
-			if( ignoreComments )
-				options.setLoadStripComments();
-
 			// XmlObject xml = XmlObject.Factory.parse( response, options );
-			XmlObject xml = XmlUtils.createXmlObject( response, options );
+			if( xml == null )
+				xml = XmlObjectCache.getXmlObject( response, ignoreComments );
 			String expandedPath = PropertyExpander.expandProperties( context, path );
-			XmlObject[] items = xml.selectPath( expandedPath );
+			XmlObject[] items = xml.selectPath( XPathCache.getInstance().getCompiledPath( "", expandedPath ) );
 			AssertedXPathsContainer assertedXPathsContainer = ( AssertedXPathsContainer )context
 					.getProperty( AssertedXPathsContainer.ASSERTEDXPATHSCONTAINER_PROPERTY );
 
 			XmlObject contentObj = null;
+			XmlOptions options = null;
 			String expandedContent = PropertyExpander.expandProperties( context, expectedContent );
 
 			// stupid check for text selection for those situation that the
@@ -243,11 +315,17 @@ public class XPathContainsAssertion extends WsdlMessageAssertion implements Requ
 			// text actually contains xml which should be compared as a string.
 			if( !expandedPath.endsWith( "text()" ) )
 			{
+				options = new XmlOptions();
+				if( ignoreComments )
+					options.setLoadStripComments();
+
 				try
 				{
 					// contentObj = XmlObject.Factory.parse( expandedContent, options
 					// );
 					contentObj = XmlUtils.createXmlObject( expandedContent, options );
+					options.setSavePrettyPrint();
+					options.setSaveOuter();
 				}
 				catch( Exception e )
 				{
@@ -261,9 +339,6 @@ public class XPathContainsAssertion extends WsdlMessageAssertion implements Requ
 			if( items.length == 0 )
 				throw new Exception( "Missing content for xpath [" + path + "] in " + type );
 
-			options.setSavePrettyPrint();
-			options.setSaveOuter();
-
 			for( int c = 0; c < items.length; c++ )
 			{
 				try
@@ -331,32 +406,132 @@ public class XPathContainsAssertion extends WsdlMessageAssertion implements Requ
 		}
 		catch( Throwable e )
 		{
-			String msg = "";
+			throw createAssertionException( e );
+		}
 
-			if( e instanceof ComparisonFailure )
-			{
-				ComparisonFailure cf = ( ComparisonFailure )e;
-				String expected = cf.getExpected();
-				String actual = cf.getActual();
+		return type + " matches content for [" + path + "]";
+	}
+
+	/**
+	 * Evaluates the path while streaming the response instead of parsing it
+	 * 
+	 * @return the result, or null if the path or expected content can not be
+	 *         evaluated this way
+	 */
+
+	private String assertStreaming( MessageExchange messageExchange, SubmitContext context )
+			throws AssertionException
+	{
+		if( path == null || expectedContent == null )
+			return null;
 
-				// if( expected.length() > ERROR_LENGTH_LIMIT )
-				// expected = expected.substring(0, ERROR_LENGTH_LIMIT) + "..";
-				//
-				// if( actual.length() > ERROR_LENGTH_LIMIT )
-				// actual = actual.substring(0, ERROR_LENGTH_LIMIT) + "..";
+		StreamingXPath xpath = StreamingXPath.compile( PropertyExpander.expandProperties( context, path ) );
+		if( xpath == null )
+			return null;
 
-				msg = "XPathContains comparison failed for path [" + path + "], expecting [" + expected + "], actual was [" + actual + "]";
+		// xml content is compared as xml on the parsed match
+		String expandedContent = PropertyExpander.expandProperties( context, expectedContent );
+		if( expandedContent.trim().startsWith( "<" ) )
+			return null;
+
+		StreamingXPath.Selection selection = null;
+
+		try
+		{
+			selection = selectFromResponse( xpath, messageExchange );
+			if( selection == null )
+				return null;
+
+			if( !selection.toNextValue() )
+				throw new Exception( "Missing content for xpath [" + path + "] in Response" );
+
+			Throwable failure;
+
+			do
+			{
+				try
+				{
+					String expandedValue = PropertyExpander.expandProperties( context, selection.getValue() );
+					if( allowWildcards && !xpath.isCount() )
+						Tools.assertSimilar( expandedContent, expandedValue, '*' );
+					else
+						XMLAssert.assertEquals( expandedContent, expandedValue );
+
+					return "Response matches content for [" + path + "]";
+				}
+				catch( Throwable e )
+				{
+					failure = e;
+				}
 			}
-			else
+			while( selection.toNextValue() );
+
+			throw failure;
+		}
+		catch( Throwable e )
+		{
+			throw createAssertionException( e );
+		}
+		finally
+		{
+			if( selection != null )
+				selection.close();
+		}
+	}
+
+	private StreamingXPath.Selection selectFromResponse( StreamingXPath xpath, MessageExchange messageExchange )
+			throws XMLStreamException
+	{
+		Response response = messageExchange.getResponse();
+
+		// raw bytes can only be used as long as they are the actual content
+		if( response instanceof SinglePartHttpResponse )
+		{
+			SinglePartHttpResponse httpResponse = ( SinglePartHttpResponse )response;
+			ResponseBodyStore body = httpResponse.getResponseBodyStore();
+			String contentType = httpResponse.getContentType();
+
+			if( body != null && body.getLength() > 0 && !httpResponse.isResponseContentModified() && contentType != null
+					&& contentType.toLowerCase().indexOf( "xml" ) != -1 )
 			{
-				msg = "XPathContains assertion failed for path [" + path + "] : " + e.getClass().getSimpleName() + ":"
-						+ e.getMessage();
+				return xpath.select( body.getInputStream(), ignoreComments );
 			}
+		}
+
+		if( !messageExchange.hasResponse() )
+			return null;
+
+		String content = response instanceof HttpResponse ? ( ( HttpResponse )response ).getContentAsXml()
+				: messageExchange.getResponseContentAsXml();
+
+		return content == null ? null : xpath.select( new StringReader( content ), ignoreComments );
+	}
 
-			throw new AssertionException( new AssertionError( msg ) );
+	private AssertionException createAssertionException( Throwable e )
+	{
+		String msg = "";
+
+		if( e instanceof ComparisonFailure )
+		{
+			ComparisonFailure cf = ( ComparisonFailure )e;
+			String expected = cf.getExpected();
+			String actual = cf.getActual();
+
+			// if( expected.length() > ERROR_LENGTH_LIMIT )
+			// expected = expected.substring(0, ERROR_LENGTH_LIMIT) + "..";
+			//
+			// if( actual.length() > ERROR_LENGTH_LIMIT )
+			// actual = actual.substring(0, ERROR_LENGTH_LIMIT) + "..";
+
+			msg = "XPathContains comparison failed for path [" + path + "], expecting [" + expected + "], actual was [" + actual + "]";
+		}
+		else
+		{
+			msg = "XPathContains assertion failed for path [" + path + "] : " + e.getClass().getSimpleName() + ":"
+					+ e.getMessage();
 		}
 
-		return type + " matches content for [" + path + "]";
+		return new AssertionException( new AssertionError( msg ) );
 	}
 
 	private void compareValues( String expandedContent, String expandedValue, XmlObject object ) throws Exception
@@ -372,6 +547,9 @@ public class XPathContainsAssertion extends WsdlMessageAssertion implements Requ
 
 		if( !nodesToRemove.isEmpty() )
 		{
+			// the matched object belongs to a shared read-only document
+			object = object.copy();
+
 			for( String node : nodesToRemove )
 			{
 				if( node == null )
@@ -416,6 +594,7 @@ public class XPathContainsAssertion extends WsdlMessageAssertion implements Requ
 		contentArea.setText( expectedContent );
 		allowWildcardsCheckBox.setSelected( allowWildcards );
 		ignoreNamespaceDifferencesCheckBox.setSelected( ignoreNamespaceDifferences );
+		streamingCheckBox.setSelected( streaming );
 
 		UISupport.showDialog( configurationDialog );
 		return configureResult;
@@ -531,6 +710,15 @@ public class XPathContainsAssertion extends WsdlMessageAssertion implements Requ
 		ignoreCommentsCheckBox.setOpaque( false );
 		toolbar.addRelatedGap();
 		toolbar.addFixed( ignoreCommentsCheckBox );
+
+		streamingCheckBox = new JCheckBox( "Stream Response" );
+		streamingCheckBox.setToolTipText( "Evaluates simple paths while reading the response instead of parsing it, "
+				+ "for large responses" );
+		streamingCheckBox.setSize( dim );
+		streamingCheckBox.setPreferredSize( dim );
+		streamingCheckBox.setOpaque( false );
+		toolbar.addRelatedGap();
+		toolbar.addFixed( streamingCheckBox );
 	}
 
 	public XmlObject createConfiguration()
@@ -541,6 +729,7 @@ public class XPathContainsAssertion extends WsdlMessageAssertion implements Requ
 		builder.add( "allowWildcards", allowWildcards );
 		builder.add( "ignoreNamspaceDifferences", ignoreNamespaceDifferences );
 		builder.add( "ignoreComments", ignoreComments );
+		builder.add( "streaming", streaming );
 		return builder.finish();
 	}
 
@@ -675,6 +864,7 @@ public class XPathContainsAssertion extends WsdlMessageAssertion implements Requ
 			setAllowWildcards( allowWildcardsCheckBox.isSelected() );
 			setIgnoreNamespaceDifferences( ignoreNamespaceDifferencesCheckBox.isSelected() );
 			setIgnoreComments( ignoreCommentsCheckBox.isSelected() );
+			setStreaming( streamingCheckBox.isSelected() );
 			setConfiguration( createConfiguration() );
 			configureResult = true;
 			configurationDialog.setVisible( false );
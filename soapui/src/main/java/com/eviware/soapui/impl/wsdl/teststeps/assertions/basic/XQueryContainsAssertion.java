@@ -53,6 +53,7 @@ import com.eviware.soapui.impl.support.actions.ShowOnlineHelpAction;
 import com.eviware.soapui.impl.wsdl.WsdlInterface;
 import com.eviware.soapui.impl.wsdl.panels.assertions.AssertionCategoryMapping;
 import com.eviware.soapui.impl.wsdl.panels.assertions.AssertionListEntry;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.SinglePartHttpResponse;
 import com.eviware.soapui.impl.wsdl.support.HelpUrls;
 import com.eviware.soapui.impl.wsdl.testcase.WsdlTestRunContext;
 import com.eviware.soapui.impl.wsdl.teststeps.WsdlMessageAssertion;
@@ -61,6 +62,7 @@ import com.eviware.soapui.impl.wsdl.teststeps.assertions.AbstractTestAssertionFa
 import com.eviware.soapui.model.TestModelItem;
 import com.eviware.soapui.model.TestPropertyHolder;
 import com.eviware.soapui.model.iface.MessageExchange;
+import com.eviware.soapui.model.iface.Response;
 import com.eviware.soapui.model.iface.SubmitContext;
 import com.eviware.soapui.model.propertyexpansion.PropertyExpander;
 import com.eviware.soapui.model.propertyexpansion.PropertyExpansion;
@@ -79,6 +81,8 @@ import com.eviware.soapui.support.Tools;
 import com.eviware.soapui.support.UISupport;
 import com.eviware.soapui.support.components.JUndoableTextArea;
 import com.eviware.soapui.support.components.JXToolBar;
+import com.eviware.soapui.support.xml.XPathCache;
+import com.eviware.soapui.support.xml.XmlObjectCache;
 import com.eviware.soapui.support.xml.XmlObjectConfigurationBuilder;
 import com.eviware.soapui.support.xml.XmlObjectConfigurationReader;
 import com.eviware.soapui.support.xml.XmlUtils;
@@ -164,8 +168,27 @@ public class XQueryContainsAssertion extends WsdlMessageAssertion implements Req
 	{
 		if( !messageExchange.hasResponse() )
 			return "Missing Response";
-		else
-			return assertContent( messageExchange.getResponseContentAsXml(), context, "Response" );
+
+		// responses spilled to disk are parsed without decoding them into a
+		// String first
+		Response response = messageExchange.getResponse();
+		if( response instanceof SinglePartHttpResponse && ( ( SinglePartHttpResponse )response ).isContentSpilled() )
+		{
+			XmlObject xml;
+			try
+			{
+				xml = ( ( SinglePartHttpResponse )response ).getSpilledContentAsXmlObject( false );
+			}
+			catch( Exception e )
+			{
+				throw createAssertionException( e );
+			}
+
+			if( xml != null )
+				return assertContent( null, xml, context, "Response" );
+		}
+
+		return assertContent( messageExchange.getResponseContentAsXml(), context, "Response" );
 	}
 
 	protected String internalAssertProperty( TestPropertyHolder source, String propertyName,
@@ -180,6 +203,17 @@ public class XQueryContainsAssertion extends WsdlMessageAssertion implements Req
 	}
 
 	public String assertContent( String response, SubmitContext context, String type ) throws AssertionException
+	{
+		return assertContent( response, null, context, type );
+	}
+
+	/**
+	 * @param xml
+	 *           the already parsed content, or null for parsing the response
+	 */
+
+	private String assertContent( String response, XmlObject xml, SubmitContext context, String type )
+			throws AssertionException
 	{
 		try
 		{
@@ -189,9 +223,10 @@ public class XQueryContainsAssertion extends WsdlMessageAssertion implements Req
 				return "Missing content for XQuery Assertion";
 
 			// XmlObject xml = XmlObject.Factory.parse( response );
-			XmlObject xml = XmlUtils.createXmlObject( response );
+			if( xml == null )
+				xml = XmlObjectCache.getXmlObject( response );
 			String expandedPath = PropertyExpander.expandProperties( context, path );
-			XmlObject[] items = xml.execQuery( expandedPath );
+			XmlObject[] items = xml.execQuery( XPathCache.getInstance().getCompiledQuery( "", expandedPath ) );
 
 			XmlObject contentObj = null;
 			String expandedContent = PropertyExpander.expandProperties( context, expectedContent );
@@ -278,15 +313,20 @@ public class XQueryContainsAssertion extends WsdlMessageAssertion implements Req
 		}
 		catch( Throwable e )
 		{
-			String msg = "XQuery Match Assertion failed for path [" + path + "] : " + e.getClass().getSimpleName() + ":"
-					+ e.getMessage();
-
-			throw new AssertionException( new AssertionError( msg ) );
+			throw createAssertionException( e );
 		}
 
 		return type + " matches content for [" + path + "]";
 	}
 
+	private AssertionException createAssertionException( Throwable e )
+	{
+		String msg = "XQuery Match Assertion failed for path [" + path + "] : " + e.getClass().getSimpleName() + ":"
+				+ e.getMessage();
+
+		return new AssertionException( new AssertionError( msg ) );
+	}
+
 	private void compareValues( String expandedContent, String expandedValue ) throws Exception
 	{
 		Diff diff = new Diff( expandedContent, expandedValue );
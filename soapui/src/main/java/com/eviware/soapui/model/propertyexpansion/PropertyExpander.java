@@ -46,6 +46,20 @@ import com.eviware.soapui.support.xml.XmlUtils;
 
 public class PropertyExpander
 {
+	/**
+	 * Context property holding a StringToStringMap in which the values of
+	 * scoped properties are cached while it is set, used by transports to look
+	 * up each property only once per submit
+	 */
+
+	public static final String RESOLVED_PROPERTIES = "resolvedProperties";
+
+	private final static String[] CACHEABLE_SCOPES = { PropertyExpansion.SYSTEM_REFERENCE,
+			PropertyExpansion.ENV_REFERENCE, PropertyExpansion.GLOBAL_REFERENCE, PropertyExpansion.PROJECT_REFERENCE,
+			PropertyExpansion.TESTSUITE_REFERENCE, PropertyExpansion.TESTCASE_REFERENCE,
+			PropertyExpansion.MOCKSERVICE_REFERENCE, PropertyExpansion.MOCKRESPONSE_REFERENCE,
+			PropertyExpansion.SECURITYTEST_REFERENCE };
+
 	private List<PropertyResolver> propertyResolvers = new ArrayList<PropertyResolver>();
 	private static List<PropertyResolver> defaultResolvers = new ArrayList<PropertyResolver>();
 	private static PropertyExpander defaultExpander;
@@ -125,19 +139,23 @@ public class PropertyExpander
 
 	public String expand( PropertyExpansionContext context, String content, boolean entitize )
 	{
+		if( StringUtils.isNullOrEmpty( content ) || content.indexOf( "${" ) == -1 )
+			return content;
+
 		SoapUIClassLoaderState clState = SoapUIExtensionClassLoader.ensure();
 
 		try
 		{
+			boolean globalOverrideEnabled = SoapUI.getSettings().getBoolean( GlobalPropertySettings.ENABLE_OVERRIDE );
 
-			if( StringUtils.isNullOrEmpty( content ) )
-				return content;
+			PropertyExpansionTemplate template = PropertyExpansionTemplate.getTemplate( content );
+			if( template != null )
+				return expand( context, content, template, entitize, globalOverrideEnabled );
 
+			// nested or unterminated expansions, values may change the structure
+			// of the content so it has to be rescanned
+			StringBuilder buf = new StringBuilder( content.length() );
 			int ix = content.indexOf( "${" );
-			if( ix == -1 )
-				return content;
-
-			StringBuffer buf = new StringBuffer();
 			int lastIx = 0;
 			while( ix != -1 )
 			{
@@ -169,49 +187,7 @@ public class PropertyExpander
 				}
 
 				String propertyName = content.substring( ix + 2, ix2 );
-				String propertyValue = null;
-
-				if( StringUtils.hasContent( propertyName ) )
-				{
-					boolean globalOverrideEnabled = SoapUI.getSettings().getBoolean( GlobalPropertySettings.ENABLE_OVERRIDE );
-
-					for( int c = 0; c < propertyResolvers.size() && propertyValue == null; c++ )
-					{
-						propertyValue = propertyResolvers.get( c ).resolveProperty( context, propertyName,
-								globalOverrideEnabled );
-					}
-				}
-
-				// found a value?
-				if( propertyValue != null )
-				{
-					if( !content.equals( propertyValue ) )
-						propertyValue = expand( context, propertyValue );
-
-					if( entitize )
-						propertyValue = XmlUtils.entitize( propertyValue );
-
-					TestCase testCase = ModelSupport.getModelItemTestCase( context.getModelItem() );
-					if( debuggingMode && testCase != null )
-					{
-						StringToStringMap props = debuggingExpandedProperties.get( testCase.getId() );
-						if( props == null )
-						{
-							props = new StringToStringMap();
-						}
-						props.put( propertyName, propertyValue );
-						debuggingExpandedProperties.put( testCase.getId(), props );
-					}
-					buf.append( propertyValue );
-				}
-				else
-				{
-					// if( log.isEnabledFor( Priority.WARN ))
-					// log.warn( "Missing property value for [" + propertyName + "]"
-					// );
-
-					// buf.append( "${" ).append( propertyName ).append( '}' );
-				}
+				appendPropertyValue( buf, context, content, propertyName, entitize, globalOverrideEnabled );
 
 				lastIx = ix2 + 1;
 				ix = content.indexOf( "${", lastIx );
@@ -228,6 +204,111 @@ public class PropertyExpander
 		}
 	}
 
+	private String expand( PropertyExpansionContext context, String content, PropertyExpansionTemplate template,
+			boolean entitize, boolean globalOverrideEnabled )
+	{
+		int propertyCount = template.getPropertyCount();
+		StringBuilder buf = new StringBuilder( template.getLiteralLength() + 16 * propertyCount );
+
+		for( int c = 0; c < propertyCount; c++ )
+		{
+			buf.append( template.getLiteral( c ) );
+			appendPropertyValue( buf, context, content, template.getPropertyName( c ), entitize, globalOverrideEnabled );
+		}
+
+		buf.append( template.getLiteral( propertyCount ) );
+		return buf.toString();
+	}
+
+	private void appendPropertyValue( StringBuilder buf, PropertyExpansionContext context, String content,
+			String propertyName, boolean entitize, boolean globalOverrideEnabled )
+	{
+		String propertyValue = resolveProperty( context, propertyName, globalOverrideEnabled );
+
+		// found a value?
+		if( propertyValue != null )
+		{
+			if( !content.equals( propertyValue ) )
+				propertyValue = expand( context, propertyValue );
+
+			if( entitize )
+				propertyValue = XmlUtils.entitize( propertyValue );
+
+			TestCase testCase = ModelSupport.getModelItemTestCase( context.getModelItem() );
+			if( debuggingMode && testCase != null )
+			{
+				StringToStringMap props = debuggingExpandedProperties.get( testCase.getId() );
+				if( props == null )
+				{
+					props = new StringToStringMap();
+				}
+				props.put( propertyName, propertyValue );
+				debuggingExpandedProperties.put( testCase.getId(), props );
+			}
+			buf.append( propertyValue );
+		}
+		else
+		{
+			// if( log.isEnabledFor( Priority.WARN ))
+			// log.warn( "Missing property value for [" + propertyName + "]"
+			// );
+
+			// buf.append( "${" ).append( propertyName ).append( '}' );
+		}
+	}
+
+	private String resolveProperty( PropertyExpansionContext context, String propertyName,
+			boolean globalOverrideEnabled )
+	{
+		if( !StringUtils.hasContent( propertyName ) )
+			return null;
+
+		StringToStringMap resolvedProperties = isCacheable( propertyName ) ? getResolvedProperties( context ) : null;
+		if( resolvedProperties != null )
+		{
+			String propertyValue = resolvedProperties.get( propertyName );
+			if( propertyValue != null )
+				return propertyValue;
+		}
+
+		String propertyValue = null;
+		for( int c = 0; c < propertyResolvers.size() && propertyValue == null; c++ )
+		{
+			propertyValue = propertyResolvers.get( c ).resolveProperty( context, propertyName, globalOverrideEnabled );
+		}
+
+		if( propertyValue != null && resolvedProperties != null )
+			resolvedProperties.put( propertyName, propertyValue );
+
+		return propertyValue;
+	}
+
+	/**
+	 * Only lookups of properties of a scope (#Project#, #TestCase#, ...) are
+	 * cached, context and teststep properties may change during a submit and
+	 * script expressions must be evaluated every time
+	 */
+
+	private static boolean isCacheable( String propertyName )
+	{
+		if( propertyName.charAt( 0 ) != PropertyExpansion.SCOPE_PREFIX )
+			return false;
+
+		for( String scope : CACHEABLE_SCOPES )
+		{
+			if( propertyName.startsWith( scope ) )
+				return true;
+		}
+
+		return false;
+	}
+
+	private static StringToStringMap getResolvedProperties( PropertyExpansionContext context )
+	{
+		Object resolvedProperties = context.getProperty( RESOLVED_PROPERTIES );
+		return resolvedProperties instanceof StringToStringMap ? ( StringToStringMap )resolvedProperties : null;
+	}
+
 	public String expand( ModelItem contextModelItem, String content )
 	{
 		return expand( new DefaultPropertyExpansionContext( contextModelItem ), content );
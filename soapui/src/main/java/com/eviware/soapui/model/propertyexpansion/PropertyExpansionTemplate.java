@@ -0,0 +1,270 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.model.propertyexpansion;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content containing property expansions split into its literal text and the
+ * names of the expanded properties, so that the content only has to be scanned
+ * once no matter how often it is expanded. Escaped <code>$${</code> sequences
+ * are already unescaped in the literal text.
+ * <p>
+ * Content with nested or unterminated expansions can not be compiled; these
+ * are expanded by rescanning the content as before since the nested values may
+ * change the structure of the content. Compiled templates are cached on the
+ * identity of their content String, which is weakly referenced, so lookups do
+ * not have to hash or compare the content; request bodies and other
+ * configured values are expanded from the same String instance every time.
+ * When the cache is full the least recently used template is dropped. The
+ * maximum number of cached templates is set with the
+ * <code>soapui.propertyexpansion.cache.size</code> system property, 0 disables
+ * caching. Content longer than
+ * <code>soapui.propertyexpansion.cache.maxlength</code> characters, such as
+ * large request bodies, is compiled every time instead of being kept alive by
+ * the cache.
+ * </p>
+ */
+
+public final class PropertyExpansionTemplate
+{
+	public static final int DEFAULT_CACHE_SIZE = 1000;
+	public static final int DEFAULT_MAX_CACHED_LENGTH = 64 * 1024;
+
+	private final static int maxSize = Integer.getInteger( "soapui.propertyexpansion.cache.size", DEFAULT_CACHE_SIZE );
+	private final static int maxLength = Integer.getInteger( "soapui.propertyexpansion.cache.maxlength",
+			DEFAULT_MAX_CACHED_LENGTH );
+
+	// placeholder for content that can not be compiled, the map can not hold
+	// null values
+	private final static PropertyExpansionTemplate NOT_COMPILABLE = new PropertyExpansionTemplate( new String[0],
+			new String[0], 0 );
+
+	private final static Map<ContentKey, PropertyExpansionTemplate> templates = new LinkedHashMap<ContentKey, PropertyExpansionTemplate>(
+			16, 0.75f, true )
+	{
+		@Override
+		protected boolean removeEldestEntry( Map.Entry<ContentKey, PropertyExpansionTemplate> eldest )
+		{
+			return size() > maxSize;
+		}
+	};
+	private final static AtomicLong hits = new AtomicLong();
+	private final static AtomicLong misses = new AtomicLong();
+
+	private final String[] literals;
+	private final String[] propertyNames;
+	private final int literalLength;
+
+	private PropertyExpansionTemplate( String[] literals, String[] propertyNames, int literalLength )
+	{
+		this.literals = literals;
+		this.propertyNames = propertyNames;
+		this.literalLength = literalLength;
+	}
+
+	/**
+	 * Returns the template for the specified content, compiling it if it is not
+	 * cached yet.
+	 *
+	 * @return the template or null if the content contains nested or
+	 *         unterminated expansions
+	 */
+
+	public static PropertyExpansionTemplate getTemplate( String content )
+	{
+		if( maxSize <= 0 || content.length() > maxLength )
+		{
+			misses.incrementAndGet();
+			return compile( content );
+		}
+
+		ContentKey key = new ContentKey( content );
+		PropertyExpansionTemplate template;
+		synchronized( templates )
+		{
+			template = templates.get( key );
+		}
+
+		if( template != null )
+		{
+			hits.incrementAndGet();
+			return template == NOT_COMPILABLE ? null : template;
+		}
+
+		misses.incrementAndGet();
+		template = compile( content );
+
+		synchronized( templates )
+		{
+			templates.put( key, template == null ? NOT_COMPILABLE : template );
+		}
+
+		return template;
+	}
+
+	/**
+	 * Splits the specified content in the same way as
+	 * {@link PropertyExpander#expand(PropertyExpansionContext, String, boolean)}
+	 * scans it.
+	 *
+	 * @return the template or null if the content contains nested or
+	 *         unterminated expansions
+	 */
+
+	public static PropertyExpansionTemplate compile( String content )
+	{
+		List<String> literals = new ArrayList<String>();
+		List<String> propertyNames = new ArrayList<String>();
+		StringBuilder buf = new StringBuilder();
+		int literalLength = 0;
+
+		int ix = content.indexOf( "${" );
+		int lastIx = 0;
+		while( ix != -1 )
+		{
+			if( ix > lastIx && content.charAt( ix - 1 ) == '$' )
+			{
+				buf.append( content, lastIx, ix - 1 );
+				lastIx = ix;
+				ix = content.indexOf( "${", lastIx + 1 );
+				continue;
+			}
+
+			if( ix > lastIx )
+				buf.append( content, lastIx, ix );
+
+			int ix2 = content.indexOf( '}', ix + 2 );
+			if( ix2 == -1 || content.lastIndexOf( "${", ix2 ) != ix )
+				return null;
+
+			literals.add( buf.toString() );
+			literalLength += buf.length();
+			buf.setLength( 0 );
+
+			propertyNames.add( content.substring( ix + 2, ix2 ) );
+
+			lastIx = ix2 + 1;
+			ix = content.indexOf( "${", lastIx );
+		}
+
+		if( lastIx < content.length() )
+			buf.append( content, lastIx, content.length() );
+
+		literals.add( buf.toString() );
+		literalLength += buf.length();
+
+		return new PropertyExpansionTemplate( literals.toArray( new String[literals.size()] ),
+				propertyNames.toArray( new String[propertyNames.size()] ), literalLength );
+	}
+
+	/**
+	 * @return the number of expanded properties
+	 */
+
+	public int getPropertyCount()
+	{
+		return propertyNames.length;
+	}
+
+	public String getPropertyName( int index )
+	{
+		return propertyNames[index];
+	}
+
+	/**
+	 * @return the literal text preceding the property at the specified index,
+	 *         or the trailing text for an index equal to the property count
+	 */
+
+	public String getLiteral( int index )
+	{
+		return literals[index];
+	}
+
+	/**
+	 * @return the total length of the literal text, used for sizing the
+	 *         expanded result
+	 */
+
+	public int getLiteralLength()
+	{
+		return literalLength;
+	}
+
+	public static void clear()
+	{
+		synchronized( templates )
+		{
+			templates.clear();
+		}
+	}
+
+	public static int getMaxSize()
+	{
+		return maxSize;
+	}
+
+	public static long getHitCount()
+	{
+		return hits.get();
+	}
+
+	public static long getMissCount()
+	{
+		return misses.get();
+	}
+
+	public static void resetCounters()
+	{
+		hits.set( 0 );
+		misses.set( 0 );
+	}
+
+	private static final class ContentKey
+	{
+		private final WeakReference<String> content;
+		private final int hash;
+
+		public ContentKey( String content )
+		{
+			this.content = new WeakReference<String>( content );
+			hash = System.identityHashCode( content );
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals( Object obj )
+		{
+			if( obj == this )
+				return true;
+
+			if( !( obj instanceof ContentKey ) )
+				return false;
+
+			// cleared keys are only equal to themselves and are evicted in time
+			String referent = content.get();
+			return referent != null && referent == ( ( ContentKey )obj ).content.get();
+		}
+	}
+}
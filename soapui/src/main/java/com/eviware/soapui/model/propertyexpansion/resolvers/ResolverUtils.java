@@ -22,6 +22,8 @@ import com.eviware.soapui.model.propertyexpansion.PropertyExpansion;
 import com.eviware.soapui.model.propertyexpansion.PropertyExpansionContext;
 import com.eviware.soapui.model.propertyexpansion.PropertyExpansionUtils;
 import com.eviware.soapui.model.testsuite.TestProperty;
+import com.eviware.soapui.support.xml.XPathCache;
+import com.eviware.soapui.support.xml.XmlObjectCache;
 import com.eviware.soapui.support.xml.XmlUtils;
 
 public class ResolverUtils
@@ -90,9 +92,10 @@ public class ResolverUtils
 			String value = property instanceof TestProperty ? ( ( TestProperty )property ).getValue() : property
 					.toString();
 			// XmlObject xmlObject = XmlObject.Factory.parse( value );
-			XmlObject xmlObject = XmlUtils.createXmlObject( value );
-			String ns = xpath.trim().startsWith( "declare namespace" ) ? "" : XmlUtils.declareXPathNamespaces( xmlObject );
-			Node domNode = XmlUtils.selectFirstDomNode( xmlObject, ns + xpath );
+			XmlObject xmlObject = XmlObjectCache.getXmlObject( value );
+			String ns = xpath.trim().startsWith( "declare namespace" ) ? "" : XPathCache.getInstance()
+					.getNamespaceDeclarations( xmlObject );
+			Node domNode = XmlUtils.selectFirstDomNode( xmlObject, XPathCache.getInstance().getCompiledPath( ns, xpath ) );
 			return domNode == null ? null : XmlUtils.getValueForMatch( domNode, false );
 		}
 		catch( Exception e )
@@ -23,6 +23,7 @@ public interface TestRunContext extends SubmitContext, PropertyExpansionContext
 	public static final String TOTAL_RUN_COUNT = "TotalRunCount";
 	public static final String LOAD_TEST_CONTEXT = "LoadTestContext";
 	public static final String INTERACTIVE = "Interactive";
+	public static final String START_LAG = "StartLag";
 
 	public String expand( String content );
 
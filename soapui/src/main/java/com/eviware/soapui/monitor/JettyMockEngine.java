@@ -76,6 +76,7 @@ public class JettyMockEngine implements MockEngine
 	public final static Logger log = Logger.getLogger( JettyMockEngine.class );
 
 	private Server server;
+	private SoapUIJettyThreadPool threadPool;
 	private Map<Integer, Map<String, List<MockRunner>>> runners = new HashMap<Integer, Map<String, List<MockRunner>>>();
 	private Map<Integer, SoapUIConnector> connectors = new HashMap<Integer, SoapUIConnector>();
 	private List<MockRunner> mockRunners = new ArrayList<MockRunner>();
@@ -152,6 +153,12 @@ public class JettyMockEngine implements MockEngine
 				server.addConnector( connector );
 				try
 				{
+					if( threadPool == null )
+					{
+						threadPool = new SoapUIJettyThreadPool( "mock" );
+						server.setThreadPool( threadPool );
+					}
+
 					server.start();
 				}
 				catch( RuntimeException e )
@@ -186,8 +193,7 @@ public class JettyMockEngine implements MockEngine
 	private void initServer() throws Exception
 	{
 		server = new Server();
-		server.setThreadPool( new SoapUIJettyThreadPool() );
-		server.setHandler( new ServerHandler() );
+		server.setHandler( new SoapUIJettyOverloadHandler( new ServerHandler() ) );
 
 		RequestLogHandler logHandler = new RequestLogHandler();
 		logHandler.setRequestLog( new MockRequestLog() );
@@ -264,6 +270,13 @@ public class JettyMockEngine implements MockEngine
 					{
 						log.info( "No more connectors.. stopping server" );
 						server.stop();
+
+						// a new pool is created when the server is started again
+						if( threadPool != null )
+						{
+							threadPool.shutdown();
+							threadPool = null;
+						}
 						if( sslConnector != null )
 						{
 							// server.removeConnector( sslConnector );
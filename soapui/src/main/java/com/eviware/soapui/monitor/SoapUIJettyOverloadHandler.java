@@ -0,0 +1,57 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.monitor;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.mortbay.jetty.Handler;
+import org.mortbay.jetty.HttpConnection;
+import org.mortbay.jetty.Request;
+import org.mortbay.jetty.handler.HandlerWrapper;
+
+/**
+ * Answers requests with a 503 when they are handled on the rejection thread of
+ * an exhausted {@link SoapUIJettyThreadPool}, and passes all other requests on
+ * to the wrapped handler.
+ */
+
+public class SoapUIJettyOverloadHandler extends HandlerWrapper
+{
+	public SoapUIJettyOverloadHandler( Handler handler )
+	{
+		setHandler( handler );
+	}
+
+	@Override
+	public void handle( String target, HttpServletRequest request, HttpServletResponse response, int dispatch )
+			throws IOException, ServletException
+	{
+		if( !SoapUIJettyThreadPool.isRejecting() )
+		{
+			super.handle( target, request, response, dispatch );
+			return;
+		}
+
+		// close the connection so the rejection thread is not kept busy
+		response.setHeader( "Connection", "close" );
+		response.sendError( HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many concurrent requests" );
+
+		Request baseRequest = request instanceof Request ? ( Request )request : HttpConnection.getCurrentConnection()
+				.getRequest();
+		baseRequest.setHandled( true );
+	}
+}
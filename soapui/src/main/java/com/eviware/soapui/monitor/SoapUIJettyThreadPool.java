@@ -12,54 +12,248 @@
 
 package com.eviware.soapui.monitor;
 
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.log4j.Logger;
 import org.mortbay.thread.ThreadPool;
 
 import com.eviware.soapui.SoapUI;
 
-/*
- *  SoapUI, copyright (C) 2004-2012 smartbear.com
- *
- *  SoapUI is free software; you can redistribute it and/or modify it under the
- *  terms of version 2.1 of the GNU Lesser General Public License as published by 
- *  the Free Software Foundation.
- *
- *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
- *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
- *  See the GNU Lesser General Public License for more details at gnu.org.
+/**
+ * Bounded Jetty ThreadPool for the mock engine and the monitor, so that they no
+ * longer compete with LoadTests for the shared SoapUI thread pool.
+ * <p>
+ * At most <code>soapui.&lt;name&gt;.threadpool.max</code> jobs run at the same
+ * time (including the connector acceptors and selectors) and at most
+ * <code>soapui.&lt;name&gt;.threadpool.queue</code> further jobs wait for a
+ * thread. Jobs beyond that are run one at a time by a separate rejection thread
+ * on which {@link #isRejecting()} returns true, so that
+ * {@link SoapUIJettyOverloadHandler} answers them with a 503 instead of
+ * processing them.
+ * </p>
  */
 
 public final class SoapUIJettyThreadPool implements ThreadPool
 {
+	public static final int DEFAULT_MAX_THREADS = 100;
+	public static final int DEFAULT_QUEUE_SIZE = 200;
+	public static final long IDLE_TIMEOUT = 60000;
+
+	private final static Logger log = Logger.getLogger( SoapUIJettyThreadPool.class );
+	private final static ThreadLocal<Boolean> rejecting = new ThreadLocal<Boolean>();
+
+	private final String name;
+	private final int maxThreads;
+	private final int queueSize;
+	private final ThreadPoolExecutor threadPool;
+	private final ThreadPoolExecutor rejectionPool;
+	private final AtomicInteger pending = new AtomicInteger();
+	private final AtomicInteger active = new AtomicInteger();
+	private final AtomicLong rejected = new AtomicLong();
+
+	public SoapUIJettyThreadPool( String name )
+	{
+		this( name, Integer.getInteger( "soapui." + name + ".threadpool.max", DEFAULT_MAX_THREADS ), Integer.getInteger(
+				"soapui." + name + ".threadpool.queue", DEFAULT_QUEUE_SIZE ) );
+	}
+
+	public SoapUIJettyThreadPool( String name, int maxThreads, int queueSize )
+	{
+		this.name = name;
+		this.maxThreads = Math.max( 1, maxThreads );
+		this.queueSize = Math.max( 0, queueSize );
+
+		// the queue is bounded by the pending count, so all threads are created
+		// before jobs are queued
+		threadPool = new ThreadPoolExecutor( this.maxThreads, this.maxThreads, IDLE_TIMEOUT, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(), new JettyThreadFactory( name ) );
+		threadPool.allowCoreThreadTimeOut( true );
+
+		rejectionPool = new ThreadPoolExecutor( 1, 1, IDLE_TIMEOUT, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>( Math.max( 1, this.queueSize ) ), new JettyThreadFactory( name
+						+ " rejection" ) );
+		rejectionPool.allowCoreThreadTimeOut( true );
+	}
+
 	@Override
-	public boolean dispatch( Runnable arg0 )
+	public boolean dispatch( Runnable job )
+	{
+		if( pending.incrementAndGet() > maxThreads + queueSize )
+		{
+			pending.decrementAndGet();
+			return reject( job );
+		}
+
+		try
+		{
+			threadPool.execute( new Job( job ) );
+			return true;
+		}
+		catch( RejectedExecutionException e )
+		{
+			pending.decrementAndGet();
+			return reject( job );
+		}
+	}
+
+	private boolean reject( final Runnable job )
+	{
+		if( rejected.incrementAndGet() == 1 )
+			log.warn( "The " + name + " thread pool is exhausted, rejecting requests with 503" );
+
+		try
+		{
+			rejectionPool.execute( new Runnable()
+			{
+				public void run()
+				{
+					rejecting.set( Boolean.TRUE );
+					try
+					{
+						job.run();
+					}
+					finally
+					{
+						rejecting.remove();
+					}
+				}
+			} );
+
+			return true;
+		}
+		catch( RejectedExecutionException e )
+		{
+			// Jetty closes or retries the connection
+			return false;
+		}
+	}
+
+	/**
+	 * @return true if the calling thread is processing a job that was rejected
+	 *         because the pool is exhausted
+	 */
+
+	public static boolean isRejecting()
 	{
-		SoapUI.getThreadPool().execute( arg0 );
-		return true;
+		return Boolean.TRUE.equals( rejecting.get() );
 	}
 
 	@Override
 	public int getIdleThreads()
 	{
-		return 0;
+		return Math.max( 0, threadPool.getPoolSize() - threadPool.getActiveCount() );
 	}
 
 	@Override
 	public int getThreads()
 	{
-		return SoapUI.getThreadPool().getActiveCount();
+		return threadPool.getPoolSize();
+	}
+
+	/**
+	 * @return the number of jobs currently being run
+	 */
+
+	public int getActiveThreads()
+	{
+		return active.get();
+	}
+
+	/**
+	 * @return the number of jobs waiting for a thread
+	 */
+
+	public int getQueuedJobs()
+	{
+		return Math.max( 0, pending.get() - active.get() );
+	}
+
+	public long getRejectedCount()
+	{
+		return rejected.get();
+	}
+
+	public int getMaxThreads()
+	{
+		return maxThreads;
+	}
+
+	public int getQueueSize()
+	{
+		return queueSize;
 	}
 
 	@Override
 	public boolean isLowOnThreads()
 	{
-		return false;
+		return pending.get() >= maxThreads;
 	}
 
 	@Override
 	public void join() throws InterruptedException
 	{
-		SoapUI.getThreadPool().awaitTermination( 30, TimeUnit.SECONDS );
+		threadPool.awaitTermination( 30, TimeUnit.SECONDS );
+	}
+
+	/**
+	 * Stops accepting jobs, running jobs are completed
+	 */
+
+	public void shutdown()
+	{
+		threadPool.shutdown();
+		rejectionPool.shutdown();
+	}
+
+	private final class Job implements Runnable
+	{
+		private final Runnable job;
+
+		public Job( Runnable job )
+		{
+			this.job = job;
+		}
+
+		public void run()
+		{
+			active.incrementAndGet();
+			try
+			{
+				job.run();
+			}
+			finally
+			{
+				active.decrementAndGet();
+				pending.decrementAndGet();
+			}
+		}
+	}
+
+	private static final class JettyThreadFactory implements ThreadFactory
+	{
+		private final String name;
+		private final AtomicInteger threadCounter = new AtomicInteger();
+
+		public JettyThreadFactory( String name )
+		{
+			this.name = "SoapUI " + name + " ";
+		}
+
+		public Thread newThread( Runnable r )
+		{
+			Thread thread = new Thread( r, name + threadCounter.incrementAndGet() );
+			thread.setDaemon( true );
+
+			if( SoapUI.getSoapUICore() != null )
+				thread.setContextClassLoader( SoapUI.getSoapUICore().getExtensionClassLoader() );
+
+			return thread;
+		}
 	}
 }
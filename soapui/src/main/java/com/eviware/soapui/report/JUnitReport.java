@@ -135,6 +135,40 @@ public class JUnitReport
 		return testcase;
 	}
 
+	/**
+	 * Adds the testcases of a saved report of the same TestSuite
+	 */
+
+	public void addTestSuite( Testsuite testsuite )
+	{
+		if( testsuiteDoc.getTestsuite().getName() == null )
+		{
+			setTestSuiteName( testsuite.getName() );
+			if( testsuite.getPackage() != null )
+				setPackage( testsuite.getPackage() );
+		}
+
+		for( Testcase testcase : testsuite.getTestcaseArray() )
+		{
+			testsuiteDoc.getTestsuite().addNewTestcase().set( testcase );
+			noofTestCases++ ;
+
+			if( testcase.isSetFailure() )
+				noofFailures++ ;
+			if( testcase.isSetError() )
+				noofErrors++ ;
+
+			try
+			{
+				if( testcase.getTime() != null )
+					totalTime += Double.parseDouble( testcase.getTime() ) * 1000;
+			}
+			catch( NumberFormatException e )
+			{
+			}
+		}
+	}
+
 	private void setSystemProperties( Properties properties )
 	{
 		Set<?> keys = System.getProperties().keySet();
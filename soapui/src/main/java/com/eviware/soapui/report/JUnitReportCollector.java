@@ -16,11 +16,15 @@ import java.io.File;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import com.eviware.soapui.junit.TestsuiteDocument;
 import com.eviware.soapui.model.testsuite.ProjectRunContext;
 import com.eviware.soapui.model.testsuite.ProjectRunListener;
 import com.eviware.soapui.model.testsuite.ProjectRunner;
@@ -87,6 +91,54 @@ public class JUnitReportCollector implements TestRunListener, TestSuiteRunListen
 		return result;
 	}
 
+	/**
+	 * Merges the reports saved to several folders, for example by sharded
+	 * runs, into one report per TestSuite
+	 */
+
+	public static List<String> mergeReports( List<File> folders, String path ) throws Exception
+	{
+		Map<String, JUnitReport> merged = new LinkedHashMap<String, JUnitReport>();
+
+		for( File folder : folders )
+		{
+			File[] files = folder.listFiles();
+			if( files == null )
+				continue;
+
+			Arrays.sort( files );
+			for( File file : files )
+			{
+				String name = file.getName();
+				if( !name.startsWith( "TEST-" ) || !name.endsWith( ".xml" ) )
+					continue;
+
+				JUnitReport report = merged.get( name );
+				if( report == null )
+				{
+					report = new JUnitReport();
+					merged.put( name, report );
+				}
+
+				report.addTestSuite( TestsuiteDocument.Factory.parse( file ).getTestsuite() );
+			}
+		}
+
+		File file = new File( path );
+		if( !file.exists() || !file.isDirectory() )
+			file.mkdirs();
+
+		List<String> result = new ArrayList<String>();
+		for( String name : merged.keySet() )
+		{
+			String fileName = path + File.separatorChar + name;
+			merged.get( name ).save( new File( fileName ) );
+			result.add( fileName );
+		}
+
+		return result;
+	}
+
 	public HashMap<String, JUnitReport> getReports()
 	{
 		return reports;
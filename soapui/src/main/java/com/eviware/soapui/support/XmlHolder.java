@@ -23,6 +23,7 @@ import org.w3c.dom.Node;
 
 import com.eviware.soapui.model.propertyexpansion.PropertyExpansionContext;
 import com.eviware.soapui.support.types.StringToStringMap;
+import com.eviware.soapui.support.xml.XPathCache;
 import com.eviware.soapui.support.xml.XmlUtils;
 
 public class XmlHolder implements Map<String, Object>
@@ -100,20 +101,26 @@ public class XmlHolder implements Map<String, Object>
 		return XmlUtils.selectNodeValues( xmlObject, xpath );
 	}
 
-	private String initXPathNamespaces( String xpath )
+	/**
+	 * Prefixes the specified path with the declared namespaces, or with those
+	 * of the document, and returns it compiled through the {@link XPathCache}.
+	 */
+
+	private String initXPathNamespaces( String xpath ) throws XmlException
 	{
+		String namespaces = "";
 		if( declaredNamespaces != null && !declaredNamespaces.isEmpty() )
 		{
 			for( String prefix : declaredNamespaces.keySet() )
 			{
-				xpath = "declare namespace " + prefix + "='" + declaredNamespaces.get( prefix ) + "';\n" + xpath;
+				namespaces = "declare namespace " + prefix + "='" + declaredNamespaces.get( prefix ) + "';\n" + namespaces;
 			}
 		}
 		else if( !xpath.trim().startsWith( "declare namespace" ) )
 		{
-			xpath = XmlUtils.declareXPathNamespaces( xmlObject ) + xpath;
+			namespaces = XPathCache.getInstance().getNamespaceDeclarations( xmlObject );
 		}
-		return xpath;
+		return XPathCache.getInstance().getCompiledPath( namespaces, xpath );
 	}
 
 	public void setNodeValue( String xpath, Object value ) throws XmlException
@@ -155,7 +162,7 @@ public class XmlHolder implements Map<String, Object>
 
 	public void removeDomNodes( String xpath ) throws XmlException
 	{
-		xpath = initXPathNamespaces( xpath );
+		// getDomNodes declares the namespaces
 		Node[] nodes = getDomNodes( xpath );
 		for( Node node : nodes )
 		{
@@ -0,0 +1,289 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.support.scripting.groovy;
+
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.Script;
+
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.net.URLClassLoader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.codehaus.groovy.control.CompilerConfiguration;
+
+/**
+ * Process-wide cache of compiled Groovy script classes, shared by all
+ * SoapUIGroovyScriptEngines so that identical scripts (for example in the
+ * testcase copies created for each LoadTest thread) are only compiled once.
+ * Engines create their own Script instances with their own Binding from the
+ * cached class.
+ * <p>
+ * Entries are keyed on the script text and the state of the parent
+ * classloader, so scripts are recompiled when jars are added to the extension
+ * classloader. Each entry is compiled in its own GroovyClassLoader so that it
+ * can be garbage collected once evicted. The parent classloader is held
+ * weakly and the compiled class softly, since the class references the parent
+ * through its GroovyClassLoader; the cache does not keep a discarded parent
+ * classloader alive once memory gets low. The maximum number of cached scripts
+ * is set with the <code>soapui.scripting.cache.size</code> system property, 0
+ * disables caching.
+ * </p>
+ */
+
+public final class GroovyScriptCache
+{
+	public static final int DEFAULT_CACHE_SIZE = 500;
+
+	private final static GroovyScriptCache instance = new GroovyScriptCache( Integer.getInteger(
+			"soapui.scripting.cache.size", DEFAULT_CACHE_SIZE ) );
+
+	private final int maxSize;
+	private final Map<CacheKey, CacheEntry> entries;
+	private final AtomicInteger scriptCounter = new AtomicInteger();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	GroovyScriptCache( final int maxSize )
+	{
+		this.maxSize = maxSize;
+
+		entries = new LinkedHashMap<CacheKey, CacheEntry>( 16, 0.75f, true )
+		{
+			@Override
+			protected boolean removeEldestEntry( Map.Entry<CacheKey, CacheEntry> eldest )
+			{
+				return size() > maxSize;
+			}
+		};
+	}
+
+	public static GroovyScriptCache getInstance()
+	{
+		return instance;
+	}
+
+	/**
+	 * Returns the compiled class for the specified script text, compiling it if
+	 * it is not yet cached. Concurrent requests for the same script wait for a
+	 * single compilation.
+	 */
+
+	public Class<? extends Script> getScriptClass( String scriptText, ClassLoader parentClassLoader,
+			CompilerConfiguration config ) throws Exception
+	{
+		if( maxSize <= 0 )
+		{
+			misses.incrementAndGet();
+			return compile( scriptText, parentClassLoader, config );
+		}
+
+		CacheKey key = new CacheKey( scriptText, parentClassLoader );
+		while( true )
+		{
+			CacheEntry entry;
+			boolean compileEntry = false;
+
+			synchronized( entries )
+			{
+				entry = entries.get( key );
+				if( entry == null )
+				{
+					entry = new CacheEntry();
+					entries.put( key, entry );
+					compileEntry = true;
+				}
+			}
+
+			if( compileEntry )
+			{
+				misses.incrementAndGet();
+
+				try
+				{
+					Class<? extends Script> scriptClass = compile( scriptText, parentClassLoader, config );
+					entry.setScriptClass( scriptClass );
+					return scriptClass;
+				}
+				catch( Exception e )
+				{
+					// do not cache failures, the script will most likely be edited
+					remove( key, entry );
+					entry.setError( e );
+					throw e;
+				}
+			}
+
+			Class<? extends Script> scriptClass = entry.getScriptClass();
+			if( scriptClass != null )
+			{
+				hits.incrementAndGet();
+				return scriptClass;
+			}
+
+			// the class has been collected, compile it again
+			remove( key, entry );
+		}
+	}
+
+	private void remove( CacheKey key, CacheEntry entry )
+	{
+		synchronized( entries )
+		{
+			if( entries.get( key ) == entry )
+				entries.remove( key );
+		}
+	}
+
+	@SuppressWarnings( "unchecked" )
+	private Class<? extends Script> compile( String scriptText, ClassLoader parentClassLoader,
+			CompilerConfiguration config )
+	{
+		GroovyClassLoader classLoader = new GroovyClassLoader( parentClassLoader, config );
+		return classLoader.parseClass( scriptText, "Script" + scriptCounter.incrementAndGet() + ".groovy" );
+	}
+
+	/**
+	 * Removes the compiled class for the specified script, called when a script
+	 * has been changed so that the old class can be unloaded
+	 */
+
+	public void invalidate( String scriptText, ClassLoader parentClassLoader )
+	{
+		if( scriptText == null )
+			return;
+
+		synchronized( entries )
+		{
+			entries.remove( new CacheKey( scriptText, parentClassLoader ) );
+		}
+	}
+
+	public void clear()
+	{
+		synchronized( entries )
+		{
+			entries.clear();
+		}
+	}
+
+	public int getSize()
+	{
+		synchronized( entries )
+		{
+			return entries.size();
+		}
+	}
+
+	public int getMaxSize()
+	{
+		return maxSize;
+	}
+
+	public long getHitCount()
+	{
+		return hits.get();
+	}
+
+	public long getMissCount()
+	{
+		return misses.get();
+	}
+
+	public void resetCounters()
+	{
+		hits.set( 0 );
+		misses.set( 0 );
+	}
+
+	private static final class CacheKey
+	{
+		private final String scriptText;
+		private final WeakReference<ClassLoader> classLoader;
+		private final int classLoaderState;
+		private final int hash;
+
+		public CacheKey( String scriptText, ClassLoader classLoader )
+		{
+			this.scriptText = scriptText;
+			this.classLoader = new WeakReference<ClassLoader>( classLoader );
+
+			// jars are only ever added to the extension classloader
+			classLoaderState = classLoader instanceof URLClassLoader ? ( ( URLClassLoader )classLoader ).getURLs().length
+					: 0;
+
+			hash = 31 * ( 31 * scriptText.hashCode() + System.identityHashCode( classLoader ) ) + classLoaderState;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals( Object obj )
+		{
+			if( obj == this )
+				return true;
+
+			if( !( obj instanceof CacheKey ) )
+				return false;
+
+			// cleared keys are only equal to themselves and are evicted in time
+			CacheKey other = ( CacheKey )obj;
+			ClassLoader referent = classLoader.get();
+			return hash == other.hash && referent != null && referent == other.classLoader.get()
+					&& classLoaderState == other.classLoaderState && scriptText.equals( other.scriptText );
+		}
+	}
+
+	private static final class CacheEntry
+	{
+		private SoftReference<Class<? extends Script>> scriptClass;
+		private Exception error;
+		private boolean done;
+
+		public synchronized void setScriptClass( Class<? extends Script> scriptClass )
+		{
+			this.scriptClass = new SoftReference<Class<? extends Script>>( scriptClass );
+			done = true;
+			notifyAll();
+		}
+
+		public synchronized void setError( Exception error )
+		{
+			this.error = error;
+			done = true;
+			notifyAll();
+		}
+
+		/**
+		 * @return the compiled class, or null if it has been collected
+		 */
+
+		public synchronized Class<? extends Script> getScriptClass() throws Exception
+		{
+			while( !done )
+				wait();
+
+			if( error != null )
+				throw error;
+
+			return scriptClass.get();
+		}
+	}
+}
@@ -18,6 +18,7 @@ import groovy.lang.GroovyShell;
 import groovy.lang.Script;
 
 import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.runtime.InvokerHelper;
 
 import com.eviware.soapui.SoapUIExtensionClassLoader;
 import com.eviware.soapui.SoapUIExtensionClassLoader.SoapUIClassLoaderState;
@@ -25,13 +26,16 @@ import com.eviware.soapui.support.StringUtils;
 import com.eviware.soapui.support.scripting.SoapUIScriptEngine;
 
 /**
- * A Groovy ScriptEngine
+ * A Groovy ScriptEngine; compiled script classes are shared between engines
+ * through the {@link GroovyScriptCache}
  * 
  * @author ole.matzura
  */
 
 public class SoapUIGroovyScriptEngine implements SoapUIScriptEngine
 {
+	private final ClassLoader parentClassLoader;
+	private final CompilerConfiguration config;
 	private GroovyClassLoader classLoader;
 	private GroovyShell shell;
 	private Binding binding;
@@ -41,12 +45,11 @@ public class SoapUIGroovyScriptEngine implements SoapUIScriptEngine
 
 	public SoapUIGroovyScriptEngine( ClassLoader parentClassLoader )
 	{
-		classLoader = new GroovyClassLoader( parentClassLoader );
+		this.parentClassLoader = parentClassLoader;
 		binding = new Binding();
-		CompilerConfiguration config = new CompilerConfiguration();
+		config = new CompilerConfiguration();
 		config.setDebug( true );
 		config.setVerbose( true );
-		shell = new GroovyShell( classLoader, binding, config );
 	}
 
 	protected class ScriptSaver
@@ -117,7 +120,11 @@ public class SoapUIGroovyScriptEngine implements SoapUIScriptEngine
 			if( shell != null )
 				shell.resetLoadedClasses();
 
-			classLoader.clearCache();
+			if( classLoader != null )
+				classLoader.clearCache();
+
+			// the script has been edited, so the old class is no longer needed
+			GroovyScriptCache.getInstance().invalidate( this.scriptText, parentClassLoader );
 		}
 
 		this.scriptText = scriptText;
@@ -145,8 +152,9 @@ public class SoapUIGroovyScriptEngine implements SoapUIScriptEngine
 			SoapUIClassLoaderState state = SoapUIExtensionClassLoader.ensure();
 			try
 			{
-				script = shell.parse( scriptText );
-				script.setBinding( binding );
+				Class<? extends Script> scriptClass = GroovyScriptCache.getInstance().getScriptClass( scriptText,
+						parentClassLoader, config );
+				script = InvokerHelper.createScript( scriptClass, binding );
 			}
 			finally
 			{
@@ -181,6 +189,8 @@ public class SoapUIGroovyScriptEngine implements SoapUIScriptEngine
 			shell.resetLoadedClasses();
 			shell = null;
 		}
+
+		classLoader = null;
 	}
 
 	protected Binding getBinding()
@@ -188,8 +198,18 @@ public class SoapUIGroovyScriptEngine implements SoapUIScriptEngine
 		return binding;
 	}
 
-	protected GroovyClassLoader getClassLoader()
+	/**
+	 * @deprecated scripts are compiled through the {@link GroovyScriptCache},
+	 *             the classloader is only created for subclasses that still
+	 *             use it
+	 */
+
+	@Deprecated
+	protected synchronized GroovyClassLoader getClassLoader()
 	{
+		if( classLoader == null )
+			classLoader = new GroovyClassLoader( parentClassLoader );
+
 		return classLoader;
 	}
 
@@ -203,8 +223,17 @@ public class SoapUIGroovyScriptEngine implements SoapUIScriptEngine
 		return scriptText;
 	}
 
-	protected GroovyShell getShell()
+	/**
+	 * @deprecated scripts are compiled through the {@link GroovyScriptCache},
+	 *             the shell is only created for subclasses that still use it
+	 */
+
+	@Deprecated
+	protected synchronized GroovyShell getShell()
 	{
+		if( shell == null )
+			shell = new GroovyShell( getClassLoader(), binding, config );
+
 		return shell;
 	}
 }
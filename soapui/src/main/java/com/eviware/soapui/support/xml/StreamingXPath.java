@@ -0,0 +1,595 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.support.xml;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Forward-only XPath evaluator for large messages, selecting values while
+ * reading the message with a StAX parser instead of building a document, so
+ * memory use does not depend on message size and evaluation can stop at the
+ * first matching value.
+ * <p>
+ * Only a subset of XPath is supported: absolute location paths with child
+ * (<code>/</code>) and descendant (<code>//</code>) steps, name tests with
+ * optional prefixes and <code>*</code>, attribute predicates (
+ * <code>[@name]</code> and <code>[@name='value']</code>), a final attribute
+ * step and <code>count(...)</code> of such a path, optionally preceded by
+ * <code>declare namespace</code> declarations. {@link #compile(String)}
+ * returns null for all other expressions, which must then be evaluated on a
+ * parsed document as before.
+ * </p>
+ * <p>
+ * Selected element values follow {@link XmlUtils#getElementText(org.w3c.dom.Element)}
+ * , i.e. the text before the first child node of the element.
+ * </p>
+ */
+
+public final class StreamingXPath
+{
+	private final static int MAX_STEPS = 62;
+
+	private final static XMLInputFactory inputFactory;
+
+	static
+	{
+		inputFactory = XMLInputFactory.newInstance();
+		inputFactory.setProperty( XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE );
+		inputFactory.setProperty( XMLInputFactory.IS_COALESCING, Boolean.TRUE );
+		inputFactory.setProperty( XMLInputFactory.SUPPORT_DTD, Boolean.FALSE );
+	}
+
+	private final String expression;
+	private final Step[] steps;
+	private final NameTest attribute;
+	private final boolean count;
+
+	private StreamingXPath( String expression, Step[] steps, NameTest attribute, boolean count )
+	{
+		this.expression = expression;
+		this.steps = steps;
+		this.attribute = attribute;
+		this.count = count;
+	}
+
+	/**
+	 * Compiles the specified expression
+	 *
+	 * @return the compiled expression, or null if the expression is not
+	 *         supported for streaming evaluation
+	 */
+
+	public static StreamingXPath compile( String expression )
+	{
+		if( expression == null )
+			return null;
+
+		try
+		{
+			return new Parser( expression ).parse();
+		}
+		catch( IllegalArgumentException e )
+		{
+			return null;
+		}
+	}
+
+	public String getExpression()
+	{
+		return expression;
+	}
+
+	/**
+	 * @return if this is a count() expression, which selects a single value
+	 */
+
+	public boolean isCount()
+	{
+		return count;
+	}
+
+	public Selection select( InputStream in, boolean ignoreComments ) throws XMLStreamException
+	{
+		return new Selection( inputFactory.createXMLStreamReader( in ), ignoreComments );
+	}
+
+	public Selection select( Reader in, boolean ignoreComments ) throws XMLStreamException
+	{
+		return new Selection( inputFactory.createXMLStreamReader( in ), ignoreComments );
+	}
+
+	/**
+	 * Forward-only cursor over the values selected from a message
+	 */
+
+	public final class Selection
+	{
+		private final XMLStreamReader reader;
+		private final boolean ignoreComments;
+		private final long matchBit = 1L << steps.length;
+		private final LinkedList<String> attributeValues = new LinkedList<String>();
+		private long[] states = new long[32];
+		private int depth;
+		private boolean elementValuePending;
+		private boolean reprocessEvent;
+		private boolean counted;
+		private String value;
+
+		private Selection( XMLStreamReader reader, boolean ignoreComments )
+		{
+			this.reader = reader;
+			this.ignoreComments = ignoreComments;
+			states[0] = 1;
+		}
+
+		/**
+		 * Moves to the next selected value
+		 *
+		 * @return false if there are no more values
+		 */
+
+		public boolean toNextValue() throws XMLStreamException
+		{
+			if( count )
+			{
+				if( counted )
+					return false;
+
+				long result = 0;
+				while( toNextMatch() )
+					result++ ;
+
+				counted = true;
+				value = String.valueOf( result );
+				return true;
+			}
+
+			return toNextMatch();
+		}
+
+		/**
+		 * @return the current value, null for elements that do not start with
+		 *         text
+		 */
+
+		public String getValue()
+		{
+			return value;
+		}
+
+		public void close()
+		{
+			try
+			{
+				reader.close();
+			}
+			catch( XMLStreamException e )
+			{
+				// nothing to do
+			}
+		}
+
+		private boolean toNextMatch() throws XMLStreamException
+		{
+			if( !attributeValues.isEmpty() )
+			{
+				value = attributeValues.removeFirst();
+				return true;
+			}
+
+			while( true )
+			{
+				int event;
+				if( reprocessEvent )
+				{
+					event = reader.getEventType();
+					reprocessEvent = false;
+				}
+				else if( reader.hasNext() )
+				{
+					event = reader.next();
+				}
+				else
+				{
+					return false;
+				}
+
+				if( event == XMLStreamConstants.COMMENT && ignoreComments )
+					continue;
+
+				if( elementValuePending )
+				{
+					elementValuePending = false;
+
+					if( event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+							|| event == XMLStreamConstants.SPACE )
+					{
+						value = reader.getText();
+					}
+					else
+					{
+						value = null;
+						reprocessEvent = true;
+					}
+
+					return true;
+				}
+
+				if( event == XMLStreamConstants.START_ELEMENT )
+				{
+					long state = advance( states[depth] );
+
+					if( ++depth == states.length )
+					{
+						long[] newStates = new long[states.length * 2];
+						System.arraycopy( states, 0, newStates, 0, states.length );
+						states = newStates;
+					}
+
+					states[depth] = state;
+
+					if( ( state & matchBit ) != 0 )
+					{
+						if( attribute == null )
+						{
+							elementValuePending = true;
+						}
+						else
+						{
+							for( int c = 0; c < reader.getAttributeCount(); c++ )
+							{
+								if( attribute.matches( reader.getAttributeNamespace( c ), reader.getAttributeLocalName( c ) ) )
+									attributeValues.add( reader.getAttributeValue( c ) );
+							}
+
+							if( !attributeValues.isEmpty() )
+							{
+								value = attributeValues.removeFirst();
+								return true;
+							}
+						}
+					}
+				}
+				else if( event == XMLStreamConstants.END_ELEMENT )
+				{
+					depth-- ;
+				}
+				else if( event == XMLStreamConstants.END_DOCUMENT )
+				{
+					return false;
+				}
+			}
+		}
+
+		/**
+		 * Calculates the states of an element from the states of its parent; bit
+		 * i is set when the first i steps have been matched, descendant steps
+		 * stay active for all deeper elements
+		 */
+
+		private long advance( long parentState )
+		{
+			long state = 0;
+
+			for( int c = 0; c < steps.length && ( parentState >>> c ) != 0; c++ )
+			{
+				if( ( parentState & ( 1L << c ) ) == 0 )
+					continue;
+
+				Step step = steps[c];
+				if( step.descendant )
+					state |= 1L << c;
+
+				if( step.matches( reader ) )
+					state |= 1L << ( c + 1 );
+			}
+
+			return state;
+		}
+	}
+
+	private static final class NameTest
+	{
+		private final String namespaceURI;
+		private final String localName;
+
+		public NameTest( String namespaceURI, String localName )
+		{
+			this.namespaceURI = namespaceURI;
+			this.localName = localName;
+		}
+
+		public boolean matches( String namespace, String name )
+		{
+			if( localName != null && !localName.equals( name ) )
+				return false;
+
+			if( namespaceURI == null )
+				return localName == null || namespace == null || namespace.length() == 0;
+
+			return namespaceURI.equals( namespace );
+		}
+	}
+
+	private static final class Predicate
+	{
+		private final NameTest attribute;
+		private final String value;
+
+		public Predicate( NameTest attribute, String value )
+		{
+			this.attribute = attribute;
+			this.value = value;
+		}
+
+		public boolean matches( XMLStreamReader reader )
+		{
+			for( int c = 0; c < reader.getAttributeCount(); c++ )
+			{
+				if( attribute.matches( reader.getAttributeNamespace( c ), reader.getAttributeLocalName( c ) )
+						&& ( value == null || value.equals( reader.getAttributeValue( c ) ) ) )
+					return true;
+			}
+
+			return false;
+		}
+	}
+
+	private static final class Step
+	{
+		private final boolean descendant;
+		private final NameTest name;
+		private final Predicate[] predicates;
+
+		public Step( boolean descendant, NameTest name, Predicate[] predicates )
+		{
+			this.descendant = descendant;
+			this.name = name;
+			this.predicates = predicates;
+		}
+
+		public boolean matches( XMLStreamReader reader )
+		{
+			if( !name.matches( reader.getNamespaceURI(), reader.getLocalName() ) )
+				return false;
+
+			for( Predicate predicate : predicates )
+			{
+				if( !predicate.matches( reader ) )
+					return false;
+			}
+
+			return true;
+		}
+	}
+
+	/**
+	 * Recursive-descent parser for the supported subset, throws
+	 * IllegalArgumentException for anything else
+	 */
+
+	private static final class Parser
+	{
+		private final String expression;
+		private final Map<String, String> namespaces = new HashMap<String, String>();
+		private int pos;
+
+		public Parser( String expression )
+		{
+			this.expression = expression;
+		}
+
+		public StreamingXPath parse()
+		{
+			skipWhitespace();
+			while( expression.startsWith( "declare", pos ) )
+				parseNamespaceDeclaration();
+
+			boolean count = false;
+			if( expression.startsWith( "count", pos ) )
+			{
+				pos += 5;
+				skipWhitespace();
+				expect( '(' );
+				count = true;
+			}
+
+			skipWhitespace();
+			if( expression.startsWith( "$this", pos ) )
+				pos += 5;
+
+			List<Step> steps = new ArrayList<Step>();
+			NameTest attribute = null;
+
+			while( pos < expression.length() && expression.charAt( pos ) == '/' )
+			{
+				pos++ ;
+				boolean descendant = false;
+				if( pos < expression.length() && expression.charAt( pos ) == '/' )
+				{
+					pos++ ;
+					descendant = true;
+				}
+
+				if( pos < expression.length() && expression.charAt( pos ) == '@' )
+				{
+					if( descendant )
+						throw new IllegalArgumentException();
+
+					pos++ ;
+					attribute = parseNameTest( true );
+					break;
+				}
+
+				NameTest name = parseNameTest( false );
+				List<Predicate> predicates = new ArrayList<Predicate>();
+				while( pos < expression.length() && expression.charAt( pos ) == '[' )
+					predicates.add( parsePredicate() );
+
+				steps.add( new Step( descendant, name, predicates.toArray( new Predicate[predicates.size()] ) ) );
+			}
+
+			skipWhitespace();
+			if( count )
+			{
+				expect( ')' );
+				skipWhitespace();
+			}
+
+			if( steps.isEmpty() || steps.size() > MAX_STEPS || pos != expression.length() )
+				throw new IllegalArgumentException();
+
+			return new StreamingXPath( expression, steps.toArray( new Step[steps.size()] ), attribute, count );
+		}
+
+		private void parseNamespaceDeclaration()
+		{
+			expectWord( "declare" );
+			expectWord( "namespace" );
+			String prefix = parseNCName();
+			skipWhitespace();
+			expect( '=' );
+			skipWhitespace();
+			String uri = parseLiteral();
+			skipWhitespace();
+			expect( ';' );
+			skipWhitespace();
+
+			namespaces.put( prefix, uri );
+		}
+
+		private Predicate parsePredicate()
+		{
+			expect( '[' );
+			skipWhitespace();
+			expect( '@' );
+			NameTest attribute = parseNameTest( true );
+			skipWhitespace();
+
+			String value = null;
+			if( pos < expression.length() && expression.charAt( pos ) == '=' )
+			{
+				pos++ ;
+				skipWhitespace();
+				value = parseLiteral();
+				skipWhitespace();
+			}
+
+			expect( ']' );
+			return new Predicate( attribute, value );
+		}
+
+		private NameTest parseNameTest( boolean isAttribute )
+		{
+			if( pos < expression.length() && expression.charAt( pos ) == '*' )
+			{
+				pos++ ;
+				return new NameTest( null, null );
+			}
+
+			String name = parseNCName();
+			if( pos < expression.length() && expression.charAt( pos ) == ':' )
+			{
+				pos++ ;
+				String namespaceURI = namespaces.get( name );
+				if( namespaceURI == null )
+					throw new IllegalArgumentException();
+
+				if( pos < expression.length() && expression.charAt( pos ) == '*' )
+				{
+					pos++ ;
+					return new NameTest( namespaceURI, null );
+				}
+
+				return new NameTest( namespaceURI, parseNCName() );
+			}
+
+			// unprefixed names are in no namespace, also for elements
+			return new NameTest( null, name );
+		}
+
+		private String parseNCName()
+		{
+			int start = pos;
+			while( pos < expression.length() )
+			{
+				char ch = expression.charAt( pos );
+				if( Character.isLetter( ch ) || ch == '_'
+						|| ( pos > start && ( Character.isDigit( ch ) || ch == '-' || ch == '.' ) ) )
+					pos++ ;
+				else
+					break;
+			}
+
+			if( pos == start )
+				throw new IllegalArgumentException();
+
+			return expression.substring( start, pos );
+		}
+
+		private String parseLiteral()
+		{
+			if( pos >= expression.length() )
+				throw new IllegalArgumentException();
+
+			char quote = expression.charAt( pos );
+			if( quote != '\'' && quote != '"' )
+				throw new IllegalArgumentException();
+
+			int end = expression.indexOf( quote, pos + 1 );
+			if( end == -1 )
+				throw new IllegalArgumentException();
+
+			String result = expression.substring( pos + 1, end );
+			pos = end + 1;
+			return result;
+		}
+
+		private void expectWord( String word )
+		{
+			if( !expression.startsWith( word, pos ) )
+				throw new IllegalArgumentException();
+
+			pos += word.length();
+			if( pos >= expression.length() || !Character.isWhitespace( expression.charAt( pos ) ) )
+				throw new IllegalArgumentException();
+
+			skipWhitespace();
+		}
+
+		private void expect( char ch )
+		{
+			if( pos >= expression.length() || expression.charAt( pos ) != ch )
+				throw new IllegalArgumentException();
+
+			pos++ ;
+		}
+
+		private void skipWhitespace()
+		{
+			while( pos < expression.length() && Character.isWhitespace( expression.charAt( pos ) ) )
+				pos++ ;
+		}
+	}
+}
@@ -0,0 +1,276 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.support.xml;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.namespace.QName;
+
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+
+/**
+ * Bounded caches for evaluating XPath and XQuery expressions: the namespace
+ * declarations of a document, and the compiled expressions, which are
+ * otherwise compiled again by xmlbeans for every evaluation.
+ * <p>
+ * Namespace declarations are keyed on the namespaces declared in the document,
+ * so all responses of an operation share the same declarations, and thereby
+ * the same compiled expressions, although each response is a new document.
+ * The namespaces are still collected from every document, only the
+ * declarations are reused.
+ * </p>
+ * <p>
+ * Expressions are compiled with {@link XmlBeans#compilePath} and
+ * {@link XmlBeans#compileQuery} and keyed on the expression together with the
+ * namespace declarations it is evaluated with. The returned expressions are
+ * passed to <code>selectPath</code> and <code>execQuery</code> like any other
+ * expression.
+ * </p>
+ * <p>
+ * When a cache is full the least recently used entry is dropped. The maximum
+ * number of cached entries of each cache is set with the
+ * <code>soapui.xpath.cache.size</code> system property, 0 disables caching.
+ * </p>
+ */
+
+public final class XPathCache
+{
+	public static final int DEFAULT_CACHE_SIZE = 1000;
+
+	private final static XPathCache instance = new XPathCache( Integer.getInteger( "soapui.xpath.cache.size",
+			DEFAULT_CACHE_SIZE ) );
+
+	private final int maxSize;
+	private final Map<Map<QName, String>, String> namespaces;
+	private final AtomicLong namespaceHits = new AtomicLong();
+	private final AtomicLong namespaceMisses = new AtomicLong();
+	private final Map<ExpressionKey, String> expressions;
+	private final AtomicLong expressionHits = new AtomicLong();
+	private final AtomicLong expressionMisses = new AtomicLong();
+
+	XPathCache( int maxSize )
+	{
+		this.maxSize = maxSize;
+		namespaces = createMap( maxSize );
+		expressions = createMap( maxSize );
+	}
+
+	private static <K> Map<K, String> createMap( final int maxSize )
+	{
+		return new LinkedHashMap<K, String>( 16, 0.75f, true )
+		{
+			@Override
+			protected boolean removeEldestEntry( Map.Entry<K, String> eldest )
+			{
+				return size() > maxSize;
+			}
+		};
+	}
+
+	public static XPathCache getInstance()
+	{
+		return instance;
+	}
+
+	/**
+	 * Returns the XPath namespace declarations for all namespaces used in the
+	 * specified document, as created by
+	 * {@link XmlUtils#declareXPathNamespaces(XmlObject)}, shared by all
+	 * documents that declare the same namespaces
+	 */
+
+	public String getNamespaceDeclarations( XmlObject xmlObject )
+	{
+		Map<QName, String> key = XmlUtils.getNamespaces( xmlObject );
+		if( maxSize <= 0 )
+		{
+			namespaceMisses.incrementAndGet();
+			return XmlUtils.declareXPathNamespaces( key );
+		}
+
+		String result;
+		synchronized( namespaces )
+		{
+			result = namespaces.get( key );
+		}
+
+		if( result != null )
+		{
+			namespaceHits.incrementAndGet();
+			return result;
+		}
+
+		namespaceMisses.incrementAndGet();
+		result = XmlUtils.declareXPathNamespaces( key );
+
+		synchronized( namespaces )
+		{
+			namespaces.put( key, result );
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the specified XPath expression prefixed with the specified
+	 * namespace declarations, compiled for {@link XmlObject#selectPath(String)}
+	 * and {@link org.apache.xmlbeans.XmlCursor#selectPath(String)}
+	 * 
+	 * @param namespaces
+	 *           the namespace declarations, empty if the expression declares its
+	 *           own
+	 */
+
+	public String getCompiledPath( String namespaces, String path ) throws XmlException
+	{
+		return getCompiledExpression( namespaces, path, false );
+	}
+
+	/**
+	 * Returns the specified XQuery expression prefixed with the specified
+	 * namespace declarations, compiled for {@link XmlObject#execQuery(String)}
+	 * and {@link org.apache.xmlbeans.XmlCursor#execQuery(String)}
+	 * 
+	 * @param namespaces
+	 *           the namespace declarations, empty if the expression declares its
+	 *           own
+	 */
+
+	public String getCompiledQuery( String namespaces, String query ) throws XmlException
+	{
+		return getCompiledExpression( namespaces, query, true );
+	}
+
+	private String getCompiledExpression( String namespaces, String expression, boolean query ) throws XmlException
+	{
+		if( maxSize <= 0 )
+		{
+			expressionMisses.incrementAndGet();
+			return compile( namespaces, expression, query );
+		}
+
+		ExpressionKey key = new ExpressionKey( namespaces, expression, query );
+		String result;
+		synchronized( expressions )
+		{
+			result = expressions.get( key );
+		}
+
+		if( result != null )
+		{
+			expressionHits.incrementAndGet();
+			return result;
+		}
+
+		expressionMisses.incrementAndGet();
+		result = compile( namespaces, expression, query );
+
+		synchronized( expressions )
+		{
+			expressions.put( key, result );
+		}
+
+		return result;
+	}
+
+	private static String compile( String namespaces, String expression, boolean query ) throws XmlException
+	{
+		String prefixed = namespaces == null ? expression : namespaces + expression;
+		return query ? XmlBeans.compileQuery( prefixed ) : XmlBeans.compilePath( prefixed );
+	}
+
+	public void clear()
+	{
+		synchronized( namespaces )
+		{
+			namespaces.clear();
+		}
+
+		synchronized( expressions )
+		{
+			expressions.clear();
+		}
+	}
+
+	public int getMaxSize()
+	{
+		return maxSize;
+	}
+
+	public long getNamespaceHitCount()
+	{
+		return namespaceHits.get();
+	}
+
+	public long getNamespaceMissCount()
+	{
+		return namespaceMisses.get();
+	}
+
+	public long getExpressionHitCount()
+	{
+		return expressionHits.get();
+	}
+
+	public long getExpressionMissCount()
+	{
+		return expressionMisses.get();
+	}
+
+	public void resetCounters()
+	{
+		namespaceHits.set( 0 );
+		namespaceMisses.set( 0 );
+		expressionHits.set( 0 );
+		expressionMisses.set( 0 );
+	}
+
+	private static final class ExpressionKey
+	{
+		private final String namespaces;
+		private final String expression;
+		private final boolean query;
+		private final int hash;
+
+		public ExpressionKey( String namespaces, String expression, boolean query )
+		{
+			this.namespaces = namespaces == null ? "" : namespaces;
+			this.expression = expression;
+			this.query = query;
+			hash = ( this.namespaces.hashCode() * 31 + expression.hashCode() ) * 31 + ( query ? 1 : 0 );
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals( Object obj )
+		{
+			if( obj == this )
+				return true;
+
+			if( !( obj instanceof ExpressionKey ) )
+				return false;
+
+			ExpressionKey other = ( ExpressionKey )obj;
+			return query == other.query && expression.equals( other.expression ) && namespaces.equals( other.namespaces );
+		}
+	}
+}
@@ -0,0 +1,261 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.support.xml;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+
+/**
+ * Parse-once cache for message content, so that the assertions, property
+ * transfers and property expansions evaluated against the same response share
+ * a single parsed XmlObject instead of each parsing the response again.
+ * <p>
+ * Entries are keyed on the identity of the content String, which responses
+ * hold on to for their lifetime, so an entry can never be returned for changed
+ * content. Content that is not held in a String, such as a response body
+ * spilled to disk, is keyed on the object it is read from instead. Keys are
+ * weakly referenced and each thread only caches its most
+ * recently used documents, so entries go away together with their response or
+ * when the result is discarded (see {@link #evict(Object)}). Documents are
+ * softly referenced, so the documents cached by idle threads do not stay in
+ * the heap once memory gets low. The number of
+ * documents cached per thread is set with the
+ * <code>soapui.xml.parsecache.size</code> system property, 0 disables caching.
+ * </p>
+ * <p>
+ * Documents are loaded with line numbers so they can also be used for schema
+ * validation. Returned objects are shared and must be treated as read-only;
+ * callers that need to modify the document must parse their own copy.
+ * </p>
+ */
+
+public final class XmlObjectCache
+{
+	public static final int DEFAULT_CACHE_SIZE = 4;
+
+	private final static int cacheSize = Integer.getInteger( "soapui.xml.parsecache.size", DEFAULT_CACHE_SIZE );
+
+	private final static AtomicLong hits = new AtomicLong();
+	private final static AtomicLong misses = new AtomicLong();
+
+	private final static ThreadLocal<CacheEntry[]> entries = new ThreadLocal<CacheEntry[]>()
+	{
+		@Override
+		protected CacheEntry[] initialValue()
+		{
+			return new CacheEntry[cacheSize];
+		}
+	};
+
+	private XmlObjectCache()
+	{
+	}
+
+	/**
+	 * Returns the parsed document for the specified content, parsing it if it
+	 * has not been parsed by the current thread yet.
+	 */
+
+	public static XmlObject getXmlObject( String content ) throws XmlException
+	{
+		return getXmlObject( content, false );
+	}
+
+	/**
+	 * Returns the parsed document for the specified content, optionally with
+	 * comments stripped, parsing it if it has not been parsed by the current
+	 * thread yet.
+	 */
+
+	public static XmlObject getXmlObject( String content, boolean stripComments ) throws XmlException
+	{
+		if( cacheSize <= 0 || content == null )
+		{
+			misses.incrementAndGet();
+			return XmlUtils.createXmlObject( content, createOptions( stripComments ) );
+		}
+
+		XmlObject xmlObject = lookup( content, stripComments );
+		if( xmlObject == null )
+		{
+			xmlObject = XmlUtils.createXmlObject( content, createOptions( stripComments ) );
+			store( content, stripComments, xmlObject );
+		}
+
+		return xmlObject;
+	}
+
+	/**
+	 * Returns the document parsed from content that is read from the specified
+	 * reader, cached on the identity of the specified source of the content.
+	 * The reader is only read if the document is not cached yet, and is closed.
+	 */
+
+	public static XmlObject getXmlObject( Object source, Reader content, boolean stripComments ) throws XmlException,
+			IOException
+	{
+		try
+		{
+			XmlObject xmlObject = cacheSize <= 0 ? null : lookup( source, stripComments );
+			if( xmlObject == null )
+			{
+				xmlObject = XmlUtils.createXmlObject( content, createOptions( stripComments ) );
+				if( cacheSize > 0 )
+					store( source, stripComments, xmlObject );
+			}
+
+			return xmlObject;
+		}
+		finally
+		{
+			content.close();
+		}
+	}
+
+	private static XmlObject lookup( Object key, boolean stripComments )
+	{
+		CacheEntry[] cache = entries.get();
+
+		for( int c = 0; c < cache.length; c++ )
+		{
+			CacheEntry entry = cache[c];
+			if( entry == null )
+				continue;
+
+			Object content = entry.content.get();
+			XmlObject xmlObject = entry.xmlObject.get();
+			if( content == null || xmlObject == null )
+			{
+				// response or document has been garbage collected
+				cache[c] = null;
+			}
+			else if( content == key && entry.stripComments == stripComments )
+			{
+				hits.incrementAndGet();
+				moveToFront( cache, c, entry );
+				return xmlObject;
+			}
+		}
+
+		misses.incrementAndGet();
+		return null;
+	}
+
+	private static void store( Object key, boolean stripComments, XmlObject xmlObject )
+	{
+		CacheEntry[] cache = entries.get();
+		int free = cache.length - 1;
+
+		for( int c = 0; c < cache.length; c++ )
+		{
+			if( cache[c] == null || cache[c].content.get() == null || cache[c].xmlObject.get() == null )
+			{
+				free = c;
+				break;
+			}
+		}
+
+		moveToFront( cache, free, new CacheEntry( key, stripComments, xmlObject ) );
+	}
+
+	private static XmlOptions createOptions( boolean stripComments )
+	{
+		// line numbers are needed for reporting schema validation errors
+		XmlOptions options = new XmlOptions();
+		options.setLoadLineNumbers();
+		options.setLoadLineNumbers( XmlOptions.LOAD_LINE_NUMBERS_END_ELEMENT );
+
+		if( stripComments )
+			options.setLoadStripComments();
+
+		return options;
+	}
+
+	private static void moveToFront( CacheEntry[] cache, int index, CacheEntry entry )
+	{
+		System.arraycopy( cache, 0, cache, 1, index );
+		cache[0] = entry;
+	}
+
+	/**
+	 * Removes the documents parsed from the specified content, or from content
+	 * read from the specified source, by the current thread, called when a
+	 * result is discarded
+	 */
+
+	public static void evict( Object content )
+	{
+		if( content == null || cacheSize <= 0 )
+			return;
+
+		CacheEntry[] cache = entries.get();
+		for( int c = 0; c < cache.length; c++ )
+		{
+			if( cache[c] != null && cache[c].content.get() == content )
+				cache[c] = null;
+		}
+	}
+
+	/**
+	 * Removes all documents cached by the current thread
+	 */
+
+	public static void clear()
+	{
+		CacheEntry[] cache = entries.get();
+		for( int c = 0; c < cache.length; c++ )
+			cache[c] = null;
+	}
+
+	public static int getCacheSize()
+	{
+		return cacheSize;
+	}
+
+	public static long getHitCount()
+	{
+		return hits.get();
+	}
+
+	public static long getMissCount()
+	{
+		return misses.get();
+	}
+
+	public static void resetCounters()
+	{
+		hits.set( 0 );
+		misses.set( 0 );
+	}
+
+	private static final class CacheEntry
+	{
+		private final WeakReference<Object> content;
+		private final boolean stripComments;
+		private final SoftReference<XmlObject> xmlObject;
+
+		public CacheEntry( Object content, boolean stripComments, XmlObject xmlObject )
+		{
+			this.content = new WeakReference<Object>( content );
+			this.stripComments = stripComments;
+			this.xmlObject = new SoftReference<XmlObject>( xmlObject );
+		}
+	}
+}
@@ -16,6 +16,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
@@ -83,10 +84,37 @@ import com.eviware.soapui.support.types.StringToStringMap;
 @SuppressWarnings( "deprecation" )
 public final class XmlUtils
 {
-	private static DocumentBuilder documentBuilder;
 	private final static Logger log = Logger.getLogger( XmlUtils.class );
 
-	static synchronized public Document parse( InputStream in )
+	/**
+	 * DocumentBuilders are not thread-safe, so each thread gets its own instead
+	 * of serializing all parsing on a single shared instance
+	 */
+
+	private final static DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+	private final static ThreadLocal<DocumentBuilder> documentBuilders = new ThreadLocal<DocumentBuilder>()
+	{
+		@Override
+		protected DocumentBuilder initialValue()
+		{
+			// factories are not guaranteed to be thread-safe either
+			synchronized( documentBuilderFactory )
+			{
+				try
+				{
+					documentBuilderFactory.setNamespaceAware( true );
+					return documentBuilderFactory.newDocumentBuilder();
+				}
+				catch( ParserConfigurationException e )
+				{
+					log.error( "Error creating DocumentBuilder; " + e.getMessage() );
+					return null;
+				}
+			}
+		}
+	};
+
+	static public Document parse( InputStream in )
 	{
 		try
 		{
@@ -100,7 +128,7 @@ public final class XmlUtils
 		return null;
 	}
 
-	static synchronized public Document parse( String fileName ) throws IOException
+	static public Document parse( String fileName ) throws IOException
 	{
 		try
 		{
@@ -125,7 +153,7 @@ public final class XmlUtils
 		return xml.replaceAll( "&", "&amp;" ).replaceAll( "\"", "&quot;" ).replaceAll( "'", "&apos;" );
 	}
 
-	static synchronized public Document parse( InputSource inputSource ) throws IOException
+	static public Document parse( InputSource inputSource ) throws IOException
 	{
 		try
 		{
@@ -139,19 +167,11 @@ public final class XmlUtils
 
 	private static DocumentBuilder ensureDocumentBuilder()
 	{
-		if( documentBuilder == null )
-		{
-			try
-			{
-				DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-				dbf.setNamespaceAware( true );
-				documentBuilder = dbf.newDocumentBuilder();
-			}
-			catch( ParserConfigurationException e )
-			{
-				log.error( "Error creating DocumentBuilder; " + e.getMessage() );
-			}
-		}
+		DocumentBuilder documentBuilder = documentBuilders.get();
+
+		// restore state in case a previous parse failed halfway
+		if( documentBuilder != null )
+			documentBuilder.reset();
 
 		return documentBuilder;
 	}
@@ -212,6 +232,18 @@ public final class XmlUtils
 		}
 	}
 
+	public static XmlObject createXmlObject( Reader input, XmlOptions xmlOptions ) throws XmlException
+	{
+		try
+		{
+			return XmlObject.Factory.parse( input, xmlOptions );
+		}
+		catch( Exception e )
+		{
+			throw new XmlException( e.toString(), e );
+		}
+	}
+
 	public static XmlObject createXmlObject( String input, XmlOptions xmlOptions ) throws XmlException
 	{
 		return XmlObject.Factory.parse( input, xmlOptions );
@@ -681,7 +713,7 @@ public final class XmlUtils
 		return declareXPathNamespaces( XmlObject.Factory.parse( xmlString ) );
 	}
 
-	public static synchronized String prettyPrintXml( String xml )
+	public static String prettyPrintXml( String xml )
 	{
 		try
 		{
@@ -699,7 +731,7 @@ public final class XmlUtils
 		}
 	}
 
-	public static synchronized String prettyPrintXml( XmlObject xml )
+	public static String prettyPrintXml( XmlObject xml )
 	{
 		try
 		{
@@ -985,6 +1017,16 @@ public final class XmlUtils
 	}
 
 	public static String declareXPathNamespaces( XmlObject xmlObject )
+	{
+		return declareXPathNamespaces( getNamespaces( xmlObject ) );
+	}
+
+	/**
+	 * @return the namespace URIs of all namespace declarations in the specified
+	 *         document, by the name of their declaration
+	 */
+
+	static Map<QName, String> getNamespaces( XmlObject xmlObject )
 	{
 		Map<QName, String> map = new HashMap<QName, String>();
 		XmlCursor cursor = xmlObject.newCursor();
@@ -996,7 +1038,11 @@ public final class XmlUtils
 		}
 
 		cursor.dispose();
+		return map;
+	}
 
+	static String declareXPathNamespaces( Map<QName, String> map )
+	{
 		Iterator<QName> i = map.keySet().iterator();
 		int nsCnt = 0;
 
@@ -1290,9 +1336,7 @@ public final class XmlUtils
 
 	public static Document createDocument( QName element )
 	{
-		ensureDocumentBuilder();
-
-		Document document = documentBuilder.newDocument();
+		Document document = ensureDocumentBuilder().newDocument();
 		document.appendChild( document.createElementNS( element.getNamespaceURI(), element.getLocalPart() ) );
 		return document;
 	}
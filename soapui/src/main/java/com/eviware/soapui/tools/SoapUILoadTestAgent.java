@@ -0,0 +1,202 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.tools;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.apache.commons.cli.CommandLine;
+
+import com.eviware.soapui.SoapUI;
+import com.eviware.soapui.impl.wsdl.loadtest.agent.LoadTestAgent;
+import com.eviware.soapui.impl.wsdl.loadtest.agent.LoadTestAgentProtocol;
+
+/**
+ * Standalone LoadTest agent, runs shares of LoadTests distributed by a
+ * {@link SoapUILoadTestRunner} started with the <code>-A</code> option.
+ * <p>
+ * The agent runs whatever project a coordinator sends it, so it requires the
+ * secret set with the <code>soapui.loadtest.agent.secret</code> system
+ * property (also on the runner) and only listens on the loopback interface
+ * unless another address is set with the <code>-b</code> option.
+ * </p>
+ * 
+ * @see LoadTestAgent
+ */
+
+public class SoapUILoadTestAgent extends AbstractSoapUIRunner
+{
+	private String bindAddress;
+	private int port = LoadTestAgentProtocol.DEFAULT_PORT;
+	private String portFile;
+	private int maxRuns;
+	private LoadTestAgent agent;
+
+	public static String TITLE = "SoapUI " + SoapUI.SOAPUI_VERSION + " LoadTest Agent";
+
+	/**
+	 * Runs the agent until it is killed, or until the number of LoadTests
+	 * specified with the -m option have been run
+	 * 
+	 * @param args
+	 */
+
+	public static void main( String[] args )
+	{
+		System.exit( new SoapUILoadTestAgent().runFromCommandLine( args ) );
+	}
+
+	public SoapUILoadTestAgent()
+	{
+		super( TITLE );
+	}
+
+	public void setBindAddress( String bindAddress )
+	{
+		this.bindAddress = bindAddress;
+	}
+
+	public void setPort( int port )
+	{
+		this.port = port;
+	}
+
+	/**
+	 * Sets a file to write the port the agent listens on to, for scripts that
+	 * start agents on a random port
+	 */
+
+	public void setPortFile( String portFile )
+	{
+		this.portFile = portFile;
+	}
+
+	/**
+	 * Sets the number of LoadTests to run before exiting, 0 for no limit
+	 */
+
+	public void setMaxRuns( int maxRuns )
+	{
+		this.maxRuns = maxRuns;
+	}
+
+	protected boolean processCommandLine( CommandLine cmd )
+	{
+		if( cmd.hasOption( "b" ) )
+			setBindAddress( cmd.getOptionValue( "b" ) );
+
+		if( cmd.hasOption( "p" ) )
+			setPort( Integer.parseInt( cmd.getOptionValue( "p" ) ) );
+
+		if( cmd.hasOption( "f" ) )
+			setPortFile( getCommandLineOptionSubstSpace( cmd, "f" ) );
+
+		if( cmd.hasOption( "m" ) )
+			setMaxRuns( Integer.parseInt( cmd.getOptionValue( "m" ) ) );
+
+		if( cmd.hasOption( "t" ) )
+			setSettingsFile( getCommandLineOptionSubstSpace( cmd, "t" ) );
+
+		if( cmd.hasOption( "v" ) )
+			setSoapUISettingsPassword( cmd.getOptionValue( "v" ) );
+
+		if( cmd.hasOption( "D" ) )
+			setSystemProperties( cmd.getOptionValues( "D" ) );
+
+		if( cmd.hasOption( "G" ) )
+			setGlobalProperties( cmd.getOptionValues( "G" ) );
+
+		return true;
+	}
+
+	protected SoapUIOptions initCommandLineOptions()
+	{
+		SoapUIOptions options = new SoapUIOptions( "loadtestagent" )
+		{
+			@Override
+			public boolean requiresProject()
+			{
+				return false;
+			}
+		};
+
+		options.addOption( "b", true, "Sets the local address to listen on, defaults to the loopback address" );
+		options.addOption( "p", true, "Sets the port to listen on, defaults to " + LoadTestAgentProtocol.DEFAULT_PORT );
+		options.addOption( "f", true, "Writes the port the agent listens on to the specified file" );
+		options.addOption( "m", true, "Sets the number of LoadTests to run before exiting" );
+		options.addOption( "t", true, "Sets the soapui-settings.xml file to use" );
+		options.addOption( "v", true, "Sets password for soapui-settings.xml file" );
+		options.addOption( "D", true, "Sets system property with name=value" );
+		options.addOption( "G", true, "Sets global property with name=value" );
+
+		return options;
+	}
+
+	protected boolean runRunner() throws Exception
+	{
+		String secret = System.getProperty( LoadTestAgentProtocol.SECRET_PROPERTY );
+		if( secret == null || secret.length() == 0 )
+			throw new Exception( "Missing secret, set the " + LoadTestAgentProtocol.SECRET_PROPERTY
+					+ " system property" );
+
+		agent = new LoadTestAgent( bindAddress, port, secret );
+		agent.start();
+
+		try
+		{
+			if( portFile != null )
+				writePortFile();
+
+			agent.serve( maxRuns );
+		}
+		finally
+		{
+			agent.stop();
+		}
+
+		return true;
+	}
+
+	private void writePortFile() throws IOException
+	{
+		File file = new File( portFile );
+		File tempFile = new File( file.getAbsolutePath() + ".tmp" );
+
+		// renamed so that readers never see a partially written file
+		FileWriter writer = new FileWriter( tempFile );
+		try
+		{
+			writer.write( String.valueOf( agent.getPort() ) );
+		}
+		finally
+		{
+			writer.close();
+		}
+
+		file.delete();
+		if( !tempFile.renameTo( file ) )
+			throw new IOException( "Failed to write port file [" + file + "]" );
+	}
+
+	/**
+	 * Stops accepting coordinator connections, a running LoadTest is finished
+	 * first
+	 */
+
+	public void stop()
+	{
+		if( agent != null )
+			agent.stop();
+	}
+}
@@ -22,10 +22,18 @@ import org.apache.commons.cli.CommandLine;
 import com.eviware.soapui.SoapUI;
 import com.eviware.soapui.impl.wsdl.WsdlProject;
 import com.eviware.soapui.impl.wsdl.loadtest.WsdlLoadTest;
+import com.eviware.soapui.impl.wsdl.loadtest.WsdlLoadTestRunner;
+import com.eviware.soapui.impl.wsdl.loadtest.agent.LoadTestAgentProtocol;
+import com.eviware.soapui.impl.wsdl.loadtest.agent.LoadTestCoordinator;
+import com.eviware.soapui.impl.wsdl.loadtest.agent.RemoteLoadTestAgent;
+import com.eviware.soapui.impl.wsdl.loadtest.data.LoadTestStatistics;
+import com.eviware.soapui.impl.wsdl.loadtest.data.LoadTestStatistics.Statistic;
 import com.eviware.soapui.impl.wsdl.loadtest.data.actions.ExportLoadTestLogAction;
 import com.eviware.soapui.impl.wsdl.loadtest.data.actions.ExportStatisticsAction;
 import com.eviware.soapui.impl.wsdl.loadtest.log.LoadTestLog;
 import com.eviware.soapui.impl.wsdl.loadtest.log.LoadTestLogEntry;
+import com.eviware.soapui.impl.wsdl.support.http.HttpClientSupport;
+import com.eviware.soapui.impl.wsdl.support.http.RoutePoolStatistics;
 import com.eviware.soapui.model.project.ProjectFactoryRegistry;
 import com.eviware.soapui.model.testsuite.LoadTestRunContext;
 import com.eviware.soapui.model.testsuite.LoadTestRunListener;
@@ -64,6 +72,10 @@ public class SoapUILoadTestRunner extends AbstractSoapUITestRunner implements Lo
 	private int limit = -1;
 	private long threadCount = -1;
 	private boolean saveAfterRun;
+	private String[] agents;
+	private boolean httpPhaseStatistics;
+	private boolean metricsOnly;
+	private List<String> failedAgents = new ArrayList<String>();
 
 	public static String TITLE = "SoapUI " + SoapUI.SOAPUI_VERSION + " LoadTest Runner";
 
@@ -129,7 +141,12 @@ public class SoapUILoadTestRunner extends AbstractSoapUITestRunner implements Lo
 		if( cmd.hasOption( "t" ) )
 			setSettingsFile( getCommandLineOptionSubstSpace( cmd, "t" ) );
 
+		if( cmd.hasOption( "A" ) )
+			setAgents( cmd.getOptionValue( "A" ).split( "," ) );
+
 		setPrintReport( cmd.hasOption( "r" ) );
+		setHttpPhaseStatistics( cmd.hasOption( "H" ) );
+		setMetricsOnly( cmd.hasOption( "M" ) );
 		setSaveAfterRun( cmd.hasOption( "S" ) );
 
 		if( cmd.hasOption( "x" ) )
@@ -176,6 +193,38 @@ public class SoapUILoadTestRunner extends AbstractSoapUITestRunner implements Lo
 		this.threadCount = threadCount;
 	}
 
+	/**
+	 * Sets the LoadTest agents to distribute LoadTests to, in the form
+	 * <code>host[:port]</code>
+	 * 
+	 * @see LoadTestCoordinator
+	 */
+
+	public void setAgents( String[] agents )
+	{
+		this.agents = agents;
+	}
+
+	/**
+	 * Turns on HTTP phase statistics for the LoadTests that are run, which are
+	 * then included in the exported statistics
+	 */
+
+	public void setHttpPhaseStatistics( boolean httpPhaseStatistics )
+	{
+		this.httpPhaseStatistics = httpPhaseStatistics;
+	}
+
+	/**
+	 * Runs the LoadTests in metrics-only mode, in which only the results of
+	 * failed TestSteps are retained
+	 */
+
+	public void setMetricsOnly( boolean metricsOnly )
+	{
+		this.metricsOnly = metricsOnly;
+	}
+
 	protected SoapUIOptions initCommandLineOptions()
 	{
 		SoapUIOptions options = new SoapUIOptions( "loadtestrunner" );
@@ -199,6 +248,9 @@ public class SoapUILoadTestRunner extends AbstractSoapUITestRunner implements Lo
 		options.addOption( "G", true, "Sets global property with name=value" );
 		options.addOption( "P", true, "Sets or overrides project property with name=value" );
 		options.addOption( "S", false, "Saves the project after running the tests" );
+		options.addOption( "A", true, "Distributes the LoadTest to the comma-separated list of agents (host:port)" );
+		options.addOption( "H", false, "Collects DNS, connect, SSL, time to first byte and read statistics for HTTP requests" );
+		options.addOption( "M", false, "Only retains the results of failed TestSteps (metrics-only mode)" );
 
 		return options;
 	}
@@ -294,7 +346,7 @@ public class SoapUILoadTestRunner extends AbstractSoapUITestRunner implements Lo
 				}
 			}
 
-			if( !failedTests.isEmpty() )
+			if( !failedTests.isEmpty() || !failedAgents.isEmpty() )
 			{
 				log.info( failedTests.size() + " load tests failed:" );
 				for( LoadTestRunner loadTestRunner : failedTests )
@@ -302,6 +354,11 @@ public class SoapUILoadTestRunner extends AbstractSoapUITestRunner implements Lo
 					log.info( loadTestRunner.getLoadTest().getName() + ": " + loadTestRunner.getReason() );
 				}
 
+				for( String failedAgent : failedAgents )
+				{
+					log.info( failedAgent );
+				}
+
 				throw new SoapUIException( "LoadTests failed" );
 			}
 		}
@@ -387,8 +444,36 @@ public class SoapUILoadTestRunner extends AbstractSoapUITestRunner implements Lo
 				loadTest.setThreadCount( threadCount );
 			}
 
+			if( httpPhaseStatistics )
+				loadTest.setHttpPhaseStatistics( true );
+
+			if( metricsOnly )
+				loadTest.setMetricsOnly( true );
+
 			loadTest.addLoadTestRunListener( this );
-			LoadTestRunner runner = loadTest.run();
+
+			LoadTestCoordinator coordinator = null;
+			WsdlLoadTestRunner runner;
+
+			if( agents != null && agents.length > 0 )
+			{
+				coordinator = new LoadTestCoordinator( loadTest, agents,
+						System.getProperty( LoadTestAgentProtocol.SECRET_PROPERTY ) );
+
+				try
+				{
+					runner = coordinator.run( getProjectFile(), getProjectPassword() );
+				}
+				catch( IOException e )
+				{
+					failedAgents.add( loadTest.getName() + ": " + e.getMessage() );
+					throw e;
+				}
+			}
+			else
+			{
+				runner = loadTest.run();
+			}
 
 			// wait for test to finish
 			while( !runner.hasStopped() )
@@ -401,6 +486,15 @@ public class SoapUILoadTestRunner extends AbstractSoapUITestRunner implements Lo
 				Thread.sleep( 1000 );
 			}
 
+			if( coordinator != null )
+			{
+				for( RemoteLoadTestAgent agent : coordinator.finish( runner ) )
+				{
+					failedAgents.add( loadTest.getName() + " on agent [" + agent.getName() + "]: "
+							+ ( agent.isStarted() ? agent.getStatus() + ", " + agent.getReason() : "not started" ) );
+				}
+			}
+
 			log.info( "LoadTest [" + loadTest.getName() + "] finished with status " + runner.getStatus().toString() );
 
 			if( printReport )
@@ -411,6 +505,7 @@ public class SoapUILoadTestRunner extends AbstractSoapUITestRunner implements Lo
 
 				exportLog( loadTest );
 				exportStatistics( loadTest );
+				logPercentiles( loadTest );
 			}
 		}
 		catch( Exception e )
@@ -434,6 +529,52 @@ public class SoapUILoadTestRunner extends AbstractSoapUITestRunner implements Lo
 		log.info( "Exported " + cnt + " statistics to [" + statisticsFileName + "]" );
 	}
 
+	private void logPercentiles( WsdlLoadTest loadTest )
+	{
+		LoadTestStatistics statistics = loadTest.getStatisticsModel();
+		Statistic[] percentiles = { Statistic.P50, Statistic.P90, Statistic.P95, Statistic.P99, Statistic.P999 };
+		Statistic[] phases = { Statistic.DNS_AVERAGE, Statistic.CONNECT_AVERAGE, Statistic.SSL_AVERAGE,
+				Statistic.TTFB_AVERAGE, Statistic.READ_AVERAGE, Statistic.WAIT_AVERAGE };
+
+		for( int c = 0; c < statistics.getRowCount(); c++ )
+		{
+			StringBuffer buf = new StringBuffer();
+			for( Statistic percentile : percentiles )
+			{
+				if( buf.length() > 0 )
+					buf.append( ", " );
+
+				buf.append( percentile.getName() ).append( '=' ).append( statistics.getStatistic( c, percentile ) );
+			}
+
+			TestStep testStep = statistics.getTestStepAtRow( c );
+			log.info( ( testStep == null ? "TestCase" : "TestStep [" + testStep.getName() + "]" ) + " time percentiles: "
+					+ buf );
+
+			if( statistics.getColumnCount() > Statistic.DNS_AVERAGE.getIndex() )
+			{
+				buf = new StringBuffer();
+				for( Statistic phase : phases )
+				{
+					if( buf.length() > 0 )
+						buf.append( ", " );
+
+					// phase columns are at the index of their statistic
+					buf.append( phase.getName() ).append( '=' ).append( statistics.getValueAt( c, phase.getIndex() ) );
+				}
+
+				log.info( ( testStep == null ? "HTTP request" : "TestStep [" + testStep.getName() + "]" )
+						+ " phase times: " + buf );
+			}
+		}
+
+		if( httpPhaseStatistics )
+		{
+			for( RoutePoolStatistics route : HttpClientSupport.getConnectionPoolStatistics().getRouteStatistics() )
+				log.info( "Connection pool " + route );
+		}
+	}
+
 	private void exportLog( WsdlLoadTest loadTest ) throws IOException
 	{
 		// export log first
@@ -12,21 +12,33 @@
 
 package com.eviware.soapui.tools;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
 
 import org.apache.commons.cli.CommandLine;
+import org.apache.commons.io.FileUtils;
 
 import com.eviware.soapui.SoapUI;
 import com.eviware.soapui.impl.wsdl.WsdlProject;
 import com.eviware.soapui.impl.wsdl.WsdlTestSuite;
+import com.eviware.soapui.impl.wsdl.support.ExpectedRunTimes;
 import com.eviware.soapui.impl.wsdl.testcase.WsdlProjectRunner;
 import com.eviware.soapui.impl.wsdl.testcase.WsdlTestCase;
 import com.eviware.soapui.impl.wsdl.testcase.WsdlTestCaseRunner;
@@ -52,7 +64,6 @@ import com.eviware.soapui.model.testsuite.TestRunner.Status;
 import com.eviware.soapui.model.testsuite.TestStep;
 import com.eviware.soapui.model.testsuite.TestStepResult;
 import com.eviware.soapui.model.testsuite.TestStepResult.TestStepStatus;
-import com.eviware.soapui.model.testsuite.TestSuite;
 import com.eviware.soapui.model.testsuite.TestSuite.TestSuiteRunType;
 import com.eviware.soapui.model.testsuite.TestSuiteRunner;
 import com.eviware.soapui.report.JUnitReportCollector;
@@ -101,6 +112,11 @@ public class SoapUITestCaseRunner extends AbstractSoapUITestRunner
 	private String projectPassword;
 	private boolean saveAfterRun;
 	private TestCaseRunLogReport testCaseRunLogReport;
+	private int shardIndex = -1;
+	private int shardCount;
+	private int forkCount;
+	private String[] commandLineArgs;
+	private Map<TestCase, Long> shardDurations;
 
 	/**
 	 * Runs the tests in the specified soapUI project file, see SoapUI xdocs for
@@ -199,6 +215,27 @@ public class SoapUITestCaseRunner extends AbstractSoapUITestRunner
 
 		setSaveAfterRun( cmd.hasOption( "S" ) );
 
+		if( cmd.hasOption( "z" ) || cmd.hasOption( "Z" ) )
+		{
+			if( !cmd.hasOption( "z" ) || !cmd.hasOption( "Z" ) )
+				message = "Both shard-index and shard-count must be set";
+			else
+			{
+				setShard( Integer.parseInt( cmd.getOptionValue( "z" ) ), Integer.parseInt( cmd.getOptionValue( "Z" ) ) );
+				if( shardIndex < 0 || shardIndex >= shardCount )
+					message = "shard-index must be between 0 and shard-count - 1";
+			}
+		}
+
+		if( cmd.hasOption( "K" ) )
+			setForkCount( Integer.parseInt( cmd.getOptionValue( "K" ) ) );
+
+		if( ( shardCount > 1 || forkCount > 1 ) && testCase != null )
+			message = "Sharding can not be combined with running a single TestCase";
+
+		if( ( shardCount > 1 || forkCount > 1 ) && saveAfterRun )
+			message = "Sharded or forked runs can not save the project";
+
 		if( message.length() > 0 )
 		{
 			log.error( message );
@@ -223,6 +260,37 @@ public class SoapUITestCaseRunner extends AbstractSoapUITestRunner
 		this.saveAfterRun = saveAfterRun;
 	}
 
+	/**
+	 * Runs only the TestCases of one shard. TestCases are split into shards of
+	 * about the same expected run time, the same way by all runners given the
+	 * same project and durations file (see the soapui.shard.durations system
+	 * property).
+	 * 
+	 * @param shardIndex
+	 *           the shard to run, starting from 0
+	 * @param shardCount
+	 *           the number of shards
+	 */
+
+	public void setShard( int shardIndex, int shardCount )
+	{
+		this.shardIndex = shardIndex;
+		this.shardCount = shardCount;
+	}
+
+	/**
+	 * Runs all shards in forked runner processes on this machine and merges
+	 * their reports
+	 * 
+	 * @param forkCount
+	 *           the number of processes/shards
+	 */
+
+	public void setForkCount( int forkCount )
+	{
+		this.forkCount = forkCount;
+	}
+
 	@Override
 	public void setProjectPassword( String projectPassword )
 	{
@@ -263,6 +331,9 @@ public class SoapUITestCaseRunner extends AbstractSoapUITestRunner
 		options.addOption( "P", true, "Sets or overrides project property with name=value" );
 		options.addOption( "I", false, "Do not stop if error occurs, ignore them" );
 		options.addOption( "S", false, "Saves the project after running the tests" );
+		options.addOption( "z", "shard-index", true, "Runs only the TestCases of this shard, starting from 0" );
+		options.addOption( "Z", "shard-count", true, "Sets the number of shards to split the TestCases into" );
+		options.addOption( "K", "forks", true, "Runs the shards in this number of forked runners and merges their reports" );
 
 		return options;
 	}
@@ -298,6 +369,13 @@ public class SoapUITestCaseRunner extends AbstractSoapUITestRunner
 		super( title );
 	}
 
+	@Override
+	public boolean initFromCommandLine( String[] args, boolean printHelp ) throws Exception
+	{
+		commandLineArgs = args;
+		return super.initFromCommandLine( args, printHelp );
+	}
+
 	/**
 	 * Controls if a short test summary should be printed after the test runs
 	 * 
@@ -343,6 +421,9 @@ public class SoapUITestCaseRunner extends AbstractSoapUITestRunner
 		initProject( project );
 		ensureOutputFolder( project );
 
+		if( forkCount > 1 && shardCount == 0 )
+			return runForks( project );
+
 		if( this.printAlertSiteReport )
 		{
 			testCaseRunLogReport = new TestCaseRunLogReport( getAbsoluteOutputFolder( project ) );
@@ -359,11 +440,32 @@ public class SoapUITestCaseRunner extends AbstractSoapUITestRunner
 			throw new Exception( "TestSuite with name [" + testSuite + "] is missing in Project [" + project.getName()
 					+ "]" );
 
+		List<TestCase> listenedTestCases = new ArrayList<TestCase>();
+		List<WsdlTestSuite> listenedTestSuites = new ArrayList<WsdlTestSuite>();
+		boolean lazyLoad = Boolean.getBoolean( "soapui.project.lazyload" );
+
 		// start by listening to all testcases.. (since one testcase can call
 		// another)
 		for( int c = 0; c < project.getTestSuiteCount(); c++ )
 		{
-			TestSuite suite = project.getTestSuiteAt( c );
+			WsdlTestSuite suite = project.getTestSuiteAt( c );
+
+			// when loading lazily no TestCase is built here apart from the
+			// specified one, the others get the listeners from their TestSuite
+			// when they are built for running or for being called
+			if( lazyLoad )
+			{
+				addListeners( suite );
+				listenedTestSuites.add( suite );
+
+				TestCase tc = testCase != null && ( testSuite == null || suite.getName().equals( testSuite ) ) ? suite
+						.getTestCaseByName( testCase ) : null;
+				if( tc != null )
+					testCasesToRun.add( tc );
+
+				continue;
+			}
+
 			for( int i = 0; i < suite.getTestCaseCount(); i++ )
 			{
 				TestCase tc = suite.getTestCaseAt( i );
@@ -372,11 +474,25 @@ public class SoapUITestCaseRunner extends AbstractSoapUITestRunner
 					testCasesToRun.add( tc );
 
 				addListeners( tc );
+				listenedTestCases.add( tc );
 			}
 		}
 
+		List<WsdlTestSuite> shardDisabledTestSuites = new ArrayList<WsdlTestSuite>();
+		List<WsdlTestCase> shardDisabledTestCases = new ArrayList<WsdlTestCase>();
+
 		try
 		{
+			if( shardCount > 1 )
+			{
+				shardDurations = Collections.synchronizedMap( new LinkedHashMap<TestCase, Long>() );
+				disableOtherShards( project, shardDisabledTestSuites, shardDisabledTestCases );
+
+				// shards run at the same time, so they don't write the project's
+				// durations file used for ordering parallel runs
+				project.setExpectedRunTimes( new ExpectedRunTimes( null ) );
+			}
+
 			// validate testSuite argument
 			if( testCase != null && testCasesToRun.size() == 0 )
 			{
@@ -416,7 +532,11 @@ public class SoapUITestCaseRunner extends AbstractSoapUITestRunner
 
 			exportReports( project );
 
-			if( saveAfterRun && !project.isRemote() )
+			if( shardCount > 1 )
+				saveShardResults( project );
+
+			// a shard only ran part of the project, with the rest disabled
+			if( saveAfterRun && !project.isRemote() && shardCount <= 1 )
 			{
 				try
 				{
@@ -437,14 +557,296 @@ public class SoapUITestCaseRunner extends AbstractSoapUITestRunner
 		}
 		finally
 		{
-			for( int c = 0; c < project.getTestSuiteCount(); c++ )
+			for( TestCase tc : listenedTestCases )
 			{
-				TestSuite suite = project.getTestSuiteAt( c );
-				for( int i = 0; i < suite.getTestCaseCount(); i++ )
-				{
-					TestCase tc = suite.getTestCaseAt( i );
-					removeListeners( tc );
-				}
+				removeListeners( tc );
+			}
+
+			for( WsdlTestSuite suite : listenedTestSuites )
+			{
+				removeListeners( suite );
+			}
+
+			for( WsdlTestCase tc : shardDisabledTestCases )
+				tc.setDisabled( false );
+			for( WsdlTestSuite ts : shardDisabledTestSuites )
+				ts.setDisabled( false );
+		}
+	}
+
+	/**
+	 * Disables the TestCases of other shards, and the TestSuites left without
+	 * TestCases, for the duration of the run
+	 */
+
+	private void disableOtherShards( WsdlProject project, List<WsdlTestSuite> disabledTestSuites,
+			List<WsdlTestCase> disabledTestCases ) throws IOException
+	{
+		Properties durations = TestCaseShards.load( getDurationsFile( project ) );
+		List<WsdlTestSuite> testSuites = new ArrayList<WsdlTestSuite>();
+		List<WsdlTestCase> testCases = new ArrayList<WsdlTestCase>();
+
+		for( int c = 0; c < project.getTestSuiteCount(); c++ )
+		{
+			WsdlTestSuite suite = project.getTestSuiteAt( c );
+			if( suite.isDisabled() || ( testSuite != null && !suite.getName().equals( testSuite ) ) )
+				continue;
+
+			testSuites.add( suite );
+			for( int i = 0; i < suite.getTestCaseCount(); i++ )
+			{
+				WsdlTestCase tc = suite.getTestCaseAt( i );
+				if( !tc.isDisabled() )
+					testCases.add( tc );
+			}
+		}
+
+		// only the shared durations file is used, so all shards compute the same
+		// split
+		long[] expectedTimes = new long[testCases.size()];
+		for( int c = 0; c < expectedTimes.length; c++ )
+			expectedTimes[c] = TestCaseShards.getLong( durations, getDurationKey( testCases.get( c ) ) );
+
+		int[] shards = TestCaseShards.assign( expectedTimes, shardCount );
+		Set<WsdlTestSuite> shardTestSuites = new HashSet<WsdlTestSuite>();
+
+		for( int c = 0; c < shards.length; c++ )
+		{
+			WsdlTestCase tc = testCases.get( c );
+			if( shards[c] == shardIndex )
+			{
+				shardTestSuites.add( tc.getTestSuite() );
+			}
+			else
+			{
+				tc.setDisabled( true );
+				disabledTestCases.add( tc );
+			}
+		}
+
+		for( WsdlTestSuite suite : testSuites )
+		{
+			if( !shardTestSuites.contains( suite ) )
+			{
+				suite.setDisabled( true );
+				disabledTestSuites.add( suite );
+			}
+		}
+
+		log.info( "Running " + ( testCases.size() - disabledTestCases.size() ) + " of " + testCases.size()
+				+ " TestCases in shard " + shardIndex + " of " + shardCount );
+	}
+
+	/**
+	 * TestCases are identified by name in the durations file, their ids are
+	 * generated anew on each load for projects saved without ids, and shard
+	 * runs don't save the project
+	 */
+
+	private static String getDurationKey( TestCase testCase )
+	{
+		return testCase.getTestSuite().getName() + "/" + testCase.getName();
+	}
+
+	private File getDurationsFile( WsdlProject project )
+	{
+		String path = System.getProperty( "soapui.shard.durations" );
+		if( StringUtils.isNullOrEmpty( path ) )
+			path = getAbsoluteOutputFolder( project ) + File.separator + "test-durations.properties";
+
+		return new File( path );
+	}
+
+	/**
+	 * Saves the recorded TestCase durations and the summary counts of this
+	 * shard for merging by the runner that forked it
+	 */
+
+	private void saveShardResults( WsdlProject project ) throws IOException
+	{
+		Properties durations = new Properties();
+		Set<String> testSuites = new HashSet<String>();
+
+		synchronized( shardDurations )
+		{
+			for( Map.Entry<TestCase, Long> entry : shardDurations.entrySet() )
+			{
+				durations.setProperty( getDurationKey( entry.getKey() ), String.valueOf( entry.getValue() ) );
+				testSuites.add( entry.getKey().getTestSuite().getName() );
+			}
+		}
+
+		Properties summary = new Properties();
+		summary.setProperty( "testCases", String.valueOf( testCaseCount ) );
+		summary.setProperty( "failedTestCases", String.valueOf( failedTests.size() ) );
+		summary.setProperty( "testSteps", String.valueOf( testStepCount ) );
+		summary.setProperty( "assertions", String.valueOf( testAssertionCount ) );
+		summary.setProperty( "failedAssertions", String.valueOf( assertions.size() ) );
+		summary.setProperty( "exportedResults", String.valueOf( exportCount ) );
+
+		int c = 0;
+		for( String name : testSuites )
+			summary.setProperty( "testSuite." + ( c++ ), name );
+
+		String folder = getAbsoluteOutputFolder( project );
+		TestCaseShards.save( durations, new File( folder, "shard-durations.properties" ) );
+		TestCaseShards.save( summary, new File( folder, "shard-summary.properties" ) );
+	}
+
+	/**
+	 * Runs each shard in a forked runner with the same arguments, then merges
+	 * their summaries, JUnit reports and TestCase durations
+	 */
+
+	private boolean runForks( WsdlProject project ) throws Exception
+	{
+		if( commandLineArgs == null )
+			throw new Exception( "Forked runs are only supported from the command-line" );
+
+		long startTime = System.nanoTime();
+		String outputFolder = getAbsoluteOutputFolder( project );
+		File durationsFile = getDurationsFile( project );
+
+		List<File> shardFolders = new ArrayList<File>();
+		List<Process> processes = new ArrayList<Process>();
+		List<Thread> outputThreads = new ArrayList<Thread>();
+
+		for( int c = 0; c < forkCount; c++ )
+		{
+			File shardFolder = new File( outputFolder, "shard-" + c );
+			FileUtils.deleteQuietly( shardFolder );
+			shardFolders.add( shardFolder );
+
+			ProcessBuilder builder = new ProcessBuilder( createForkCommand( c, shardFolder, durationsFile ) );
+			builder.redirectErrorStream( true );
+
+			log.info( "Starting runner for shard " + c + " of " + forkCount );
+			Process process = builder.start();
+			processes.add( process );
+
+			Thread outputThread = new ShardOutputThread( process.getInputStream(), "[shard " + c + "] " );
+			outputThread.start();
+			outputThreads.add( outputThread );
+		}
+
+		List<Integer> failedShards = new ArrayList<Integer>();
+		for( int c = 0; c < forkCount; c++ )
+		{
+			if( processes.get( c ).waitFor() != 0 )
+				failedShards.add( c );
+
+			outputThreads.get( c ).join();
+		}
+
+		long timeTaken = ( System.nanoTime() - startTime ) / 1000000;
+
+		Properties durations = TestCaseShards.load( durationsFile );
+		Set<String> testSuites = new HashSet<String>();
+		int failedTestCaseCount = 0;
+		int failedAssertionCount = 0;
+
+		for( File shardFolder : shardFolders )
+		{
+			TestCaseShards.mergeDurations( durations, TestCaseShards.load( new File( shardFolder,
+					"shard-durations.properties" ) ) );
+
+			Properties summary = TestCaseShards.load( new File( shardFolder, "shard-summary.properties" ) );
+			testCaseCount += TestCaseShards.getLong( summary, "testCases" );
+			failedTestCaseCount += TestCaseShards.getLong( summary, "failedTestCases" );
+			testStepCount += TestCaseShards.getLong( summary, "testSteps" );
+			testAssertionCount += TestCaseShards.getLong( summary, "assertions" );
+			failedAssertionCount += TestCaseShards.getLong( summary, "failedAssertions" );
+			exportCount += TestCaseShards.getLong( summary, "exportedResults" );
+
+			for( int c = 0; summary.containsKey( "testSuite." + c ); c++ )
+				testSuites.add( summary.getProperty( "testSuite." + c ) );
+		}
+
+		testSuiteCount = testSuites.size();
+		TestCaseShards.save( durations, durationsFile );
+
+		if( printReport )
+			printReport( timeTaken, failedTestCaseCount, failedAssertionCount );
+
+		if( junitReport )
+			JUnitReportCollector.mergeReports( shardFolders, outputFolder );
+
+		if( !failedShards.isEmpty() && !ignoreErrors )
+			throw new Exception( "Runners for shards " + failedShards + " failed, see their output for details" );
+
+		return true;
+	}
+
+	private List<String> createForkCommand( int shard, File shardFolder, File durationsFile )
+	{
+		List<String> command = new ArrayList<String>();
+		command.add( System.getProperty( "java.home" ) + File.separator + "bin" + File.separator + "java" );
+		for( String arg : ManagementFactory.getRuntimeMXBean().getInputArguments() )
+		{
+			if( isForkedJvmArgument( arg ) )
+				command.add( arg );
+		}
+
+		command.add( "-cp" );
+		command.add( System.getProperty( "java.class.path" ) );
+		command.add( getClass().getName() );
+
+		command.add( "-f" );
+		command.add( shardFolder.getAbsolutePath() );
+		command.add( "-D" );
+		command.add( "soapui.shard.durations=" + durationsFile.getAbsolutePath() );
+		command.add( "--shard-index" );
+		command.add( String.valueOf( shard ) );
+		command.add( "--shard-count" );
+		command.add( String.valueOf( forkCount ) );
+
+		// the output folder and fork count are replaced by the ones above
+		for( int c = 0; c < commandLineArgs.length; c++ )
+		{
+			String arg = commandLineArgs[c];
+			if( arg.equals( "-f" ) || arg.equals( "-K" ) || arg.equals( "--forks" ) )
+				c++ ;
+			else if( !arg.startsWith( "-f" ) && !arg.startsWith( "-K" ) && !arg.startsWith( "--forks=" ) )
+				command.add( arg );
+		}
+
+		return command;
+	}
+
+	/**
+	 * Leaves out the debugger and JMX agent options of this JVM, since the
+	 * forked runners would fail to bind the same ports
+	 */
+
+	static boolean isForkedJvmArgument( String arg )
+	{
+		return !arg.startsWith( "-agentlib:jdwp" ) && !arg.startsWith( "-Xrunjdwp" ) && !arg.equals( "-Xdebug" )
+				&& !arg.startsWith( "-Dcom.sun.management.jmxremote.port=" )
+				&& !arg.startsWith( "-Dcom.sun.management.jmxremote.rmi.port=" );
+	}
+
+	private static class ShardOutputThread extends Thread
+	{
+		private final BufferedReader reader;
+		private final String prefix;
+
+		public ShardOutputThread( InputStream in, String prefix )
+		{
+			this.reader = new BufferedReader( new InputStreamReader( in ) );
+			this.prefix = prefix;
+		}
+
+		public void run()
+		{
+			try
+			{
+				String line;
+				while( ( line = reader.readLine() ) != null )
+					System.out.println( prefix + line );
+			}
+			catch( IOException e )
+			{
+				SoapUI.logError( e );
 			}
 		}
 	}
@@ -456,6 +858,15 @@ public class SoapUITestCaseRunner extends AbstractSoapUITestRunner
 			tc.removeTestRunListener( reportCollector );
 	}
 
+	protected void removeListeners( WsdlTestSuite suite )
+	{
+		suite.removeTestCaseRunListener( this );
+		if( junitReport )
+			suite.removeTestCaseRunListener( reportCollector );
+		if( printAlertSiteReport )
+			suite.removeTestCaseRunListener( testCaseRunLogReport );
+	}
+
 	protected void runProject( WsdlProject project )
 	{
 		// add listener for counting..
@@ -502,6 +913,20 @@ public class SoapUITestCaseRunner extends AbstractSoapUITestRunner
 
 	}
 
+	/**
+	 * Adds the listeners to all TestCases of a TestSuite, including the ones
+	 * built later on when loading lazily
+	 */
+
+	protected void addListeners( WsdlTestSuite suite )
+	{
+		suite.addTestCaseRunListener( this );
+		if( junitReport )
+			suite.addTestCaseRunListener( reportCollector );
+		if( printAlertSiteReport )
+			suite.addTestCaseRunListener( testCaseRunLogReport );
+	}
+
 	protected void throwFailureException() throws Exception
 	{
 		StringBuffer buf = new StringBuffer();
@@ -543,16 +968,21 @@ public class SoapUITestCaseRunner extends AbstractSoapUITestRunner
 	}
 
 	public void printReport( long timeTaken )
+	{
+		printReport( timeTaken, failedTests.size(), assertions.size() );
+	}
+
+	protected void printReport( long timeTaken, int failedTestCaseCount, int failedAssertionCount )
 	{
 		System.out.println();
 		System.out.println( "SoapUI " + SoapUI.SOAPUI_VERSION + " TestCaseRunner Summary" );
 		System.out.println( "-----------------------------" );
 		System.out.println( "Time Taken: " + timeTaken + "ms" );
 		System.out.println( "Total TestSuites: " + testSuiteCount );
-		System.out.println( "Total TestCases: " + testCaseCount + " (" + failedTests.size() + " failed)" );
+		System.out.println( "Total TestCases: " + testCaseCount + " (" + failedTestCaseCount + " failed)" );
 		System.out.println( "Total TestSteps: " + testStepCount );
 		System.out.println( "Total Request Assertions: " + testAssertionCount );
-		System.out.println( "Total Failed Assertions: " + assertions.size() );
+		System.out.println( "Total Failed Assertions: " + failedAssertionCount );
 		System.out.println( "Total Exported Results: " + exportCount );
 	}
 
@@ -776,6 +1206,9 @@ public class SoapUITestCaseRunner extends AbstractSoapUITestRunner
 			failedTests.add( testRunner.getTestCase() );
 		}
 
+		if( shardDurations != null )
+			shardDurations.put( testRunner.getTestCase(), System.currentTimeMillis() - testRunner.getStartTime() );
+
 		testCaseCount++ ;
 	}
 
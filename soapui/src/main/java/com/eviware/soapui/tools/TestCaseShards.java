@@ -0,0 +1,156 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.tools;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Properties;
+
+/**
+ * Splits the TestCases of a run into shards of about the same expected run
+ * time, and keeps the recorded TestCase durations used for that between runs
+ */
+
+public final class TestCaseShards
+{
+	private TestCaseShards()
+	{
+	}
+
+	/**
+	 * Assigns items to shards longest first, each to the shard with the least
+	 * expected time so far. Items with an unknown (0) time count as the
+	 * average of the known ones. The result only depends on the arguments, so
+	 * runners on different machines agree on it.
+	 * 
+	 * @return the shard index of each item
+	 */
+
+	public static int[] assign( final long[] expectedTimes, int shardCount )
+	{
+		long total = 0;
+		int known = 0;
+		for( long time : expectedTimes )
+		{
+			if( time > 0 )
+			{
+				total += time;
+				known++ ;
+			}
+		}
+
+		final long defaultTime = known == 0 ? 1 : Math.max( 1, total / known );
+		final long[] times = new long[expectedTimes.length];
+		Integer[] order = new Integer[expectedTimes.length];
+		for( int c = 0; c < times.length; c++ )
+		{
+			times[c] = expectedTimes[c] > 0 ? expectedTimes[c] : defaultTime;
+			order[c] = c;
+		}
+
+		Arrays.sort( order, new Comparator<Integer>()
+		{
+			public int compare( Integer o1, Integer o2 )
+			{
+				if( times[o1] != times[o2] )
+					return times[o1] > times[o2] ? -1 : 1;
+
+				return o1.compareTo( o2 );
+			}
+		} );
+
+		long[] loads = new long[shardCount];
+		int[] shards = new int[times.length];
+		for( int ix : order )
+		{
+			int shard = 0;
+			for( int c = 1; c < shardCount; c++ )
+			{
+				if( loads[c] < loads[shard] )
+					shard = c;
+			}
+
+			shards[ix] = shard;
+			loads[shard] += times[ix];
+		}
+
+		return shards;
+	}
+
+	/**
+	 * Adds recorded durations to the ones in a durations file, averaging them
+	 * with earlier runs
+	 */
+
+	public static void mergeDurations( Properties durations, Properties recorded )
+	{
+		for( Object name : recorded.keySet() )
+		{
+			String key = name.toString();
+			long time = getLong( recorded, key );
+			long previous = getLong( durations, key );
+			durations.setProperty( key, String.valueOf( previous == 0 ? time : ( previous + time ) / 2 ) );
+		}
+	}
+
+	public static long getLong( Properties durations, String key )
+	{
+		try
+		{
+			return Long.parseLong( durations.getProperty( key, "0" ) );
+		}
+		catch( NumberFormatException e )
+		{
+			return 0;
+		}
+	}
+
+	public static Properties load( File file ) throws IOException
+	{
+		Properties properties = new Properties();
+		if( file.exists() )
+		{
+			InputStream in = new FileInputStream( file );
+			try
+			{
+				properties.load( in );
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+
+		return properties;
+	}
+
+	public static void save( Properties properties, File file ) throws IOException
+	{
+		file.getAbsoluteFile().getParentFile().mkdirs();
+		OutputStream out = new FileOutputStream( file );
+		try
+		{
+			properties.store( out, null );
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.support.definition.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.eviware.soapui.impl.support.AbstractInterface;
+
+public class ParallelDefinitionLoaderTest
+{
+	@Test
+	public void loadsDefinitionsOfAllInterfaces() throws Exception
+	{
+		List<AbstractInterface<?>> interfaces = new ArrayList<AbstractInterface<?>>();
+		AbstractDefinitionContext<?, ?, ?>[] contexts = new AbstractDefinitionContext<?, ?, ?>[4];
+		for( int c = 0; c < contexts.length; c++ )
+		{
+			contexts[c] = mock( AbstractDefinitionContext.class );
+			when( contexts[c].getLoadTime() ).thenReturn( c * 10L );
+			interfaces.add( createInterface( "file:test" + c + ".wsdl", contexts[c] ) );
+		}
+
+		Map<AbstractInterface<?>, Long> result = ParallelDefinitionLoader.loadDefinitions( interfaces, 2 );
+
+		assertEquals( 4, result.size() );
+		for( int c = 0; c < contexts.length; c++ )
+		{
+			verify( contexts[c] ).loadInCurrentThread();
+			assertEquals( Long.valueOf( c * 10L ), result.get( interfaces.get( c ) ) );
+		}
+	}
+
+	@Test
+	public void skipsInterfacesWithoutDefinition() throws Exception
+	{
+		AbstractDefinitionContext<?, ?, ?> context = mock( AbstractDefinitionContext.class );
+		List<AbstractInterface<?>> interfaces = new ArrayList<AbstractInterface<?>>();
+		interfaces.add( createInterface( "", context ) );
+
+		assertTrue( ParallelDefinitionLoader.loadDefinitions( interfaces, 2 ).isEmpty() );
+		verify( context, never() ).loadInCurrentThread();
+	}
+
+	@Test
+	public void leavesOutFailedDefinitions() throws Exception
+	{
+		AbstractDefinitionContext<?, ?, ?> failing = mock( AbstractDefinitionContext.class );
+		when( failing.loadInCurrentThread() ).thenThrow( new Exception( "Invalid definition" ) );
+		AbstractDefinitionContext<?, ?, ?> context = mock( AbstractDefinitionContext.class );
+
+		List<AbstractInterface<?>> interfaces = new ArrayList<AbstractInterface<?>>();
+		interfaces.add( createInterface( "file:failing.wsdl", failing ) );
+		interfaces.add( createInterface( "file:test.wsdl", context ) );
+
+		Map<AbstractInterface<?>, Long> result = ParallelDefinitionLoader.loadDefinitions( interfaces, 2 );
+		assertEquals( 1, result.size() );
+		assertFalse( result.containsKey( interfaces.get( 0 ) ) );
+	}
+
+	private static AbstractInterface<?> createInterface( String definition, AbstractDefinitionContext<?, ?, ?> context )
+	{
+		AbstractInterface<?> iface = mock( AbstractInterface.class );
+		when( iface.getDefinition() ).thenReturn( definition );
+		when( iface.getDefinitionContext() ).thenReturn( context );
+		return iface;
+	}
+}
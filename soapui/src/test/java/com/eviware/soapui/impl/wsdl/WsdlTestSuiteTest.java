@@ -1,16 +1,20 @@
 package com.eviware.soapui.impl.wsdl;
 
 import com.eviware.soapui.config.TestSuiteConfig;
+import com.eviware.soapui.model.testsuite.TestRunListener;
 
 import static com.eviware.soapui.utils.ModelItemMatchers.belongsTo;
 import static com.eviware.soapui.utils.ModelItemMatchers.hasATestCaseNamed;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 
+import java.util.Arrays;
+
 /**
  * @author manne
  */
@@ -56,4 +60,29 @@ public class WsdlTestSuiteTest
 
 	}
 
+	@Test
+	public void addsTestCaseRunListenersToLazilyBuiltTestCases() throws Exception
+	{
+		TestSuiteConfig config = TestSuiteConfig.Factory.newInstance();
+		config.addNewTestCase().setName( "Lazy test case" );
+
+		System.setProperty( "soapui.project.lazyload", "true" );
+		try
+		{
+			suite = new WsdlTestSuite( project, config );
+		}
+		finally
+		{
+			System.clearProperty( "soapui.project.lazyload" );
+		}
+
+		TestRunListener listener = mock( TestRunListener.class );
+		suite.addTestCaseRunListener( listener );
+
+		assertThat( Arrays.asList( suite.getTestCaseAt( 0 ).getTestRunListeners() ), hasItem( listener ) );
+
+		suite.removeTestCaseRunListener( listener );
+		assertThat( Arrays.asList( suite.getTestCaseAt( 0 ).getTestRunListeners() ), not( hasItem( listener ) ) );
+	}
+
 }
@@ -0,0 +1,259 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.loadtest.agent;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.eviware.soapui.config.LoadTestLimitTypesConfig;
+import com.eviware.soapui.impl.wsdl.WsdlProject;
+import com.eviware.soapui.impl.wsdl.loadtest.WsdlLoadTest;
+import com.eviware.soapui.impl.wsdl.loadtest.WsdlLoadTestRunner;
+import com.eviware.soapui.impl.wsdl.loadtest.data.LoadTestStatistics;
+import com.eviware.soapui.impl.wsdl.loadtest.data.LoadTestStatistics.Statistic;
+import com.eviware.soapui.impl.wsdl.loadtest.log.RemoteLoadTestLogEntry;
+import com.eviware.soapui.impl.wsdl.testcase.WsdlTestCase;
+import com.eviware.soapui.impl.wsdl.teststeps.WsdlDelayTestStep;
+import com.eviware.soapui.impl.wsdl.teststeps.registry.DelayStepFactory;
+import com.eviware.soapui.tools.SoapUILoadTestAgent;
+
+public class LoadTestCoordinatorIT
+{
+	private static final String SECRET = "agent-test-secret";
+
+	private List<Process> agentProcesses = new ArrayList<Process>();
+	private List<File> files = new ArrayList<File>();
+
+	@After
+	public void tearDown() throws Exception
+	{
+		for( Process process : agentProcesses )
+			process.destroy();
+
+		for( File file : files )
+			file.delete();
+	}
+
+	@Test
+	public void splitsIntoEvenShares() throws Exception
+	{
+		assertArrayEquals( new long[] { 4, 3, 3 }, LoadTestCoordinator.split( 10, 3 ) );
+		assertArrayEquals( new long[] { 5, 5 }, LoadTestCoordinator.split( 10, 2 ) );
+		assertArrayEquals( new long[] { 1, 0, 0 }, LoadTestCoordinator.split( 1, 3 ) );
+	}
+
+	@Test
+	public void parsesAgentAddresses() throws Exception
+	{
+		assertEquals( "localhost:7000", RemoteLoadTestAgent.forAddress( " localhost:7000" ).getName() );
+		assertEquals( "loadhost:" + LoadTestAgentProtocol.DEFAULT_PORT, RemoteLoadTestAgent.forAddress( "loadhost" )
+				.getName() );
+	}
+
+	@Test
+	public void combinesResultsOfAgentProcesses() throws Exception
+	{
+		WsdlLoadTest loadTest = createLoadTest();
+		File projectFile = saveProject( loadTest );
+
+		String[] agents = { "localhost:" + startAgentProcess(), "localhost:" + startAgentProcess() };
+
+		LoadTestCoordinator coordinator = new LoadTestCoordinator( loadTest, agents, SECRET );
+		WsdlLoadTestRunner runner = coordinator.run( projectFile.getAbsolutePath(), null );
+		assertEquals( 2, loadTest.getThreadCount() );
+
+		assertTrue( coordinator.finish( runner ).isEmpty() );
+		assertEquals( 6, loadTest.getThreadCount() );
+		assertEquals( 60, loadTest.getTestLimit() );
+
+		// each participant runs at least its share of 20 runs
+		LoadTestStatistics statistics = loadTest.getStatisticsModel();
+		assertTrue( statistics.getStatistic( LoadTestStatistics.TOTAL, Statistic.COUNT ) >= 60 );
+		assertTrue( statistics.getStatistic( 0, Statistic.MININMUM ) >= 10 );
+
+		Thread.sleep( 500 );
+
+		int agentEntries = 0;
+		for( int c = 0; c < loadTest.getLoadTestLog().getSize(); c++ )
+		{
+			if( loadTest.getLoadTestLog().getElementAt( c ) instanceof RemoteLoadTestLogEntry )
+				agentEntries++ ;
+		}
+
+		assertTrue( agentEntries > 0 );
+	}
+
+	@Test
+	public void rejectsCoordinatorWithWrongSecret() throws Exception
+	{
+		WsdlLoadTest loadTest = createLoadTest();
+		File projectFile = saveProject( loadTest );
+
+		String[] agents = { "localhost:" + startAgentProcess() };
+
+		try
+		{
+			new LoadTestCoordinator( loadTest, agents, "wrong-secret" ).run( projectFile.getAbsolutePath(), null );
+			fail( "Agent accepted the wrong secret" );
+		}
+		catch( IOException e )
+		{
+			assertTrue( e.getMessage(), e.getMessage().indexOf( "Authentication failed" ) != -1 );
+		}
+
+		// rejected coordinators do not count as runs
+		assertFalse( hasExited( agentProcesses.get( 0 ) ) );
+	}
+
+	@Test
+	public void doesNotStartAgentsWithoutThreads() throws Exception
+	{
+		WsdlLoadTest loadTest = createLoadTest();
+		loadTest.setThreadCount( 1 );
+		File projectFile = saveProject( loadTest );
+
+		// nothing listens on these, so starting them would fail the LoadTest
+		String[] agents = { "localhost:1", "localhost:1" };
+
+		LoadTestCoordinator coordinator = new LoadTestCoordinator( loadTest, agents, SECRET );
+		WsdlLoadTestRunner runner = coordinator.run( projectFile.getAbsolutePath(), null );
+		assertEquals( 1, loadTest.getThreadCount() );
+
+		assertTrue( coordinator.finish( runner ).isEmpty() );
+		assertFalse( coordinator.getAgents().get( 0 ).isStarted() );
+	}
+
+	@Test
+	public void rejectsCompositeProjects() throws Exception
+	{
+		WsdlLoadTest loadTest = createLoadTest();
+
+		File projectDir = File.createTempFile( "agent-test-", "-composite" );
+		projectDir.delete();
+		projectDir.mkdir();
+		files.add( projectDir );
+
+		try
+		{
+			new LoadTestCoordinator( loadTest, new String[] { "localhost:1" }, SECRET ).run(
+					projectDir.getAbsolutePath(), null );
+			fail( "Composite project was sent to agents" );
+		}
+		catch( IOException e )
+		{
+			assertTrue( e.getMessage(), e.getMessage().indexOf( "Composite project" ) != -1 );
+		}
+	}
+
+	private WsdlLoadTest createLoadTest() throws Exception
+	{
+		WsdlProject project = new WsdlProject();
+		WsdlTestCase testCase = project.addNewTestSuite( "Suite" ).addNewTestCase( "Case" );
+		WsdlDelayTestStep delayStep = ( WsdlDelayTestStep )testCase.addTestStep( DelayStepFactory.DELAY_TYPE, "Delay" );
+		delayStep.setDelay( 10 );
+
+		WsdlLoadTest loadTest = testCase.addNewLoadTest( "LoadTest" );
+		loadTest.setThreadCount( 6 );
+		loadTest.setLimitType( LoadTestLimitTypesConfig.COUNT );
+		loadTest.setTestLimit( 60 );
+
+		return loadTest;
+	}
+
+	private File saveProject( WsdlLoadTest loadTest ) throws IOException
+	{
+		File projectFile = File.createTempFile( "agent-test-", "-soapui-project.xml" );
+		files.add( projectFile );
+		loadTest.getTestCase().getTestSuite().getProject().saveIn( projectFile );
+		return projectFile;
+	}
+
+	private static boolean hasExited( Process process )
+	{
+		try
+		{
+			process.exitValue();
+			return true;
+		}
+		catch( IllegalThreadStateException e )
+		{
+			return false;
+		}
+	}
+
+	private int startAgentProcess() throws IOException, InterruptedException
+	{
+		File portFile = File.createTempFile( "agent-test-", ".port" );
+		portFile.delete();
+		files.add( portFile );
+
+		String java = System.getProperty( "java.home" ) + File.separator + "bin" + File.separator + "java";
+		ProcessBuilder builder = new ProcessBuilder( java, "-D" + LoadTestAgentProtocol.SECRET_PROPERTY + "=" + SECRET,
+				"-cp", System.getProperty( "java.class.path" ), SoapUILoadTestAgent.class.getName(), "-p", "0", "-m",
+				"1", "-f", portFile.getAbsolutePath() );
+		builder.redirectErrorStream( true );
+
+		// the agent logs to the console, which must be drained
+		final Process process = builder.start();
+		agentProcesses.add( process );
+		Thread reader = new Thread( new Runnable()
+		{
+			public void run()
+			{
+				try
+				{
+					byte[] buffer = new byte[4096];
+					while( process.getInputStream().read( buffer ) != -1 )
+						;
+				}
+				catch( IOException e )
+				{
+				}
+			}
+		} );
+
+		reader.setDaemon( true );
+		reader.start();
+
+		long end = System.currentTimeMillis() + 60000;
+		while( !portFile.exists() )
+		{
+			assertFalse( "Agent process exited", hasExited( process ) );
+			assertTrue( "Agent process did not start", System.currentTimeMillis() < end );
+			Thread.sleep( 100 );
+		}
+
+		BufferedReader in = new BufferedReader( new FileReader( portFile ) );
+		try
+		{
+			return Integer.parseInt( in.readLine().trim() );
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+}
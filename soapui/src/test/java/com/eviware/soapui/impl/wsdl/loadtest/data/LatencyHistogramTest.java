@@ -0,0 +1,89 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.loadtest.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest
+{
+	@Test
+	public void bucketsCoverAllValues() throws Exception
+	{
+		for( long value = 0; value < 1000000; value++ )
+		{
+			int index = LatencyHistogram.indexFor( value );
+			assertTrue( LatencyHistogram.highestValueAt( index ) >= value );
+			if( index > 0 )
+				assertTrue( LatencyHistogram.highestValueAt( index - 1 ) < value );
+		}
+	}
+
+	@Test
+	public void calculatesPercentiles() throws Exception
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		for( int c = 1; c <= 1000; c++ )
+			histogram.recordValue( c );
+
+		long[] result = new long[5];
+		histogram.getValuesAtPercentiles( new double[] { 50, 90, 95, 99, 99.9 }, result );
+
+		assertEquals( 1000, histogram.getTotalCount() );
+		assertWithinPrecision( 500, result[0] );
+		assertWithinPrecision( 900, result[1] );
+		assertWithinPrecision( 950, result[2] );
+		assertWithinPrecision( 990, result[3] );
+		assertEquals( 1000, result[4] );
+	}
+
+	@Test
+	public void recordsRepeatedValues() throws Exception
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.recordValue( 10, 9 );
+		histogram.recordValue( 1000 );
+
+		assertEquals( 10, histogram.getTotalCount() );
+		assertEquals( 10, histogram.getValueAtPercentile( 90 ) );
+		assertEquals( 1000, histogram.getValueAtPercentile( 100 ) );
+	}
+
+	@Test
+	public void countsValuesAboveRangeInLastBucket() throws Exception
+	{
+		LatencyHistogram histogram = new LatencyHistogram( 1000 );
+		histogram.recordValue( 5000 );
+
+		assertEquals( 1, histogram.getTotalCount() );
+		assertEquals( 1000, histogram.getValueAtPercentile( 100 ) );
+	}
+
+	@Test
+	public void returnsZeroWhenEmpty() throws Exception
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals( 0, histogram.getValueAtPercentile( 99 ) );
+
+		histogram.recordValue( 10 );
+		histogram.reset();
+		assertEquals( 0, histogram.getValueAtPercentile( 99 ) );
+	}
+
+	private static void assertWithinPrecision( long expected, long actual )
+	{
+		assertTrue( "expected " + expected + " but was " + actual, Math.abs( expected - actual ) <= expected / 50 );
+	}
+}
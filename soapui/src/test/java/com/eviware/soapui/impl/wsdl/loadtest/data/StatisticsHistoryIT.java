@@ -0,0 +1,59 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.loadtest.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.eviware.soapui.config.LoadTestLimitTypesConfig;
+import com.eviware.soapui.impl.wsdl.WsdlProject;
+import com.eviware.soapui.impl.wsdl.loadtest.WsdlLoadTest;
+import com.eviware.soapui.impl.wsdl.loadtest.data.LoadTestStatistics.Statistic;
+import com.eviware.soapui.impl.wsdl.testcase.WsdlTestCase;
+import com.eviware.soapui.impl.wsdl.teststeps.WsdlDelayTestStep;
+import com.eviware.soapui.impl.wsdl.teststeps.registry.DelayStepFactory;
+
+public class StatisticsHistoryIT
+{
+	@Test
+	public void storesZeroErrorRatioForRunWithoutErrors() throws Exception
+	{
+		WsdlProject project = new WsdlProject();
+		WsdlTestCase testCase = project.addNewTestSuite( "Suite" ).addNewTestCase( "Case" );
+		WsdlDelayTestStep delayStep = ( WsdlDelayTestStep )testCase.addTestStep( DelayStepFactory.DELAY_TYPE, "Delay" );
+		delayStep.setDelay( 5 );
+
+		WsdlLoadTest loadTest = testCase.addNewLoadTest( "LoadTest" );
+		loadTest.setThreadCount( 2 );
+		loadTest.setLimitType( LoadTestLimitTypesConfig.COUNT );
+		loadTest.setTestLimit( 20 );
+
+		loadTest.run().waitUntilFinished();
+
+		// the statistics are merged into the table and history asynchronously
+		LoadTestStatistics statistics = loadTest.getStatisticsModel();
+		StatisticsHistory history = statistics.getHistory();
+		for( int c = 0; c < 50 && history.getRowCount() == 0; c++ )
+			Thread.sleep( 100 );
+
+		assertEquals( 0, statistics.getStatistic( LoadTestStatistics.TOTAL, Statistic.ERRORS ) );
+		assertEquals( 0, statistics.getStatistic( LoadTestStatistics.TOTAL, Statistic.ERRORRATIO ) );
+
+		assertTrue( history.getRowCount() > 0 );
+
+		long[][] values = history.getHistoryAt( history.getRowCount() - 1 );
+		assertEquals( 0, values[values.length - 1][Statistic.ERRORRATIO.getIndex()] );
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.loadtest.data;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+import org.junit.Test;
+
+public class StatisticsSnapshotTest
+{
+	private final static double[] PERCENTILES = { 50, 90, 99 };
+
+	@Test
+	public void mergedSnapshotsMatchSingleAccumulator() throws Exception
+	{
+		StripedSampleAccumulator all = new StripedSampleAccumulator( 1 );
+		StripedSampleAccumulator agent1 = new StripedSampleAccumulator( 1 );
+		StripedSampleAccumulator agent2 = new StripedSampleAccumulator( 1 );
+
+		for( int c = 1; c <= 200; c++ )
+		{
+			StripedSampleAccumulator agent = c % 3 == 0 ? agent2 : agent1;
+			agent.addStepSamples( 0, 1, c, 10, 1000 + c );
+			agent.addTestCaseSample( c, 10, 1000 + c );
+			all.addStepSamples( 0, 1, c, 10, 1000 + c );
+			all.addTestCaseSample( c, 10, 1000 + c );
+		}
+
+		StripedSampleAccumulator merged = new StripedSampleAccumulator( 1 );
+		merged.addSnapshot( copy( StatisticsSnapshot.capture( agent1, null ) ), 0 );
+		merged.addSnapshot( copy( StatisticsSnapshot.capture( agent2, null ) ), 0 );
+
+		for( int slot = 0; slot < 2; slot++ )
+		{
+			assertEquals( all.getCount( slot ), merged.getCount( slot ) );
+			assertEquals( all.getSum( slot ), merged.getSum( slot ) );
+			assertEquals( all.getBytes( slot ), merged.getBytes( slot ) );
+			assertEquals( all.getMin( slot ), merged.getMin( slot ) );
+			assertEquals( all.getMax( slot ), merged.getMax( slot ) );
+			assertEquals( all.getLast( slot ), merged.getLast( slot ) );
+
+			long[] expected = new long[PERCENTILES.length];
+			long[] actual = new long[PERCENTILES.length];
+			all.getPercentiles( slot, PERCENTILES, expected );
+			merged.getPercentiles( slot, PERCENTILES, actual );
+
+			for( int c = 0; c < expected.length; c++ )
+				assertEquals( expected[c], actual[c] );
+		}
+
+		assertEquals( all.getLastEndTime(), merged.getLastEndTime() );
+	}
+
+	@Test
+	public void deltasAddUpToTotal() throws Exception
+	{
+		StripedSampleAccumulator agent = new StripedSampleAccumulator( 1 );
+		StripedSampleAccumulator merged = new StripedSampleAccumulator( 1 );
+		StatisticsSnapshot previous = null;
+
+		for( int run = 0; run < 3; run++ )
+		{
+			for( int c = 0; c < 10; c++ )
+				agent.addStepSamples( 0, 1, 20 + run, 5, 2000 + run );
+
+			StatisticsSnapshot snapshot = StatisticsSnapshot.capture( agent, new long[] { run + 1, run + 1 } );
+			merged.addSnapshot( copy( snapshot.delta( previous ) ), 0 );
+			previous = snapshot;
+		}
+
+		assertEquals( 30, merged.getCount( 0 ) );
+		assertEquals( 630, merged.getSum( 0 ) );
+		assertEquals( 150, merged.getBytes( 0 ) );
+		assertEquals( 20, merged.getMin( 0 ) );
+		assertEquals( 22, merged.getMax( 0 ) );
+		assertEquals( 30, merged.getHistogram( 0 ).getTotalCount() );
+		assertEquals( 1, previous.delta( StatisticsSnapshot.capture( agent, new long[] { 2, 2 } ) ).getErrors( 0 ) );
+	}
+
+	@Test
+	public void appliesTimeOffset() throws Exception
+	{
+		StripedSampleAccumulator agent = new StripedSampleAccumulator( 1 );
+		agent.addTestCaseSample( 10, 1, 5000 );
+
+		StripedSampleAccumulator merged = new StripedSampleAccumulator( 1 );
+		merged.addSnapshot( StatisticsSnapshot.capture( agent, null ), 1000 );
+
+		assertEquals( 6000, merged.getLastEndTime() );
+		assertEquals( 10, merged.getLast( 1 ) );
+	}
+
+	@Test
+	public void ignoresSnapshotsWithOtherStepCount() throws Exception
+	{
+		StripedSampleAccumulator agent = new StripedSampleAccumulator( 2 );
+		agent.addStepSamples( 0, 1, 10, 1, 1000 );
+
+		StripedSampleAccumulator merged = new StripedSampleAccumulator( 1 );
+		merged.addSnapshot( StatisticsSnapshot.capture( agent, null ), 0 );
+
+		assertEquals( 0, merged.getCount( 0 ) );
+	}
+
+	private static StatisticsSnapshot copy( StatisticsSnapshot snapshot ) throws Exception
+	{
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream( buffer );
+		snapshot.write( out );
+		out.close();
+
+		return StatisticsSnapshot.read( new DataInputStream( new ByteArrayInputStream( buffer.toByteArray() ) ) );
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.loadtest.data;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class StripedSampleAccumulatorTest
+{
+	@Test
+	public void mergesStepSamples() throws Exception
+	{
+		StripedSampleAccumulator accumulator = new StripedSampleAccumulator( 2 );
+
+		accumulator.addStepSamples( 0, 1, 10, 100, 1000 );
+		accumulator.addStepSamples( 0, 2, 40, 200, 2000 );
+		accumulator.addStepSamples( 1, 1, 5, 50, 1500 );
+
+		assertEquals( 3, accumulator.getCount( 0 ) );
+		assertEquals( 50, accumulator.getSum( 0 ) );
+		assertEquals( 300, accumulator.getBytes( 0 ) );
+		assertEquals( 10, accumulator.getMin( 0 ) );
+		assertEquals( 20, accumulator.getMax( 0 ) );
+		assertEquals( 20, accumulator.getLast( 0 ) );
+		assertEquals( 2000, accumulator.getLastEndTime() );
+	}
+
+	@Test
+	public void weighsPercentilesByStepSampleCount() throws Exception
+	{
+		StripedSampleAccumulator accumulator = new StripedSampleAccumulator( 1 );
+
+		accumulator.addStepSamples( 0, 9, 90, 100, 1000 );
+		accumulator.addStepSamples( 0, 1, 1000, 100, 2000 );
+
+		long[] result = new long[2];
+		accumulator.getPercentiles( 0, new double[] { 90, 100 }, result );
+
+		assertEquals( 10, accumulator.getHistogram( 0 ).getTotalCount() );
+		assertEquals( 10, result[0] );
+		assertEquals( 1000, result[1] );
+	}
+
+	@Test
+	public void ignoresUnknownSteps() throws Exception
+	{
+		StripedSampleAccumulator accumulator = new StripedSampleAccumulator( 1 );
+
+		accumulator.addStepSamples( 1, 1, 10, 100, 1000 );
+		accumulator.addStepSamples( -1, 1, 10, 100, 1000 );
+
+		assertEquals( 0, accumulator.getCount( 0 ) );
+		assertEquals( 0, accumulator.getCount( 1 ) );
+	}
+
+	@Test
+	public void mergesSamplesFromConcurrentThreads() throws Exception
+	{
+		final StripedSampleAccumulator accumulator = new StripedSampleAccumulator( 1, 4 );
+		List<Thread> threads = new ArrayList<Thread>();
+
+		for( int t = 0; t < 8; t++ )
+		{
+			final int value = t + 1;
+			Thread thread = new Thread( new Runnable()
+			{
+				public void run()
+				{
+					for( int c = 0; c < 10000; c++ )
+					{
+						accumulator.addStepSamples( 0, 1, value, 1, c );
+						accumulator.addTestCaseSample( value, 1, c );
+					}
+				}
+			} );
+			threads.add( thread );
+			thread.start();
+		}
+
+		for( Thread thread : threads )
+			thread.join();
+
+		assertEquals( 80000, accumulator.getCount( 0 ) );
+		assertEquals( 360000, accumulator.getSum( 0 ) );
+		assertEquals( 1, accumulator.getMin( 0 ) );
+		assertEquals( 8, accumulator.getMax( 0 ) );
+		assertEquals( 80000, accumulator.getCount( 1 ) );
+	}
+
+	@Test
+	public void keepsLastValueOfLatestSample() throws Exception
+	{
+		StripedSampleAccumulator accumulator = new StripedSampleAccumulator( 1 );
+
+		accumulator.addStepSamples( 0, 1, 10, 100, 2000 );
+		accumulator.addStepSamples( 0, 1, 30, 100, 1000 );
+
+		assertEquals( 10, accumulator.getLast( 0 ) );
+		assertEquals( 2000, accumulator.getLastTime( 0 ) );
+		assertEquals( 0, accumulator.getLastTime( 1 ) );
+	}
+
+	@Test
+	public void countsErrorsFromConcurrentThreads() throws Exception
+	{
+		final StripedSampleAccumulator accumulator = new StripedSampleAccumulator( 1, 4 );
+		List<Thread> threads = new ArrayList<Thread>();
+
+		for( int t = 0; t < 8; t++ )
+		{
+			Thread thread = new Thread( new Runnable()
+			{
+				public void run()
+				{
+					for( int c = 0; c < 10000; c++ )
+					{
+						accumulator.addError( 0 );
+						accumulator.addError( 1 );
+					}
+				}
+			} );
+			threads.add( thread );
+			thread.start();
+		}
+
+		for( Thread thread : threads )
+			thread.join();
+
+		assertEquals( 80000, accumulator.getErrors( 0 ) );
+		assertEquals( 80000, accumulator.getErrors( 1 ) );
+	}
+
+	@Test
+	public void resetsAllValues() throws Exception
+	{
+		StripedSampleAccumulator accumulator = new StripedSampleAccumulator( 1 );
+		accumulator.addStepSamples( 0, 1, 10, 100, 1000 );
+		accumulator.reset();
+
+		assertEquals( 0, accumulator.getCount( 0 ) );
+		assertEquals( 0, accumulator.getMax( 0 ) );
+		assertEquals( 0, accumulator.getLastEndTime() );
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.loadtest.strategy;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ArrivalScheduleTest
+{
+	@Test
+	public void constantRate()
+	{
+		ArrivalSchedule schedule = new ArrivalSchedule( ArrivalSchedule.CONSTANT_PROFILE, 10, 0, 0, 0 );
+
+		assertEquals( 0, schedule.nextStartTime() );
+		assertEquals( 100, schedule.nextStartTime() );
+		assertEquals( 200, schedule.nextStartTime() );
+		assertEquals( 3, schedule.getScheduledCount() );
+
+		assertEquals( 1, schedule.getDueCount( 0 ) );
+		assertEquals( 1, schedule.getDueCount( 99 ) );
+		assertEquals( 2, schedule.getDueCount( 100 ) );
+		assertEquals( 11, schedule.getDueCount( 1000 ) );
+		assertEquals( 10.0, schedule.getRate( 5000 ), 0.0001 );
+	}
+
+	@Test
+	public void rampedRate()
+	{
+		// from 0 to 20 per second in 10 seconds, 100 starts during the ramp
+		ArrivalSchedule schedule = new ArrivalSchedule( ArrivalSchedule.RAMP_PROFILE, 0, 20, 10000, 0 );
+
+		assertEquals( 10.0, schedule.getRate( 5000 ), 0.0001 );
+		assertEquals( 20.0, schedule.getRate( 20000 ), 0.0001 );
+
+		assertEquals( 0, schedule.getStartTime( 0 ) );
+		assertEquals( 10000, schedule.getStartTime( 100 ) );
+		assertEquals( 10050, schedule.getStartTime( 101 ) );
+		assertEquals( 101, schedule.getDueCount( 10000 ) );
+
+		// the first 25 starts are due in the first half
+		assertEquals( 5000, schedule.getStartTime( 25 ) );
+		assertEquals( 26, schedule.getDueCount( 5000 ) );
+	}
+
+	@Test
+	public void steppedRate()
+	{
+		// 10, 20 and 30 per second for one second each, then 40 per second
+		ArrivalSchedule schedule = new ArrivalSchedule( ArrivalSchedule.STEP_PROFILE, 10, 40, 3000, 1000 );
+
+		assertEquals( 10.0, schedule.getRate( 500 ), 0.0001 );
+		assertEquals( 20.0, schedule.getRate( 1500 ), 0.0001 );
+		assertEquals( 40.0, schedule.getRate( 3000 ), 0.0001 );
+
+		assertEquals( 1000, schedule.getStartTime( 10 ) );
+		assertEquals( 1050, schedule.getStartTime( 11 ) );
+		assertEquals( 3000, schedule.getStartTime( 60 ) );
+		assertEquals( 3025, schedule.getStartTime( 61 ) );
+		assertEquals( 61, schedule.getDueCount( 3000 ) );
+	}
+
+	@Test
+	public void zeroRateNeverStarts()
+	{
+		ArrivalSchedule schedule = new ArrivalSchedule( ArrivalSchedule.RAMP_PROFILE, 10, 0, 1000, 0 );
+
+		assertEquals( 1000, schedule.getStartTime( 5 ) );
+		assertEquals( Long.MAX_VALUE, schedule.getStartTime( 6 ) );
+	}
+}
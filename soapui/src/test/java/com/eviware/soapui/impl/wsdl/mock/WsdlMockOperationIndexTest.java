@@ -0,0 +1,84 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.mock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.eviware.soapui.impl.wsdl.WsdlInterface;
+import com.eviware.soapui.impl.wsdl.WsdlOperation;
+import com.eviware.soapui.impl.wsdl.WsdlProject;
+
+public class WsdlMockOperationIndexTest
+{
+	private WsdlInterface iface;
+	private WsdlMockService mockService;
+	private WsdlMockOperationIndex index;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		WsdlProject project = new WsdlProject( WsdlMockOperationIndexTest.class.getResource(
+				"/sample-soapui-project.xml" ).getPath() );
+		iface = ( WsdlInterface )project.getInterfaceAt( 0 );
+		iface.getWsdlContext().loadIfNecessary();
+
+		mockService = project.addNewMockService( "MockService 1" );
+		for( int c = 0; c < iface.getOperationCount(); c++ )
+			mockService.addNewMockOperation( iface.getOperationAt( c ) );
+
+		index = new WsdlMockOperationIndex( mockService );
+	}
+
+	@Test
+	public void findsOperationsByBodyElement() throws Exception
+	{
+		for( int c = 0; c < iface.getOperationCount(); c++ )
+		{
+			WsdlOperation operation = iface.getOperationAt( c );
+			List<WsdlOperation> operations = index.getOperations( operation.getRequestBodyElementQName() );
+
+			assertTrue( operations.contains( operation ) );
+			assertSame( mockService.getMockOperation( operation ), index.getMockOperation( operation ) );
+		}
+
+		assertEquals( 0, index.getOperations( new QName( "urn:unknown", "unknown" ) ).size() );
+	}
+
+	@Test
+	public void rebuildsIndexWhenMockOperationsChange() throws Exception
+	{
+		WsdlOperation operation = iface.getOperationAt( 0 );
+		QName qname = operation.getRequestBodyElementQName();
+		assertTrue( index.getOperations( qname ).contains( operation ) );
+
+		mockService.removeMockOperation( mockService.getMockOperation( operation ) );
+		assertTrue( !index.getOperations( qname ).contains( operation ) );
+		assertNull( index.getMockOperation( operation ) );
+
+		WsdlMockOperation mockOperation = mockService.addNewMockOperation( operation );
+		assertTrue( index.getOperations( qname ).contains( operation ) );
+		assertSame( mockOperation, index.getMockOperation( operation ) );
+
+		index.release();
+	}
+}
@@ -30,6 +30,7 @@ import com.eviware.soapui.impl.wsdl.teststeps.registry.GroovyScriptStepFactory;
 import com.eviware.soapui.model.propertyexpansion.PropertyExpander;
 import com.eviware.soapui.model.propertyexpansion.PropertyExpansionUtils;
 import com.eviware.soapui.settings.GlobalPropertySettings;
+import com.eviware.soapui.support.types.StringToStringMap;
 
 public class PropertyExpansionTestCase
 {
@@ -100,6 +101,36 @@ public class PropertyExpansionTestCase
 		assertEquals( "hello", PropertyExpander.expandProperties( context, "${#test#//value/text()}" ) );
 	}
 
+	@Test
+	public void testScopedPropertiesAreCachedPerSubmit() throws Exception
+	{
+		WsdlProject project = new WsdlProject();
+		project.addProperty( "test" ).setValue( "hello" );
+		WsdlSubmitContext context = new WsdlSubmitContext( project );
+
+		context.setProperty( PropertyExpander.RESOLVED_PROPERTIES, new StringToStringMap() );
+		assertEquals( "hello", PropertyExpander.expandProperties( context, "${#Project#test}" ) );
+
+		project.setPropertyValue( "test", "bye" );
+		assertEquals( "hello", PropertyExpander.expandProperties( context, "${#Project#test}" ) );
+
+		context.removeProperty( PropertyExpander.RESOLVED_PROPERTIES );
+		assertEquals( "bye", PropertyExpander.expandProperties( context, "${#Project#test}" ) );
+	}
+
+	@Test
+	public void testContextPropertiesAreResolvedAgainWhileCaching() throws Exception
+	{
+		WsdlSubmitContext context = new WsdlSubmitContext( null );
+
+		context.setProperty( "test", "<test><value>hello</value></test>" );
+		context.setProperty( PropertyExpander.RESOLVED_PROPERTIES, new StringToStringMap() );
+		assertEquals( "hello", PropertyExpander.expandProperties( context, "${#test#//value/text()}" ) );
+
+		context.setProperty( "test", "<test><value>bye</value></test>" );
+		assertEquals( "bye", PropertyExpander.expandProperties( context, "${#test#//value/text()}" ) );
+	}
+
 	@Test
 	public void testScopedPropertyExpansion() throws Exception
 	{
@@ -0,0 +1,205 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.submit.transports.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.apache.http.Header;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.io.HttpTransportMetricsImpl;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.eviware.soapui.SoapUI;
+import com.eviware.soapui.impl.settings.XmlBeansSettingsImpl;
+import com.eviware.soapui.impl.support.AbstractHttpRequest;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.support.metrics.SoapUIMetrics;
+import com.eviware.soapui.settings.UISettings;
+
+public class BaseHttpResponseTest
+{
+	private static final String REQUEST_BODY = "<request>ping</request>";
+	private static final String RESPONSE_BODY = "<response>pong</response>";
+
+	private long rawRequestMessageSize;
+	private CountingEntity requestEntity;
+	private ExtendedHttpMethod httpMethod;
+	private AbstractHttpRequest<?> httpRequest;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		rawRequestMessageSize = SoapUI.getSettings().getLong( UISettings.RAW_REQUEST_MESSAGE_SIZE, 0 );
+		SoapUI.getSettings().setLong( UISettings.RAW_REQUEST_MESSAGE_SIZE, 10000 );
+
+		requestEntity = new CountingEntity( REQUEST_BODY );
+
+		BasicHttpResponse httpResponse = new BasicHttpResponse( HttpVersion.HTTP_1_1, 200, "OK" );
+		httpResponse.addHeader( "Content-Type", "text/xml" );
+
+		httpMethod = mock( ExtendedHttpMethod.class );
+		when( httpMethod.getMethod() ).thenReturn( "POST" );
+		when( httpMethod.getProtocolVersion() ).thenReturn( HttpVersion.HTTP_1_1 );
+		when( httpMethod.getURI() ).thenReturn( new URI( "http://localhost:8080/service" ) );
+		when( httpMethod.getMetrics() ).thenReturn(
+				new SoapUIMetrics( new HttpTransportMetricsImpl(), new HttpTransportMetricsImpl() ) );
+		when( httpMethod.getAllHeaders() ).thenReturn( new Header[] { new BasicHeader( "Content-Type", "text/xml" ) } );
+		when( httpMethod.getRequestEntity() ).thenReturn( requestEntity );
+		when( httpMethod.hasHttpResponse() ).thenReturn( true );
+		when( httpMethod.getHttpResponse() ).thenReturn( httpResponse );
+		when( httpMethod.getResponseContentType() ).thenReturn( "text/xml" );
+		when( httpMethod.getResponseBody() ).thenReturn( RESPONSE_BODY.getBytes() );
+		when( httpMethod.getResponseBodyStore() ).thenReturn( ResponseBodyStore.wrap( RESPONSE_BODY.getBytes() ) );
+
+		httpRequest = mock( AbstractHttpRequest.class );
+		when( httpRequest.getSettings() ).thenReturn( mock( XmlBeansSettingsImpl.class ) );
+		when( httpRequest.getEncoding() ).thenReturn( "UTF-8" );
+	}
+
+	@After
+	public void tearDown()
+	{
+		SoapUI.getSettings().setLong( UISettings.RAW_REQUEST_MESSAGE_SIZE, rawRequestMessageSize );
+	}
+
+	@Test
+	public void buildsRawRequestDataOnFirstAccess() throws Exception
+	{
+		BaseHttpResponse response = new SinglePartHttpResponse( httpRequest, httpMethod, REQUEST_BODY, null );
+		assertEquals( 0, requestEntity.getWriteCount() );
+
+		byte[] rawRequestData = response.getRawRequestData();
+		assertEquals( 1, requestEntity.getWriteCount() );
+		assertArrayEquals( ( "POST http://localhost:8080/service HTTP/1.1\r\n" + "Content-Type: text/xml\r\n" + "\r\n"
+				+ REQUEST_BODY ).getBytes(), rawRequestData );
+
+		assertSame( rawRequestData, response.getRawRequestData() );
+		assertEquals( 1, requestEntity.getWriteCount() );
+		assertEquals( REQUEST_BODY, response.getRequestContent() );
+	}
+
+	@Test
+	public void buildsRawResponseDataOnFirstAccess() throws Exception
+	{
+		BaseHttpResponse response = new SinglePartHttpResponse( httpRequest, httpMethod, REQUEST_BODY, null );
+
+		byte[] rawResponseData = response.getRawResponseData();
+		assertArrayEquals( ( "HTTP/1.1 200 OK\r\n" + "Content-Type: text/xml\r\n" + "\r\n" + RESPONSE_BODY ).getBytes(),
+				rawResponseData );
+		assertSame( rawResponseData, response.getRawResponseData() );
+	}
+
+	@Test
+	public void matchesEagerlyBuiltRawData() throws Exception
+	{
+		BaseHttpResponse response = new SinglePartHttpResponse( httpRequest, httpMethod, REQUEST_BODY, null );
+		EagerHttpResponse eagerResponse = new EagerHttpResponse( httpRequest, httpMethod );
+
+		assertArrayEquals( eagerResponse.getEagerRawRequestData(), response.getRawRequestData() );
+		assertArrayEquals( eagerResponse.getEagerRawResponseData(), response.getRawResponseData() );
+	}
+
+	/**
+	 * Builds the raw data the way it was built before it was assembled lazily,
+	 * when the headers were initialized
+	 */
+
+	private static class EagerHttpResponse extends SinglePartHttpResponse
+	{
+		private ByteArrayOutputStream rawRequest;
+		private ByteArrayOutputStream rawResponse;
+
+		public EagerHttpResponse( AbstractHttpRequest<?> httpRequest, ExtendedHttpMethod httpMethod )
+		{
+			super( httpRequest, httpMethod, REQUEST_BODY, null );
+		}
+
+		@Override
+		protected void initHeaders( ExtendedHttpMethod httpMethod )
+		{
+			super.initHeaders( httpMethod );
+
+			try
+			{
+				rawRequest = new ByteArrayOutputStream();
+				rawRequest.write( ( getMethod() + " " + getURL() + " " + getHttpVersion() + "\r\n" ).getBytes() );
+				for( Header header : httpMethod.getAllHeaders() )
+					rawRequest.write( toExternalForm( header ).getBytes() );
+
+				rawRequest.write( "\r\n".getBytes() );
+				MaxSizeByteArrayOutputStream tempOut = new MaxSizeByteArrayOutputStream( SoapUI.getSettings().getLong(
+						UISettings.RAW_REQUEST_MESSAGE_SIZE, 0 ) );
+				httpMethod.getRequestEntity().writeTo( tempOut );
+				tempOut.writeTo( rawRequest );
+
+				rawResponse = new ByteArrayOutputStream();
+				rawResponse.write( String.valueOf( httpMethod.getHttpResponse().getStatusLine() ).getBytes() );
+				rawResponse.write( "\r\n".getBytes() );
+				for( Header header : httpMethod.getHttpResponse().getAllHeaders() )
+					rawResponse.write( toExternalForm( header ).getBytes() );
+
+				rawResponse.write( "\r\n".getBytes() );
+				rawResponse.write( httpMethod.getResponseBody() );
+			}
+			catch( IOException e )
+			{
+				throw new RuntimeException( e );
+			}
+		}
+
+		public byte[] getEagerRawRequestData()
+		{
+			return rawRequest.toByteArray();
+		}
+
+		public byte[] getEagerRawResponseData()
+		{
+			return rawResponse.toByteArray();
+		}
+	}
+
+	private static class CountingEntity extends StringEntity
+	{
+		private int writeCount;
+
+		public CountingEntity( String content ) throws Exception
+		{
+			super( content );
+		}
+
+		@Override
+		public void writeTo( OutputStream outstream ) throws IOException
+		{
+			writeCount++;
+			super.writeTo( outstream );
+		}
+
+		public int getWriteCount()
+		{
+			return writeCount;
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.submit.transports.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.junit.Test;
+
+import com.eviware.soapui.impl.wsdl.support.CompressionSupport;
+
+public class CompressingHttpEntityTest
+{
+	@Test
+	public void compressesWhileWriting() throws Exception
+	{
+		byte[] content = createContent();
+
+		for( String alg : new String[] { CompressionSupport.ALG_GZIP, CompressionSupport.ALG_DEFLATE } )
+		{
+			CompressingHttpEntity entity = new CompressingHttpEntity( new ByteArrayEntity( content ), alg );
+			assertTrue( entity.isChunked() );
+			assertEquals( -1, entity.getContentLength() );
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			entity.writeTo( out );
+
+			assertTrue( out.size() < content.length );
+			assertArrayEquals( content, CompressionSupport.decompress( alg, out.toByteArray() ) );
+			assertArrayEquals( CompressionSupport.compress( alg, content ), out.toByteArray() );
+		}
+	}
+
+	@Test
+	public void compressesIntoMemoryWhenNotChunked() throws Exception
+	{
+		byte[] content = createContent();
+
+		HttpEntity entity = CompressingHttpEntity.compress( new ByteArrayEntity( content ), CompressionSupport.ALG_GZIP,
+				false );
+		assertFalse( entity.isChunked() );
+
+		byte[] compressed = CompressionSupport.compress( CompressionSupport.ALG_GZIP, content );
+		assertEquals( compressed.length, entity.getContentLength() );
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		entity.writeTo( out );
+		assertArrayEquals( compressed, out.toByteArray() );
+
+		assertTrue( CompressingHttpEntity.compress( new ByteArrayEntity( content ), CompressionSupport.ALG_GZIP, true )
+				.isChunked() );
+	}
+
+	@Test
+	public void isRepeatable() throws Exception
+	{
+		CompressingHttpEntity entity = new CompressingHttpEntity( new ByteArrayEntity( createContent() ),
+				CompressionSupport.ALG_GZIP );
+		assertTrue( entity.isRepeatable() );
+
+		ByteArrayOutputStream first = new ByteArrayOutputStream();
+		entity.writeTo( first );
+		ByteArrayOutputStream second = new ByteArrayOutputStream();
+		entity.writeTo( second );
+
+		assertArrayEquals( first.toByteArray(), second.toByteArray() );
+	}
+
+	@Test
+	public void rejectsUnknownAlgorithm() throws Exception
+	{
+		try
+		{
+			new CompressingHttpEntity( new ByteArrayEntity( createContent() ), "br" );
+			fail( "unsupported algorithm accepted" );
+		}
+		catch( Exception e )
+		{
+			assertTrue( e.getMessage().contains( "br" ) );
+		}
+	}
+
+	private static byte[] createContent()
+	{
+		StringBuilder content = new StringBuilder();
+		for( int c = 0; c < 1000; c++ )
+			content.append( "<item>" ).append( c ).append( "</item>" );
+		return content.toString().getBytes();
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.submit.transports.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.protocol.ClientContext;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.junit.Test;
+
+import com.eviware.soapui.impl.wsdl.submit.transports.http.support.methods.ExtendedGetMethod;
+import com.eviware.soapui.impl.wsdl.support.http.HttpClientSupport;
+import com.eviware.soapui.impl.wsdl.support.http.SoapUIHttpRoute;
+
+public class NioHttpRequestTransportTest
+{
+	@Test
+	public void sendsRequestsWithOwnKeystoreBlocking() throws Exception
+	{
+		ExtendedGetMethod method = createMethod( "https://localhost:8443/service" );
+		HttpContext httpContext = HttpClientSupport.createEmptyContext();
+		assertNull( NioHttpRequestTransport.getUnsupportedFeature( method, httpContext ) );
+
+		method.getParams().setParameter( SoapUIHttpRoute.SOAPUI_SSL_CONFIG, "client.jks secret" );
+		assertNotNull( NioHttpRequestTransport.getUnsupportedFeature( method, httpContext ) );
+	}
+
+	@Test
+	public void keepsSessionCookies() throws Exception
+	{
+		CookieStore cookieStore = ( CookieStore )HttpClientSupport.createEmptyContext().getAttribute(
+				ClientContext.COOKIE_STORE );
+
+		ExtendedGetMethod login = createMethod( "http://localhost:8080/app/login" );
+		NioHttpRequestTransport.addCookies( login, cookieStore );
+		assertNull( login.getFirstHeader( "Cookie" ) );
+
+		BasicHttpResponse response = new BasicHttpResponse( HttpVersion.HTTP_1_1, 200, "OK" );
+		response.addHeader( "Set-Cookie", "JSESSIONID=abc123; Path=/app" );
+		NioHttpRequestTransport.storeCookies( login, response, cookieStore );
+		assertEquals( 1, cookieStore.getCookies().size() );
+
+		ExtendedGetMethod next = createMethod( "http://localhost:8080/app/orders" );
+		NioHttpRequestTransport.addCookies( next, cookieStore );
+		assertTrue( next.getFirstHeader( "Cookie" ).getValue().indexOf( "JSESSIONID=abc123" ) != -1 );
+
+		ExtendedGetMethod other = createMethod( "http://localhost:8080/other" );
+		NioHttpRequestTransport.addCookies( other, cookieStore );
+		assertNull( other.getFirstHeader( "Cookie" ) );
+	}
+
+	private static ExtendedGetMethod createMethod( String uri )
+	{
+		ExtendedGetMethod method = new ExtendedGetMethod();
+		method.setURI( URI.create( uri ) );
+		return method;
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.submit.transports.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class ResponseBodyStoreTest
+{
+	@Test
+	public void keepsSmallBodiesInMemory() throws Exception
+	{
+		byte[] body = createBody( 20000 );
+		ResponseBodyStore store = ResponseBodyStore.read( new ByteArrayInputStream( body ), 0, 30000 );
+
+		assertFalse( store.isSpilled() );
+		assertEquals( body.length, store.getLength() );
+		assertArrayEquals( body, store.toByteArray() );
+	}
+
+	@Test
+	public void spillsLargeBodiesToDisk() throws Exception
+	{
+		byte[] body = createBody( 100000 );
+		ResponseBodyStore store = ResponseBodyStore.read( new ByteArrayInputStream( body ), 0, 30000 );
+
+		assertTrue( store.isSpilled() );
+		assertEquals( body.length, store.getLength() );
+		assertEquals( body[54321], store.getByte( 54321 ) );
+		assertArrayEquals( body, store.toByteArray() );
+		assertArrayEquals( body, readAll( store.getInputStream() ) );
+
+		ByteBuffer[] buffers = store.getBuffers();
+		assertEquals( 1, buffers.length );
+		assertTrue( buffers[0].isReadOnly() );
+		assertEquals( body.length, buffers[0].remaining() );
+
+		store.release();
+	}
+
+	@Test
+	public void releasesSpilledBodies() throws Exception
+	{
+		ResponseBodyStore store = ResponseBodyStore.read( new ByteArrayInputStream( createBody( 100000 ) ), 0, 30000 );
+		assertTrue( store.isAvailable() );
+
+		store.release();
+		assertFalse( store.isAvailable() );
+
+		// mapped files can only be deleted once they have been unmapped on Windows
+		if( !System.getProperty( "os.name" ).startsWith( "Windows" ) )
+			assertEquals( 0, ResponseBodyStore.getUndeletedFileCount() );
+	}
+
+	@Test
+	public void limitsReadToMaxSize() throws Exception
+	{
+		byte[] body = createBody( 100000 );
+
+		assertEquals( 12345, ResponseBodyStore.read( new ByteArrayInputStream( body ), 12345, 30000 ).getLength() );
+		assertEquals( 45678, ResponseBodyStore.read( new ByteArrayInputStream( body ), 45678, 30000 ).getLength() );
+	}
+
+	@Test
+	public void spillsBodiesWrittenInParts() throws Exception
+	{
+		byte[] body = createBody( 100000 );
+		ResponseBodyStore.Builder builder = new ResponseBodyStore.Builder( 30000 );
+		for( int offset = 0; offset < body.length; offset += 7000 )
+			builder.write( body, offset, Math.min( 7000, body.length - offset ) );
+
+		ResponseBodyStore store = builder.build();
+		assertTrue( store.isSpilled() );
+		assertArrayEquals( body, store.toByteArray() );
+
+		store.release();
+	}
+
+	private static byte[] createBody( int size )
+	{
+		byte[] result = new byte[size];
+		for( int c = 0; c < size; c++ )
+			result[c] = ( byte )( c * 31 );
+
+		return result;
+	}
+
+	private static byte[] readAll( InputStream in ) throws Exception
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1000];
+		int read;
+		while( ( read = in.read( buffer ) ) != -1 )
+			out.write( buffer, 0, read );
+
+		return out.toByteArray();
+	}
+}
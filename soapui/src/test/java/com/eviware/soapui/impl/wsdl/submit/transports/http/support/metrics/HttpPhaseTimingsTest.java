@@ -0,0 +1,82 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.submit.transports.http.support.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class HttpPhaseTimingsTest
+{
+	@Test
+	public void connectExcludesLookupAndHandshake() throws Exception
+	{
+		SoapUIMetrics metrics = new SoapUIMetrics( null, null );
+		metrics.getConnectTimer().set( 1000, 1100 );
+		metrics.getDNSTimer().set( 1005, 1020 );
+		metrics.getSSLHandshakeTimer().set( 1050, 1090 );
+		metrics.getTimeToFirstByteTimer().set( 1100, 1300 );
+		metrics.getReadTimer().set( 1300, 1310 );
+
+		HttpPhaseTimings timings = HttpPhaseTimings.capture( metrics );
+
+		assertEquals( 15, timings.getDuration( HttpPhaseTimings.DNS ) );
+		assertEquals( 45, timings.getDuration( HttpPhaseTimings.CONNECT ) );
+		assertEquals( 40, timings.getDuration( HttpPhaseTimings.SSL_HANDSHAKE ) );
+		assertEquals( 200, timings.getDuration( HttpPhaseTimings.TIME_TO_FIRST_BYTE ) );
+		assertEquals( 10, timings.getDuration( HttpPhaseTimings.READ ) );
+	}
+
+	@Test
+	public void connectExcludesPoolWait() throws Exception
+	{
+		SoapUIMetrics metrics = new SoapUIMetrics( null, null );
+		metrics.getConnectTimer().set( 1000, 1100 );
+		metrics.getConnectionWaitTimer().set( 1000, 1080 );
+		metrics.getTimeToFirstByteTimer().set( 1100, 1150 );
+
+		HttpPhaseTimings timings = HttpPhaseTimings.capture( metrics );
+
+		assertEquals( 80, timings.getDuration( HttpPhaseTimings.CONNECTION_WAIT ) );
+		assertEquals( 20, timings.getDuration( HttpPhaseTimings.CONNECT ) );
+	}
+
+	@Test
+	public void reusedConnectionHasNoLookupOrHandshake() throws Exception
+	{
+		SoapUIMetrics metrics = new SoapUIMetrics( null, null );
+		metrics.getConnectTimer().set( 1000, 1002 );
+		metrics.getTimeToFirstByteTimer().set( 1002, 1050 );
+
+		HttpPhaseTimings timings = HttpPhaseTimings.capture( metrics );
+
+		assertEquals( 0, timings.getDuration( HttpPhaseTimings.DNS ) );
+		assertEquals( 2, timings.getDuration( HttpPhaseTimings.CONNECT ) );
+		assertEquals( 0, timings.getDuration( HttpPhaseTimings.SSL_HANDSHAKE ) );
+		assertEquals( 48, timings.getDuration( HttpPhaseTimings.TIME_TO_FIRST_BYTE ) );
+		assertEquals( 0, timings.getDuration( HttpPhaseTimings.READ ) );
+	}
+
+	@Test
+	public void unfinishedPhasesAreZero() throws Exception
+	{
+		SoapUIMetrics metrics = new SoapUIMetrics( null, null );
+		metrics.getConnectTimer().set( 1000, 1010 );
+		metrics.getTimeToFirstByteTimer().start();
+
+		HttpPhaseTimings timings = HttpPhaseTimings.capture( metrics );
+
+		assertEquals( 10, timings.getDuration( HttpPhaseTimings.CONNECT ) );
+		assertEquals( 0, timings.getDuration( HttpPhaseTimings.TIME_TO_FIRST_BYTE ) );
+	}
+}
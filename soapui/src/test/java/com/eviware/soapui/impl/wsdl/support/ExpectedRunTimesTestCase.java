@@ -0,0 +1,70 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import junit.framework.JUnit4TestAdapter;
+
+import org.junit.Test;
+
+public class ExpectedRunTimesTestCase
+{
+	public static junit.framework.Test suite()
+	{
+		return new JUnit4TestAdapter( ExpectedRunTimesTestCase.class );
+	}
+
+	@Test
+	public void averagesAndSavesRunTimes() throws Exception
+	{
+		File file = File.createTempFile( "expected-run-times", ".properties" );
+		assertTrue( file.delete() );
+
+		try
+		{
+			ExpectedRunTimes times = new ExpectedRunTimes( file );
+			assertEquals( 0, times.get( "tc1" ) );
+
+			times.record( "tc1", 100 );
+			times.record( "tc1", 200 );
+			assertEquals( 150, times.get( "tc1" ) );
+
+			times.save();
+			assertTrue( file.exists() );
+			assertEquals( 150, new ExpectedRunTimes( file ).get( "tc1" ) );
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
+
+	@Test
+	public void keepsRunTimesInMemoryWithoutFile() throws Exception
+	{
+		ExpectedRunTimes times = new ExpectedRunTimes( null );
+		times.record( "ts1", 50 );
+		times.save();
+
+		assertEquals( 50, times.get( "ts1" ) );
+		assertNull( ExpectedRunTimes.getDurationsFile( null, true ) );
+		assertNull( ExpectedRunTimes.getDurationsFile( "project.xml", false ) );
+		assertEquals( new File( "project.xml.durations.properties" ), ExpectedRunTimes.getDurationsFile( "project.xml",
+				true ) );
+	}
+}
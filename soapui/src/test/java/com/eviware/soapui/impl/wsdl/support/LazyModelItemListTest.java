@@ -0,0 +1,176 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.eviware.soapui.config.TestCaseConfig;
+import com.eviware.soapui.impl.wsdl.testcase.WsdlTestCase;
+
+public class LazyModelItemListTest
+{
+	private List<TestCaseConfig> configs;
+	private List<TestCaseConfig> built;
+	private LazyModelItemList.Builder<WsdlTestCase, TestCaseConfig> builder;
+
+	@Before
+	public void setUp()
+	{
+		configs = new ArrayList<TestCaseConfig>();
+		for( int c = 0; c < 3; c++ )
+		{
+			TestCaseConfig config = TestCaseConfig.Factory.newInstance();
+			config.setName( "TestCase " + c );
+			configs.add( config );
+		}
+
+		built = new ArrayList<TestCaseConfig>();
+		builder = new LazyModelItemList.Builder<WsdlTestCase, TestCaseConfig>()
+		{
+			public WsdlTestCase build( TestCaseConfig config )
+			{
+				built.add( config );
+				return createTestCase( config );
+			}
+		};
+	}
+
+	@Test
+	public void buildsAllItemsWhenNotLazy()
+	{
+		LazyModelItemList<WsdlTestCase, TestCaseConfig> list = new LazyModelItemList<WsdlTestCase, TestCaseConfig>(
+				builder, configs, false );
+
+		assertEquals( 3, built.size() );
+		assertEquals( 3, list.getBuiltItems().size() );
+	}
+
+	@Test
+	public void buildsItemsOnFirstAccess()
+	{
+		LazyModelItemList<WsdlTestCase, TestCaseConfig> list = new LazyModelItemList<WsdlTestCase, TestCaseConfig>(
+				builder, configs, true );
+
+		assertEquals( 3, list.size() );
+		assertEquals( 0, built.size() );
+
+		WsdlTestCase testCase = list.getByName( "TestCase 1" );
+		assertSame( configs.get( 1 ), testCase.getConfig() );
+		assertEquals( 1, built.size() );
+		assertTrue( list.isBuilt( 1 ) );
+		assertFalse( list.isBuilt( 0 ) );
+
+		assertSame( testCase, list.get( 1 ) );
+		assertEquals( 1, list.indexOf( testCase ) );
+		assertEquals( 1, built.size() );
+
+		assertNull( list.getByName( "TestCase 4" ) );
+		assertEquals( 1, built.size() );
+	}
+
+	@Test
+	public void keepsConfigsAlignedOnChanges()
+	{
+		LazyModelItemList<WsdlTestCase, TestCaseConfig> list = new LazyModelItemList<WsdlTestCase, TestCaseConfig>(
+				builder, configs, true );
+
+		TestCaseConfig config = TestCaseConfig.Factory.newInstance();
+		config.setName( "Added" );
+		list.add( 0, createTestCase( config ) );
+		list.remove( 2 );
+
+		assertEquals( 3, list.size() );
+		assertEquals( 1, list.getBuiltItems().size() );
+		assertSame( configs.get( 0 ), list.get( 1 ).getConfig() );
+		assertSame( configs.get( 2 ), list.get( 2 ).getConfig() );
+		assertEquals( 2, built.size() );
+	}
+
+	@Test
+	public void buildsItemOnceWhenAccessedConcurrently() throws Exception
+	{
+		final LazyModelItemList<WsdlTestCase, TestCaseConfig> list = new LazyModelItemList<WsdlTestCase, TestCaseConfig>(
+				new LazyModelItemList.Builder<WsdlTestCase, TestCaseConfig>()
+				{
+					public WsdlTestCase build( TestCaseConfig config )
+					{
+						// widen the window between the check and the set
+						try
+						{
+							Thread.sleep( 20 );
+						}
+						catch( InterruptedException e )
+						{
+						}
+
+						return builder.build( config );
+					}
+				}, configs, true );
+
+		final CountDownLatch start = new CountDownLatch( 1 );
+		final List<WsdlTestCase> results = Collections.synchronizedList( new ArrayList<WsdlTestCase>() );
+		List<Thread> threads = new ArrayList<Thread>();
+
+		for( int c = 0; c < 4; c++ )
+		{
+			Thread thread = new Thread( new Runnable()
+			{
+				public void run()
+				{
+					try
+					{
+						start.await();
+						results.add( list.get( 0 ) );
+					}
+					catch( InterruptedException e )
+					{
+					}
+				}
+			} );
+
+			thread.start();
+			threads.add( thread );
+		}
+
+		start.countDown();
+		for( Thread thread : threads )
+			thread.join();
+
+		assertEquals( 1, built.size() );
+		assertEquals( 4, results.size() );
+		for( WsdlTestCase testCase : results )
+			assertSame( results.get( 0 ), testCase );
+	}
+
+	private static WsdlTestCase createTestCase( TestCaseConfig config )
+	{
+		WsdlTestCase testCase = mock( WsdlTestCase.class );
+		when( testCase.getConfig() ).thenReturn( config );
+		when( testCase.getName() ).thenReturn( config.getName() );
+		return testCase;
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import junit.framework.JUnit4TestAdapter;
+
+import org.junit.Test;
+
+public class ParallelTestSchedulerTestCase
+{
+	public static junit.framework.Test suite()
+	{
+		return new JUnit4TestAdapter( ParallelTestSchedulerTestCase.class );
+	}
+
+	@Test
+	public void shouldStartLongestFirstWithinLimit() throws Exception
+	{
+		ParallelTestScheduler<String> scheduler = new ParallelTestScheduler<String>( 2 );
+		scheduler.add( "a", 10, null );
+		scheduler.add( "b", 30, null );
+		scheduler.add( "c", 0, null );
+		scheduler.add( "d", 20, null );
+
+		assertEquals( "b", scheduler.next() );
+		assertEquals( "d", scheduler.next() );
+		assertNull( scheduler.next() );
+
+		scheduler.finished( "d" );
+		assertEquals( "a", scheduler.next() );
+		scheduler.finished( "b" );
+		assertEquals( "c", scheduler.next() );
+		assertNull( scheduler.next() );
+		assertEquals( 0, scheduler.getPendingCount() );
+		assertEquals( 2, scheduler.getRunningCount() );
+	}
+
+	@Test
+	public void shouldWaitForDependencies() throws Exception
+	{
+		ParallelTestScheduler<String> scheduler = new ParallelTestScheduler<String>( 0 );
+		scheduler.add( "a", 10, null );
+		scheduler.add( "b", 100, null );
+		scheduler.addDependency( "b", "a" );
+		scheduler.addDependency( "b", "missing" );
+
+		assertEquals( "a", scheduler.next() );
+		assertNull( scheduler.next() );
+
+		scheduler.finished( "a" );
+		assertEquals( "b", scheduler.next() );
+	}
+
+	@Test
+	public void shouldNotRunExclusiveTagsTogether() throws Exception
+	{
+		ParallelTestScheduler<String> scheduler = new ParallelTestScheduler<String>( 0 );
+		scheduler.add( "a", 30, "db, files" );
+		scheduler.add( "b", 20, "db" );
+		scheduler.add( "c", 10, "other" );
+
+		assertEquals( "a", scheduler.next() );
+		assertEquals( "c", scheduler.next() );
+		assertNull( scheduler.next() );
+
+		scheduler.finished( "a" );
+		assertEquals( "b", scheduler.next() );
+	}
+
+	@Test
+	public void shouldBreakDependencyCycles() throws Exception
+	{
+		ParallelTestScheduler<String> scheduler = new ParallelTestScheduler<String>( 0 );
+		scheduler.add( "a", 0, null );
+		scheduler.add( "b", 0, null );
+		scheduler.addDependency( "a", "b" );
+		scheduler.addDependency( "b", "a" );
+
+		assertEquals( "a", scheduler.next() );
+		assertNull( scheduler.next() );
+
+		scheduler.finished( "a" );
+		assertEquals( "b", scheduler.next() );
+	}
+
+	@Test
+	public void shouldRunAllFromSeveralThreads() throws Exception
+	{
+		final ParallelTestScheduler<Integer> scheduler = new ParallelTestScheduler<Integer>( 3 );
+		for( int c = 0; c < 20; c++ )
+			scheduler.add( c, c, null );
+
+		int started = 0;
+		Integer item;
+		while( ( item = scheduler.awaitNext() ) != null )
+		{
+			assertEquals( true, scheduler.getRunningCount() <= 3 );
+			started++ ;
+
+			final Integer finishedItem = item;
+			new Thread( new Runnable()
+			{
+				public void run()
+				{
+					scheduler.finished( finishedItem );
+				}
+			} ).start();
+		}
+
+		scheduler.awaitFinished();
+		assertEquals( 20, started );
+		assertEquals( 0, scheduler.getRunningCount() );
+	}
+
+	@Test
+	public void shouldDropPendingOnCancel() throws Exception
+	{
+		ParallelTestScheduler<String> scheduler = new ParallelTestScheduler<String>( 1 );
+		scheduler.add( "a", 0, null );
+		scheduler.add( "b", 0, null );
+
+		assertEquals( "a", scheduler.next() );
+		scheduler.cancel();
+		assertEquals( 0, scheduler.getPendingCount() );
+
+		scheduler.finished( "a" );
+		assertNull( scheduler.awaitNext() );
+		scheduler.awaitFinished();
+	}
+}
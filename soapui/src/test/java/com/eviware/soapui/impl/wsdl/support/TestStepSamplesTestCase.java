@@ -0,0 +1,67 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.support;
+
+import static org.junit.Assert.assertEquals;
+import junit.framework.JUnit4TestAdapter;
+
+import org.junit.Test;
+
+import com.eviware.soapui.model.testsuite.TestStepResult.TestStepStatus;
+
+public class TestStepSamplesTestCase
+{
+	public static junit.framework.Test suite()
+	{
+		return new JUnit4TestAdapter( TestStepSamplesTestCase.class );
+	}
+
+	@Test
+	public void shouldRecordSamples() throws Exception
+	{
+		TestStepSamples samples = new TestStepSamples();
+		samples.add( 0, 10, 100, 1000, TestStepStatus.OK );
+		samples.add( 2, 20, 200, 2000, TestStepStatus.FAILED );
+		samples.add( 1, 30, 300, 3000, null );
+
+		assertEquals( 3, samples.size() );
+		assertEquals( 2, samples.getStepIndex( 1 ) );
+		assertEquals( 20, samples.getTimeTaken( 1 ) );
+		assertEquals( 200, samples.getSize( 1 ) );
+		assertEquals( 2000, samples.getTimeStamp( 1 ) );
+		assertEquals( TestStepStatus.FAILED, samples.getStatus( 1 ) );
+		assertEquals( TestStepStatus.UNKNOWN, samples.getStatus( 2 ) );
+		assertEquals( 60, samples.getTotalTimeTaken() );
+	}
+
+	@Test
+	public void shouldGrowAndClear() throws Exception
+	{
+		TestStepSamples samples = new TestStepSamples();
+		for( int c = 0; c < 100; c++ )
+			samples.add( c, c, 0, 0, TestStepStatus.OK );
+
+		assertEquals( 100, samples.size() );
+		assertEquals( 99, samples.getStepIndex( 99 ) );
+		assertEquals( 4950, samples.getTotalTimeTaken() );
+
+		samples.clear();
+		assertEquals( 0, samples.size() );
+		assertEquals( 0, samples.getTotalTimeTaken() );
+
+		samples.add( 5, 7, 0, 0, TestStepStatus.CANCELED );
+		assertEquals( 1, samples.size() );
+		assertEquals( 5, samples.getStepIndex( 0 ) );
+		assertEquals( TestStepStatus.CANCELED, samples.getStatus( 0 ) );
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.support.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URI;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.Test;
+
+import com.eviware.soapui.impl.wsdl.submit.transports.http.support.methods.ExtendedGetMethod;
+import com.eviware.soapui.impl.wsdl.submit.transports.http.support.metrics.SoapUIMetrics;
+import com.eviware.soapui.support.JettyTestCaseBase;
+import com.google.common.io.Files;
+
+public class NioHttpClientSupportTestCaseIT extends JettyTestCaseBase
+{
+	@Test
+	public void executesRequestOverReactor() throws Exception
+	{
+		ExtendedGetMethod method = createMethod();
+		HttpResponse response = NioHttpClientSupport.execute( method, new BasicHttpContext() );
+
+		assertEquals( 200, response.getStatusLine().getStatusCode() );
+		assertArrayEquals( Files.toByteArray( new File( getResourceBase(), "mime-attachment.txt" ) ),
+				method.getResponseBody() );
+
+		SoapUIMetrics metrics = method.getMetrics();
+		assertTrue( metrics.getTimeToFirstByteTimer().getStop() >= metrics.getTimeToFirstByteTimer().getStart() );
+		assertTrue( metrics.getConnectTimer().getStop() > 0 );
+	}
+
+	@Test
+	public void reusesKeepAliveConnections() throws Exception
+	{
+		HttpHost target = new HttpHost( "localhost", getPort(), "http" );
+
+		NioHttpClientSupport.execute( createMethod(), new BasicHttpContext() );
+		assertEquals( 1, NioHttpClientSupport.getIdleConnectionCount( target ) );
+
+		HttpResponse response = NioHttpClientSupport.execute( createMethod(), new BasicHttpContext() );
+		assertEquals( 200, response.getStatusLine().getStatusCode() );
+		assertEquals( 1, NioHttpClientSupport.getIdleConnectionCount( target ) );
+	}
+
+	private ExtendedGetMethod createMethod()
+	{
+		ExtendedGetMethod method = new ExtendedGetMethod();
+		method.setURI( URI.create( "http://localhost:" + getPort() + "/mime-attachment.txt" ) );
+		return method;
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.support.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.junit.Test;
+
+public class RoutePoolStatisticsTest
+{
+	@Test
+	public void tracksLeasedAndPendingConnections() throws Exception
+	{
+		RoutePoolStatistics statistics = new RoutePoolStatistics( new HttpRoute( new HttpHost( "localhost", 8080 ) ),
+				null );
+
+		statistics.waiting();
+		statistics.waiting();
+		assertEquals( 2, statistics.getPending() );
+
+		statistics.waited( 10, true );
+		statistics.waited( 30, false );
+		assertEquals( 0, statistics.getPending() );
+		assertEquals( 1, statistics.getLeased() );
+		assertEquals( 1, statistics.getWaitCount() );
+
+		statistics.released();
+		assertEquals( 0, statistics.getLeased() );
+	}
+
+	@Test
+	public void calculatesWaitTimes() throws Exception
+	{
+		RoutePoolStatistics statistics = new RoutePoolStatistics( new HttpRoute( new HttpHost( "localhost", 8080 ) ),
+				null );
+
+		for( int c = 1; c <= 100; c++ )
+		{
+			statistics.waiting();
+			statistics.waited( c, true );
+		}
+
+		assertEquals( 50, statistics.getAverageWaitTime() );
+		assertEquals( 90, statistics.getWaitTimeP90() );
+		assertEquals( 99, statistics.getWaitTimeP99() );
+		assertEquals( 100, statistics.getMaxWaitTime() );
+
+		statistics.reset();
+		assertEquals( 0, statistics.getWaitCount() );
+		assertEquals( 0, statistics.getMaxWaitTime() );
+		assertEquals( 100, statistics.getLeased() );
+	}
+
+	@Test
+	public void countsResumedTlsSessions() throws Exception
+	{
+		RoutePoolStatistics statistics = new RoutePoolStatistics( new HttpRoute( new HttpHost( "localhost", 8443 ) ),
+				null );
+
+		statistics.tlsHandshake( false );
+		statistics.tlsHandshake( true );
+		statistics.tlsHandshake( true );
+		assertEquals( 1, statistics.getTlsHandshakes() );
+		assertEquals( 2, statistics.getTlsResumptions() );
+
+		statistics.reset();
+		assertEquals( 0, statistics.getTlsResumptions() );
+	}
+
+	@Test
+	public void replacesAndUnregistersRouteMBeans() throws Exception
+	{
+		HttpRoute route = new HttpRoute( new HttpHost( "localhost", 8081 ) );
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName( ConnectionPoolStatistics.OBJECT_NAME_PREFIX
+				+ ObjectName.quote( route.toString() ) );
+
+		ConnectionPoolStatistics first = new ConnectionPoolStatistics( null );
+		first.getRouteStatistics( route ).waiting();
+		assertEquals( 1, server.getAttribute( name, "Pending" ) );
+
+		ConnectionPoolStatistics second = new ConnectionPoolStatistics( null );
+		second.getRouteStatistics( route );
+		assertEquals( 0, server.getAttribute( name, "Pending" ) );
+
+		first.unregister();
+		assertTrue( server.isRegistered( name ) );
+
+		second.unregister();
+		assertFalse( server.isRegistered( name ) );
+	}
+}
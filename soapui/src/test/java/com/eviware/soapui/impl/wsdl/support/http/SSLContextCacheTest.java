@@ -0,0 +1,75 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.support.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+
+import javax.net.ssl.SSLContext;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class SSLContextCacheTest
+{
+	@After
+	public void clearCache()
+	{
+		SSLContextCache.clear();
+	}
+
+	@Test
+	public void reusesContextForSameKeystore() throws Exception
+	{
+		String keyStore = new File( SSLContextCacheTest.class.getResource( "/test.keystore" ).toURI() ).getPath();
+
+		SSLContext context = SSLContextCache.getContext( keyStore, "password" );
+		assertSame( context, SSLContextCache.getContext( keyStore, "password" ) );
+		assertNotSame( context, SSLContextCache.getContext( keyStore, "other" ) );
+	}
+
+	@Test
+	public void replacesContextOfKeystore() throws Exception
+	{
+		File keyStore = new File( SSLContextCacheTest.class.getResource( "/test.keystore" ).toURI() );
+
+		SSLContext context = SSLContextCache.getContext( keyStore.getPath(), "password" );
+		SSLContextCache.getContext( keyStore.getPath(), "other" );
+		assertEquals( 1, SSLContextCache.size() );
+		assertNotSame( context, SSLContextCache.getContext( keyStore.getPath(), "password" ) );
+
+		context = SSLContextCache.getContext( keyStore.getPath(), "password" );
+		long lastModified = keyStore.lastModified();
+		try
+		{
+			keyStore.setLastModified( lastModified - 10000 );
+			assertNotSame( context, SSLContextCache.getContext( keyStore.getPath(), "password" ) );
+			assertEquals( 1, SSLContextCache.size() );
+		}
+		finally
+		{
+			keyStore.setLastModified( lastModified );
+		}
+	}
+
+	@Test
+	public void sharesContextWithoutKeystore() throws Exception
+	{
+		SSLContext context = SSLContextCache.getContext( "", null );
+		assertSame( context, SSLContextCache.getContext( null, "password" ) );
+		assertSame( context, SSLContextCache.getContext( "missing.keystore", "password" ) );
+	}
+}
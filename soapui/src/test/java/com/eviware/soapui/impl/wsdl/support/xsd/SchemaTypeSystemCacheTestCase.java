@@ -0,0 +1,103 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.support.xsd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import junit.framework.JUnit4TestAdapter;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.xmlbeans.SchemaTypeSystem;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SchemaTypeSystemCacheTestCase
+{
+	private final static String SCHEMA = "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" "
+			+ "targetNamespace=\"http://test\" elementFormDefault=\"qualified\">"
+			+ "<xs:element name=\"order\"><xs:complexType><xs:sequence>"
+			+ "<xs:element name=\"id\" type=\"xs:int\"/></xs:sequence></xs:complexType></xs:element></xs:schema>";
+
+	private File directory;
+
+	public static junit.framework.Test suite()
+	{
+		return new JUnit4TestAdapter( SchemaTypeSystemCacheTestCase.class );
+	}
+
+	@Before
+	public void setUp() throws Exception
+	{
+		directory = File.createTempFile( "schema-cache", "" );
+		directory.delete();
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		FileUtils.deleteQuietly( directory );
+	}
+
+	@Test
+	public void shouldLoadStoredTypeSystem() throws Exception
+	{
+		List<XmlObject> schemas = parse( SCHEMA );
+		String key = SchemaTypeSystemCache.createKey( schemas, Collections.<XmlObject> emptyList(), false );
+
+		SchemaTypeSystemCache cache = new SchemaTypeSystemCache( directory );
+		assertNull( cache.load( key ) );
+
+		SchemaTypeSystem sts = XmlBeans.compileXsd( schemas.toArray( new XmlObject[1] ), XmlBeans
+				.getBuiltinTypeSystem(), null );
+		cache.store( key, sts );
+
+		SchemaTypeSystem cached = cache.load( key );
+		assertNotNull( cached );
+		assertEquals( sts.getName(), cached.getName() );
+		assertEquals( 1, cached.documentTypes().length );
+		assertEquals( new QName( "http://test", "order" ), cached.documentTypes()[0].getDocumentElementName() );
+	}
+
+	@Test
+	public void shouldChangeKeyWithContentAndOptions() throws Exception
+	{
+		List<XmlObject> schemas = parse( SCHEMA );
+		String key = SchemaTypeSystemCache.createKey( schemas, Collections.<XmlObject> emptyList(), false );
+
+		assertEquals( key, SchemaTypeSystemCache.createKey( parse( SCHEMA ), Collections.<XmlObject> emptyList(), false ) );
+		assertFalse( key.equals( SchemaTypeSystemCache.createKey( schemas, Collections.<XmlObject> emptyList(), true ) ) );
+		assertFalse( key.equals( SchemaTypeSystemCache.createKey( parse( SCHEMA.replace( "xs:int", "xs:string" ) ),
+				Collections.<XmlObject> emptyList(), false ) ) );
+		assertFalse( key.equals( SchemaTypeSystemCache.createKey( schemas, parse( SCHEMA ), false ) ) );
+	}
+
+	private static List<XmlObject> parse( String schema ) throws Exception
+	{
+		List<XmlObject> result = new ArrayList<XmlObject>();
+		result.add( XmlObject.Factory.parse( schema ) );
+		return result;
+	}
+}
@@ -0,0 +1,43 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.impl.wsdl.teststeps.assertions.basic;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+public class SimpleContainsAssertionTest
+{
+	@Test
+	public void findsTokenInStreamedContent() throws Exception
+	{
+		assertTrue( SimpleContainsAssertion.containsToken( new StringReader( "<a>aabaabaaab</a>" ), "aabaaab", false ) );
+		assertFalse( SimpleContainsAssertion.containsToken( new StringReader( "<a>aabaabaab</a>" ), "aabaaab", false ) );
+		assertTrue( SimpleContainsAssertion.containsToken( new StringReader( "<Result>OK</Result>" ), "<result>ok",
+				true ) );
+		assertFalse( SimpleContainsAssertion.containsToken( new StringReader( "<Result>OK</Result>" ), "<result>ok",
+				false ) );
+	}
+
+	@Test
+	public void normalizesLineBreaks() throws Exception
+	{
+		assertTrue( SimpleContainsAssertion.containsToken( new StringReader( "<a>\r\n<b/>" ), "<a>\n<b/>", false ) );
+		assertTrue( SimpleContainsAssertion.containsToken( new StringReader( "x\r\r\ny" ), "x\r\ny", false ) );
+		assertTrue( SimpleContainsAssertion.containsToken( new StringReader( "x\r" ), "x\r", false ) );
+		assertFalse( SimpleContainsAssertion.containsToken( new StringReader( "x\r\n" ), "x\r", false ) );
+	}
+}
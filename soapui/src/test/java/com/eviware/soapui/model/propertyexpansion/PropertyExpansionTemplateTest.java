@@ -0,0 +1,99 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.model.propertyexpansion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class PropertyExpansionTemplateTest
+{
+	@Test
+	public void splitsLiteralsAndProperties()
+	{
+		PropertyExpansionTemplate template = PropertyExpansionTemplate.compile( "<a>${test}</a><b>${#Project#id}</b>" );
+
+		assertEquals( 2, template.getPropertyCount() );
+		assertEquals( "<a>", template.getLiteral( 0 ) );
+		assertEquals( "test", template.getPropertyName( 0 ) );
+		assertEquals( "</a><b>", template.getLiteral( 1 ) );
+		assertEquals( "#Project#id", template.getPropertyName( 1 ) );
+		assertEquals( "</b>", template.getLiteral( 2 ) );
+		assertEquals( 14, template.getLiteralLength() );
+	}
+
+	@Test
+	public void unescapesEscapedExpansions()
+	{
+		PropertyExpansionTemplate template = PropertyExpansionTemplate.compile( "${test}$${test}" );
+		assertEquals( 1, template.getPropertyCount() );
+		assertEquals( "", template.getLiteral( 0 ) );
+		assertEquals( "${test}", template.getLiteral( 1 ) );
+
+		template = PropertyExpansionTemplate.compile( "$${${test}" );
+		assertEquals( 1, template.getPropertyCount() );
+		assertEquals( "${", template.getLiteral( 0 ) );
+		assertEquals( "test", template.getPropertyName( 0 ) );
+
+		template = PropertyExpansionTemplate.compile( "$${test}" );
+		assertEquals( 0, template.getPropertyCount() );
+		assertEquals( "${test}", template.getLiteral( 0 ) );
+	}
+
+	@Test
+	public void doesNotCompileNestedOrUnterminatedExpansions()
+	{
+		assertNull( PropertyExpansionTemplate.compile( "${test${exp}}" ) );
+		assertNull( PropertyExpansionTemplate.compile( "${#testxml#//value[@id=${id}]/text()}" ) );
+		assertNull( PropertyExpansionTemplate.compile( "abc ${test" ) );
+		assertNull( PropertyExpansionTemplate.getTemplate( "abc ${test" ) );
+	}
+
+	@Test
+	public void cachesTemplatesOnContentIdentity()
+	{
+		PropertyExpansionTemplate.clear();
+		PropertyExpansionTemplate.resetCounters();
+
+		String content = "<a>${test}</a>";
+		PropertyExpansionTemplate template = PropertyExpansionTemplate.getTemplate( content );
+		assertSame( template, PropertyExpansionTemplate.getTemplate( content ) );
+		assertEquals( 1, PropertyExpansionTemplate.getHitCount() );
+		assertEquals( 1, PropertyExpansionTemplate.getMissCount() );
+
+		// templates are cached on the identity of the content
+		assertNotSame( template, PropertyExpansionTemplate.getTemplate( new String( content ) ) );
+		assertEquals( 2, PropertyExpansionTemplate.getMissCount() );
+	}
+
+	@Test
+	public void doesNotCacheLargeContent()
+	{
+		PropertyExpansionTemplate.clear();
+		PropertyExpansionTemplate.resetCounters();
+
+		StringBuilder buf = new StringBuilder( "<a>${test}</a>" );
+		while( buf.length() <= PropertyExpansionTemplate.DEFAULT_MAX_CACHED_LENGTH )
+			buf.append( "<b>some content</b>" );
+
+		String content = buf.toString();
+		PropertyExpansionTemplate template = PropertyExpansionTemplate.getTemplate( content );
+		assertEquals( 1, template.getPropertyCount() );
+		assertNotSame( template, PropertyExpansionTemplate.getTemplate( content ) );
+		assertEquals( 0, PropertyExpansionTemplate.getHitCount() );
+		assertEquals( 2, PropertyExpansionTemplate.getMissCount() );
+	}
+}
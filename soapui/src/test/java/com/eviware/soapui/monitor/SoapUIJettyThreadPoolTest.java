@@ -0,0 +1,111 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.monitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class SoapUIJettyThreadPoolTest
+{
+	@Test
+	public void runsJobsOnOwnThreads() throws Exception
+	{
+		SoapUIJettyThreadPool threadPool = new SoapUIJettyThreadPool( "test", 2, 2 );
+		final CountDownLatch done = new CountDownLatch( 1 );
+		final AtomicBoolean rejecting = new AtomicBoolean( true );
+
+		assertTrue( threadPool.dispatch( new Runnable()
+		{
+			public void run()
+			{
+				rejecting.set( SoapUIJettyThreadPool.isRejecting() );
+				done.countDown();
+			}
+		} ) );
+
+		assertTrue( done.await( 5, TimeUnit.SECONDS ) );
+		assertFalse( rejecting.get() );
+		assertEquals( 0, threadPool.getRejectedCount() );
+
+		threadPool.shutdown();
+	}
+
+	@Test
+	public void rejectsJobsBeyondQueueLimit() throws Exception
+	{
+		SoapUIJettyThreadPool threadPool = new SoapUIJettyThreadPool( "test", 2, 1 );
+		final CountDownLatch release = new CountDownLatch( 1 );
+		final CountDownLatch started = new CountDownLatch( 2 );
+
+		Runnable blockingJob = new Runnable()
+		{
+			public void run()
+			{
+				started.countDown();
+				try
+				{
+					release.await();
+				}
+				catch( InterruptedException e )
+				{
+				}
+			}
+		};
+
+		assertTrue( threadPool.dispatch( blockingJob ) );
+		assertTrue( threadPool.dispatch( blockingJob ) );
+		assertTrue( started.await( 5, TimeUnit.SECONDS ) );
+
+		assertEquals( 2, threadPool.getThreads() );
+		assertEquals( 0, threadPool.getIdleThreads() );
+		assertTrue( threadPool.isLowOnThreads() );
+
+		// queued
+		assertTrue( threadPool.dispatch( new Runnable()
+		{
+			public void run()
+			{
+			}
+		} ) );
+		assertEquals( 1, threadPool.getQueuedJobs() );
+
+		final CountDownLatch rejected = new CountDownLatch( 1 );
+		final AtomicBoolean rejecting = new AtomicBoolean();
+		assertTrue( threadPool.dispatch( new Runnable()
+		{
+			public void run()
+			{
+				rejecting.set( SoapUIJettyThreadPool.isRejecting() );
+				rejected.countDown();
+			}
+		} ) );
+
+		assertTrue( rejected.await( 5, TimeUnit.SECONDS ) );
+		assertTrue( rejecting.get() );
+		assertEquals( 1, threadPool.getRejectedCount() );
+
+		release.countDown();
+		threadPool.shutdown();
+		threadPool.join();
+
+		assertEquals( 0, threadPool.getActiveThreads() );
+		assertEquals( 0, threadPool.getQueuedJobs() );
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.support.scripting.groovy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import groovy.lang.Binding;
+import groovy.lang.Script;
+
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.runtime.InvokerHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the shared compiled-script cache
+ */
+public class GroovyScriptCacheTest
+{
+	private GroovyScriptCache cache;
+	private ClassLoader classLoader;
+	private CompilerConfiguration config;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		cache = new GroovyScriptCache( 10 );
+		classLoader = getClass().getClassLoader();
+		config = new CompilerConfiguration();
+	}
+
+	@Test
+	public void compilesIdenticalScriptsOnce() throws Exception
+	{
+		Class<? extends Script> first = cache.getScriptClass( "return x * 2", classLoader, config );
+		Class<? extends Script> second = cache.getScriptClass( "return x * 2", classLoader, config );
+
+		assertSame( first, second );
+		assertEquals( 1, cache.getMissCount() );
+		assertEquals( 1, cache.getHitCount() );
+	}
+
+	@Test
+	public void createsScriptsWithSeparateBindings() throws Exception
+	{
+		Class<? extends Script> scriptClass = cache.getScriptClass( "return x * 2", classLoader, config );
+
+		Binding binding1 = new Binding();
+		binding1.setVariable( "x", 1 );
+		Binding binding2 = new Binding();
+		binding2.setVariable( "x", 2 );
+
+		assertEquals( 2, InvokerHelper.createScript( scriptClass, binding1 ).run() );
+		assertEquals( 4, InvokerHelper.createScript( scriptClass, binding2 ).run() );
+	}
+
+	@Test
+	public void recompilesInvalidatedScripts() throws Exception
+	{
+		Class<? extends Script> first = cache.getScriptClass( "return 1", classLoader, config );
+		cache.invalidate( "return 1", classLoader );
+		Class<? extends Script> second = cache.getScriptClass( "return 1", classLoader, config );
+
+		assertNotSame( first, second );
+		assertEquals( 2, cache.getMissCount() );
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsedScripts() throws Exception
+	{
+		for( int c = 0; c < 20; c++ )
+			cache.getScriptClass( "return " + c, classLoader, config );
+
+		assertEquals( 10, cache.getSize() );
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.support.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for the streaming XPath subset evaluator
+ */
+public class StreamingXPathTest
+{
+	private static final String NS = "declare namespace soap='http://soap';\ndeclare namespace ns='http://test';\n";
+
+	private static final String XML = "<soap:Envelope xmlns:soap=\"http://soap\"><soap:Body>"
+			+ "<ns:result xmlns:ns=\"http://test\"><ns:item id=\"1\" type=\"a\">one</ns:item>"
+			+ "<ns:item id=\"2\"><child>two</child></ns:item><ns:item id=\"3\"/><item id=\"4\">plain</item>"
+			+ "<ns:group><ns:item id=\"5\">five</ns:item></ns:group></ns:result></soap:Body></soap:Envelope>";
+
+	@Test
+	public void selectsChildAndDescendantElements() throws Exception
+	{
+		assertEquals( "[one, null, null, five]", select( NS + "//ns:item" ) );
+		assertEquals( "[one, null, null]", select( NS + "/soap:Envelope/soap:Body/ns:result/ns:item" ) );
+		assertEquals( "[five]", select( NS + "/soap:Envelope//ns:group/ns:item" ) );
+		assertEquals( "[two]", select( "$this//child" ) );
+	}
+
+	@Test
+	public void matchesUnprefixedNamesInNoNamespace() throws Exception
+	{
+		assertEquals( "[plain]", select( "//item" ) );
+	}
+
+	@Test
+	public void selectsWithAttributePredicates() throws Exception
+	{
+		assertEquals( "[five]", select( NS + "//ns:item[@id='5']" ) );
+		assertEquals( "[one]", select( NS + "//ns:item[@type]" ) );
+		assertEquals( "[plain]", select( "//*[@id=\"4\"]" ) );
+	}
+
+	@Test
+	public void selectsAttributes() throws Exception
+	{
+		assertEquals( "[1, 2, 3, 5]", select( NS + "//ns:item/@id" ) );
+		assertEquals( "[a]", select( NS + "//ns:*/@type" ) );
+	}
+
+	@Test
+	public void countsMatches() throws Exception
+	{
+		StreamingXPath xpath = StreamingXPath.compile( NS + "count(//ns:item)" );
+		assertTrue( xpath.isCount() );
+		assertEquals( "[4]", select( NS + "count(//ns:item)" ) );
+		assertEquals( "[0]", select( "count(//missing)" ) );
+	}
+
+	@Test
+	public void rejectsUnsupportedExpressions() throws Exception
+	{
+		assertNull( StreamingXPath.compile( NS + "//ns:item[1]" ) );
+		assertNull( StreamingXPath.compile( "//item/text()" ) );
+		assertNull( StreamingXPath.compile( "//undeclared:item" ) );
+		assertNull( StreamingXPath.compile( "declare default element namespace 'http://test'; //item" ) );
+		assertNull( StreamingXPath.compile( "//item | //other" ) );
+		assertNotNull( StreamingXPath.compile( "//item" ) );
+	}
+
+	private String select( String expression ) throws Exception
+	{
+		StreamingXPath.Selection selection = StreamingXPath.compile( expression ).select(
+				new ByteArrayInputStream( XML.getBytes( "UTF-8" ) ), false );
+
+		List<String> result = new ArrayList<String>();
+		try
+		{
+			while( selection.toNextValue() )
+				result.add( selection.getValue() );
+		}
+		finally
+		{
+			selection.close();
+		}
+
+		return result.toString();
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.support.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.apache.xmlbeans.XmlObject;
+import org.junit.Before;
+import org.junit.Test;
+
+public class XPathCacheTest
+{
+	private static final String XML = "<ns:test xmlns:ns=\"http://test\"><ns:value>1</ns:value></ns:test>";
+	private static final String NAMESPACES = "declare namespace ns='http://test';\n";
+
+	private XPathCache cache;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		cache = new XPathCache( 10 );
+	}
+
+	@Test
+	public void declaresNamespacesOncePerNamespaceSet() throws Exception
+	{
+		String first = cache.getNamespaceDeclarations( XmlObject.Factory.parse( XML ) );
+		String second = cache.getNamespaceDeclarations( XmlObject.Factory.parse( XML ) );
+
+		assertSame( first, second );
+		assertEquals( NAMESPACES, first );
+		assertEquals( 1, cache.getNamespaceMissCount() );
+		assertEquals( 1, cache.getNamespaceHitCount() );
+
+		cache.getNamespaceDeclarations( XmlObject.Factory.parse( XML.replace( "http://test", "http://other" ) ) );
+		assertEquals( 2, cache.getNamespaceMissCount() );
+	}
+
+	@Test
+	public void boundsNumberOfNamespaceSets() throws Exception
+	{
+		for( int c = 0; c < 25; c++ )
+			cache.getNamespaceDeclarations( XmlObject.Factory.parse( XML.replace( "http://test", "http://test/" + c ) ) );
+
+		cache.getNamespaceDeclarations( XmlObject.Factory.parse( XML.replace( "http://test", "http://test/24" ) ) );
+		assertEquals( 25, cache.getNamespaceMissCount() );
+		assertEquals( 1, cache.getNamespaceHitCount() );
+
+		cache.getNamespaceDeclarations( XmlObject.Factory.parse( XML.replace( "http://test", "http://test/0" ) ) );
+		assertEquals( 26, cache.getNamespaceMissCount() );
+	}
+
+	@Test
+	public void compilesExpressionsOncePerNamespaces() throws Exception
+	{
+		String first = cache.getCompiledPath( NAMESPACES, "//ns:value" );
+		String second = cache.getCompiledPath( NAMESPACES, "//ns:value" );
+
+		assertSame( first, second );
+		assertEquals( 1, cache.getExpressionMissCount() );
+		assertEquals( 1, cache.getExpressionHitCount() );
+
+		XmlObject xmlObject = XmlObject.Factory.parse( XML );
+		assertEquals( 1, xmlObject.selectPath( first ).length );
+
+		cache.getCompiledPath( "declare namespace ns='http://other';\n", "//ns:value" );
+		assertEquals( 2, cache.getExpressionMissCount() );
+	}
+
+	@Test
+	public void keepsRecentlyUsedExpressionsWhenFull() throws Exception
+	{
+		String first = cache.getCompiledPath( NAMESPACES, "//ns:value[1]" );
+		for( int c = 0; c < 25; c++ )
+		{
+			cache.getCompiledPath( NAMESPACES, "//ns:value[" + ( c + 2 ) + "]" );
+			assertSame( first, cache.getCompiledPath( NAMESPACES, "//ns:value[1]" ) );
+		}
+
+		assertEquals( 26, cache.getExpressionMissCount() );
+		assertEquals( 25, cache.getExpressionHitCount() );
+	}
+
+	@Test
+	public void separatesPathsAndQueries() throws Exception
+	{
+		String path = cache.getCompiledPath( NAMESPACES, "//ns:value" );
+		String query = cache.getCompiledQuery( NAMESPACES, "//ns:value" );
+
+		assertNotSame( path, query );
+		assertEquals( 2, cache.getExpressionMissCount() );
+		assertEquals( 1, XmlObject.Factory.parse( XML ).execQuery( query ).length );
+	}
+
+	@Test
+	public void declaresEveryTimeWhenDisabled() throws Exception
+	{
+		XPathCache disabled = new XPathCache( 0 );
+		XmlObject xmlObject = XmlObject.Factory.parse( XML );
+
+		disabled.getNamespaceDeclarations( xmlObject );
+		disabled.getNamespaceDeclarations( xmlObject );
+
+		assertEquals( 2, disabled.getNamespaceMissCount() );
+		assertEquals( 0, disabled.getNamespaceHitCount() );
+	}
+}
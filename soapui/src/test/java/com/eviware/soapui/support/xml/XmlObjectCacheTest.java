@@ -0,0 +1,143 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.support.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.apache.xmlbeans.XmlObject;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the parse-once message content cache
+ */
+public class XmlObjectCacheTest
+{
+	private static final String XML = "<test><!-- comment --><value>1</value></test>";
+
+	@Before
+	public void setUp() throws Exception
+	{
+		XmlObjectCache.clear();
+	}
+
+	@Test
+	public void parsesSameContentOnce() throws Exception
+	{
+		String content = new String( XML );
+
+		XmlObject first = XmlObjectCache.getXmlObject( content );
+		XmlObject second = XmlObjectCache.getXmlObject( content );
+
+		assertSame( first, second );
+	}
+
+	@Test
+	public void keysOnContentIdentity() throws Exception
+	{
+		XmlObject first = XmlObjectCache.getXmlObject( new String( XML ) );
+		XmlObject second = XmlObjectCache.getXmlObject( new String( XML ) );
+
+		assertNotSame( first, second );
+	}
+
+	@Test
+	public void separatesStrippedComments() throws Exception
+	{
+		String content = new String( XML );
+
+		XmlObject withComments = XmlObjectCache.getXmlObject( content );
+		XmlObject withoutComments = XmlObjectCache.getXmlObject( content, true );
+
+		assertNotSame( withComments, withoutComments );
+		assertEquals( 0, withoutComments.selectPath( "//comment()" ).length );
+		assertEquals( 1, withComments.selectPath( "//comment()" ).length );
+	}
+
+	@Test
+	public void reparsesEvictedContent() throws Exception
+	{
+		String content = new String( XML );
+
+		XmlObject first = XmlObjectCache.getXmlObject( content );
+		XmlObjectCache.evict( content );
+		XmlObject second = XmlObjectCache.getXmlObject( content );
+
+		assertNotSame( first, second );
+	}
+
+	@Test
+	public void parsesReaderContentOncePerSource() throws Exception
+	{
+		Object source = new Object();
+		TrackingReader firstReader = new TrackingReader( XML );
+		TrackingReader secondReader = new TrackingReader( XML );
+
+		XmlObject first = XmlObjectCache.getXmlObject( source, firstReader, false );
+		XmlObject second = XmlObjectCache.getXmlObject( source, secondReader, false );
+
+		assertSame( first, second );
+		assertEquals( 1, first.selectPath( "//value" ).length );
+		assertFalse( secondReader.read );
+		assertTrue( firstReader.closed );
+		assertTrue( secondReader.closed );
+
+		XmlObjectCache.evict( source );
+		assertNotSame( first, XmlObjectCache.getXmlObject( source, new StringReader( XML ), false ) );
+	}
+
+	@Test
+	public void keepsMostRecentlyUsedDocuments() throws Exception
+	{
+		String content = new String( XML );
+		XmlObject first = XmlObjectCache.getXmlObject( content );
+
+		for( int c = 0; c < XmlObjectCache.getCacheSize() + 1; c++ )
+		{
+			XmlObjectCache.getXmlObject( "<test>" + c + "</test>" );
+			assertSame( first, XmlObjectCache.getXmlObject( content ) );
+		}
+	}
+
+	private static class TrackingReader extends StringReader
+	{
+		private boolean read;
+		private boolean closed;
+
+		public TrackingReader( String content )
+		{
+			super( content );
+		}
+
+		@Override
+		public int read( char[] cbuf, int off, int len ) throws IOException
+		{
+			read = true;
+			return super.read( cbuf, off, len );
+		}
+
+		@Override
+		public void close()
+		{
+			closed = true;
+			super.close();
+		}
+	}
+}
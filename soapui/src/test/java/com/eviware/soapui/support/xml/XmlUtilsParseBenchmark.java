@@ -0,0 +1,104 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.support.xml;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+/**
+ * JMH benchmark showing how XmlUtils parsing and pretty-printing throughput
+ * scales with the number of threads. Not a unit test; run with
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.eviware.soapui.support.xml.XmlUtilsParseBenchmark
+ * </pre>
+ */
+
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class XmlUtilsParseBenchmark
+{
+	private String xml;
+
+	@Setup
+	public void setUp()
+	{
+		StringBuilder buf = new StringBuilder();
+		buf.append( "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\" " );
+		buf.append( "xmlns:ns=\"http://www.example.org/orders\"><soapenv:Header/><soapenv:Body>" );
+		buf.append( "<ns:getOrdersResponse>" );
+
+		for( int c = 0; c < 50; c++ )
+		{
+			buf.append( "<ns:order id=\"" ).append( c ).append( "\"><ns:customer>Customer " ).append( c );
+			buf.append( "</ns:customer><ns:amount>" ).append( c * 10 ).append( ".50</ns:amount></ns:order>" );
+		}
+
+		buf.append( "</ns:getOrdersResponse></soapenv:Body></soapenv:Envelope>" );
+		xml = buf.toString();
+	}
+
+	@Benchmark
+	public Document parse() throws IOException
+	{
+		return XmlUtils.parse( new InputSource( new StringReader( xml ) ) );
+	}
+
+	@Benchmark
+	public String prettyPrintXml()
+	{
+		return XmlUtils.prettyPrintXml( xml );
+	}
+
+	public static void main( String[] args ) throws RunnerException
+	{
+		int maxThreads = Runtime.getRuntime().availableProcessors();
+
+		// doubles up to the core count, which is always the last step
+		for( int threads = 1; threads < maxThreads; threads *= 2 )
+			run( threads );
+
+		run( maxThreads );
+	}
+
+	private static void run( int threads ) throws RunnerException
+	{
+		Options options = new OptionsBuilder().include( XmlUtilsParseBenchmark.class.getSimpleName() ).threads( threads )
+				.build();
+
+		new Runner( options ).run();
+	}
+}
@@ -14,6 +14,7 @@ package com.eviware.soapui.tools;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 
@@ -143,4 +144,16 @@ public class TestCaseRunnerTestCase
 		runner.setTestCase( "Test Conversions" );
 		// assertTrue( runner.run() );
 	}
+
+	@Test
+	public void forksLeaveOutDebuggerAndJmxPorts() throws Exception
+	{
+		assertTrue( SoapUITestCaseRunner.isForkedJvmArgument( "-Xmx512m" ) );
+		assertTrue( SoapUITestCaseRunner.isForkedJvmArgument( "-Dsoapui.home=/opt/soapui" ) );
+		assertTrue( SoapUITestCaseRunner.isForkedJvmArgument( "-Dcom.sun.management.jmxremote.authenticate=false" ) );
+
+		assertFalse( SoapUITestCaseRunner.isForkedJvmArgument( "-agentlib:jdwp=transport=dt_socket,server=y,address=5005" ) );
+		assertFalse( SoapUITestCaseRunner.isForkedJvmArgument( "-Xrunjdwp:transport=dt_socket,address=5005" ) );
+		assertFalse( SoapUITestCaseRunner.isForkedJvmArgument( "-Dcom.sun.management.jmxremote.port=9010" ) );
+	}
 }
@@ -0,0 +1,67 @@
+/*
+ *  SoapUI, copyright (C) 2004-2012 smartbear.com
+ *
+ *  SoapUI is free software; you can redistribute it and/or modify it under the
+ *  terms of version 2.1 of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation.
+ *
+ *  SoapUI is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ *  even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details at gnu.org.
+ */
+
+package com.eviware.soapui.tools;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Properties;
+
+import org.junit.Test;
+
+public class TestCaseShardsTest
+{
+	@Test
+	public void assignsLongestFirstToLeastLoadedShard() throws Exception
+	{
+		int[] shards = TestCaseShards.assign( new long[] { 10, 50, 20, 30, 40 }, 2 );
+
+		// 50 -> 0, 40 -> 1, 30 -> 1, 20 -> 0, 10 -> 0
+		assertArrayEquals( new int[] { 0, 0, 0, 1, 1 }, shards );
+	}
+
+	@Test
+	public void spreadsUnknownTimesEvenly() throws Exception
+	{
+		int[] shards = TestCaseShards.assign( new long[6], 3 );
+
+		assertArrayEquals( new int[] { 0, 1, 2, 0, 1, 2 }, shards );
+	}
+
+	@Test
+	public void countsUnknownTimesAsAverage() throws Exception
+	{
+		int[] shards = TestCaseShards.assign( new long[] { 100, 0, 0, 10 }, 2 );
+
+		assertArrayEquals( new int[] { 0, 1, 1, 0 }, shards );
+	}
+
+	@Test
+	public void averagesMergedDurations() throws Exception
+	{
+		Properties durations = new Properties();
+		durations.setProperty( "a", "100" );
+		durations.setProperty( "b", "100" );
+
+		Properties recorded = new Properties();
+		recorded.setProperty( "a", "200" );
+		recorded.setProperty( "c", "50" );
+
+		TestCaseShards.mergeDurations( durations, recorded );
+
+		assertEquals( 150, TestCaseShards.getLong( durations, "a" ) );
+		assertEquals( 100, TestCaseShards.getLong( durations, "b" ) );
+		assertEquals( 50, TestCaseShards.getLong( durations, "c" ) );
+		assertEquals( 0, TestCaseShards.getLong( durations, "d" ) );
+	}
+}